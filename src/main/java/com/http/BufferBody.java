@@ -0,0 +1,56 @@
+package com.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A response body held in a buffer.
+ */
+final class BufferBody implements HttpBody {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a BufferBody.
+     *
+     * @param buffer the buffer holding the body, positioned at its first byte
+     */
+    BufferBody(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the length of the body.
+     *
+     * @return the number of bytes in the buffer
+     */
+    @Override
+    public long getLength() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Gets the bytes of the body.
+     *
+     * @return a fresh read-only view of the buffer
+     */
+    @Override
+    public ByteBuffer getContent() {
+        return buffer.duplicate();
+    }
+
+    /**
+     * Writes the whole buffer to a blocking channel.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer content = getContent();
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+}
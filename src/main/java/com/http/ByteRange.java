@@ -0,0 +1,131 @@
+package com.http;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An inclusive range of bytes requested with the Range header.
+ */
+public final class ByteRange {
+
+    private final long first;
+    private final long last;
+
+    /**
+     * Constructs a ByteRange.
+     *
+     * @param first the offset of the first byte
+     * @param last the offset of the last byte, inclusive
+     */
+    public ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parses a Range header against a representation of known length.
+     * Ranges that start beyond the end of the representation are dropped and the rest are clipped to it.
+     *
+     * @param header the Range header value
+     * @param length the length of the representation
+     * @param maxRanges the largest number of ranges accepted in one header
+     * @return the satisfiable ranges in the order they were requested, an empty list if none is satisfiable,
+     *         or null if the header is malformed or asks for too many ranges and should be ignored
+     */
+    public static List<ByteRange> parse(String header, long length, int maxRanges) {
+        if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = header.substring(6).split(",");
+        if (specs.length > maxRanges) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            String range = spec.trim();
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            long first = parseOffset(range.substring(0, dash));
+            long last = parseOffset(range.substring(dash + 1));
+            if (dash == 0) {
+                // Suffix range: the last N bytes
+                if (last < 0) {
+                    return null;
+                }
+                if (last > 0 && length > 0) {
+                    ranges.add(new ByteRange(Math.max(0, length - last), length - 1));
+                }
+                continue;
+            }
+            if (first < 0 || (dash < range.length() - 1 && (last < 0 || last < first))) {
+                return null;
+            }
+            if (first < length) {
+                long end = dash == range.length() - 1 ? length - 1 : Math.min(last, length - 1);
+                ranges.add(new ByteRange(first, end));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Gets the offset of the first byte.
+     *
+     * @return the first offset
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets the offset of the last byte, inclusive.
+     *
+     * @return the last offset
+     */
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * Gets the number of bytes in the range.
+     *
+     * @return the length of the range
+     */
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * Formats the range as a Content-Range header value.
+     *
+     * @param completeLength the length of the whole representation
+     * @return the header value, for example {@code bytes 0-499/1234}
+     */
+    public String toContentRange(long completeLength) {
+        return "bytes " + first + "-" + last + "/" + completeLength;
+    }
+
+    /**
+     * Parses a non-negative decimal offset.
+     *
+     * @param digits the digits to parse
+     * @return the offset, or -1 if the text is empty or not a valid offset
+     */
+    private static long parseOffset(String digits) {
+        if (digits.isEmpty() || digits.length() > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,240 @@
+package com.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An output stream that frames what is written to it with chunked transfer coding.
+ * Writes are coalesced into a buffer and sent as chunks of the buffer's size, so a producer writing a few bytes
+ * at a time does not put a chunk header on the wire for each of them. The buffer keeps room for the chunk
+ * header in front of the data and for the line ending after it, so a full chunk goes out in a single write.
+ * A write at least as large as the buffer is sent as a chunk of its own without being copied.
+ * <p>
+ * {@link #flush()} sends whatever is buffered as a shorter chunk, for producers that want earlier bytes to reach
+ * the client before the rest is ready. {@link #finish()} writes the last chunk followed by any trailer fields.
+ * Closing the stream finishes it but leaves the underlying stream open, since that belongs to the connection.
+ */
+public final class ChunkedOutputStream extends OutputStream {
+
+    /**
+     * The default size of the chunks sent for coalesced writes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static final int HEADER_SPACE = 10; // Eight hex digits and CRLF
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n'};
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final int chunkSize;
+    private final Map<String, String> trailers = new LinkedHashMap<>();
+    private int count;
+    private boolean finished;
+
+    /**
+     * Constructs a ChunkedOutputStream sending chunks of the default size.
+     *
+     * @param out the stream to write the framed bytes to
+     */
+    public ChunkedOutputStream(OutputStream out) {
+        this(out, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a ChunkedOutputStream.
+     *
+     * @param out the stream to write the framed bytes to
+     * @param chunkSize the number of bytes to coalesce into each chunk
+     */
+    public ChunkedOutputStream(OutputStream out, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.out = Objects.requireNonNull(out);
+        this.chunkSize = chunkSize;
+        this.buffer = new byte[HEADER_SPACE + chunkSize + CRLF.length];
+    }
+
+    /**
+     * Sets a trailer field, sent after the last chunk. Trailers can be set until the stream is finished,
+     * so a producer can send values, such as a checksum, that are only known once the body has been written.
+     *
+     * @param name the name of the field
+     * @param value the value of the field
+     */
+    public void setTrailer(String name, String value) {
+        if (name != null && value != null) {
+            trailers.put(name, value);
+        }
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param b the byte to write
+     * @throws IOException if an I/O error occurs or the stream is finished
+     */
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[HEADER_SPACE + count++] = (byte) b;
+        if (count == chunkSize) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Writes bytes, filling the current chunk before starting the next one.
+     *
+     * @param bytes the array holding the bytes
+     * @param offset the index of the first byte to write
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs or the stream is finished
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        ensureOpen();
+        if (count == 0 && length >= chunkSize) {
+            writeChunk(bytes, offset, length);
+            return;
+        }
+        while (length > 0) {
+            int copied = Math.min(length, chunkSize - count);
+            System.arraycopy(bytes, offset, buffer, HEADER_SPACE + count, copied);
+            count += copied;
+            offset += copied;
+            length -= copied;
+            if (count == chunkSize) {
+                writeBuffer();
+                if (length >= chunkSize) {
+                    writeChunk(bytes, offset, length);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the buffered bytes as a chunk and flushes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            writeBuffer();
+        }
+        out.flush();
+    }
+
+    /**
+     * Sends the buffered bytes, the last chunk and the trailer fields. Nothing can be written afterwards.
+     * The underlying stream is not flushed.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        writeBuffer();
+        finished = true;
+
+        int size = LAST_CHUNK.length + CRLF.length;
+        for (Map.Entry<String, String> trailer : trailers.entrySet()) {
+            size += trailer.getKey().length() + 2 + trailer.getValue().length() + CRLF.length;
+        }
+        byte[] end = new byte[size];
+        System.arraycopy(LAST_CHUNK, 0, end, 0, LAST_CHUNK.length);
+        int position = LAST_CHUNK.length;
+        for (Map.Entry<String, String> trailer : trailers.entrySet()) {
+            position = put(end, position, trailer.getKey());
+            end[position++] = ':';
+            end[position++] = ' ';
+            position = put(end, position, trailer.getValue());
+            end[position++] = '\r';
+            end[position++] = '\n';
+        }
+        end[position++] = '\r';
+        end[position] = '\n';
+        out.write(end);
+    }
+
+    /**
+     * Finishes the stream, leaving the underlying stream open.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * Sends the buffered bytes as one chunk, framed in place so it takes a single write.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBuffer() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        buffer[HEADER_SPACE - 2] = '\r';
+        buffer[HEADER_SPACE - 1] = '\n';
+        int start = HEADER_SPACE - 2;
+        for (int size = count; size != 0; size >>>= 4) {
+            buffer[--start] = HEX_DIGITS[size & 0xF];
+        }
+        buffer[HEADER_SPACE + count] = '\r';
+        buffer[HEADER_SPACE + count + 1] = '\n';
+        out.write(buffer, start, HEADER_SPACE + count + CRLF.length - start);
+        count = 0;
+    }
+
+    /**
+     * Sends bytes as a chunk of their own, without copying them into the buffer.
+     *
+     * @param bytes the array holding the bytes
+     * @param offset the index of the first byte of the chunk
+     * @param length the size of the chunk
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeChunk(byte[] bytes, int offset, int length) throws IOException {
+        out.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes, offset, length);
+        out.write(CRLF);
+    }
+
+    /**
+     * Rejects writes once the last chunk has been sent.
+     *
+     * @throws IOException if the stream is finished
+     */
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Chunked stream already finished");
+        }
+    }
+
+    /**
+     * Copies the characters of a header string into a byte array, one byte per character.
+     *
+     * @param target the array to copy into
+     * @param offset the offset of the first byte to write
+     * @param text the text to copy
+     * @return the offset just after the copied bytes
+     */
+    private static int put(byte[] target, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            target[offset++] = (byte) text.charAt(i);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,111 @@
+package com.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * A response body made of several bodies sent one after another, such as the parts of a multipart response.
+ */
+final class CompositeBody implements HttpBody {
+
+    private final List<HttpBody> parts;
+    private final long length;
+
+    /**
+     * Constructs a CompositeBody.
+     *
+     * @param parts the bodies to send, in order
+     */
+    CompositeBody(List<HttpBody> parts) {
+        this.parts = List.copyOf(parts);
+        long total = 0;
+        for (HttpBody part : this.parts) {
+            long partLength = part.getLength();
+            if (partLength < 0) {
+                total = -1;
+                break;
+            }
+            total += partLength;
+        }
+        this.length = total;
+    }
+
+    /**
+     * Gets the length of the body.
+     *
+     * @return the sum of the part lengths, or -1 if any part has an unknown length
+     */
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the bytes of the body.
+     *
+     * @return null, as the parts are sent one by one
+     */
+    @Override
+    public ByteBuffer getContent() {
+        return null;
+    }
+
+    /**
+     * Gets the parts of the body.
+     *
+     * @return the parts, in order
+     */
+    @Override
+    public List<HttpBody> getParts() {
+        return parts;
+    }
+
+    /**
+     * Writes every part to a blocking channel.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        for (HttpBody part : parts) {
+            part.writeTo(channel);
+        }
+    }
+
+    /**
+     * Writes every part to a blocking output stream.
+     *
+     * @param outputStream the output stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        for (HttpBody part : parts) {
+            part.writeTo(outputStream);
+        }
+    }
+
+    /**
+     * Closes every part.
+     *
+     * @throws IOException if a part cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (HttpBody part : parts) {
+            try {
+                part.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
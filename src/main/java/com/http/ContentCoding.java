@@ -0,0 +1,202 @@
+package com.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The content codings the server can apply to response bodies, and the Accept-Encoding negotiation that picks one.
+ */
+public final class ContentCoding {
+
+    /**
+     * The gzip content coding.
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * The deflate content coding, which HTTP defines as zlib-wrapped deflate data.
+     */
+    public static final String DEFLATE = "deflate";
+
+    private ContentCoding() {
+    }
+
+    /**
+     * Picks the coding to apply from an Accept-Encoding header.
+     * The supported coding with the highest quality value wins, gzip being preferred on a tie;
+     * a wildcard covers any supported coding the header does not name.
+     *
+     * @param acceptEncoding the Accept-Encoding header value, or null if the client sent none
+     * @return {@link #GZIP} or {@link #DEFLATE}, or null if the body should be sent unencoded
+     */
+    public static String negotiate(String acceptEncoding) {
+        float gzip = quality(acceptEncoding, GZIP);
+        float deflate = quality(acceptEncoding, DEFLATE);
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Determines whether a MIME type is worth compressing.
+     * Only textual types are; images, audio, video, fonts and archives are already compressed.
+     *
+     * @param contentType the MIME type, possibly with parameters, or null if it is unknown
+     * @return true if bodies of this type should be compressed
+     */
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/")
+                || type.startsWith("application/json")
+                || type.startsWith("application/javascript")
+                || type.startsWith("application/xml")
+                || type.startsWith("application/xhtml+xml")
+                || type.startsWith("image/svg+xml")
+                || type.contains("+json")
+                || type.contains("+xml");
+    }
+
+    /**
+     * Determines whether an Accept-Encoding header allows a content coding, even if it is not the preferred one.
+     *
+     * @param acceptEncoding the Accept-Encoding header value, or null if the client sent none
+     * @param coding {@link #GZIP} or {@link #DEFLATE}
+     * @return true if the coding has a non-zero quality value
+     */
+    public static boolean isAcceptable(String acceptEncoding, String coding) {
+        return quality(acceptEncoding, coding) > 0;
+    }
+
+    /**
+     * Compresses bytes with a content coding at the best compression level,
+     * since each result is computed once and then served many times.
+     *
+     * @param data the bytes to compress
+     * @param coding {@link #GZIP} or {@link #DEFLATE}
+     * @return the compressed bytes
+     */
+    public static byte[] encode(byte[] data, String coding) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        try (OutputStream out = newEncoder(bytes, coding)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Compressing in memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates a stream that compresses what is written to it with a content coding at the best compression level.
+     * Closing the stream finishes the coding and closes the underlying stream.
+     *
+     * @param out the stream to write the compressed bytes to
+     * @param coding {@link #GZIP} or {@link #DEFLATE}
+     * @return the compressing stream
+     * @throws IOException if the coding header cannot be written
+     */
+    public static OutputStream newEncoder(OutputStream out, String coding) throws IOException {
+        if (GZIP.equals(coding)) {
+            return new BestGzipOutputStream(out);
+        }
+        return new BestDeflaterOutputStream(out);
+    }
+
+    /**
+     * Gets the quality value an Accept-Encoding header gives a content coding.
+     *
+     * @param acceptEncoding the Accept-Encoding header value, or null if the client sent none
+     * @param coding {@link #GZIP} or {@link #DEFLATE}
+     * @return the quality of the coding, falling back to that of the wildcard, or -1 if neither is named
+     */
+    private static float quality(String acceptEncoding, String coding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return -1;
+        }
+        float named = -1;
+        float wildcard = -1;
+        for (String element : acceptEncoding.split(",")) {
+            int semicolon = element.indexOf(';');
+            String name = (semicolon < 0 ? element : element.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+            float quality = semicolon < 0 ? 1 : parseQuality(element.substring(semicolon + 1));
+            if (name.equals(coding) || (GZIP.equals(coding) && name.equals("x-gzip"))) {
+                named = quality;
+            } else if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        return named >= 0 ? named : wildcard;
+    }
+
+    /**
+     * Parses the quality parameter of an Accept-Encoding element.
+     *
+     * @param parameters the text after the coding's semicolon
+     * @return the quality value, 1 if absent, or 0 if malformed
+     */
+    private static float parseQuality(String parameters) {
+        String parameter = parameters.trim();
+        if (!parameter.startsWith("q=") && !parameter.startsWith("Q=")) {
+            return 1;
+        }
+        try {
+            return Float.parseFloat(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A gzip stream that compresses at the best compression level rather than the default one.
+     */
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+
+        /**
+         * Constructs a BestGzipOutputStream.
+         *
+         * @param out the stream to write the compressed bytes to
+         * @throws IOException if the gzip header cannot be written
+         */
+        BestGzipOutputStream(OutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+
+    /**
+     * A zlib stream that compresses at the best compression level and releases its deflater when closed.
+     */
+    private static final class BestDeflaterOutputStream extends DeflaterOutputStream {
+
+        /**
+         * Constructs a BestDeflaterOutputStream.
+         *
+         * @param out the stream to write the compressed bytes to
+         */
+        BestDeflaterOutputStream(OutputStream out) {
+            super(out, new Deflater(Deflater.BEST_COMPRESSION));
+        }
+
+        /**
+         * Finishes the coding, closes the underlying stream and releases the deflater.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+}
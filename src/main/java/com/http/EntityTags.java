@@ -0,0 +1,61 @@
+package com.http;
+
+/**
+ * Creates and compares entity tags.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * Creates the strong entity tag of a file version from its modification time and size,
+     * so the tag changes whenever the file does without its contents ever being hashed.
+     *
+     * @param lastModified the modification time of the file in milliseconds
+     * @param size the size of the file in bytes
+     * @return the quoted entity tag
+     */
+    public static String forFile(long lastModified, long size) {
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+    }
+
+    /**
+     * Creates the entity tag of an encoded representation from the tag of the unencoded one,
+     * since each representation needs its own strong validator.
+     *
+     * @param etag the quoted entity tag of the unencoded representation
+     * @param contentEncoding the content coding of the representation
+     * @return the quoted entity tag
+     */
+    public static String forEncoding(String etag, String contentEncoding) {
+        return etag.substring(0, etag.length() - 1) + "-" + contentEncoding + "\"";
+    }
+
+    /**
+     * Checks a comma-separated list of entity tags, as sent in If-None-Match, against a tag.
+     *
+     * @param header the header value
+     * @param etag the entity tag of the current representation
+     * @param weak true to use weak comparison, which ignores the {@code W/} prefix; false to use strong comparison
+     * @return true if the list is {@code *} or contains a matching tag
+     */
+    public static boolean matchesAny(String header, String etag, boolean weak) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,169 @@
+package com.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A region of a file used as a response body.
+ * The region is written with {@link FileChannel#transferTo}, which lets the operating system copy the
+ * bytes from the page cache straight to the socket (sendfile) without them ever landing on the Java heap.
+ * Transfers are resumable, so a non-blocking writer can send the region across several writability events.
+ */
+public class FileRegion implements HttpBody {
+
+    private final FileChannel fileChannel;
+    private final long position;
+    private final long count;
+    private long transferred;
+
+    /**
+     * Constructs a FileRegion over part of an open file.
+     *
+     * @param fileChannel the open file channel; the region takes ownership of it
+     * @param position the offset of the first byte of the region
+     * @param count the number of bytes in the region
+     */
+    public FileRegion(FileChannel fileChannel, long position, long count) {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException("Invalid file region: position=" + position + ", count=" + count);
+        }
+        this.fileChannel = fileChannel;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * Opens a region covering a whole file.
+     *
+     * @param path the path of the file
+     * @return the file region
+     * @throws IOException if the file cannot be opened
+     */
+    public static FileRegion open(Path path) throws IOException {
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new FileRegion(fileChannel, 0, fileChannel.size());
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a region covering part of a file.
+     *
+     * @param path the path of the file
+     * @param position the offset of the first byte of the region
+     * @param count the number of bytes in the region
+     * @return the file region
+     * @throws IOException if the file cannot be opened
+     */
+    public static FileRegion open(Path path, long position, long count) throws IOException {
+        return new FileRegion(FileChannel.open(path, StandardOpenOption.READ), position, count);
+    }
+
+    /**
+     * Gets the offset of the first byte of the region.
+     *
+     * @return the position in the file
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the number of bytes in the region.
+     *
+     * @return the length of the region
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the length of the body.
+     *
+     * @return the number of bytes in the region
+     */
+    @Override
+    public long getLength() {
+        return count;
+    }
+
+    /**
+     * Gets the bytes of the body.
+     *
+     * @return null, as the region is not held in memory
+     */
+    @Override
+    public ByteBuffer getContent() {
+        return null;
+    }
+
+    /**
+     * Determines whether every byte of the region has been transferred.
+     *
+     * @return true if the region has been transferred completely
+     */
+    public boolean isComplete() {
+        return transferred == count;
+    }
+
+    /**
+     * Transfers as many of the remaining bytes as the target accepts right now.
+     * A transfer that moves nothing is told apart from a full target by checking the file's size, so a file that was
+     * truncated after its length was sent fails instead of leaving the caller to retry forever.
+     *
+     * @param target the channel to write to
+     * @return the number of bytes transferred by this call
+     * @throws EOFException if the file is shorter than the region
+     * @throws IOException if an I/O error occurs
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long written = fileChannel.transferTo(position + transferred, count - transferred, target);
+        transferred += written;
+        if (written == 0 && !isComplete() && fileChannel.size() < position + count) {
+            throw new EOFException("File is shorter than the region being sent");
+        }
+        return written;
+    }
+
+    /**
+     * Transfers all remaining bytes to a blocking target.
+     *
+     * @param target the blocking channel to write to
+     * @throws EOFException if the file is shorter than the region
+     * @throws IOException if an I/O error occurs
+     */
+    public void transferFully(WritableByteChannel target) throws IOException {
+        while (!isComplete()) {
+            transferTo(target);
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the region to a blocking channel.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        transferFully(channel);
+    }
+
+    /**
+     * Closes the underlying file channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.http;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Table of canonical, lower-case header names.
+ * Names found in the table are returned as shared String instances straight from the raw request bytes,
+ * so parsing the usual browser headers does not allocate a String per header name.
+ */
+final class HeaderNames {
+
+    private static final String[] COMMON_NAMES = {
+            "accept", "accept-charset", "accept-encoding", "accept-language", "accept-ranges",
+            "authorization", "cache-control", "connection", "content-encoding", "content-length",
+            "content-type", "cookie", "date", "dnt", "expect", "forwarded", "host", "if-match",
+            "if-modified-since", "if-none-match", "if-range", "if-unmodified-since", "keep-alive",
+            "origin", "pragma", "priority", "range", "referer", "sec-ch-ua", "sec-ch-ua-mobile",
+            "sec-ch-ua-platform", "sec-fetch-dest", "sec-fetch-mode", "sec-fetch-site", "sec-fetch-user",
+            "te", "trailer", "transfer-encoding", "upgrade", "upgrade-insecure-requests", "user-agent",
+            "via", "x-forwarded-for", "x-forwarded-host", "x-forwarded-proto", "x-requested-with"
+    };
+
+    private static final int TABLE_SIZE = 128;
+    private static final String[] NAMES = new String[TABLE_SIZE];
+    private static final byte[][] NAME_BYTES = new byte[TABLE_SIZE][];
+
+    static {
+        for (String name : COMMON_NAMES) {
+            byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+            int slot = hash(bytes, 0, bytes.length) & (TABLE_SIZE - 1);
+            while (NAMES[slot] != null) {
+                slot = (slot + 1) & (TABLE_SIZE - 1);
+            }
+            NAMES[slot] = name;
+            NAME_BYTES[slot] = bytes;
+        }
+    }
+
+    private HeaderNames() {}
+
+    /**
+     * Returns the lower-case header name spelled by the given bytes, ignoring case.
+     *
+     * @param bytes the array holding the name
+     * @param from the index of the first byte of the name
+     * @param to the index after the last byte of the name
+     * @return the shared canonical name if it is a common header, otherwise a new lower-case String
+     */
+    static String lookup(byte[] bytes, int from, int to) {
+        int slot = hash(bytes, from, to) & (TABLE_SIZE - 1);
+        byte[] candidate;
+        while ((candidate = NAME_BYTES[slot]) != null) {
+            if (equalsIgnoreCase(candidate, bytes, from, to)) {
+                return NAMES[slot];
+            }
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+
+        byte[] lowerCase = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            lowerCase[i - from] = toLowerCase(bytes[i]);
+        }
+        return new String(lowerCase, StandardCharsets.US_ASCII);
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + toLowerCase(bytes[i]);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(byte[] lowerCase, byte[] bytes, int from, int to) {
+        if (lowerCase.length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            if (lowerCase[i] != toLowerCase(bytes[from + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
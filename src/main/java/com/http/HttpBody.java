@@ -0,0 +1,140 @@
+package com.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The body of a HTTP response.
+ * A body is either held in memory, in which case {@link #getContent()} exposes it so it can be written
+ * together with the response head in a single gathering write, or it is sent by {@link #writeTo},
+ * as file regions and streaming producers are.
+ */
+public interface HttpBody extends Closeable {
+
+    /**
+     * Produces the bytes of a streaming body.
+     */
+    @FunctionalInterface
+    interface Producer {
+
+        /**
+         * Writes the body to the specified output stream.
+         *
+         * @param outputStream the output stream to write to
+         * @throws IOException if an I/O error occurs
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Creates a body holding a byte array. The array is not copied.
+     *
+     * @param bytes the bytes of the body
+     * @return the body
+     */
+    static HttpBody of(byte[] bytes) {
+        return new BufferBody(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Creates a body holding the remaining bytes of a buffer. The bytes are not copied,
+     * and the position of the given buffer is left untouched.
+     *
+     * @param buffer the buffer holding the body
+     * @return the body
+     */
+    static HttpBody of(ByteBuffer buffer) {
+        return new BufferBody(buffer.slice());
+    }
+
+    /**
+     * Creates a body holding a string encoded as UTF-8.
+     *
+     * @param text the text of the body
+     * @return the body
+     */
+    static HttpBody of(String text) {
+        return of(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a body whose bytes are written by a producer when the response is sent.
+     *
+     * @param length the number of bytes the producer writes, or -1 if it is not known in advance
+     * @param producer the producer of the body
+     * @return the body
+     */
+    static HttpBody of(long length, Producer producer) {
+        return new StreamingBody(length, producer);
+    }
+
+    /**
+     * Creates a body that sends several bodies one after another.
+     * Closing it closes every part.
+     *
+     * @param parts the bodies to send, in order
+     * @return the body
+     */
+    static HttpBody concat(List<HttpBody> parts) {
+        return new CompositeBody(parts);
+    }
+
+    /**
+     * Gets the length of the body.
+     *
+     * @return the number of bytes in the body, or -1 if it is not known before the body is written
+     */
+    long getLength();
+
+    /**
+     * Gets the bytes of a body held in memory.
+     *
+     * @return a read-only buffer over the body, or null if the body is not held in memory
+     */
+    ByteBuffer getContent();
+
+    /**
+     * Gets the bodies this body is sent as, in order, so a non-blocking writer can send each part
+     * the way that suits it.
+     *
+     * @return the parts of a composite body, or a list holding just this body
+     */
+    default List<HttpBody> getParts() {
+        return List.of(this);
+    }
+
+    /**
+     * Writes the whole body to a blocking channel.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Writes the whole body to a blocking output stream.
+     * Streaming bodies hand the stream straight to their producer, which lets a producer writing a chunked
+     * response reach the {@link ChunkedOutputStream} to set trailers; other bodies write through a channel over it.
+     *
+     * @param outputStream the output stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    default void writeTo(OutputStream outputStream) throws IOException {
+        writeTo(Channels.newChannel(outputStream));
+    }
+
+    /**
+     * Releases any resources held by the body. Bodies held in memory have none.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,88 @@
+package com.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+
+/**
+ * A clock producing the value of the Date response header.
+ * HTTP dates have a resolution of one second, so the formatted date is shared by every response sent
+ * within the same second and re-formatted at most once per second, however many responses are sent.
+ */
+public final class HttpClock {
+
+    /**
+     * The clock backed by the system time, shared by every connection of a server.
+     */
+    public static final HttpClock SYSTEM = new HttpClock(System::currentTimeMillis);
+
+    private final LongSupplier millis;
+    private volatile Tick tick = new Tick(Long.MIN_VALUE, null, null);
+
+    /**
+     * Constructs an HttpClock.
+     *
+     * @param millis supplies the current time in milliseconds since the epoch
+     */
+    public HttpClock(LongSupplier millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * Gets the current time formatted as an HTTP-date.
+     *
+     * @return the current date
+     */
+    public String currentDate() {
+        return currentTick().date;
+    }
+
+    /**
+     * Gets the complete Date header line for the current time.
+     *
+     * @return the encoded {@code Date: ...\r\n} line; the array is shared and must not be modified
+     */
+    byte[] currentDateHeader() {
+        return currentTick().header;
+    }
+
+    /**
+     * Gets the formatted date of the current second, formatting it if the second has changed.
+     * Threads that race on a new second each format it once; any of their results is correct.
+     *
+     * @return the tick of the current second
+     */
+    private Tick currentTick() {
+        long now = millis.getAsLong();
+        long second = Math.floorDiv(now, 1000);
+        Tick current = tick;
+        if (current.second != second) {
+            String date = HttpDates.format(second * 1000);
+            current = new Tick(second, date, ("Date: " + date + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            tick = current;
+        }
+        return current;
+    }
+
+    /**
+     * The formatted date of one second.
+     */
+    private static final class Tick {
+
+        private final long second;
+        private final String date;
+        private final byte[] header;
+
+        /**
+         * Constructs a Tick.
+         *
+         * @param second the second since the epoch
+         * @param date the second formatted as an HTTP-date
+         * @param header the encoded Date header line
+         */
+        private Tick(long second, String date, byte[] header) {
+            this.second = second;
+            this.date = date;
+            this.header = header;
+        }
+    }
+}
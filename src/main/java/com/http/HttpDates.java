@@ -0,0 +1,46 @@
+package com.http;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Formats and parses the HTTP-date values used by headers such as Last-Modified and If-Modified-Since.
+ */
+public final class HttpDates {
+
+    private static final DateTimeFormatter IMF_FIXDATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private HttpDates() {
+    }
+
+    /**
+     * Formats a time as an HTTP-date, for example {@code Sun, 06 Nov 1994 08:49:37 GMT}.
+     *
+     * @param epochMillis the time in milliseconds since the epoch
+     * @return the formatted date
+     */
+    public static String format(long epochMillis) {
+        return IMF_FIXDATE.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * Parses an HTTP-date.
+     *
+     * @param value the header value
+     * @return the time in milliseconds since the epoch, or -1 if the value is not a valid HTTP-date
+     */
+    public static long parse(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value.trim())).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -4,5 +4,5 @@ package com.http;
  * Enum representing HTTP methods.
  */
 public enum HttpMethod {
-    GET, HEAD
+    GET, HEAD, PUT, POST
 }
@@ -1,21 +1,99 @@
 package com.http;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Parses HTTP requests from an input stream.
+ * The stream is read in bulk into a reused buffer that is handed to an {@link HttpRequestDecoder}.
+ * Bytes read past the end of a request stay buffered in the parser, so one parser should be kept per
+ * connection and used for every request on it, including pipelined ones.
+ * <p>
+ * By default request bodies are buffered before the request is returned. With streaming enabled,
+ * the request is returned as soon as its headers are parsed and its body is decoded from the stream as
+ * the handler reads {@link HttpRequest#getBodyStream()}; whatever the handler leaves unread is skipped
+ * before the next request is parsed.
+ * <p>
+ * A request sent with {@code Expect: 100-continue} is answered with the interim 100 Continue response when the
+ * handler first reads its body, so a handler that rejects the request without reading the body saves the client
+ * from sending it. The connection then cannot be reused, as the client may or may not send the body anyway.
  */
 public class HttpParser {
 
-    private static final int SP = 0x20; // Space
-    private static final int CR = 0x0D; // Carriage Return
-    private static final int LF = 0x0A; // Line Feed
-    private static final int MAX_REQUEST_LINE_LENGTH = 8192;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final HttpRequestDecoder decoder;
+    private final byte[] readBuffer;
+    private final ByteBuffer buffered;
+    private InputStream source;
+    private boolean streamingBody;
+    private BodyStream bodyStream;
+    private OutputStream continueStream;
+
+    /**
+     * Constructs an HttpParser with an empty read buffer.
+     */
+    public HttpParser() {
+        this.decoder = new HttpRequestDecoder();
+        this.readBuffer = new byte[READ_BUFFER_SIZE];
+        this.buffered = ByteBuffer.wrap(readBuffer);
+        this.buffered.limit(0);
+    }
+
+    /**
+     * Sets the maximum size of a request body. Larger bodies are rejected with 413 Content Too Large
+     * before any of it is read.
+     *
+     * @param maxBodySize the maximum body size in bytes
+     */
+    public void setMaxBodySize(long maxBodySize) {
+        decoder.setMaxBodySize(maxBodySize);
+    }
+
+    /**
+     * Sets whether request bodies are streamed to handlers instead of being buffered.
+     *
+     * @param streamingBody true to return requests once their headers are parsed
+     */
+    public void setStreamingBody(boolean streamingBody) {
+        this.streamingBody = streamingBody;
+        decoder.setStreamingBody(streamingBody);
+    }
+
+    /**
+     * Sets the stream the interim 100 Continue response is written to when a handler starts reading the body
+     * of a request that expects it. Without one, such requests are read as if they expected nothing.
+     *
+     * @param continueStream the output stream of the connection, or null to send no interim responses
+     */
+    public void setContinueStream(OutputStream continueStream) {
+        this.continueStream = continueStream;
+    }
+
+    /**
+     * Determines whether the current request is still waiting for a 100 Continue that was never sent,
+     * because its handler did not read the body. The connection has to be closed after the response,
+     * since whether the client sends the body regardless cannot be known.
+     *
+     * @return true if the body of the current request was never asked for
+     */
+    public boolean isAwaitingContinue() {
+        return bodyStream != null && bodyStream.awaitingContinue;
+    }
+
+    /**
+     * Determines whether the handler has left part of the current request's body unread.
+     *
+     * @return true if the current request has a streamed body that has not been read to its end
+     */
+    public boolean isBodyPending() {
+        return bodyStream != null && decoder.isBodyPending();
+    }
 
     /**
      * Parses an HTTP request from the given input stream.
@@ -26,195 +104,194 @@ public class HttpParser {
      * @throws IOException if there is an I/O error
      */
     public HttpRequest parseHttpRequest(InputStream inputStream) throws HttpParsingException, IOException {
-        InputStreamReader reader = new InputStreamReader(inputStream, StandardCharsets.US_ASCII);
-        HttpRequest request = new HttpRequest();
-
-        parseRequestLine(reader, request);
-        parseHeaders(reader, request);
-        parseBody(reader, request);
+        bind(inputStream);
+        skipBody();
+        decoder.reset();
 
+        HttpRequestDecoder.Status status = decoder.decode(buffered);
+        while (status == HttpRequestDecoder.Status.INCOMPLETE) {
+            status = fill() ? decoder.decode(buffered) : decoder.endOfInput();
+        }
+        if (status == HttpRequestDecoder.Status.ERROR) {
+            throw decoder.getError();
+        }
+        HttpRequest request = decoder.getRequest();
+        if (decoder.isBodyPending()) {
+            bodyStream = new BodyStream(continueStream != null
+                    && "100-continue".equalsIgnoreCase(request.getHeader("Expect")));
+            request.setBodyStream(bodyStream);
+        }
         return request;
     }
 
     /**
-     * Parses the request line from the input stream reader and updates the HttpRequest object.
+     * Waits until the next request starts to arrive on the given input stream.
+     * Bytes already buffered from a pipelined request count as a started request.
      *
-     * @param reader the InputStreamReader to read from
-     * @param request the HttpRequest object to update
-     * @throws HttpParsingException if there is an error parsing the request line
+     * @param inputStream the input stream to read from
+     * @return true if there are bytes to parse, false if the stream ended before another request started
      * @throws IOException if there is an I/O error
      */
-    private void parseRequestLine(InputStreamReader reader, HttpRequest request) throws HttpParsingException, IOException {
-        StringBuilder processingDataBuffer = new StringBuilder();
-        int _byte;
-        int stage = 0; // 0: method, 1: URI, 2: HTTP version
-
-        // Read the request line
-        while ((_byte = reader.read()) >= 0) {
-            if (processingDataBuffer.length() > MAX_REQUEST_LINE_LENGTH) {
-                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG);
-            }
-
-            if (_byte == CR) {
-                _byte = reader.read();
-                if (_byte == LF) {
-                    break;
-                } else {
-                    throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Invalid line ending
-                }
-            } else if (_byte == SP) {
-                if (stage == 0) {
-                    request.setMethod(processingDataBuffer.toString());
-                    stage = 1;
-                } else if (stage == 1) {
-                    request.setRequestTarget(processingDataBuffer.toString());
-                    stage = 2;
-                }
-                processingDataBuffer.setLength(0); // Clear the buffer
-            } else {
-                processingDataBuffer.append((char) _byte);
-            }
-        }
-
-        if (stage != 2 || processingDataBuffer.length() == 0) {
-            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Incomplete request line
+    public boolean hasNextRequest(InputStream inputStream) throws IOException {
+        bind(inputStream);
+        try {
+            skipBody();
+        } catch (HttpParsingException e) {
+            return false; // The connection cannot be reused once the framing of a body is broken
         }
-
-        request.setHttpVersion(processingDataBuffer.toString());
+        return buffered.hasRemaining() || fill();
     }
 
     /**
-     * Parses the headers from the input stream reader and updates the HttpRequest object.
+     * Associates the parser with a stream, discarding bytes buffered from a different one.
      *
-     * @param reader the InputStreamReader to read from
-     * @param request the HttpRequest object to update
-     * @throws HttpParsingException if there is an error parsing the headers
-     * @throws IOException if there is an I/O error
+     * @param inputStream the input stream to read from
      */
-    private void parseHeaders(InputStreamReader reader, HttpRequest request) throws HttpParsingException, IOException {
-        Map<String, String> headers = new HashMap<>();
-        String line;
-        String currentHeader = null;
-
-        while ((line = readLine(reader)) != null && !line.isEmpty()) {
-            if (Character.isWhitespace(line.charAt(0)) && currentHeader != null) {
-                // Continuation of the previous header line
-                headers.put(currentHeader, headers.get(currentHeader) + " " + line.trim());
-            } else {
-                int colonIndex = line.indexOf(":");
-                if (colonIndex == -1) {
-                    throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Invalid header line
-                }
-                currentHeader = line.substring(0, colonIndex).trim();
-                String headerValue = line.substring(colonIndex + 1).trim();
-                headers.put(currentHeader, headerValue);
+    private void bind(InputStream inputStream) {
+        if (inputStream != source) {
+            source = inputStream;
+            buffered.limit(0);
+            if (bodyStream != null) {
+                bodyStream.closed = true;
+                bodyStream = null;
+                decoder.reset();
             }
         }
-
-        request.setHeaders(headers);
     }
 
     /**
-     * Parses the body from the input stream reader and updates the HttpRequest object.
+     * Reads and discards whatever the handler left unread of the previous request's streamed body,
+     * so the next request starts at the right place.
      *
-     * @param reader the InputStreamReader to read from
-     * @param request the HttpRequest object to update
-     * @throws HttpParsingException if there is an error parsing the body
-     * @throws IOException if there is an I/O error
+     * @throws HttpParsingException if the body framing is invalid, or the body was held back for a 100 Continue
+     * that was never sent
+     * @throws IOException if there is an I/O error or the stream ends within the body
      */
-    private void parseBody(InputStreamReader reader, HttpRequest request) throws HttpParsingException, IOException {
-        Map<String, String> headers = request.getHeaders();
-        if (headers.containsKey("Content-Length")) {
-            int contentLength = Integer.parseInt(headers.get("Content-Length"));
-            char[] body = new char[contentLength];
-            int bytesRead = reader.read(body, 0, contentLength);
-
-            if (bytesRead != contentLength) {
-                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
-                        "Incomplete body: Expected " + contentLength + " bytes, but read " + bytesRead);
-            }
-
-            request.setBody(new String(body));
-        } else if ("chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"))) {
-            request.setBody(parseChunkedBody(reader));
-        } else {
-            request.setBody(""); // No body
+    private void skipBody() throws HttpParsingException, IOException {
+        if (bodyStream == null) {
+            return;
+        }
+        BodyStream previous = bodyStream;
+        bodyStream = null;
+        if (previous.awaitingContinue) {
+            previous.closed = true;
+            decoder.reset();
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Body of a request expecting 100-continue was never read");
+        }
+        byte[] discard = new byte[READ_BUFFER_SIZE];
+        while (previous.readBody(discard, 0, discard.length) >= 0) {
+            // Discard
         }
+        previous.closed = true;
     }
 
     /**
-     * Parses the chunked body from the input stream reader.
+     * Reads the next block of bytes into the read buffer. The decoder consumes every byte of an
+     * incomplete request, so the buffer is always empty when it needs refilling.
      *
-     * @param reader the InputStreamReader to read from
-     * @return the parsed body as a string
-     * @throws HttpParsingException if there is an error parsing the chunked body
+     * @return true if bytes were read, false at the end of the stream
      * @throws IOException if there is an I/O error
      */
-    private String parseChunkedBody(InputStreamReader reader) throws IOException, HttpParsingException {
-        StringBuilder body = new StringBuilder();
-        String line;
-
-        while (true) {
-            // Read the chunk size line
-            line = readLine(reader);
-            if (line == null || line.trim().isEmpty()) {
-                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid chunk size line");
-            }
+    private boolean fill() throws IOException {
+        int read = source.read(readBuffer, 0, readBuffer.length);
+        if (read < 0) {
+            return false;
+        }
+        buffered.position(0);
+        buffered.limit(read);
+        return true;
+    }
 
-            int chunkSize;
-            try {
-                chunkSize = Integer.parseInt(line.trim(), 16);
-            } catch (NumberFormatException e) {
-                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid chunk size: " + line.trim());
-            }
+    /**
+     * The body of the current request, decoded from the parser's buffer and stream as it is read.
+     * The stream is cut off once the parser moves on to the next request.
+     */
+    private final class BodyStream extends InputStream {
 
-            if (chunkSize == 0) {
-                // Read the trailing CRLF after the last chunk
-                line = readLine(reader);
-                if (line == null || !line.isEmpty()) {
-                    throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid chunk ending: expected CRLF but got: " + line);
-                }
-                break;
-            }
+        private final byte[] single = new byte[1];
+        private boolean closed;
+        private boolean awaitingContinue;
 
-            char[] chunk = new char[chunkSize];
-            int bytesRead = reader.read(chunk, 0, chunkSize);
-            if (bytesRead != chunkSize) {
-                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Incomplete chunk: Expected " + chunkSize + " bytes, but read " + bytesRead);
-            }
+        /**
+         * Constructs a BodyStream.
+         *
+         * @param awaitingContinue true if 100 Continue has to be sent before the body is read
+         */
+        BodyStream(boolean awaitingContinue) {
+            this.awaitingContinue = awaitingContinue;
+        }
 
-            body.append(chunk);
-            // Read the trailing CRLF after each chunk
-            line = readLine(reader);
-            if (line == null || !line.isEmpty()) {
-                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid chunk ending: expected CRLF but got: " + line);
-            }
+        /**
+         * Reads a single byte of the body.
+         *
+         * @return the byte, or -1 at the end of the body
+         * @throws IOException if there is an I/O error or the body is invalid
+         */
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
         }
 
-        return body.toString();
-    }
+        /**
+         * Reads bytes of the body into an array.
+         *
+         * @param bytes the array to read into
+         * @param offset the index of the first byte to write
+         * @param length the maximum number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the body
+         * @throws IOException if there is an I/O error or the body is invalid; a body that is too large or
+         * badly framed surfaces as an IOException caused by the {@link HttpParsingException}
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (awaitingContinue) {
+                awaitingContinue = false;
+                continueStream.write(CONTINUE);
+                continueStream.flush();
+            }
+            try {
+                return readBody(bytes, offset, length);
+            } catch (HttpParsingException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
 
-    /**
-     * Reads a line from the input stream reader.
-     *
-     * @param reader the InputStreamReader to read from
-     * @return the line read from the input stream, or null if end of stream is reached
-     * @throws IOException if there is an I/O error
-     */
-    private String readLine(InputStreamReader reader) throws IOException {
-        StringBuilder line = new StringBuilder();
-        int _byte;
-        while ((_byte = reader.read()) >= 0) {
-            if (_byte == CR) {
-                _byte = reader.read();
-                if (_byte == LF) {
-                    break;
-                } else {
-                    throw new IOException("Invalid line ending: expected LF after CR");
+        /**
+         * Reads body bytes, refilling the parser's buffer from the stream until at least one is available.
+         *
+         * @param bytes the array to read into
+         * @param offset the index of the first byte to write
+         * @param length the maximum number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the body
+         * @throws HttpParsingException if the body is invalid
+         * @throws IOException if there is an I/O error or the stream ends within the body
+         */
+        private int readBody(byte[] bytes, int offset, int length) throws HttpParsingException, IOException {
+            while (true) {
+                int read = decoder.readBody(buffered, bytes, offset, length);
+                if (read != 0) {
+                    return read;
+                }
+                if (!fill()) {
+                    decoder.endOfInput();
+                    throw new EOFException("Unexpected end of request body");
                 }
             }
-            line.append((char) _byte);
         }
-        return line.length() == 0 && _byte < 0 ? null : line.toString();
+
+        /**
+         * Cuts the stream off. Unread bytes are skipped when the next request is parsed.
+         */
+        @Override
+        public void close() {
+            closed = true;
+        }
     }
 }
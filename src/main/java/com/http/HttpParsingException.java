@@ -13,8 +13,7 @@ public class HttpParsingException extends Exception {
      * @param errorCode the HTTP status code representing the error
      */
     public HttpParsingException(HttpStatusCode errorCode) {
-        super(errorCode != null ? errorCode.MESSAGE : null);
-        this.errorCode = errorCode;
+        this(errorCode, errorCode != null ? errorCode.MESSAGE : null);
     }
 
     /**
@@ -36,4 +35,22 @@ public class HttpParsingException extends Exception {
     public HttpStatusCode getErrorCode() {
         return errorCode;
     }
+
+    /**
+     * Gets the numerical HTTP status code to respond with.
+     *
+     * @return the status code, 400 if none was given
+     */
+    public int getStatusCode() {
+        return errorCode != null ? errorCode.STATUS_CODE : HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST.STATUS_CODE;
+    }
+
+    /**
+     * Gets the reason phrase to respond with.
+     *
+     * @return the reason phrase, "Bad Request" if none was given
+     */
+    public String getReasonPhrase() {
+        return errorCode != null ? errorCode.MESSAGE : HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST.MESSAGE;
+    }
 }
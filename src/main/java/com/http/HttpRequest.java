@@ -1,5 +1,10 @@
 package com.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -13,6 +18,9 @@ public class HttpRequest extends HttpMessage {
     private HttpVersion httpVersion;
     private final Map<String, String> headers;
     private String body;
+    private byte[] bodyBytes;
+    private int bodyLength;
+    private InputStream bodyStream;
 
     /**
      * Constructs an HttpRequest.
@@ -49,6 +57,15 @@ public class HttpRequest extends HttpMessage {
         throw new HttpParsingException(HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED);
     }
 
+    /**
+     * Sets the HTTP method of the request once the parser has already resolved it.
+     *
+     * @param method the HTTP method
+     */
+    void setResolvedMethod(HttpMethod method) {
+        this.method = method;
+    }
+
     /**
      * Gets the request target (URI) of the request.
      *
@@ -93,6 +110,15 @@ public class HttpRequest extends HttpMessage {
         this.httpVersion = HttpVersion.getBestCompatibleVersion(httpVersion);
     }
 
+    /**
+     * Sets the HTTP version of the request once the parser has already resolved it.
+     *
+     * @param httpVersion the HTTP version
+     */
+    void setResolvedHttpVersion(HttpVersion httpVersion) {
+        this.httpVersion = httpVersion;
+    }
+
     /**
      * Gets the headers of the request.
      *
@@ -102,6 +128,50 @@ public class HttpRequest extends HttpMessage {
         return headers;
     }
 
+    /**
+     * Gets the value of a single request header.
+     *
+     * @param name the name of the header, matched case-insensitively
+     * @return the header value, or null if the header is not present
+     */
+    public String getHeader(String name) {
+        return name != null ? headers.get(name) : null;
+    }
+
+    /**
+     * Determines whether the client wants the connection kept open after this request.
+     * Connections are persistent unless the Connection header carries the {@code close} option.
+     *
+     * @return true if the connection should be kept alive, false otherwise
+     */
+    public boolean isKeepAlive() {
+        String connection = headers.get("Connection");
+        if (connection == null) {
+            return true;
+        }
+        int length = connection.length();
+        int from = 0;
+        while (from < length) {
+            int to = connection.indexOf(',', from);
+            if (to < 0) {
+                to = length;
+            }
+            int start = from;
+            int end = to;
+            while (start < end && Character.isWhitespace(connection.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(connection.charAt(end - 1))) {
+                end--;
+            }
+            if (end - start == 5 && connection.regionMatches(true, start, "close", 0, 5)) {
+                return false;
+            }
+            from = to + 1;
+        }
+        return true;
+    }
+
     /**
      * Sets the headers of the request.
      *
@@ -137,14 +207,54 @@ public class HttpRequest extends HttpMessage {
     }
 
     /**
-     * Gets the body of the request.
+     * Adds a header the parser has already normalised and trimmed, replacing any earlier value.
+     *
+     * @param name the lower-case header name
+     * @param value the trimmed header value
+     */
+    void addHeader(String name, String value) {
+        this.headers.put(name, value);
+    }
+
+    /**
+     * Gets the body of the request as text.
+     * A body that has not been read yet is read in full the first time it is asked for;
+     * handlers that may receive large bodies should use {@link #getBodyStream()} instead.
      *
      * @return the body
+     * @throws UncheckedIOException if a streamed body cannot be read
      */
     public String getBody() {
+        if (body == null && (bodyBytes != null || bodyStream != null)) {
+            try {
+                byte[] bytes = bodyBytes != null ? bodyBytes : bodyStream.readAllBytes();
+                int length = bodyBytes != null ? bodyLength : bytes.length;
+                body = new String(bytes, 0, length, StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         return body;
     }
 
+    /**
+     * Gets the body of the request as a stream of bytes.
+     * When the connection streams request bodies, the bytes are decoded from the connection as they are read,
+     * so a body of any permitted size is processed in constant memory. The stream can be read only once.
+     *
+     * @return the body stream, empty if the request has no body
+     */
+    public InputStream getBodyStream() {
+        if (bodyStream != null) {
+            return bodyStream;
+        }
+        if (bodyBytes != null) {
+            return new ByteArrayInputStream(bodyBytes, 0, bodyLength);
+        }
+        byte[] text = body != null ? body.getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        return new ByteArrayInputStream(text);
+    }
+
     /**
      * Sets the body of the request.
      *
@@ -156,5 +266,31 @@ public class HttpRequest extends HttpMessage {
             throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
         }
         this.body = body;
+        this.bodyBytes = null;
+        this.bodyStream = null;
+    }
+
+    /**
+     * Sets a body the decoder has buffered. The array is not copied.
+     *
+     * @param bytes the array holding the body, or null if the request has no body
+     * @param length the number of body bytes in the array
+     */
+    void setBodyBytes(byte[] bytes, int length) {
+        this.body = bytes == null ? "" : null;
+        this.bodyBytes = bytes;
+        this.bodyLength = length;
+        this.bodyStream = null;
+    }
+
+    /**
+     * Sets a body that is decoded from the connection as it is read.
+     *
+     * @param bodyStream the stream of body bytes
+     */
+    void setBodyStream(InputStream bodyStream) {
+        this.body = null;
+        this.bodyBytes = null;
+        this.bodyStream = bodyStream;
     }
 }
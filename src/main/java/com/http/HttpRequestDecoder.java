@@ -0,0 +1,778 @@
+package com.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental, push-style HTTP request parser.
+ * Bytes are fed in as they arrive through {@link #decode(ByteBuffer)}, in chunks of any size; the parse
+ * state is kept between calls, so a request split across several TCP segments is reassembled without
+ * blocking and without re-reading what was already seen. The decoder never consumes bytes past the end
+ * of the current request, which leaves pipelined requests in the caller's buffer.
+ * <p>
+ * Lines are scanned in place in the caller's bytes and only copied into the reusable line buffer when
+ * they straddle two chunks. Methods, the HTTP/1.1 version and common header names resolve to shared
+ * constants, so a typical request allocates little beyond its target and header values.
+ * <p>
+ * Bodies are limited to a maximum size, checked against the Content-Length header and the chunk sizes
+ * before any body byte is stored, so an oversized body is rejected with 413 without being buffered.
+ * By default the body is buffered and the request completes once it has been received. In streaming mode,
+ * the request completes as soon as its headers have been decoded, and its body is then decoded on demand
+ * through {@link #readBody}, straight into the caller's array, so a body of any permitted size needs no buffer.
+ * <p>
+ * A decoder handles one request at a time and is not thread-safe; call {@link #reset()} to reuse it
+ * for the next request on the same connection.
+ */
+public class HttpRequestDecoder {
+
+    /**
+     * The outcome of feeding bytes to the decoder.
+     */
+    public enum Status {
+        /** More bytes are needed before the request is complete. */
+        INCOMPLETE,
+        /** A whole request has been decoded and is available from {@link #getRequest()}. */
+        COMPLETE,
+        /** The bytes do not form a valid request; the cause is available from {@link #getError()}. */
+        ERROR
+    }
+
+    private enum State {
+        REQUEST_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, DONE, FAILED
+    }
+
+    private static final byte SP = 0x20; // Space
+    private static final byte HT = 0x09; // Horizontal Tab
+    private static final byte CR = 0x0D; // Carriage Return
+    private static final byte LF = 0x0A; // Line Feed
+    private static final byte COLON = 0x3A;
+    private static final byte SEMICOLON = 0x3B;
+    private static final int MAX_REQUEST_LINE_LENGTH = 8192;
+    private static final int MAX_HEADER_LINE_LENGTH = 8192;
+    private static final int MAX_HEADERS_SIZE = 65536;
+    private static final int SCRATCH_SIZE = 4096;
+    private static final long MAX_BUFFERED_BODY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The default maximum size of a request body, in bytes.
+     */
+    public static final long DEFAULT_MAX_BODY_SIZE = 10L * 1024 * 1024;
+
+    private static final HttpMethod[] METHODS = HttpMethod.values();
+    private static final byte[][] METHOD_NAMES = new byte[METHODS.length][];
+    private static final byte[] HTTP_1_1 = HttpVersion.HTTP_1_1.LITERAL.getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_NAMES[i] = METHODS[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private State state;
+    private HttpRequest request;
+    private HttpParsingException error;
+    private String lastHeaderName;
+    private int headersSize;
+
+    private byte[] line;
+    private int lineLength;
+    private byte[] scratch;
+
+    private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private boolean streamingBody;
+    private boolean bodyStarted;
+    private long bodyRemaining;
+    private long bodySize;
+    private byte[] body;
+    private int bodyLength;
+    private ByteArrayOutputStream chunkedBody;
+    private int chunkRemaining;
+    private byte[] target;
+    private int targetOffset;
+    private int targetEnd;
+
+    /**
+     * Constructs an HttpRequestDecoder ready to decode a request.
+     */
+    public HttpRequestDecoder() {
+        this.line = new byte[256];
+        reset();
+    }
+
+    /**
+     * Discards the current request and prepares the decoder for the next one.
+     * Internal buffers are kept so they can be reused.
+     */
+    public void reset() {
+        state = State.REQUEST_LINE;
+        request = new HttpRequest();
+        error = null;
+        lastHeaderName = null;
+        headersSize = 0;
+        lineLength = 0;
+        bodyStarted = false;
+        bodyRemaining = 0;
+        bodySize = 0;
+        body = null;
+        bodyLength = 0;
+        chunkedBody = null;
+        chunkRemaining = 0;
+    }
+
+    /**
+     * Sets the maximum size of a request body. Larger bodies are rejected with 413 Content Too Large.
+     *
+     * @param maxBodySize the maximum body size in bytes
+     */
+    public void setMaxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Sets whether request bodies are streamed through {@link #readBody} instead of being buffered.
+     *
+     * @param streamingBody true to complete requests after their headers and stream their bodies
+     */
+    public void setStreamingBody(boolean streamingBody) {
+        this.streamingBody = streamingBody;
+    }
+
+    /**
+     * Determines whether the body of the current request has yet to be read through {@link #readBody}.
+     *
+     * @return true if the request has a streamed body that has not been read to its end
+     */
+    public boolean isBodyPending() {
+        return bodyStarted && state != State.DONE;
+    }
+
+    /**
+     * Determines whether the request line and headers of the current request have been decoded,
+     * whether its body is buffered or streamed.
+     *
+     * @return true once the decoder has moved on to the body, or has completed a request without one
+     */
+    public boolean isHeaderComplete() {
+        return state != State.REQUEST_LINE && state != State.HEADERS && state != State.FAILED;
+    }
+
+    /**
+     * Feeds bytes to the decoder.
+     * Bytes are consumed from the buffer's position up to the end of the current request at most;
+     * anything after it is left in the buffer for the next request.
+     *
+     * @param buffer the buffer holding newly received bytes, ready for reading
+     * @return the status of the request after consuming the bytes
+     */
+    public Status decode(ByteBuffer buffer) {
+        if (state == State.FAILED) {
+            return Status.ERROR;
+        }
+        if (state == State.DONE || bodyStarted) {
+            return Status.COMPLETE;
+        }
+
+        try {
+            feed(buffer);
+        } catch (HttpParsingException e) {
+            return fail(e);
+        }
+
+        if (state == State.DONE || bodyStarted) {
+            return Status.COMPLETE;
+        }
+        return Status.INCOMPLETE;
+    }
+
+    /**
+     * Decodes body bytes of a streamed body into an array.
+     * Framing, such as chunk sizes and trailers, is consumed along the way and never copied.
+     *
+     * @param buffer the buffer holding received bytes, ready for reading
+     * @param bytes the array to copy body bytes into
+     * @param offset the index of the first byte to write
+     * @param length the maximum number of bytes to write
+     * @return the number of bytes copied, 0 if the buffer holds no body bytes yet, or -1 at the end of the body
+     * @throws HttpParsingException if the body framing is invalid or the body is too large
+     */
+    public int readBody(ByteBuffer buffer, byte[] bytes, int offset, int length) throws HttpParsingException {
+        if (state == State.FAILED) {
+            throw error;
+        }
+        if (!bodyStarted || state == State.DONE) {
+            return -1;
+        }
+        target = bytes;
+        targetOffset = offset;
+        targetEnd = offset + length;
+        try {
+            feed(buffer);
+        } catch (HttpParsingException e) {
+            fail(e);
+            throw e;
+        } finally {
+            target = null;
+        }
+        int copied = targetOffset - offset;
+        return copied == 0 && state == State.DONE ? -1 : copied;
+    }
+
+    /**
+     * Signals that no more bytes will arrive for the current request.
+     * A request whose header section is cut off by the end of input at a line boundary is accepted
+     * as long as it does not announce a body; anything else is an incomplete request.
+     *
+     * @return COMPLETE if the request could be completed, ERROR otherwise
+     */
+    public Status endOfInput() {
+        if (state == State.DONE) {
+            return Status.COMPLETE;
+        }
+        if (state == State.HEADERS && lineLength == 0) {
+            try {
+                startBody();
+            } catch (HttpParsingException e) {
+                return fail(e);
+            }
+            if (state == State.DONE) {
+                return Status.COMPLETE;
+            }
+        }
+        if (state != State.FAILED) {
+            fail(new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Unexpected end of request"));
+        }
+        return Status.ERROR;
+    }
+
+    /**
+     * Gets the decoded request.
+     *
+     * @return the request, or null if decoding has not completed; in streaming mode, the request is
+     * available once its headers have been decoded
+     */
+    public HttpRequest getRequest() {
+        return state == State.DONE || (bodyStarted && state != State.FAILED) ? request : null;
+    }
+
+    /**
+     * Gets the reason decoding failed.
+     *
+     * @return the parsing error, or null if decoding has not failed
+     */
+    public HttpParsingException getError() {
+        return error;
+    }
+
+    /**
+     * Runs the state machine over the bytes of a buffer, advancing its position past the bytes consumed.
+     *
+     * @param buffer the buffer holding received bytes, ready for reading
+     * @throws HttpParsingException if the bytes do not form a valid request
+     */
+    private void feed(ByteBuffer buffer) throws HttpParsingException {
+        if (buffer.hasArray()) {
+            int start = buffer.arrayOffset() + buffer.position();
+            int consumed = process(buffer.array(), start, start + buffer.remaining());
+            buffer.position(buffer.position() + consumed);
+        } else {
+            if (scratch == null) {
+                scratch = new byte[SCRATCH_SIZE];
+            }
+            while (buffer.hasRemaining() && state != State.DONE && !isPaused()) {
+                int length = Math.min(buffer.remaining(), scratch.length);
+                buffer.get(buffer.position(), scratch, 0, length);
+                buffer.position(buffer.position() + process(scratch, 0, length));
+            }
+        }
+    }
+
+    /**
+     * Determines whether decoding has to stop until the caller asks for more of a streamed body.
+     *
+     * @return true if a streamed body has no room to be decoded into
+     */
+    private boolean isPaused() {
+        return bodyStarted && (target == null
+                || ((state == State.BODY || state == State.CHUNK_DATA) && targetOffset == targetEnd));
+    }
+
+    /**
+     * Runs the state machine over a slice of bytes.
+     *
+     * @param bytes the array holding the bytes
+     * @param from the index of the first byte to process
+     * @param to the index after the last byte to process
+     * @return the number of bytes consumed
+     * @throws HttpParsingException if the bytes do not form a valid request
+     */
+    private int process(byte[] bytes, int from, int to) throws HttpParsingException {
+        int position = from;
+        while (position < to && state != State.DONE && !isPaused()) {
+            if (state == State.BODY || state == State.CHUNK_DATA) {
+                position = readBody(bytes, position, to);
+                continue;
+            }
+
+            int lineFeed = position;
+            while (lineFeed < to && bytes[lineFeed] != LF) {
+                lineFeed++;
+            }
+            checkLineLength(lineLength + lineFeed - position);
+
+            if (lineFeed == to) {
+                // The line continues in the next chunk
+                appendToLine(bytes, position, to);
+                return to - from;
+            }
+            if (lineLength == 0) {
+                onLine(bytes, position, lineEnd(bytes, position, lineFeed));
+            } else {
+                appendToLine(bytes, position, lineFeed);
+                onLine(line, 0, lineEnd(line, 0, lineLength));
+                lineLength = 0;
+            }
+            position = lineFeed + 1;
+        }
+        return position - from;
+    }
+
+    /**
+     * Rejects lines longer than the limit for the current state.
+     *
+     * @param length the length of the line so far, including any trailing carriage return
+     * @throws HttpParsingException if the line is too long
+     */
+    private void checkLineLength(int length) throws HttpParsingException {
+        if (state == State.REQUEST_LINE) {
+            if (length > MAX_REQUEST_LINE_LENGTH + 1) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG);
+            }
+        } else if (length > MAX_HEADER_LINE_LENGTH + 1) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Header line too long");
+        }
+    }
+
+    /**
+     * Copies part of a line into the line buffer, growing it when needed.
+     *
+     * @param bytes the array holding the bytes
+     * @param from the index of the first byte to copy
+     * @param to the index after the last byte to copy
+     */
+    private void appendToLine(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(bytes, from, line, lineLength, length);
+        lineLength += length;
+    }
+
+    /**
+     * Finds the end of a line's content, dropping the carriage return before the line feed.
+     *
+     * @param bytes the array holding the line
+     * @param from the index of the first byte of the line
+     * @param to the index of the line feed
+     * @return the index after the last content byte
+     * @throws HttpParsingException if the line contains a stray carriage return
+     */
+    private int lineEnd(byte[] bytes, int from, int to) throws HttpParsingException {
+        int end = to > from && bytes[to - 1] == CR ? to - 1 : to;
+        for (int i = from; i < end; i++) {
+            if (bytes[i] == CR) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Invalid line ending
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Handles a complete line according to the current state.
+     *
+     * @param bytes the array holding the line
+     * @param from the index of the first byte of the line
+     * @param to the index after the last byte of the line, without the line ending
+     * @throws HttpParsingException if the line is invalid
+     */
+    private void onLine(byte[] bytes, int from, int to) throws HttpParsingException {
+        switch (state) {
+            case REQUEST_LINE:
+                if (to == from) {
+                    break; // Tolerate empty lines left over before the request line
+                }
+                parseRequestLine(bytes, from, to);
+                state = State.HEADERS;
+                break;
+            case HEADERS:
+                if (to == from) {
+                    startBody();
+                } else {
+                    parseHeaderLine(bytes, from, to);
+                }
+                break;
+            case CHUNK_SIZE:
+                parseChunkSize(bytes, from, to);
+                break;
+            case CHUNK_END:
+                if (to != from) {
+                    throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                            "Invalid chunk ending: expected CRLF but got: " + ascii(bytes, from, to));
+                }
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (to == from) {
+                    finish();
+                } else {
+                    // Trailer fields are discarded, but still count against the limit on the header section
+                    headersSize += to - from;
+                    if (headersSize > MAX_HEADERS_SIZE) {
+                        throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                                "Request trailers too large");
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected line in state " + state);
+        }
+    }
+
+    /**
+     * Parses the request line.
+     *
+     * @param bytes the array holding the line
+     * @param from the index of the first byte of the line
+     * @param to the index after the last byte of the line
+     * @throws HttpParsingException if the request line is invalid
+     */
+    private void parseRequestLine(byte[] bytes, int from, int to) throws HttpParsingException {
+        int firstSpace = indexOf(bytes, SP, from, to);
+        int secondSpace = firstSpace < 0 ? -1 : indexOf(bytes, SP, firstSpace + 1, to);
+        if (secondSpace < 0 || secondSpace == to - 1) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Incomplete request line
+        }
+
+        HttpMethod method = lookupMethod(bytes, from, firstSpace);
+        if (method == null) {
+            throw new HttpParsingException(HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED);
+        }
+        request.setResolvedMethod(method);
+        request.setRequestTarget(ascii(bytes, firstSpace + 1, secondSpace));
+        if (equalsBytes(HTTP_1_1, bytes, secondSpace + 1, to)) {
+            request.setResolvedHttpVersion(HttpVersion.HTTP_1_1);
+        } else {
+            request.setHttpVersion(ascii(bytes, secondSpace + 1, to));
+        }
+    }
+
+    /**
+     * Parses a header line, or a continuation of the previous header.
+     *
+     * @param bytes the array holding the line
+     * @param from the index of the first byte of the line
+     * @param to the index after the last byte of the line
+     * @throws HttpParsingException if the header line is invalid or the headers are too large
+     */
+    private void parseHeaderLine(byte[] bytes, int from, int to) throws HttpParsingException {
+        headersSize += to - from;
+        if (headersSize > MAX_HEADERS_SIZE) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Request headers too large");
+        }
+
+        if (bytes[from] == SP || bytes[from] == HT) {
+            if (lastHeaderName == null) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                        "Whitespace before the first header line");
+            }
+            // Continuation of the previous header line
+            request.addHeader(lastHeaderName, request.getHeader(lastHeaderName) + " " + trimmed(bytes, from, to));
+            return;
+        }
+
+        int colon = indexOf(bytes, COLON, from, to);
+        if (colon < 0) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Invalid header line
+        }
+        if (colon == from) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST); // Empty header name
+        }
+        if (bytes[colon - 1] == SP || bytes[colon - 1] == HT) {
+            // RFC 9112 section 5.1: a name padded this way could be read as a different header by another hop
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Whitespace between header name and colon: " + ascii(bytes, from, colon));
+        }
+        lastHeaderName = HeaderNames.lookup(bytes, from, colon);
+        String value = trimmed(bytes, colon + 1, to);
+        String previous = request.getHeader(lastHeaderName);
+        if (previous != null && isFramingHeader(lastHeaderName)) {
+            // Keep every value of a repeated framing header, so conflicting values are caught when the body starts
+            value = previous + ", " + value;
+        }
+        request.addHeader(lastHeaderName, value);
+    }
+
+    /**
+     * Determines whether a header decides how the body of a request is framed.
+     *
+     * @param name the name of the header
+     * @return true for Content-Length and Transfer-Encoding
+     */
+    private static boolean isFramingHeader(String name) {
+        return "Content-Length".equalsIgnoreCase(name) || "Transfer-Encoding".equalsIgnoreCase(name);
+    }
+
+    /**
+     * Decides how the body is framed once the headers are complete, following RFC 9112 section 6.3.
+     * A request whose framing is ambiguous is rejected, since the connection could not be read past it reliably:
+     * Content-Length together with Transfer-Encoding, a transfer coding that does not end in chunked,
+     * or Content-Length values that disagree.
+     * A body announced as larger than the limit is rejected before anything is allocated for it.
+     *
+     * @throws HttpParsingException if the framing headers are invalid or the body is too large
+     */
+    private void startBody() throws HttpParsingException {
+        String contentLength = request.getHeader("Content-Length");
+        String transferEncoding = request.getHeader("Transfer-Encoding");
+        if (transferEncoding != null) {
+            if (contentLength != null) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                        "Content-Length sent with Transfer-Encoding");
+            }
+            checkTransferCodings(transferEncoding);
+            if (!streamingBody) {
+                chunkedBody = new ByteArrayOutputStream();
+            }
+            bodyStarted = streamingBody;
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            long length = parseContentLength(contentLength);
+            checkBodySize(length);
+            if (length == 0) {
+                finish();
+            } else {
+                if (!streamingBody) {
+                    body = new byte[(int) length];
+                }
+                bodyRemaining = length;
+                bodyStarted = streamingBody;
+                state = State.BODY;
+            }
+        } else {
+            finish(); // No body
+        }
+    }
+
+    /**
+     * Parses a Content-Length header, which may repeat the same length as a list.
+     *
+     * @param contentLength the header value
+     * @return the length of the body
+     * @throws HttpParsingException if a value is not a number or the values disagree
+     */
+    private static long parseContentLength(String contentLength) throws HttpParsingException {
+        long length = -1;
+        for (String element : contentLength.split(",")) {
+            String digits = element.trim();
+            if (digits.isEmpty() || !digits.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid Content-Length: " + contentLength);
+            }
+            long value;
+            try {
+                value = Long.parseLong(digits);
+            } catch (NumberFormatException e) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid Content-Length: " + contentLength);
+            }
+            if (length >= 0 && value != length) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Conflicting Content-Length: " + contentLength);
+            }
+            length = value;
+        }
+        return length;
+    }
+
+    /**
+     * Checks that the transfer codings of a request end in chunked, the only one the server decodes.
+     *
+     * @param transferEncoding the Transfer-Encoding header value
+     * @throws HttpParsingException with 400 if chunked is not the final coding or is applied twice,
+     *                              or with 501 if another coding is applied as well
+     */
+    private static void checkTransferCodings(String transferEncoding) throws HttpParsingException {
+        List<String> codings = new ArrayList<>();
+        for (String element : transferEncoding.split(",")) {
+            if (!element.isBlank()) {
+                codings.add(element.trim());
+            }
+        }
+        if (codings.isEmpty() || !"chunked".equalsIgnoreCase(codings.get(codings.size() - 1))) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Transfer-Encoding does not end in chunked: " + transferEncoding);
+        }
+        List<String> others = codings.subList(0, codings.size() - 1);
+        if (others.stream().anyMatch("chunked"::equalsIgnoreCase)) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Transfer-Encoding applies chunked more than once: " + transferEncoding);
+        }
+        if (!others.isEmpty()) {
+            throw new HttpParsingException(HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED,
+                    "Unsupported transfer coding: " + others.get(0));
+        }
+    }
+
+    /**
+     * Rejects a body that would exceed the size limit.
+     *
+     * @param size the size the body would reach
+     * @throws HttpParsingException if the size exceeds the limit
+     */
+    private void checkBodySize(long size) throws HttpParsingException {
+        if (size > Math.min(maxBodySize, streamingBody ? Long.MAX_VALUE : MAX_BUFFERED_BODY_SIZE)) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_413_CONTENT_TOO_LARGE,
+                    "Request body exceeds " + maxBodySize + " bytes");
+        }
+    }
+
+    /**
+     * Parses a chunk-size line. Chunk extensions are ignored.
+     *
+     * @param bytes the array holding the line
+     * @param from the index of the first byte of the line
+     * @param to the index after the last byte of the line
+     * @throws HttpParsingException if the chunk size is invalid
+     */
+    private void parseChunkSize(byte[] bytes, int from, int to) throws HttpParsingException {
+        int extension = indexOf(bytes, SEMICOLON, from, to);
+        int sizeFrom = skipWhitespace(bytes, from, extension < 0 ? to : extension);
+        int sizeTo = trimWhitespace(bytes, sizeFrom, extension < 0 ? to : extension);
+        if (sizeFrom == sizeTo) {
+            throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid chunk size line");
+        }
+
+        long size = 0;
+        for (int i = sizeFrom; i < sizeTo; i++) {
+            int digit = Character.digit(bytes[i], 16);
+            size = size * 16 + digit;
+            if (digit < 0 || size > Integer.MAX_VALUE) {
+                throw new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                        "Invalid chunk size: " + ascii(bytes, sizeFrom, sizeTo));
+            }
+        }
+        bodySize += size;
+        checkBodySize(bodySize);
+        chunkRemaining = (int) size;
+        state = chunkRemaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+    }
+
+    /**
+     * Copies body bytes, either for a Content-Length body or for the current chunk, into the body buffer
+     * or, for a streamed body, into the caller's array.
+     *
+     * @param bytes the array holding the bytes
+     * @param from the index of the first byte to copy
+     * @param to the index after the last available byte
+     * @return the index after the last byte consumed
+     */
+    private int readBody(byte[] bytes, int from, int to) {
+        boolean fixedLength = state == State.BODY;
+        int length = (int) Math.min(to - from, fixedLength ? bodyRemaining : chunkRemaining);
+        if (streamingBody) {
+            length = Math.min(length, targetEnd - targetOffset);
+            System.arraycopy(bytes, from, target, targetOffset, length);
+            targetOffset += length;
+        } else if (fixedLength) {
+            System.arraycopy(bytes, from, body, bodyLength, length);
+            bodyLength += length;
+        } else {
+            chunkedBody.write(bytes, from, length);
+        }
+
+        if (fixedLength) {
+            bodyRemaining -= length;
+            if (bodyRemaining == 0) {
+                finish();
+            }
+        } else {
+            chunkRemaining -= length;
+            if (chunkRemaining == 0) {
+                state = State.CHUNK_END;
+            }
+        }
+        return from + length;
+    }
+
+    /**
+     * Completes the request, handing a buffered body to it.
+     */
+    private void finish() {
+        if (body != null) {
+            request.setBodyBytes(body, bodyLength);
+        } else if (chunkedBody != null) {
+            request.setBodyBytes(chunkedBody.toByteArray(), chunkedBody.size());
+        } else if (!bodyStarted) {
+            request.setBodyBytes(null, 0);
+        }
+        state = State.DONE;
+    }
+
+    /**
+     * Moves the decoder to the failed state.
+     *
+     * @param e the cause of the failure
+     * @return ERROR
+     */
+    private Status fail(HttpParsingException e) {
+        state = State.FAILED;
+        error = e;
+        return Status.ERROR;
+    }
+
+    private static HttpMethod lookupMethod(byte[] bytes, int from, int to) {
+        for (int i = 0; i < METHOD_NAMES.length; i++) {
+            if (equalsBytes(METHOD_NAMES[i], bytes, from, to)) {
+                return METHODS[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean equalsBytes(byte[] expected, byte[] bytes, int from, int to) {
+        return Arrays.equals(expected, 0, expected.length, bytes, from, to);
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] == SP || bytes[from] == HT)) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimWhitespace(byte[] bytes, int from, int to) {
+        while (to > from && (bytes[to - 1] == SP || bytes[to - 1] == HT)) {
+            to--;
+        }
+        return to;
+    }
+
+    private static String trimmed(byte[] bytes, int from, int to) {
+        from = skipWhitespace(bytes, from, to);
+        return ascii(bytes, from, trimWhitespace(bytes, from, to));
+    }
+
+    private static String ascii(byte[] bytes, int from, int to) {
+        return from == to ? "" : new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+    }
+}
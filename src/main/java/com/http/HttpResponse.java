@@ -2,20 +2,35 @@ package com.http;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * Represents a HTTP response.
+ * The head is encoded straight to bytes, from pre-encoded status lines and header names where possible,
+ * and a body held in memory is written together with it in a single gathering write;
+ * file and streaming bodies follow the head on the same channel.
+ * A body whose length is not known up front is either delimited by closing the connection or, when chunked
+ * transfer coding is enabled, streamed in chunks so the connection stays open and bytes reach the client
+ * while the rest of the body is still being produced.
  */
 public class HttpResponse {
 
     private int statusCode;
     private String reasonPhrase;
     private final Map<String, String> headers;
-    private String body;
+    private HttpBody body;
     private final HttpVersion httpVersion;
+    private HttpClock clock;
+    private boolean chunkingEnabled;
+    private Map<String, Supplier<String>> trailers;
 
     /**
      * Constructs an HttpResponse with the specified HTTP version.
@@ -100,45 +115,276 @@ public class HttpResponse {
     }
 
     /**
-     * Gets the body of the response.
+     * Gets the body of the response as text.
      *
-     * @return the body
+     * @return the body decoded as UTF-8, or null if there is no body or it is not held in memory
      */
     public String getBody() {
-        return body;
+        ByteBuffer content = body != null ? body.getContent() : null;
+        return content != null ? StandardCharsets.UTF_8.decode(content).toString() : null;
     }
 
     /**
-     * Sets the body of the response and updates the Content-Length header.
+     * Sets the body of the response to a string encoded as UTF-8.
      *
-     * @param body the body to set
+     * @param body the body to set, or null for no body
      */
     public void setBody(String body) {
+        this.body = body != null ? HttpBody.of(body) : null;
+    }
+
+    /**
+     * Gets the body of the response.
+     *
+     * @return the body, or null if there is none
+     */
+    public HttpBody getHttpBody() {
+        return body;
+    }
+
+    /**
+     * Sets the body of the response.
+     * Bodies holding resources, such as file regions, are closed once the response has been written.
+     *
+     * @param body the body to set, or null for no body
+     */
+    public void setHttpBody(HttpBody body) {
         this.body = body;
     }
 
+    /**
+     * Sets the Connection header to tell the client whether the connection stays open
+     * after this response.
+     *
+     * @param keepAlive true to keep the connection open, false to close it
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.headers.put("Connection", keepAlive ? "keep-alive" : "close");
+    }
+
+    /**
+     * Sets the clock of the Date header. When a clock is set, the head is encoded with Date and Server headers,
+     * unless the response already sets them; the server sets one on every response it sends.
+     *
+     * @param clock the clock to take the date from, or null to send neither header
+     */
+    public void setStandardHeaders(HttpClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sets whether a body of unknown length is sent with chunked transfer coding, which keeps the connection
+     * open, instead of being delimited by closing the connection. The blocking server enables it on every response.
+     *
+     * @param chunkingEnabled true to send bodies of unknown length in chunks
+     */
+    public void setChunkedTransferEncoding(boolean chunkingEnabled) {
+        this.chunkingEnabled = chunkingEnabled;
+    }
+
+    /**
+     * Sets a trailer field, sent after the last chunk of a chunked body. The value is taken once the body
+     * has been written, so it can depend on what was produced, such as a checksum of the body.
+     * Trailers are announced in a Trailer header, and are dropped if the body is not sent in chunks.
+     *
+     * @param name the name of the field
+     * @param value the supplier of the field's value
+     */
+    public void setTrailer(String name, Supplier<String> value) {
+        if (name != null && value != null) {
+            if (trailers == null) {
+                trailers = new LinkedHashMap<>();
+            }
+            trailers.put(name, value);
+        }
+    }
+
+    /**
+     * Determines whether the body of this response is sent with chunked transfer coding.
+     * This is decided when the head is encoded.
+     *
+     * @return true if the Transfer-Encoding header is set to chunked
+     */
+    public boolean isChunked() {
+        return "chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"));
+    }
+
+    /**
+     * Determines whether this response leaves the connection open.
+     *
+     * @return false if the Connection header is set to close, true otherwise
+     */
+    public boolean isKeepAlive() {
+        return !"close".equalsIgnoreCase(headers.get("Connection"));
+    }
+
+    /**
+     * Encodes the status line and headers.
+     * A Content-Length header is added for non-empty bodies of known length that do not already declare one,
+     * so the client can find the end of the response on a persistent connection. A body of unknown length is
+     * sent in chunks when chunked transfer coding is enabled; otherwise it can only be delimited by closing
+     * the connection, so such responses are marked {@code Connection: close}.
+     *
+     * @return a buffer holding the head of the response
+     */
+    public ByteBuffer encodeHead() {
+        if (body != null && !headers.containsKey("Content-Length")) {
+            long length = body.getLength();
+            if (length > 0) {
+                headers.put("Content-Length", String.valueOf(length));
+            } else if (length < 0 && chunkingEnabled) {
+                headers.put("Transfer-Encoding", "chunked");
+                if (trailers != null) {
+                    headers.put("Trailer", String.join(", ", trailers.keySet()));
+                }
+            } else if (length < 0 && !isChunked()) {
+                setKeepAlive(false);
+            }
+        }
+
+        byte[] statusLine = ResponseHeads.statusLine(httpVersion, statusCode, String.valueOf(reasonPhrase));
+        byte[] dateHeader = clock != null && !headers.containsKey("Date") ? clock.currentDateHeader() : null;
+        byte[] serverHeader = clock != null && !headers.containsKey("Server") ? ResponseHeads.SERVER_HEADER : null;
+        int size = statusLine.length + 2;
+        size += dateHeader != null ? dateHeader.length : 0;
+        size += serverHeader != null ? serverHeader.length : 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            byte[] prefix = ResponseHeads.namePrefix(header.getKey());
+            size += (prefix != null ? prefix.length : header.getKey().length() + 2) + header.getValue().length() + 2;
+        }
+
+        byte[] head = new byte[size];
+        // Status line, then the standard headers
+        int offset = put(head, 0, statusLine);
+        if (dateHeader != null) {
+            offset = put(head, offset, dateHeader);
+        }
+        if (serverHeader != null) {
+            offset = put(head, offset, serverHeader);
+        }
+        // Headers
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            byte[] prefix = ResponseHeads.namePrefix(header.getKey());
+            if (prefix != null) {
+                offset = put(head, offset, prefix);
+            } else {
+                offset = put(head, offset, header.getKey());
+                head[offset++] = ':';
+                head[offset++] = ' ';
+            }
+            offset = put(head, offset, header.getValue());
+            head[offset++] = '\r';
+            head[offset++] = '\n';
+        }
+        // Blank line between headers and body
+        head[offset++] = '\r';
+        head[offset] = '\n';
+        return ByteBuffer.wrap(head);
+    }
+
     /**
      * Writes the HTTP response to the specified output stream.
+     * Bodies that are not held in memory are copied through the stream; use {@link #write(WritableByteChannel)}
+     * to send file regions without copying them onto the heap.
      *
      * @param outputStream the output stream to write to
      * @throws IOException if an I/O error occurs
      */
     public void write(OutputStream outputStream) throws IOException {
-        StringBuilder response = new StringBuilder();
+        ByteBuffer head = encodeHead();
+        outputStream.write(head.array(), 0, head.remaining());
+        if (body == null) {
+            return;
+        }
+        try (HttpBody content = body) {
+            ByteBuffer bytes = content.getContent();
+            if (isChunked()) {
+                writeChunked(content, outputStream);
+            } else if (bytes != null && bytes.hasArray()) {
+                outputStream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            } else {
+                content.writeTo(outputStream);
+            }
+        }
+    }
 
-        // Status line
-        response.append(httpVersion.getLiteral()).append(" ").append(statusCode).append(" ").append(reasonPhrase).append("\r\n");
-        // Headers
-        headers.forEach((name, value) -> response.append(name).append(": ").append(value).append("\r\n"));
-        // Blank line between headers and body
-        response.append("\r\n");
+    /**
+     * Writes the HTTP response to the specified blocking channel.
+     * A body held in memory goes out together with the head in one gathering write; other bodies
+     * are written after the head, so a file region is transferred by the operating system.
+     *
+     * @param channel the blocking channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(WritableByteChannel channel) throws IOException {
+        ByteBuffer head = encodeHead();
+        ByteBuffer content = body != null ? body.getContent() : null;
+        if (content != null && channel instanceof GatheringByteChannel && !isChunked()) {
+            ByteBuffer[] buffers = {head, content};
+            GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+            while (head.hasRemaining() || content.hasRemaining()) {
+                gatheringChannel.write(buffers);
+            }
+            return;
+        }
+
+        while (head.hasRemaining()) {
+            channel.write(head);
+        }
+        if (body != null) {
+            try (HttpBody toWrite = body) {
+                if (isChunked()) {
+                    writeChunked(toWrite, Channels.newOutputStream(channel));
+                } else {
+                    toWrite.writeTo(channel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a body in chunks, followed by the last chunk and the trailer fields.
+     * The chunked stream coalesces small writes itself, so it can sit directly on an unbuffered channel.
+     *
+     * @param content the body to write
+     * @param outputStream the stream to write the chunks to
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeChunked(HttpBody content, OutputStream outputStream) throws IOException {
+        ChunkedOutputStream chunked = new ChunkedOutputStream(outputStream);
+        content.writeTo(chunked);
+        if (trailers != null) {
+            trailers.forEach((name, value) -> chunked.setTrailer(name, value.get()));
+        }
+        chunked.finish();
+    }
 
-        // Write headers to the output stream
-        outputStream.write(response.toString().getBytes(StandardCharsets.UTF_8));
+    /**
+     * Copies pre-encoded bytes into a byte array.
+     *
+     * @param target the array to copy into
+     * @param offset the offset of the first byte to write
+     * @param bytes the bytes to copy
+     * @return the offset just after the copied bytes
+     */
+    private static int put(byte[] target, int offset, byte[] bytes) {
+        System.arraycopy(bytes, 0, target, offset, bytes.length);
+        return offset + bytes.length;
+    }
 
-        // Write body to the output stream, if it exists
-        if (body != null && !body.isEmpty()) {
-            outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Copies the characters of a header string into a byte array.
+     * Header text is restricted to ISO-8859-1, so each character maps to a single byte.
+     *
+     * @param target the array to copy into
+     * @param offset the offset of the first byte to write
+     * @param text the text to copy
+     * @return the offset just after the copied bytes
+     */
+    private static int put(byte[] target, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            target[offset++] = (byte) text.charAt(i);
         }
+        return offset;
     }
 }
@@ -7,6 +7,7 @@ public enum HttpStatusCode {
 
     CLIENT_ERROR_400_BAD_REQUEST(400, "Bad Request"),
     CLIENT_ERROR_405_METHOD_NOT_ALLOWED(405, "Method Not Allowed"),
+    CLIENT_ERROR_413_CONTENT_TOO_LARGE(413, "Content Too Large"),
     CLIENT_ERROR_414_URI_TOO_LONG(414, "URI Too Long"),
 
     SERVER_ERROR_500_INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
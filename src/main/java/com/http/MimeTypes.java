@@ -0,0 +1,135 @@
+package com.http;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the MIME type of a file from its extension.
+ * Built-in types are looked up with a string switch, so resolution never touches the disk or the platform's
+ * file type detectors, and never returns null. Text types carry a UTF-8 charset parameter.
+ * Overrides, such as those from the server configuration, take precedence over the built-in table.
+ * Instances are immutable and can be shared freely between threads.
+ */
+public final class MimeTypes {
+
+    /**
+     * The type of files whose extension is unknown.
+     */
+    public static final String DEFAULT_TYPE = "application/octet-stream";
+
+    /**
+     * A resolver holding only the built-in types.
+     */
+    public static final MimeTypes DEFAULT = new MimeTypes(Map.of());
+
+    private final Map<String, String> overrides;
+
+    /**
+     * Constructs a MimeTypes resolver.
+     *
+     * @param overrides MIME types by file extension, with or without the leading dot; extensions are case-insensitive
+     */
+    public MimeTypes(Map<String, String> overrides) {
+        Map<String, String> normalized = new HashMap<>();
+        overrides.forEach((extension, type) -> normalized.put(normalize(extension), type));
+        this.overrides = Map.copyOf(normalized);
+    }
+
+    /**
+     * Resolves the MIME type of a file.
+     *
+     * @param path the path of the file
+     * @return the MIME type, or {@link #DEFAULT_TYPE} if the extension is unknown
+     */
+    public String resolve(Path path) {
+        Path fileName = path.getFileName();
+        return fileName != null ? resolve(fileName.toString()) : DEFAULT_TYPE;
+    }
+
+    /**
+     * Resolves the MIME type of a file name.
+     *
+     * @param fileName the name of the file
+     * @return the MIME type, or {@link #DEFAULT_TYPE} if the extension is unknown
+     */
+    public String resolve(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= 0 || dot == fileName.length() - 1) {
+            return DEFAULT_TYPE;
+        }
+        String extension = fileName.substring(dot + 1);
+        if (!overrides.isEmpty()) {
+            String type = overrides.get(extension.toLowerCase(Locale.ROOT));
+            if (type != null) {
+                return type;
+            }
+        }
+        String type = forExtension(extension);
+        if (type == null) {
+            type = forExtension(extension.toLowerCase(Locale.ROOT));
+        }
+        return type != null ? type : DEFAULT_TYPE;
+    }
+
+    /**
+     * Looks an extension up in the built-in table.
+     *
+     * @param extension the extension, without the leading dot
+     * @return the MIME type, or null if the extension is not in the table
+     */
+    static String forExtension(String extension) {
+        return switch (extension) {
+            case "html", "htm" -> "text/html; charset=utf-8";
+            case "css" -> "text/css; charset=utf-8";
+            case "js", "mjs" -> "text/javascript; charset=utf-8";
+            case "txt" -> "text/plain; charset=utf-8";
+            case "csv" -> "text/csv; charset=utf-8";
+            case "md" -> "text/markdown; charset=utf-8";
+            case "ics" -> "text/calendar; charset=utf-8";
+            case "json", "map" -> "application/json";
+            case "webmanifest" -> "application/manifest+json";
+            case "xml" -> "application/xml";
+            case "xhtml" -> "application/xhtml+xml";
+            case "rss" -> "application/rss+xml";
+            case "atom" -> "application/atom+xml";
+            case "yaml", "yml" -> "application/yaml";
+            case "wasm" -> "application/wasm";
+            case "pdf" -> "application/pdf";
+            case "zip" -> "application/zip";
+            case "gz" -> "application/gzip";
+            case "tar" -> "application/x-tar";
+            case "svg" -> "image/svg+xml";
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "gif" -> "image/gif";
+            case "webp" -> "image/webp";
+            case "avif" -> "image/avif";
+            case "ico" -> "image/x-icon";
+            case "bmp" -> "image/bmp";
+            case "woff" -> "font/woff";
+            case "woff2" -> "font/woff2";
+            case "ttf" -> "font/ttf";
+            case "otf" -> "font/otf";
+            case "eot" -> "application/vnd.ms-fontobject";
+            case "mp4" -> "video/mp4";
+            case "webm" -> "video/webm";
+            case "mp3" -> "audio/mpeg";
+            case "ogg" -> "audio/ogg";
+            case "wav" -> "audio/wav";
+            default -> null;
+        };
+    }
+
+    /**
+     * Normalizes a configured extension for lookup.
+     *
+     * @param extension the extension, with or without the leading dot
+     * @return the lower-case extension without the leading dot
+     */
+    private static String normalize(String extension) {
+        String trimmed = extension.startsWith(".") ? extension.substring(1) : extension;
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,128 @@
+package com.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * One part of a {@code multipart/form-data} body, as read by a {@link MultipartReader}.
+ * The headers of the part are held in memory; its content is a stream that ends where the part ends,
+ * and is only valid until the reader moves on to the next part.
+ */
+public final class MultipartPart {
+
+    private final Map<String, String> headers;
+    private final InputStream inputStream;
+    private final Map<String, String> disposition;
+
+    /**
+     * Constructs a MultipartPart.
+     *
+     * @param headers the headers of the part
+     * @param inputStream the content of the part
+     */
+    MultipartPart(Map<String, String> headers, InputStream inputStream) {
+        this.headers = headers;
+        this.inputStream = inputStream;
+        String contentDisposition = headers.get("Content-Disposition");
+        int semicolon = contentDisposition != null ? contentDisposition.indexOf(';') : -1;
+        this.disposition = semicolon >= 0
+                ? MultipartReader.parameters(contentDisposition.substring(semicolon + 1))
+                : Map.of();
+    }
+
+    /**
+     * Gets the value of a header of the part.
+     *
+     * @param name the name of the header, matched case-insensitively
+     * @return the header value, or null if the part has no such header
+     */
+    public String getHeader(String name) {
+        return name != null ? headers.get(name) : null;
+    }
+
+    /**
+     * Gets the name of the form field the part belongs to.
+     *
+     * @return the name from the Content-Disposition header, or null if there is none
+     */
+    public String getName() {
+        return disposition.get("name");
+    }
+
+    /**
+     * Gets the name of the file the part was uploaded from, as the client sent it.
+     * The name is untrusted: it may be empty or contain path separators.
+     *
+     * @return the file name from the Content-Disposition header, or null if the part is not a file
+     */
+    public String getFileName() {
+        return disposition.get("filename");
+    }
+
+    /**
+     * Gets the media type of the part.
+     *
+     * @return the Content-Type header of the part, or text/plain as the default for form fields
+     */
+    public String getContentType() {
+        String contentType = headers.get("Content-Type");
+        return contentType != null ? contentType : "text/plain";
+    }
+
+    /**
+     * Gets the content of the part. The stream ends where the part ends, and closing it skips
+     * whatever is left of the part.
+     *
+     * @return the content stream
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Reads the rest of the part, keeping it in memory up to a threshold and spilling it to a temporary file
+     * beyond that, so small form fields stay cheap and large files never fill the heap.
+     *
+     * @param threshold the largest content, in bytes, kept in memory
+     * @param directory the directory temporary files are created in
+     * @return the stored content, which deletes its temporary file when closed
+     * @throws IOException if the part cannot be read or the temporary file cannot be written
+     */
+    public StoredPart store(int threshold, Path directory) throws IOException {
+        ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(threshold, 8192));
+        byte[] block = new byte[8192];
+        int read;
+        while ((read = inputStream.read(block, 0, Math.min(block.length, threshold - memory.size() + 1))) >= 0) {
+            memory.write(block, 0, read);
+            if (memory.size() > threshold) {
+                return spill(memory, directory);
+            }
+        }
+        return new StoredPart(memory.toByteArray(), null, memory.size());
+    }
+
+    /**
+     * Moves content that outgrew memory into a temporary file and streams the rest of the part after it.
+     *
+     * @param memory the content read so far
+     * @param directory the directory to create the temporary file in
+     * @return the stored content
+     * @throws IOException if the part cannot be read or the file cannot be written
+     */
+    private StoredPart spill(ByteArrayOutputStream memory, Path directory) throws IOException {
+        Path file = Files.createTempFile(directory, "multipart-", ".part");
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            memory.writeTo(outputStream);
+            long size = memory.size() + inputStream.transferTo(outputStream);
+            return new StoredPart(null, file, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+}
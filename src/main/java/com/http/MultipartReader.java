@@ -0,0 +1,402 @@
+package com.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Reads the parts of a {@code multipart/form-data} body one after another, in a single pass over the body stream.
+ * The body is read through a fixed buffer, and the delimiter before each boundary is found with a
+ * Boyer-Moore-Horspool search, which skips ahead by up to the delimiter's length on every mismatch.
+ * Each part is handed out as a {@link MultipartPart} whose stream ends at the next delimiter, so parts of any size
+ * are read in constant memory; moving on to the next part skips whatever was left unread of the current one.
+ * <p>
+ * Malformed bodies fail with an IOException caused by an {@link HttpParsingException}, so they are answered
+ * with 400 Bad Request like other framing errors.
+ */
+public class MultipartReader {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_HEADERS_SIZE = 16384;
+    private static final int MAX_BOUNDARY_LENGTH = 70;
+
+    private final InputStream inputStream;
+    private final byte[] delimiter;
+    private final int[] shift;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private int delimiterAt = -1;
+    private int searchedTo;
+    private MultipartPart current;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * Constructs a MultipartReader.
+     *
+     * @param inputStream the body stream
+     * @param boundary the boundary parameter of the Content-Type header
+     */
+    public MultipartReader(InputStream inputStream, String boundary) {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > MAX_BOUNDARY_LENGTH) {
+            throw new IllegalArgumentException("Invalid multipart boundary: " + boundary);
+        }
+        this.inputStream = Objects.requireNonNull(inputStream);
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.shift = new int[256];
+        Arrays.fill(shift, delimiter.length);
+        for (int i = 0; i < delimiter.length - 1; i++) {
+            shift[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+        }
+        this.buffer = new byte[BUFFER_SIZE];
+        // The first boundary may open the body without a line break before it
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        this.limit = 2;
+    }
+
+    /**
+     * Gets the boundary of a multipart/form-data Content-Type header.
+     *
+     * @param contentType the Content-Type header value
+     * @return the boundary, or null if the type is not multipart/form-data or has no boundary
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim();
+        if (!type.equalsIgnoreCase("multipart/form-data") || semicolon < 0) {
+            return null;
+        }
+        String boundary = parameters(contentType.substring(semicolon + 1)).get("boundary");
+        return boundary == null || boundary.isEmpty() || boundary.length() > MAX_BOUNDARY_LENGTH ? null : boundary;
+    }
+
+    /**
+     * Moves to the next part, skipping the rest of the current one.
+     *
+     * @return the next part, or null after the last one
+     * @throws IOException if the body cannot be read or is malformed
+     */
+    public MultipartPart nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (current != null) {
+            current.getInputStream().close();
+        }
+        // The preamble before the first boundary is skipped like the rest of a part
+        skipToDelimiter();
+        position += delimiter.length;
+        delimiterAt = -1;
+        searchedTo = position;
+        started = true;
+
+        if (!ensure(2)) {
+            throw malformed("Multipart body ends after a boundary");
+        }
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            current = null;
+            return null;
+        }
+        String padding = readLine();
+        if (!padding.isBlank()) {
+            throw malformed("Unexpected text after multipart boundary");
+        }
+        current = new MultipartPart(readHeaders(), new PartStream());
+        return current;
+    }
+
+    /**
+     * Reads a part's header section, up to and including the blank line that ends it.
+     *
+     * @return the headers, keyed case-insensitively
+     * @throws IOException if the body cannot be read or the headers are malformed
+     */
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int size = 0;
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            size += line.length();
+            if (size > MAX_HEADERS_SIZE) {
+                throw malformed("Multipart headers too large");
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw malformed("Invalid multipart header line");
+            }
+            headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+        return headers;
+    }
+
+    /**
+     * Reads a line ending in CRLF from the buffer.
+     *
+     * @return the line, decoded as UTF-8 without its line ending
+     * @throws IOException if the body cannot be read, or ends or overflows the buffer before the line ends
+     */
+    private String readLine() throws IOException {
+        int scanned = position;
+        while (true) {
+            while (scanned < limit && buffer[scanned] != '\n') {
+                scanned++;
+            }
+            if (scanned < limit) {
+                break;
+            }
+            int scannedLength = scanned - position;
+            if (!fill()) {
+                throw malformed(limit - position == buffer.length ? "Multipart header line too long"
+                        : "Multipart body ended within the headers of a part");
+            }
+            scanned = position + scannedLength;
+        }
+        int end = scanned > position && buffer[scanned - 1] == '\r' ? scanned - 1 : scanned;
+        String line = new String(buffer, position, end - position, StandardCharsets.UTF_8);
+        position = scanned + 1;
+        searchedTo = position;
+        return line;
+    }
+
+    /**
+     * Discards bytes up to the next delimiter.
+     *
+     * @throws IOException if the body cannot be read or ends before the delimiter
+     */
+    private void skipToDelimiter() throws IOException {
+        int available;
+        while ((available = readable()) >= 0) {
+            position += available;
+        }
+    }
+
+    /**
+     * Finds how many bytes of the current part can be read from the buffer without running into the delimiter,
+     * reading more of the body when none can.
+     *
+     * @return the number of bytes before the delimiter or the end of the buffered data that may still hold it,
+     * or -1 if the delimiter is at the current position
+     * @throws IOException if the body cannot be read or ends before the delimiter
+     */
+    private int readable() throws IOException {
+        while (true) {
+            if (delimiterAt < 0) {
+                delimiterAt = search(Math.max(position, searchedTo), limit);
+                searchedTo = Math.max(position, limit - delimiter.length + 1);
+            }
+            if (delimiterAt >= 0) {
+                return delimiterAt == position ? -1 : delimiterAt - position;
+            }
+            // A delimiter may straddle the end of the buffer, so its possible first bytes are held back
+            int safe = limit - position - (delimiter.length - 1);
+            if (safe > 0) {
+                return safe;
+            }
+            if (!fill()) {
+                throw malformed(started ? "Multipart body ended within a part" : "Multipart body has no boundary");
+            }
+        }
+    }
+
+    /**
+     * Searches the buffer for the delimiter with Boyer-Moore-Horspool.
+     *
+     * @param from the index to start at
+     * @param to the index after the last byte to search
+     * @return the index of the delimiter, or -1 if it does not occur in full
+     */
+    private int search(int from, int to) {
+        int last = delimiter.length - 1;
+        int i = from;
+        while (i <= to - delimiter.length) {
+            int j = last;
+            while (buffer[i + j] == delimiter[j]) {
+                if (j == 0) {
+                    return i;
+                }
+                j--;
+            }
+            i += shift[buffer[i + last] & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * Ensures that a number of bytes are buffered after the current position.
+     *
+     * @param count the number of bytes needed
+     * @return true if they are buffered, false if the body ends first
+     * @throws IOException if the body cannot be read
+     */
+    private boolean ensure(int count) throws IOException {
+        while (limit - position < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads more of the body after them.
+     *
+     * @return true if bytes were read, false if the body has ended or the buffer is full
+     * @throws IOException if the body cannot be read
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            searchedTo = Math.max(0, searchedTo - position);
+            delimiterAt = delimiterAt >= 0 ? delimiterAt - position : -1;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            return false;
+        }
+        int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Parses the parameters of a header value, such as the boundary of a Content-Type or the name of a
+     * Content-Disposition. Values may be quoted, with backslash escapes.
+     *
+     * @param text the part of the header value after the first semicolon
+     * @return the parameters, with lower-case names
+     */
+    static Map<String, String> parameters(String text) {
+        Map<String, String> parameters = new TreeMap<>();
+        int i = 0;
+        while (i < text.length()) {
+            int equals = text.indexOf('=', i);
+            int semicolon = text.indexOf(';', i);
+            if (equals < 0 || (semicolon >= 0 && semicolon < equals)) {
+                if (semicolon < 0) {
+                    break;
+                }
+                i = semicolon + 1;
+                continue;
+            }
+            String name = text.substring(i, equals).trim().toLowerCase(Locale.ROOT);
+            String value;
+            i = equals + 1;
+            while (i < text.length() && text.charAt(i) == ' ') {
+                i++;
+            }
+            int end;
+            if (i < text.length() && text.charAt(i) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while (i < text.length() && text.charAt(i) != '"') {
+                    char c = text.charAt(i++);
+                    if (c == '\\' && i < text.length()) {
+                        c = text.charAt(i++);
+                    }
+                    quoted.append(c);
+                }
+                value = quoted.toString();
+                end = text.indexOf(';', i);
+            } else {
+                end = text.indexOf(';', i);
+                value = text.substring(i, end < 0 ? text.length() : end).trim();
+            }
+            i = end < 0 ? text.length() : end + 1;
+            parameters.putIfAbsent(name, value);
+        }
+        return parameters;
+    }
+
+    /**
+     * Creates the exception thrown for a malformed body.
+     *
+     * @param message the detailed message
+     * @return an IOException caused by a 400 Bad Request parsing error
+     */
+    private static IOException malformed(String message) {
+        return new IOException(message, new HttpParsingException(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, message));
+    }
+
+    /**
+     * The content of the current part, read from the reader's buffer up to the next delimiter.
+     */
+    private final class PartStream extends InputStream {
+
+        private boolean closed;
+
+        /**
+         * Reads a single byte of the part.
+         *
+         * @return the byte, or -1 at the end of the part
+         * @throws IOException if the body cannot be read or is malformed
+         */
+        @Override
+        public int read() throws IOException {
+            if (closed || readable() < 0) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /**
+         * Reads bytes of the part into an array.
+         *
+         * @param bytes the array to read into
+         * @param offset the index of the first byte to write
+         * @param length the maximum number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the part
+         * @throws IOException if the body cannot be read or is malformed
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (closed) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            int available = readable();
+            if (available < 0) {
+                return -1;
+            }
+            int count = Math.min(length, available);
+            System.arraycopy(buffer, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Skips the rest of the part, leaving the reader at the delimiter before the next one.
+         *
+         * @throws IOException if the body cannot be read or is malformed
+         */
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                skipToDelimiter();
+                closed = true;
+            }
+        }
+    }
+}
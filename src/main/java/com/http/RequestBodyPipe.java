@@ -0,0 +1,206 @@
+package com.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded buffer that carries the body of a request from the thread reading the connection
+ * to the thread handling the request, so a non-blocking server can stream bodies instead of holding them in memory.
+ * The reading side decodes body bytes straight into a ring buffer with {@link #transferFrom}; the handler reads them
+ * from the request's body stream, blocking until bytes arrive. Once the ring is full, the reading side has to stop
+ * reading the connection until the handler has made room, which it is told about through a callback.
+ * Another callback can be run when the handler first reads the body, which is when a client that sent
+ * {@code Expect: 100-continue} is told to go ahead.
+ */
+public final class RequestBodyPipe {
+
+    private final byte[] ring;
+    private final Runnable onDrained;
+    private Runnable onFirstRead;
+    private int readIndex;
+    private int count;
+    private boolean finished;
+    private boolean closed;
+    private boolean producerPaused;
+    private IOException failure;
+
+    /**
+     * Constructs a RequestBodyPipe and makes it the body stream of a request.
+     *
+     * @param request the request whose body is carried
+     * @param capacity the number of bytes the pipe holds
+     * @param onDrained called on the handler's thread when room is made in a pipe that had filled up
+     */
+    public RequestBodyPipe(HttpRequest request, int capacity, Runnable onDrained) {
+        this(request, capacity, onDrained, null);
+    }
+
+    /**
+     * Constructs a RequestBodyPipe that reports the handler's first read of the body, and makes it the body stream
+     * of a request.
+     *
+     * @param request the request whose body is carried
+     * @param capacity the number of bytes the pipe holds
+     * @param onDrained called on the handler's thread when room is made in a pipe that had filled up
+     * @param onFirstRead called once on the handler's thread, before its first read of the body waits for bytes,
+     * or null if nothing has to happen then
+     */
+    public RequestBodyPipe(HttpRequest request, int capacity, Runnable onDrained, Runnable onFirstRead) {
+        this.ring = new byte[capacity];
+        this.onDrained = onDrained;
+        this.onFirstRead = onFirstRead;
+        request.setBodyStream(new Source());
+    }
+
+    /**
+     * Decodes as many body bytes from a buffer as the pipe has room for.
+     * Framing is consumed even when the pipe is full, so the end of a body is noticed as soon as it arrives.
+     *
+     * @param decoder the decoder streaming the body
+     * @param buffer the buffer holding received bytes, ready for reading
+     * @return true if the whole body has been received
+     * @throws HttpParsingException if the body framing is invalid or the body is too large
+     */
+    public synchronized boolean transferFrom(HttpRequestDecoder decoder, ByteBuffer buffer) throws HttpParsingException {
+        while (true) {
+            int writeIndex = (readIndex + count) % ring.length;
+            int room = Math.min(ring.length - count, ring.length - writeIndex);
+            int copied = decoder.readBody(buffer, ring, writeIndex, room);
+            if (copied > 0) {
+                count += copied;
+                notifyAll();
+            }
+            if (copied < 0 || !decoder.isBodyPending()) {
+                finished = true;
+                notifyAll();
+                return true;
+            }
+            if (copied == 0 || count == ring.length) {
+                producerPaused = count == ring.length;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the pipe has no room left, so the connection should not be read until it is drained.
+     *
+     * @return true if the pipe is full
+     */
+    public synchronized boolean isFull() {
+        return count == ring.length;
+    }
+
+    /**
+     * Fails the body, so the handler's next read throws once the bytes already in the pipe are used up.
+     * Ignored once the whole body has been received.
+     *
+     * @param cause the reason the body cannot be completed
+     */
+    public synchronized void fail(IOException cause) {
+        if (!finished && failure == null) {
+            failure = cause;
+            notifyAll();
+        }
+    }
+
+    /**
+     * The handler's side of the pipe.
+     */
+    private final class Source extends InputStream {
+
+        private final byte[] single = new byte[1];
+
+        /**
+         * Reads a single byte of the body.
+         *
+         * @return the byte, or -1 at the end of the body
+         * @throws IOException if the body could not be received
+         */
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        /**
+         * Reads bytes of the body, waiting until some have arrived.
+         *
+         * @param bytes the array to read into
+         * @param offset the index of the first byte to write
+         * @param length the maximum number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the body
+         * @throws IOException if the body could not be received; a body that is too large or badly framed surfaces
+         * as an IOException caused by the {@link HttpParsingException}
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            Runnable firstRead;
+            synchronized (RequestBodyPipe.this) {
+                firstRead = onFirstRead;
+                onFirstRead = null;
+            }
+            if (firstRead != null) {
+                firstRead.run();
+            }
+            int read;
+            boolean resume;
+            synchronized (RequestBodyPipe.this) {
+                try {
+                    while (count == 0 && !finished && failure == null && !closed) {
+                        RequestBodyPipe.this.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the request body");
+                }
+                if (closed) {
+                    return -1;
+                }
+                if (count == 0) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return -1;
+                }
+                read = Math.min(length, Math.min(count, ring.length - readIndex));
+                System.arraycopy(ring, readIndex, bytes, offset, read);
+                readIndex = (readIndex + read) % ring.length;
+                count -= read;
+                resume = producerPaused;
+                producerPaused = false;
+            }
+            if (resume) {
+                onDrained.run();
+            }
+            return read;
+        }
+
+        /**
+         * Gets the number of bytes that can be read without waiting.
+         *
+         * @return the number of bytes in the pipe
+         */
+        @Override
+        public int available() {
+            synchronized (RequestBodyPipe.this) {
+                return closed ? 0 : count;
+            }
+        }
+
+        /**
+         * Stops reading the body. Bytes still to arrive are dropped with the connection.
+         */
+        @Override
+        public void close() {
+            synchronized (RequestBodyPipe.this) {
+                closed = true;
+                RequestBodyPipe.this.notifyAll();
+            }
+        }
+    }
+}
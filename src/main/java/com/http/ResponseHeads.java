@@ -0,0 +1,112 @@
+package com.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pre-encoded pieces of response heads: the names of common response headers, and status lines,
+ * which are encoded the first time each status is sent and reused from then on.
+ * Encoding a head from these pieces is mostly array copies.
+ */
+final class ResponseHeads {
+
+    /**
+     * The encoded Server header line.
+     */
+    static final byte[] SERVER_HEADER = "Server: java-http-server\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String[] COMMON_NAMES = {
+            "Accept-Ranges", "Allow", "Cache-Control", "Connection", "Content-Encoding", "Content-Length",
+            "Content-Range", "Content-Type", "Date", "ETag", "Expires", "Keep-Alive", "Last-Modified", "Location",
+            "Retry-After", "Server", "Trailer", "Transfer-Encoding", "Vary"
+    };
+
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+    private static final int STATUS_COUNT = MAX_STATUS - MIN_STATUS + 1;
+
+    private static final Map<String, byte[]> NAME_PREFIXES;
+    private static final AtomicReferenceArray<StatusLine> STATUS_LINES =
+            new AtomicReferenceArray<>(HttpVersion.values().length * STATUS_COUNT);
+
+    static {
+        Map<String, byte[]> prefixes = new HashMap<>();
+        for (String name : COMMON_NAMES) {
+            prefixes.put(name, (name + ": ").getBytes(StandardCharsets.US_ASCII));
+        }
+        NAME_PREFIXES = Map.copyOf(prefixes);
+    }
+
+    private ResponseHeads() {
+    }
+
+    /**
+     * Gets the encoded name of a common header, followed by the colon and space that separate it from the value.
+     *
+     * @param name the header name, spelled as it is sent
+     * @return the shared encoded prefix, or null if the name is not a common header spelled this way
+     */
+    static byte[] namePrefix(String name) {
+        return NAME_PREFIXES.get(name);
+    }
+
+    /**
+     * Gets the encoded status line of a response, including its line terminator.
+     * Lines are cached per version and status code for the first reason phrase they are sent with.
+     *
+     * @param version the HTTP version
+     * @param statusCode the status code
+     * @param reasonPhrase the reason phrase
+     * @return the encoded status line; the array may be shared and must not be modified
+     */
+    static byte[] statusLine(HttpVersion version, int statusCode, String reasonPhrase) {
+        if (statusCode < MIN_STATUS || statusCode > MAX_STATUS) {
+            return encodeStatusLine(version, statusCode, reasonPhrase);
+        }
+        int index = version.ordinal() * STATUS_COUNT + statusCode - MIN_STATUS;
+        StatusLine cached = STATUS_LINES.get(index);
+        if (cached != null && cached.reasonPhrase.equals(reasonPhrase)) {
+            return cached.bytes;
+        }
+        byte[] bytes = encodeStatusLine(version, statusCode, reasonPhrase);
+        if (cached == null) {
+            STATUS_LINES.compareAndSet(index, null, new StatusLine(reasonPhrase, bytes));
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes a status line.
+     *
+     * @param version the HTTP version
+     * @param statusCode the status code
+     * @param reasonPhrase the reason phrase
+     * @return the encoded status line, including its line terminator
+     */
+    private static byte[] encodeStatusLine(HttpVersion version, int statusCode, String reasonPhrase) {
+        return (version.getLiteral() + " " + statusCode + " " + reasonPhrase + "\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * An encoded status line and the reason phrase it was encoded with.
+     */
+    private static final class StatusLine {
+
+        private final String reasonPhrase;
+        private final byte[] bytes;
+
+        /**
+         * Constructs a StatusLine.
+         *
+         * @param reasonPhrase the reason phrase
+         * @param bytes the encoded status line
+         */
+        private StatusLine(String reasonPhrase, byte[] bytes) {
+            this.reasonPhrase = reasonPhrase;
+            this.bytes = bytes;
+        }
+    }
+}
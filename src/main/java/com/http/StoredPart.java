@@ -0,0 +1,91 @@
+package com.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The content of a multipart part that has been read in full, either held in memory or spilled to a
+ * temporary file. Closing it deletes the temporary file.
+ */
+public final class StoredPart implements Closeable {
+
+    private final byte[] bytes;
+    private final Path file;
+    private final long size;
+
+    /**
+     * Constructs a StoredPart.
+     *
+     * @param bytes the content held in memory, or null if it was spilled
+     * @param file the temporary file holding the content, or null if it is in memory
+     * @param size the size of the content in bytes
+     */
+    StoredPart(byte[] bytes, Path file, long size) {
+        this.bytes = bytes;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * Gets the size of the content.
+     *
+     * @return the number of bytes in the part
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Determines whether the content is held in memory.
+     *
+     * @return true if the content is in memory, false if it was spilled to a file
+     */
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * Gets the content held in memory. The array is not copied.
+     *
+     * @return the content, or null if it was spilled to a file
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the temporary file holding the content. The file is deleted when the part is closed,
+     * so it has to be moved elsewhere to be kept.
+     *
+     * @return the file, or null if the content is in memory
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Opens a stream over the content.
+     *
+     * @return a new stream over the content
+     * @throws IOException if the temporary file cannot be opened
+     */
+    public InputStream openStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Deletes the temporary file, if any.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A response body written by a producer when the response is sent.
+ */
+final class StreamingBody implements HttpBody {
+
+    private final long length;
+    private final HttpBody.Producer producer;
+
+    /**
+     * Constructs a StreamingBody.
+     *
+     * @param length the number of bytes the producer writes, or -1 if unknown
+     * @param producer the producer of the body
+     */
+    StreamingBody(long length, HttpBody.Producer producer) {
+        this.length = length;
+        this.producer = producer;
+    }
+
+    /**
+     * Gets the length of the body.
+     *
+     * @return the declared number of bytes, or -1 if unknown
+     */
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the bytes of the body.
+     *
+     * @return null, as a streaming body is not held in memory
+     */
+    @Override
+    public ByteBuffer getContent() {
+        return null;
+    }
+
+    /**
+     * Runs the producer against a blocking channel.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        OutputStream outputStream = Channels.newOutputStream(channel);
+        producer.writeTo(outputStream);
+        outputStream.flush();
+    }
+
+    /**
+     * Runs the producer against a blocking output stream.
+     *
+     * @param outputStream the output stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        producer.writeTo(outputStream);
+    }
+}
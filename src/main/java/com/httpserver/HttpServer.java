@@ -2,7 +2,9 @@ package com.httpserver;
 
 import com.httpserver.config.Configuration;
 import com.httpserver.config.ConfigurationManager;
-import com.httpserver.core.ServerListenerThread;
+import com.httpserver.config.ServerMode;
+import com.httpserver.core.NioServerListenerThread;
+import com.httpserver.core.ServerListenerGroup;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
@@ -29,11 +31,15 @@ public class HttpServer {
 
         LOGGER.info("Using port: {}", config.getPort());
         LOGGER.info("Using webroot: {}", config.getWebroot());
+        LOGGER.info("Using server mode: {}", config.getServerMode());
 
         // Start the server listener thread
         try {
-            ServerListenerThread serverListenerThread = new ServerListenerThread(config.getPort(), config.getWebroot());
-            serverListenerThread.start();
+            if (config.getServerMode() == ServerMode.NIO) {
+                new NioServerListenerThread(config).start();
+            } else {
+                new ServerListenerGroup(config).start();
+            }
         } catch (IOException e) {
             LOGGER.error("Error starting the server", e);
         }
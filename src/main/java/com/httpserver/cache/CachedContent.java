@@ -0,0 +1,266 @@
+package com.httpserver.cache;
+
+import com.http.EntityTags;
+import com.http.HttpBody;
+import com.http.HttpDates;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The bytes of a static file held in memory, together with the metadata needed to serve and revalidate them.
+ * The header values are computed once per file version, when the file is read.
+ * Compressed variants of the file are attached to the identity entry the first time they are negotiated,
+ * so they share its lifetime and are dropped together with it when the file changes.
+ */
+public class CachedContent {
+
+    private final byte[] content;
+    private final String contentType;
+    private final String contentLength;
+    private final long lastModified;
+    private final String lastModifiedHeader;
+    private final String etag;
+    private final long size;
+    private final String key;
+    private final String contentEncoding;
+    private final Map<String, CachedContent> variants;
+    private long variantBytes;
+    private volatile boolean referenced;
+
+    /**
+     * Constructs a CachedContent.
+     *
+     * @param content the bytes of the file
+     * @param contentType the MIME type of the file, or null if it is unknown
+     * @param lastModified the modification time of the file in milliseconds
+     * @param size the size of the file on disk when it was read
+     * @param etag the entity tag of this file version
+     */
+    CachedContent(byte[] content, String contentType, long lastModified, long size, String etag) {
+        this(null, content, contentType, lastModified, size, etag);
+    }
+
+    /**
+     * Constructs a CachedContent.
+     *
+     * @param key the cache key of the file, or null if it is not known
+     * @param content the bytes of the file
+     * @param contentType the MIME type of the file, or null if it is unknown
+     * @param lastModified the modification time of the file in milliseconds
+     * @param size the size of the file on disk when it was read
+     * @param etag the entity tag of this file version
+     */
+    CachedContent(String key, byte[] content, String contentType, long lastModified, long size, String etag) {
+        this.key = key;
+        this.content = content;
+        this.contentType = contentType;
+        this.contentLength = String.valueOf(content.length);
+        this.lastModified = lastModified;
+        this.lastModifiedHeader = HttpDates.format(lastModified);
+        this.etag = etag;
+        this.size = size;
+        this.contentEncoding = null;
+        this.variants = new ConcurrentHashMap<>(2);
+    }
+
+    /**
+     * Constructs an encoded variant of a file.
+     *
+     * @param identity the unencoded content of the file
+     * @param encoded the encoded bytes
+     * @param contentEncoding the content coding of the encoded bytes
+     */
+    private CachedContent(CachedContent identity, byte[] encoded, String contentEncoding) {
+        this.key = identity.key;
+        this.content = encoded;
+        this.contentType = identity.contentType;
+        this.contentLength = String.valueOf(encoded.length);
+        this.lastModified = identity.lastModified;
+        this.lastModifiedHeader = identity.lastModifiedHeader;
+        this.etag = EntityTags.forEncoding(identity.etag, contentEncoding);
+        this.size = identity.size;
+        this.contentEncoding = contentEncoding;
+        this.variants = Map.of();
+    }
+
+    /**
+     * Gets the body to send for the file. The cached bytes are shared, not copied.
+     *
+     * @return a body over the cached bytes
+     */
+    public HttpBody getBody() {
+        return HttpBody.of(content);
+    }
+
+    /**
+     * Gets the body to send for part of the file. The cached bytes are shared, not copied.
+     *
+     * @param position the offset of the first byte
+     * @param count the number of bytes
+     * @return a body over the cached bytes of the range
+     */
+    public HttpBody getBody(long position, long count) {
+        return HttpBody.of(ByteBuffer.wrap(content, (int) position, (int) count));
+    }
+
+    /**
+     * Gets the MIME type of the file.
+     *
+     * @return the MIME type, or null if it is unknown
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the Content-Length header value of the file.
+     *
+     * @return the length of the file as a header value
+     */
+    public String getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Gets the modification time of the file when it was read.
+     *
+     * @return the modification time in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the Last-Modified header value of the file.
+     *
+     * @return the modification time formatted as an HTTP-date
+     */
+    public String getLastModifiedHeader() {
+        return lastModifiedHeader;
+    }
+
+    /**
+     * Gets the strong entity tag of the file version.
+     *
+     * @return the quoted entity tag
+     */
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * Gets the number of bytes held in memory for the file.
+     *
+     * @return the size of the cached content
+     */
+    public long getSize() {
+        return content.length;
+    }
+
+    /**
+     * Gets the content coding applied to the cached bytes.
+     *
+     * @return the Content-Encoding header value, or null if the bytes are not encoded
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Gets the cache key of the file.
+     *
+     * @return the key, or null if it is not known
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the bytes held in memory. The array is shared, not copied.
+     *
+     * @return the cached bytes
+     */
+    byte[] getBytes() {
+        return content;
+    }
+
+    /**
+     * Gets a variant of the file that has already been encoded.
+     *
+     * @param coding the content coding
+     * @return the variant, this content if encoding did not make it smaller, or null if it has not been encoded yet
+     */
+    CachedContent getVariant(String coding) {
+        return variants.get(coding);
+    }
+
+    /**
+     * Attaches an encoded variant of the file. The caller must hold the lock of the owning cache.
+     *
+     * @param coding the content coding
+     * @param encoded the encoded bytes
+     * @return the variant to serve, which is this content if encoding did not make it smaller
+     */
+    CachedContent addVariant(String coding, byte[] encoded) {
+        CachedContent existing = variants.get(coding);
+        if (existing != null) {
+            return existing;
+        }
+        CachedContent variant = this;
+        if (encoded.length < content.length) {
+            variant = new CachedContent(this, encoded, coding);
+            variantBytes += encoded.length;
+        }
+        variants.put(coding, variant);
+        return variant;
+    }
+
+    /**
+     * Records that the entry was served from the cache since the eviction scan last passed it.
+     * The flag is only written when it changes, so hits on a hot entry do not contend on it.
+     */
+    void markReferenced() {
+        if (!referenced) {
+            referenced = true;
+        }
+    }
+
+    /**
+     * Determines whether the entry was served since the eviction scan last passed it.
+     *
+     * @return true if the entry was referenced
+     */
+    boolean isReferenced() {
+        return referenced;
+    }
+
+    /**
+     * Clears the referenced flag once the eviction scan has given the entry its second chance.
+     */
+    void clearReferenced() {
+        referenced = false;
+    }
+
+    /**
+     * Gets the number of bytes the file occupies in the cache, including its encoded variants.
+     * The caller must hold the lock of the owning cache.
+     *
+     * @return the footprint in bytes
+     */
+    long getFootprint() {
+        return content.length + variantBytes;
+    }
+
+    /**
+     * Determines whether the cached bytes still reflect the file on disk.
+     *
+     * @param lastModified the current modification time of the file in milliseconds
+     * @param size the current size of the file
+     * @return true if neither the modification time nor the size has changed
+     */
+    boolean matches(long lastModified, long size) {
+        return this.lastModified == lastModified && this.size == size;
+    }
+}
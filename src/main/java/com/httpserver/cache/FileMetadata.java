@@ -0,0 +1,194 @@
+package com.httpserver.cache;
+
+import com.http.ContentCoding;
+import com.http.EntityTags;
+import com.http.HttpDates;
+import com.http.MimeTypes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * What the server needs to know about a path before sending a byte: whether it exists and is a file,
+ * its size and modification time, its MIME type, the validators derived from them, and its gzip sidecar.
+ * Everything is computed once when the path is read, so serving from a cached instance touches no disk.
+ */
+public final class FileMetadata {
+
+    private final Path path;
+    private final boolean exists;
+    private final boolean regularFile;
+    private final long size;
+    private final long lastModified;
+    private final String contentType;
+    private final String contentLength;
+    private final String etag;
+    private final String lastModifiedHeader;
+    private final FileMetadata sidecar;
+    private final long loadedAt;
+
+    /**
+     * Constructs a FileMetadata.
+     *
+     * @param path the absolute, normalized path
+     * @param attributes the attributes of the path, or null if it does not exist
+     * @param contentType the MIME type of the file, or null if it is unknown
+     * @param sidecar the metadata of an up-to-date gzip sidecar, or null if there is none
+     */
+    private FileMetadata(Path path, BasicFileAttributes attributes, String contentType, FileMetadata sidecar) {
+        this.path = path;
+        this.exists = attributes != null;
+        this.regularFile = exists && attributes.isRegularFile();
+        this.size = exists ? attributes.size() : 0;
+        this.lastModified = exists ? attributes.lastModifiedTime().toMillis() : 0;
+        this.contentType = contentType;
+        this.contentLength = String.valueOf(size);
+        this.etag = regularFile ? EntityTags.forFile(lastModified, size) : null;
+        this.lastModifiedHeader = regularFile ? HttpDates.format(lastModified) : null;
+        this.sidecar = sidecar;
+        this.loadedAt = System.nanoTime();
+    }
+
+    /**
+     * Reads the metadata of a path from disk, resolving its MIME type from the built-in table.
+     *
+     * @param path the path to read
+     * @return the metadata, describing a missing file if the path does not exist or cannot be read
+     */
+    public static FileMetadata read(Path path) {
+        return read(path, MimeTypes.DEFAULT);
+    }
+
+    /**
+     * Reads the metadata of a path from disk.
+     * The gzip sidecar is only looked for next to files of a compressible type.
+     *
+     * @param path the path to read
+     * @param mimeTypes the resolver of the file's MIME type
+     * @return the metadata, describing a missing file if the path does not exist or cannot be read
+     */
+    public static FileMetadata read(Path path, MimeTypes mimeTypes) {
+        Path normalized = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(normalized, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return new FileMetadata(normalized, null, null, null);
+        }
+        if (!attributes.isRegularFile()) {
+            return new FileMetadata(normalized, attributes, null, null);
+        }
+
+        String contentType = mimeTypes.resolve(normalized);
+        FileMetadata sidecar = null;
+        if (ContentCoding.isCompressible(contentType)) {
+            BasicFileAttributes sidecarAttributes =
+                    Precompressor.findSidecar(normalized, attributes.lastModifiedTime().toMillis());
+            if (sidecarAttributes != null) {
+                sidecar = new FileMetadata(Precompressor.sidecarOf(normalized), sidecarAttributes, contentType, null);
+            }
+        }
+        return new FileMetadata(normalized, attributes, contentType, sidecar);
+    }
+
+    /**
+     * Gets the path the metadata describes.
+     *
+     * @return the absolute, normalized path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Determines whether the path existed when it was read.
+     *
+     * @return true if the path exists
+     */
+    public boolean exists() {
+        return exists;
+    }
+
+    /**
+     * Determines whether the path was a regular file when it was read.
+     *
+     * @return true if the path is a regular file
+     */
+    public boolean isRegularFile() {
+        return regularFile;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the size in bytes, or 0 if the path does not exist
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the Content-Length header value of the file.
+     *
+     * @return the size of the file as a header value
+     */
+    public String getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Gets the modification time of the file.
+     *
+     * @return the modification time in milliseconds, or 0 if the path does not exist
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the MIME type of the file.
+     *
+     * @return the MIME type, or null if the path is not a regular file
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the strong entity tag of the file version.
+     *
+     * @return the quoted entity tag, or null if the path is not a regular file
+     */
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * Gets the Last-Modified header value of the file.
+     *
+     * @return the modification time formatted as an HTTP-date, or null if the path is not a regular file
+     */
+    public String getLastModifiedHeader() {
+        return lastModifiedHeader;
+    }
+
+    /**
+     * Gets the metadata of the precompressed gzip sidecar of the file.
+     *
+     * @return the sidecar's metadata, or null if the file has no up-to-date sidecar
+     */
+    public FileMetadata getSidecar() {
+        return sidecar;
+    }
+
+    /**
+     * Gets when the metadata was read.
+     *
+     * @return the value of {@link System#nanoTime()} when the path was read
+     */
+    long getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,174 @@
+package com.httpserver.cache;
+
+import com.http.MimeTypes;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of {@link FileMetadata}, keyed by normalized path, that saves the stat and MIME type probe
+ * of every request. Only paths that exist are held, so clients cannot fill the cache with made-up request targets;
+ * repeated requests for missing paths are the business of the dispatcher's not-found cache.
+ * When the cache is full, the oldest entry makes room for the new one. Lookups never take the cache's lock.
+ * While a {@link WebrootWatcher} is delivering change events, entries are kept until their path changes;
+ * without one, each entry is trusted for a short time to live and then read again.
+ */
+public class FileMetadataCache implements WebrootChangeListener {
+
+    private final Map<String, FileMetadata> entries = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, FileMetadata> insertionOrder = new LinkedHashMap<>();
+    private final long timeToLiveNanos;
+    private final int maxEntries;
+    private final MimeTypes mimeTypes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean validateOnAccess = true;
+
+    /**
+     * Constructs a FileMetadataCache that resolves MIME types from the built-in table.
+     *
+     * @param timeToLive how long an entry is trusted without a watcher, in milliseconds
+     * @param maxEntries the maximum number of paths held
+     */
+    public FileMetadataCache(long timeToLive, int maxEntries) {
+        this(timeToLive, maxEntries, MimeTypes.DEFAULT);
+    }
+
+    /**
+     * Constructs a FileMetadataCache.
+     *
+     * @param timeToLive how long an entry is trusted without a watcher, in milliseconds
+     * @param maxEntries the maximum number of paths held, or 0 to read every lookup from disk
+     * @param mimeTypes the resolver of MIME types
+     */
+    public FileMetadataCache(long timeToLive, int maxEntries, MimeTypes mimeTypes) {
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.maxEntries = Math.max(0, maxEntries);
+        this.mimeTypes = mimeTypes;
+    }
+
+    /**
+     * Gets the metadata of a path, from memory if a current entry is held or from disk otherwise.
+     *
+     * @param path the path to look up
+     * @return the metadata of the path
+     */
+    public FileMetadata get(Path path) {
+        String key = path.toAbsolutePath().normalize().toString();
+        FileMetadata metadata = entries.get(key);
+        if (metadata != null && (!validateOnAccess || System.nanoTime() - metadata.getLoadedAt() < timeToLiveNanos)) {
+            hits.increment();
+            return metadata;
+        }
+
+        misses.increment();
+        metadata = FileMetadata.read(path, mimeTypes);
+        if (maxEntries > 0 && metadata.exists()) {
+            put(key, metadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * Drops the entry of a path that changed, the entries below it if it is a directory,
+     * and the entry of the file it is the gzip sidecar of.
+     *
+     * @param path the path that changed
+     */
+    @Override
+    public synchronized void invalidate(Path path) {
+        String key = path.toAbsolutePath().normalize().toString();
+        remove(key);
+        if (key.endsWith(Precompressor.SUFFIX)) {
+            remove(key.substring(0, key.length() - Precompressor.SUFFIX.length()));
+        }
+        String prefix = key + File.separator;
+        Iterator<String> iterator = insertionOrder.keySet().iterator();
+        while (iterator.hasNext()) {
+            String candidate = iterator.next();
+            if (candidate.startsWith(prefix)) {
+                entries.remove(candidate);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops every entry, since changes may have been missed; entries are read again on demand.
+     */
+    @Override
+    public synchronized void revalidate() {
+        insertionOrder.clear();
+        entries.clear();
+    }
+
+    /**
+     * Switches between trusting change events and expiring entries after their time to live.
+     *
+     * @param watching true if a watcher is delivering change events
+     */
+    @Override
+    public void watchStateChanged(boolean watching) {
+        validateOnAccess = !watching;
+    }
+
+    /**
+     * Gets the number of lookups served from memory.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that read the path from disk.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of paths currently held.
+     *
+     * @return the entry count
+     */
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Adds or replaces the entry of a path, dropping the oldest entries if the cache is full.
+     *
+     * @param key the normalized path
+     * @param metadata the metadata of the path
+     */
+    private synchronized void put(String key, FileMetadata metadata) {
+        insertionOrder.remove(key);
+        Iterator<String> eldest = insertionOrder.keySet().iterator();
+        while (insertionOrder.size() >= maxEntries && eldest.hasNext()) {
+            entries.remove(eldest.next());
+            eldest.remove();
+        }
+        insertionOrder.put(key, metadata);
+        entries.put(key, metadata);
+    }
+
+    /**
+     * Drops the entry of a path.
+     *
+     * @param key the normalized path
+     */
+    private void remove(String key) {
+        insertionOrder.remove(key);
+        entries.remove(key);
+    }
+}
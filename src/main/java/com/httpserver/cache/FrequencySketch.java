@@ -0,0 +1,154 @@
+package com.httpserver.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch estimating how often each key has been requested recently.
+ * Each key maps to one 4-bit counter in each of four rows, and its frequency is the smallest of those counters.
+ * Once the number of recorded requests reaches ten times the row width, every counter is halved,
+ * so that keys which were popular a long time ago gradually lose their advantage.
+ * The counters are packed sixteen to a word and updated with compare-and-set, so the sketch can be used
+ * from any number of threads without a lock.
+ */
+class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xab7c6d13, 0x7f4a7c15, 0x9e3779b9};
+    private static final long HALVING_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int mask;
+    private final int rowWords;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * Constructs a FrequencySketch.
+     *
+     * @param expectedKeys the number of distinct keys the sketch should track accurately
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(64, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+        this.rowWords = width >>> 4;
+        this.table = new AtomicLongArray(ROWS * rowWords);
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Records one request for a key.
+     *
+     * @param key the key
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < ROWS; row++) {
+            added |= incrementCounter(row, indexOf(hash, row));
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimates how often a key has been requested recently.
+     *
+     * @param key the key
+     * @return the estimated frequency, between 0 and 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            int index = indexOf(hash, row);
+            long word = table.get(wordOf(row, index));
+            frequency = Math.min(frequency, (int) (word >>> shiftOf(index)) & MAX_COUNT);
+        }
+        return frequency;
+    }
+
+    /**
+     * Adds one to a counter unless it is saturated.
+     *
+     * @param row the row of the counter
+     * @param index the index of the counter in its row
+     * @return true if the counter was incremented
+     */
+    private boolean incrementCounter(int row, int index) {
+        int word = wordOf(row, index);
+        int shift = shiftOf(index);
+        while (true) {
+            long current = table.get(word);
+            if (((current >>> shift) & MAX_COUNT) == MAX_COUNT) {
+                return false;
+            }
+            if (table.compareAndSet(word, current, current + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Halves every counter so that old requests count for less than recent ones.
+     * Only the thread that takes the count back below the sample size does the halving.
+     */
+    private void reset() {
+        int current = additions.get();
+        if (current < sampleSize || !additions.compareAndSet(current, current / 2)) {
+            return;
+        }
+        for (int i = 0; i < table.length(); i++) {
+            long word;
+            do {
+                word = table.get(i);
+            } while (!table.compareAndSet(i, word, (word >>> 1) & HALVING_MASK));
+        }
+    }
+
+    /**
+     * Gets the index of the word holding a counter.
+     *
+     * @param row the row of the counter
+     * @param index the index of the counter in its row
+     * @return the index of the word in the table
+     */
+    private int wordOf(int row, int index) {
+        return row * rowWords + (index >>> 4);
+    }
+
+    /**
+     * Gets the bit offset of a counter within its word.
+     *
+     * @param index the index of the counter in its row
+     * @return the shift of the counter's lowest bit
+     */
+    private static int shiftOf(int index) {
+        return (index & 15) << 2;
+    }
+
+    /**
+     * Gets the counter index of a hash in a row.
+     *
+     * @param hash the spread hash of the key
+     * @param row the row
+     * @return the index of the counter
+     */
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Mixes the bits of a hash code so that similar keys land on unrelated counters.
+     *
+     * @param hashCode the hash code of the key
+     * @return the spread hash
+     */
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,223 @@
+package com.httpserver.cache;
+
+import com.http.ContentCoding;
+import com.http.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes a gzip sidecar ({@code foo.js.gz}) next to every compressible file under the webroot,
+ * so the handlers can send compressed responses straight from disk without compressing anything per request.
+ * The tree is walked as a fork-join computation: each directory and each file to compress is its own task,
+ * so large trees are compressed on every core.
+ * Sidecars are written to a temporary file and moved into place atomically, and a sidecar older than
+ * its file is treated as stale, so a file edited after the pass is simply served uncompressed until the next one.
+ */
+public class Precompressor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Precompressor.class);
+
+    /**
+     * The file name suffix of gzip sidecars.
+     */
+    public static final String SUFFIX = ".gz";
+
+    private final long minSize;
+    private final MimeTypes mimeTypes;
+    private final LongAdder written = new LongAdder();
+
+    /**
+     * Constructs a Precompressor that resolves MIME types from the built-in table.
+     *
+     * @param minSize the size of the smallest file worth compressing
+     */
+    public Precompressor(long minSize) {
+        this(minSize, MimeTypes.DEFAULT);
+    }
+
+    /**
+     * Constructs a Precompressor.
+     *
+     * @param minSize the size of the smallest file worth compressing
+     * @param mimeTypes the resolver of the MIME types that decide which files are compressible
+     */
+    public Precompressor(long minSize, MimeTypes mimeTypes) {
+        this.minSize = minSize;
+        this.mimeTypes = mimeTypes;
+    }
+
+    /**
+     * Gets the path of the gzip sidecar of a file.
+     *
+     * @param file the path of the file
+     * @return the path of its sidecar
+     */
+    public static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Finds an up-to-date gzip sidecar of a file.
+     *
+     * @param file the path of the file
+     * @param lastModified the modification time of the file in milliseconds
+     * @return the attributes of the sidecar, or null if there is none or it is older than the file
+     */
+    public static BasicFileAttributes findSidecar(Path file, long lastModified) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(sidecarOf(file), BasicFileAttributes.class);
+            if (attributes.isRegularFile() && attributes.lastModifiedTime().toMillis() >= lastModified) {
+                return attributes;
+            }
+        } catch (IOException e) {
+            // No sidecar
+        }
+        return null;
+    }
+
+    /**
+     * Writes the missing and stale sidecars of every compressible file under a directory,
+     * using the common fork-join pool, and waits for the pass to finish.
+     *
+     * @param webroot the directory to precompress
+     * @return the number of sidecars written
+     */
+    public long precompress(Path webroot) {
+        long start = System.nanoTime();
+        long before = written.sum();
+        ForkJoinPool.commonPool().invoke(new DirectoryTask(webroot));
+        long count = written.sum() - before;
+        LOGGER.info("Precompressed {} files under {} in {} ms", count, webroot, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    /**
+     * Writes the sidecar of a file if the file is worth compressing and its sidecar is missing or stale.
+     * The sidecar is only kept if it is smaller than the file.
+     *
+     * @param file the file to compress
+     * @param attributes the attributes of the file
+     * @throws IOException if the file cannot be read or the sidecar cannot be written
+     */
+    void compress(Path file, BasicFileAttributes attributes) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(SUFFIX) || attributes.size() < minSize
+                || !ContentCoding.isCompressible(mimeTypes.resolve(file))
+                || findSidecar(file, attributes.lastModifiedTime().toMillis()) != null) {
+            return;
+        }
+
+        Path temporary = Files.createTempFile(file.getParent(), "." + name, ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = ContentCoding.newEncoder(Files.newOutputStream(temporary), ContentCoding.GZIP)) {
+                in.transferTo(out);
+            }
+            if (Files.size(temporary) < attributes.size()) {
+                Files.move(temporary, sidecarOf(file), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                written.increment();
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Precompresses one directory, forking a task for each subdirectory and each file.
+     * Symbolic links to directories are not followed.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+
+        /**
+         * Constructs a DirectoryTask.
+         *
+         * @param directory the directory to precompress
+         */
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Lists the directory and runs the tasks of its entries.
+         */
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isSymbolicLink()) {
+                        // Links to files are compressed, but links to directories are not walked,
+                        // so a link back up the tree cannot make the walk endless
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                        if (attributes.isDirectory()) {
+                            continue;
+                        }
+                    }
+                    if (attributes.isDirectory()) {
+                        tasks.add(new DirectoryTask(entry));
+                    } else if (attributes.isRegularFile()) {
+                        tasks.add(new FileTask(entry, attributes));
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not list {} for precompression", directory, e);
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Precompresses one file.
+     */
+    private final class FileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path file;
+        private final BasicFileAttributes attributes;
+
+        /**
+         * Constructs a FileTask.
+         *
+         * @param file the file to precompress
+         * @param attributes the attributes of the file
+         */
+        FileTask(Path file, BasicFileAttributes attributes) {
+            this.file = file;
+            this.attributes = attributes;
+        }
+
+        /**
+         * Writes the sidecar of the file, logging rather than failing the pass if it cannot be written.
+         */
+        @Override
+        protected void compute() {
+            try {
+                compress(file, attributes);
+            } catch (IOException e) {
+                LOGGER.warn("Could not precompress {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.httpserver.cache;
+
+import com.http.ContentCoding;
+import com.http.EntityTags;
+import com.http.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded in-memory cache of static files, shared by every connection of a server.
+ * Entries are kept within a byte budget and evicted in CLOCK order: oldest first, but an entry served since the scan
+ * last passed it gets a second chance. When a new file does not fit, it is only admitted if a {@link FrequencySketch}
+ * shows it is requested more often than every entry it would displace, so a burst of one-off requests cannot flush
+ * out the hot set. The decision is made before the file is read, and a file that is not admitted is left to be
+ * served straight from disk.
+ * Hits are looked up in a concurrent index and recorded in the lock-free sketch, so they never take the cache's lock.
+ * While a {@link WebrootWatcher} is delivering change events, cached files are served without touching the disk
+ * and are dropped as soon as they change. Without a watcher, each lookup checks the modification time and size
+ * of the file, and reloads it when either has changed.
+ * Compressible files can also be served gzip or deflate encoded: each variant is compressed once per file version,
+ * on first demand, and counts against the same byte budget as the file it belongs to.
+ */
+public class StaticContentCache implements WebrootChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticContentCache.class);
+    private static final int ASSUMED_AVERAGE_FILE_SIZE = 4096;
+
+    private final long maxBytes;
+    private final long maxFileSize;
+    private final long compressionMinSize;
+    private final LinkedHashMap<String, CachedContent> entries;
+    private final Map<String, CachedContent> index = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long size;
+    private volatile long generation;
+    private volatile boolean validateOnAccess = true;
+
+    /**
+     * Constructs a StaticContentCache that does not compress content.
+     *
+     * @param maxBytes the byte budget of the cache
+     * @param maxFileSize the size of the largest file the cache holds
+     */
+    public StaticContentCache(long maxBytes, long maxFileSize) {
+        this(maxBytes, maxFileSize, -1);
+    }
+
+    /**
+     * Constructs a StaticContentCache.
+     *
+     * @param maxBytes the byte budget of the cache
+     * @param maxFileSize the size of the largest file the cache holds
+     * @param compressionMinSize the size of the smallest file worth compressing, or -1 to disable compression
+     */
+    public StaticContentCache(long maxBytes, long maxFileSize, long compressionMinSize) {
+        this.maxBytes = maxBytes;
+        this.maxFileSize = Math.min(maxFileSize, maxBytes);
+        this.compressionMinSize = compressionMinSize;
+        this.entries = new LinkedHashMap<>();
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maxBytes / ASSUMED_AVERAGE_FILE_SIZE));
+    }
+
+    /**
+     * Gets the content of a file, from memory if an up-to-date copy is cached or from disk otherwise.
+     *
+     * @param file the file to read
+     * @return the content of the file, or null if the file is too large to be held in memory
+     * or not requested often enough to displace the cached files
+     * @throws IOException if the file cannot be read
+     */
+    public CachedContent get(File file) throws IOException {
+        return get(file, null);
+    }
+
+    /**
+     * Gets the content of a file, checking a freshly read copy against metadata already at hand
+     * instead of reading the file's attributes again.
+     *
+     * @param file the file to read
+     * @param metadata the current metadata of the file, or null to read it from disk
+     * @return the content of the file, or null if the file is too large to be held in memory
+     * or not requested often enough to displace the cached files
+     * @throws IOException if the file does not exist or cannot be read
+     */
+    public CachedContent get(File file, FileMetadata metadata) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        String key = path.toString();
+
+        long observedGeneration = generation;
+        sketch.increment(key);
+        CachedContent cached = index.get(key);
+        if (cached != null && !validateOnAccess) {
+            hits.increment();
+            cached.markReferenced();
+            return cached;
+        }
+
+        long lastModified;
+        long fileSize;
+        if (metadata != null) {
+            if (!metadata.isRegularFile()) {
+                throw new NoSuchFileException(key);
+            }
+            lastModified = metadata.getLastModified();
+            fileSize = metadata.getSize();
+        } else {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            lastModified = attributes.lastModifiedTime().toMillis();
+            fileSize = attributes.size();
+        }
+        if (cached != null && cached.matches(lastModified, fileSize)) {
+            hits.increment();
+            cached.markReferenced();
+            return cached;
+        }
+
+        misses.increment();
+        if (fileSize > maxFileSize || !isAdmissible(key, fileSize)) {
+            if (cached != null) {
+                invalidate(path);
+            }
+            return null;
+        }
+
+        byte[] bytes = Files.readAllBytes(path);
+        String contentType = metadata != null ? metadata.getContentType() : MimeTypes.DEFAULT.resolve(path);
+        CachedContent content = new CachedContent(key, bytes, contentType, lastModified, fileSize,
+                EntityTags.forFile(lastModified, fileSize));
+        if (bytes.length == fileSize) {
+            admit(key, content, observedGeneration);
+        } else {
+            // The file changed while it was being read; serve what was read but do not cache it
+            invalidate(path);
+        }
+        return content;
+    }
+
+    /**
+     * Gets the cached content of a file without reading, admitting or counting it, for requests that only
+     * describe the file.
+     *
+     * @param file the file to look up
+     * @param metadata the current metadata of the file
+     * @return the cached content, or null if no up-to-date copy of the file is held in memory
+     */
+    public CachedContent peek(File file, FileMetadata metadata) {
+        CachedContent cached = index.get(file.toPath().toAbsolutePath().normalize().toString());
+        if (cached == null || !validateOnAccess) {
+            return cached;
+        }
+        if (!metadata.isRegularFile() || !cached.matches(metadata.getLastModified(), metadata.getSize())) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Determines whether the representation of a file depends on the client's Accept-Encoding header,
+     * which is the case for compressible types above the compression threshold.
+     *
+     * @param content the content of the file
+     * @return true if responses for the file must carry Vary: Accept-Encoding
+     */
+    public boolean isNegotiable(CachedContent content) {
+        return compressionMinSize >= 0
+                && content.getSize() >= compressionMinSize
+                && ContentCoding.isCompressible(content.getContentType());
+    }
+
+    /**
+     * Gets the representation of a file to send for an Accept-Encoding header, compressing the file
+     * the first time a coding is asked for. Only files held in the cache are compressed, so the work is done
+     * once per file version; a file read past the cache is sent unencoded.
+     *
+     * @param content the unencoded content of the file
+     * @param acceptEncoding the Accept-Encoding header value, or null if the client sent none
+     * @return an encoded variant, or the given content if it should be sent unencoded
+     */
+    public CachedContent getVariant(CachedContent content, String acceptEncoding) {
+        if (content.getContentEncoding() != null || !isNegotiable(content)) {
+            return content;
+        }
+        String coding = ContentCoding.negotiate(acceptEncoding);
+        if (coding == null) {
+            return content;
+        }
+        CachedContent variant = content.getVariant(coding);
+        if (variant != null) {
+            return variant;
+        }
+        if (!isResident(content)) {
+            return content;
+        }
+
+        byte[] encoded = ContentCoding.encode(content.getBytes(), coding);
+        synchronized (this) {
+            if (!isResident(content)) {
+                // Evicted or invalidated while compressing; the variant would not outlive this response
+                return content;
+            }
+            long before = content.getFootprint();
+            variant = content.addVariant(coding, encoded);
+            size += content.getFootprint() - before;
+            trim(content.getKey());
+        }
+        return variant;
+    }
+
+    /**
+     * Gets the representation of a file to describe for an Accept-Encoding header, without compressing anything:
+     * an encoded variant is only returned if it has already been made.
+     *
+     * @param content the unencoded content of the file
+     * @param acceptEncoding the Accept-Encoding header value, or null if the client sent none
+     * @return an existing encoded variant, or the given content
+     */
+    public CachedContent getExistingVariant(CachedContent content, String acceptEncoding) {
+        if (content.getContentEncoding() != null || !isNegotiable(content)) {
+            return content;
+        }
+        String coding = ContentCoding.negotiate(acceptEncoding);
+        CachedContent variant = coding != null ? content.getVariant(coding) : null;
+        return variant != null ? variant : content;
+    }
+
+    /**
+     * Determines whether some content is the copy of its file currently held in the cache.
+     *
+     * @param content the content of a file
+     * @return true if the content is cached
+     */
+    private boolean isResident(CachedContent content) {
+        return content.getKey() != null && index.get(content.getKey()) == content;
+    }
+
+    /**
+     * Removes a file from the cache, or every file below it if it is a directory.
+     *
+     * @param path the path that changed
+     */
+    @Override
+    public synchronized void invalidate(Path path) {
+        String key = path.toAbsolutePath().normalize().toString();
+        generation++;
+        CachedContent removed = entries.remove(key);
+        if (removed != null) {
+            index.remove(key);
+            size -= removed.getFootprint();
+            return;
+        }
+        String prefix = key + File.separator;
+        Iterator<Map.Entry<String, CachedContent>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedContent> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                size -= entry.getValue().getFootprint();
+                index.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks every cached file against the disk and drops those that have changed or disappeared.
+     */
+    @Override
+    public void revalidate() {
+        List<Map.Entry<String, CachedContent>> snapshot;
+        synchronized (this) {
+            generation++;
+            snapshot = new ArrayList<>(entries.entrySet());
+        }
+        for (Map.Entry<String, CachedContent> entry : snapshot) {
+            Path path = Path.of(entry.getKey());
+            boolean current;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                current = entry.getValue().matches(attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (IOException e) {
+                current = false;
+            }
+            if (!current) {
+                synchronized (this) {
+                    if (entries.remove(entry.getKey(), entry.getValue())) {
+                        index.remove(entry.getKey());
+                        size -= entry.getValue().getFootprint();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches between trusting change events and checking each file on access.
+     *
+     * @param watching true if a watcher is delivering change events
+     */
+    @Override
+    public void watchStateChanged(boolean watching) {
+        validateOnAccess = !watching;
+    }
+
+    /**
+     * Removes every file from the cache.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        index.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets the number of lookups served from memory.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to read the file from disk.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries evicted to make room for more frequently requested files.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of bytes currently held by the cache.
+     *
+     * @return the size of the cached content in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of files currently held by the cache.
+     *
+     * @return the entry count
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Determines, before a file is read, whether it would be admitted: either it fits in the budget as it is,
+     * or the entries it would displace are all requested less often than it is.
+     *
+     * @param key the cache key of the file
+     * @param fileSize the size of the file
+     * @return true if the file is worth reading into the cache
+     */
+    private synchronized boolean isAdmissible(String key, long fileSize) {
+        CachedContent previous = entries.get(key);
+        long needed = size - (previous != null ? previous.getFootprint() : 0) + fileSize - maxBytes;
+        return needed <= 0 || selectVictims(key, needed) != null;
+    }
+
+    /**
+     * Adds a freshly read file to the cache if it fits in the budget, evicting entries in CLOCK order
+     * when they are requested less often than the new file.
+     *
+     * @param key the cache key of the file
+     * @param candidate the content of the file
+     * @param readGeneration the invalidation generation observed before the file was read
+     */
+    private synchronized void admit(String key, CachedContent candidate, long readGeneration) {
+        if (generation != readGeneration) {
+            // Something changed while the file was being read, so the bytes may already be stale
+            return;
+        }
+        CachedContent previous = entries.remove(key);
+        if (previous != null) {
+            index.remove(key);
+            size -= previous.getFootprint();
+        }
+
+        long needed = size + candidate.getFootprint() - maxBytes;
+        if (needed > 0) {
+            List<String> victims = selectVictims(key, needed);
+            if (victims == null) {
+                LOGGER.debug("Not caching {}: requested less often than the entries it would evict", key);
+                return;
+            }
+            for (String victim : victims) {
+                index.remove(victim);
+                size -= entries.remove(victim).getFootprint();
+                evictions.increment();
+            }
+            // Entries passed over for having been served get their second chance at the back of the queue
+            List<String> reprieved = new ArrayList<>();
+            for (Map.Entry<String, CachedContent> entry : entries.entrySet()) {
+                if (!entry.getValue().isReferenced()) {
+                    break;
+                }
+                reprieved.add(entry.getKey());
+            }
+            for (String reprieve : reprieved) {
+                CachedContent entry = entries.remove(reprieve);
+                entry.clearReferenced();
+                entries.put(reprieve, entry);
+            }
+        }
+
+        entries.put(key, candidate);
+        index.put(key, candidate);
+        size += candidate.getFootprint();
+    }
+
+    /**
+     * Picks the entries to evict to free space for a file, in CLOCK order: the oldest entries that have not been
+     * served since they were last passed over come first, then the ones that have.
+     *
+     * @param key the cache key of the file, which is never picked
+     * @param needed the number of bytes to free
+     * @return the keys of the entries to evict, or null if one of them is requested at least as often as the file
+     */
+    private List<String> selectVictims(String key, long needed) {
+        int candidateFrequency = sketch.frequency(key);
+        List<String> victims = new ArrayList<>();
+        for (int pass = 0; pass < 2 && needed > 0; pass++) {
+            Iterator<Map.Entry<String, CachedContent>> eldest = entries.entrySet().iterator();
+            while (needed > 0 && eldest.hasNext()) {
+                Map.Entry<String, CachedContent> victim = eldest.next();
+                if (victim.getKey().equals(key) || victim.getValue().isReferenced() == (pass == 0)) {
+                    continue;
+                }
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    return null;
+                }
+                victims.add(victim.getKey());
+                needed -= victim.getValue().getFootprint();
+            }
+        }
+        return needed > 0 ? null : victims;
+    }
+
+    /**
+     * Evicts the oldest entries until the cache is back within its budget,
+     * after an entry has grown by gaining an encoded variant.
+     *
+     * @param grown the key of the entry that grew, which is kept
+     */
+    private void trim(String grown) {
+        Iterator<Map.Entry<String, CachedContent>> eldest = entries.entrySet().iterator();
+        while (size > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedContent> victim = eldest.next();
+            if (!victim.getKey().equals(grown)) {
+                size -= victim.getValue().getFootprint();
+                index.remove(victim.getKey());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
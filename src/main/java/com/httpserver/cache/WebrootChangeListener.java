@@ -0,0 +1,40 @@
+package com.httpserver.cache;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the changes a {@link WebrootWatcher} sees under the webroot.
+ * Caches of webroot content implement this to stay coherent with the files on disk.
+ */
+public interface WebrootChangeListener {
+
+    /**
+     * Called when a file or directory under the webroot is modified or deleted.
+     *
+     * @param path the path that changed; for a directory, everything below it may have changed too
+     */
+    void invalidate(Path path);
+
+    /**
+     * Called when a file or directory under the webroot is created, or renamed to a new path.
+     * Listeners that do not remember missing paths treat this as any other change.
+     *
+     * @param path the path that appeared; for a directory, everything below it is new too
+     */
+    default void created(Path path) {
+        invalidate(path);
+    }
+
+    /**
+     * Called when changes may have been missed, so every cached file must be checked against the disk.
+     */
+    void revalidate();
+
+    /**
+     * Called when the watcher starts or stops delivering change events.
+     * While no watcher is running, listeners must check the files themselves.
+     *
+     * @param watching true if changes will be delivered from now on, false if they will not
+     */
+    void watchStateChanged(boolean watching);
+}
@@ -0,0 +1,169 @@
+package com.httpserver.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A background thread that watches the webroot and every directory below it with a {@link WatchService},
+ * and publishes each change to the registered {@link WebrootChangeListener}s.
+ * If the watch service overflows and drops events, the watcher asks the listeners to revalidate
+ * everything and from then on repeats that periodically, so missed changes are picked up within one interval.
+ * If the watch service cannot be used at all, the listeners are told to check files themselves.
+ */
+public class WebrootWatcher extends Thread {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebrootWatcher.class);
+
+    private final Path webroot;
+    private final long revalidateInterval;
+    private final List<WebrootChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private volatile boolean running = true;
+    private boolean periodicRevalidation;
+
+    /**
+     * Constructs a new WebrootWatcher.
+     *
+     * @param webroot the root directory to watch
+     * @param revalidateInterval how often to revalidate, in milliseconds, once events have been lost
+     */
+    public WebrootWatcher(Path webroot, long revalidateInterval) {
+        super("webroot-watcher");
+        setDaemon(true);
+        this.webroot = webroot;
+        this.revalidateInterval = revalidateInterval;
+    }
+
+    /**
+     * Registers a listener for webroot changes. Listeners must be added before the watcher is started.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(WebrootChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops the watcher.
+     */
+    public void shutdown() {
+        running = false;
+        interrupt();
+    }
+
+    /**
+     * Runs the watcher, delivering change events until it is shut down.
+     */
+    @Override
+    public void run() {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            registerAll(watchService, webroot);
+            LOGGER.info("Watching {} directories under {}", directories.size(), webroot);
+            listeners.forEach(listener -> listener.watchStateChanged(true));
+            // Anything cached before the directories were registered may already be stale
+            listeners.forEach(WebrootChangeListener::revalidate);
+
+            long nextRevalidation = 0;
+            while (running) {
+                WatchKey key = periodicRevalidation
+                        ? watchService.poll(Math.max(1, nextRevalidation - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                        : watchService.take();
+                if (key != null) {
+                    processEvents(watchService, key);
+                }
+                if (periodicRevalidation && System.currentTimeMillis() >= nextRevalidation) {
+                    listeners.forEach(WebrootChangeListener::revalidate);
+                    nextRevalidation = System.currentTimeMillis() + revalidateInterval;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.debug("Webroot watcher stopped");
+        } catch (IOException e) {
+            LOGGER.warn("Cannot watch {}; cached files will be checked on every request", webroot, e);
+        } finally {
+            listeners.forEach(listener -> listener.watchStateChanged(false));
+        }
+    }
+
+    /**
+     * Publishes the events of a watch key and re-arms it.
+     *
+     * @param watchService the watch service the key belongs to
+     * @param key the signalled key
+     */
+    private void processEvents(WatchService watchService, WatchKey key) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                if (!periodicRevalidation) {
+                    LOGGER.warn("Webroot watcher overflowed; revalidating cached files every {} ms", revalidateInterval);
+                }
+                periodicRevalidation = true;
+                listeners.forEach(WebrootChangeListener::revalidate);
+                continue;
+            }
+
+            Path changed = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                try {
+                    registerAll(watchService, changed);
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot watch new directory {}; falling back to periodic revalidation", changed, e);
+                    periodicRevalidation = true;
+                }
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                // A rename arrives as a delete of the old path and a create of the new one
+                listeners.forEach(listener -> listener.created(changed));
+            } else {
+                listeners.forEach(listener -> listener.invalidate(changed));
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+            if (directory != null) {
+                listeners.forEach(listener -> listener.invalidate(directory));
+            }
+        }
+    }
+
+    /**
+     * Registers a directory and all of its subdirectories with the watch service.
+     *
+     * @param watchService the watch service
+     * @param root the directory to register
+     * @throws IOException if a directory cannot be registered
+     */
+    private void registerAll(WatchService watchService, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                WatchKey key = directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -1,5 +1,8 @@
 package com.httpserver.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Represents the server configuration.
  */
@@ -7,6 +10,31 @@ public class Configuration {
 
     private int port;
     private String webroot;
+    private int keepAliveTimeout = 5000;
+    private int maxKeepAliveRequests = 100;
+    private int headerReadTimeout = 10000;
+    private int bodyReadTimeout = 30000;
+    private int requestTimeout = 60000;
+    private long maxRequestBodySize = 10L * 1024 * 1024;
+    private String uploadRoot;
+    private String uploadPath = "/uploads";
+    private ServerMode serverMode = ServerMode.BLOCKING;
+    private int eventLoopThreads = Runtime.getRuntime().availableProcessors();
+    private int acceptorThreads = 1;
+    private int workerThreads = 10;
+    private int workerQueueCapacity = 100;
+    private int overloadRetryAfter = 1;
+    private long cacheMaxBytes = 64L * 1024 * 1024;
+    private long cacheMaxFileSize = 1024 * 1024;
+    private long cacheRevalidateInterval = 1000;
+    private int metadataCacheMaxEntries = 10000;
+    private long metadataCacheTtl = 1000;
+    private int notFoundCacheMaxEntries = 10000;
+    private boolean notFoundFilterEnabled;
+    private Map<String, String> mimeTypes = new HashMap<>();
+    private boolean compressionEnabled = true;
+    private long compressionMinSize = 1024;
+    private boolean precompressOnStartup;
 
     /**
      * Gets the port number for the server.
@@ -43,4 +71,463 @@ public class Configuration {
     public void setWebroot(String webroot) {
         this.webroot = webroot;
     }
+
+    /**
+     * Gets how long an idle persistent connection is kept open while waiting for the next request.
+     *
+     * @return the keep-alive timeout in milliseconds
+     */
+    public int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * Sets how long an idle persistent connection is kept open while waiting for the next request.
+     *
+     * @param keepAliveTimeout the keep-alive timeout in milliseconds
+     */
+    public void setKeepAliveTimeout(int keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    /**
+     * Gets the maximum number of requests served on a single connection before it is closed.
+     *
+     * @return the maximum number of requests per connection
+     */
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    /**
+     * Sets the maximum number of requests served on a single connection before it is closed.
+     *
+     * @param maxKeepAliveRequests the maximum number of requests per connection
+     */
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+
+    /**
+     * Gets how long a client may take to send the request line and headers of a request, counted from its first byte.
+     *
+     * @return the header read timeout in milliseconds, or 0 for none
+     */
+    public int getHeaderReadTimeout() {
+        return headerReadTimeout;
+    }
+
+    /**
+     * Sets how long a client may take to send the request line and headers of a request, counted from its first byte.
+     *
+     * @param headerReadTimeout the header read timeout in milliseconds, or 0 for none
+     */
+    public void setHeaderReadTimeout(int headerReadTimeout) {
+        this.headerReadTimeout = headerReadTimeout;
+    }
+
+    /**
+     * Gets how long a read of the request body may wait for the client to send more bytes.
+     *
+     * @return the body read timeout in milliseconds, or 0 for none
+     */
+    public int getBodyReadTimeout() {
+        return bodyReadTimeout;
+    }
+
+    /**
+     * Sets how long a read of the request body may wait for the client to send more bytes.
+     *
+     * @param bodyReadTimeout the body read timeout in milliseconds, or 0 for none
+     */
+    public void setBodyReadTimeout(int bodyReadTimeout) {
+        this.bodyReadTimeout = bodyReadTimeout;
+    }
+
+    /**
+     * Gets how long a client may take to send a whole request, headers and body, counted from its first byte.
+     *
+     * @return the request timeout in milliseconds, or 0 for none
+     */
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Sets how long a client may take to send a whole request, headers and body, counted from its first byte.
+     *
+     * @param requestTimeout the request timeout in milliseconds, or 0 for none
+     */
+    public void setRequestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Gets the maximum size of a request body, in bytes. Larger bodies are rejected with 413 Content Too Large.
+     *
+     * @return the maximum request body size
+     */
+    public long getMaxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * Sets the maximum size of a request body, in bytes.
+     *
+     * @param maxRequestBodySize the maximum request body size to set
+     */
+    public void setMaxRequestBodySize(long maxRequestBodySize) {
+        this.maxRequestBodySize = maxRequestBodySize;
+    }
+
+    /**
+     * Gets the directory PUT and POST uploads are stored in.
+     *
+     * @return the upload root, or null if uploads are disabled
+     */
+    public String getUploadRoot() {
+        return uploadRoot;
+    }
+
+    /**
+     * Sets the directory PUT and POST uploads are stored in.
+     *
+     * @param uploadRoot the upload root to set, or null to disable uploads
+     */
+    public void setUploadRoot(String uploadRoot) {
+        this.uploadRoot = uploadRoot;
+    }
+
+    /**
+     * Gets the request path under which uploads are accepted, mapped onto the upload root.
+     *
+     * @return the upload path
+     */
+    public String getUploadPath() {
+        return uploadPath;
+    }
+
+    /**
+     * Sets the request path under which uploads are accepted.
+     *
+     * @param uploadPath the upload path to set
+     */
+    public void setUploadPath(String uploadPath) {
+        this.uploadPath = uploadPath;
+    }
+
+    /**
+     * Gets the I/O model the server runs with.
+     *
+     * @return the server mode
+     */
+    public ServerMode getServerMode() {
+        return serverMode;
+    }
+
+    /**
+     * Sets the I/O model the server runs with.
+     *
+     * @param serverMode the server mode to set
+     */
+    public void setServerMode(ServerMode serverMode) {
+        this.serverMode = serverMode;
+    }
+
+    /**
+     * Gets the number of selector event-loop threads used in NIO mode.
+     *
+     * @return the number of event-loop threads
+     */
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /**
+     * Sets the number of selector event-loop threads used in NIO mode.
+     *
+     * @param eventLoopThreads the number of event-loop threads to set
+     */
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    /**
+     * Gets the number of acceptor threads used in blocking and virtual mode.
+     * With more than one, each acceptor listens on its own socket bound to the port with SO_REUSEPORT,
+     * and the worker threads and queue capacity are split evenly between them.
+     *
+     * @return the number of acceptor threads
+     */
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    /**
+     * Sets the number of acceptor threads used in blocking and virtual mode.
+     *
+     * @param acceptorThreads the number of acceptor threads to set
+     */
+    public void setAcceptorThreads(int acceptorThreads) {
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    /**
+     * Gets the number of worker threads. In blocking mode each serves one connection at a time;
+     * in NIO mode they run request handlers.
+     *
+     * @return the number of worker threads
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Sets the number of worker threads. In blocking mode each serves one connection at a time;
+     * in NIO mode they run request handlers.
+     *
+     * @param workerThreads the number of worker threads to set
+     */
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Gets the number of connections (blocking mode) or requests (NIO mode) that may wait for a worker thread.
+     * Once the queue is full, further work is rejected with 503 Service Unavailable.
+     *
+     * @return the capacity of the worker queue
+     */
+    public int getWorkerQueueCapacity() {
+        return workerQueueCapacity;
+    }
+
+    /**
+     * Sets the number of connections (blocking mode) or requests (NIO mode) that may wait for a worker thread.
+     *
+     * @param workerQueueCapacity the capacity of the worker queue
+     */
+    public void setWorkerQueueCapacity(int workerQueueCapacity) {
+        this.workerQueueCapacity = workerQueueCapacity;
+    }
+
+    /**
+     * Gets the Retry-After value sent with 503 responses when the worker queue is full.
+     *
+     * @return the number of seconds clients are asked to wait
+     */
+    public int getOverloadRetryAfter() {
+        return overloadRetryAfter;
+    }
+
+    /**
+     * Sets the Retry-After value sent with 503 responses when the worker queue is full.
+     *
+     * @param overloadRetryAfter the number of seconds clients are asked to wait
+     */
+    public void setOverloadRetryAfter(int overloadRetryAfter) {
+        this.overloadRetryAfter = overloadRetryAfter;
+    }
+
+    /**
+     * Gets the byte budget of the in-memory static content cache.
+     *
+     * @return the maximum number of bytes cached, or 0 if the cache is disabled
+     */
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    /**
+     * Sets the byte budget of the in-memory static content cache.
+     *
+     * @param cacheMaxBytes the maximum number of bytes cached, or 0 to disable the cache
+     */
+    public void setCacheMaxBytes(long cacheMaxBytes) {
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+
+    /**
+     * Gets the size of the largest file kept in the static content cache.
+     * Larger files are always streamed from disk.
+     *
+     * @return the maximum size of a cached file in bytes
+     */
+    public long getCacheMaxFileSize() {
+        return cacheMaxFileSize;
+    }
+
+    /**
+     * Sets the size of the largest file kept in the static content cache.
+     *
+     * @param cacheMaxFileSize the maximum size of a cached file in bytes
+     */
+    public void setCacheMaxFileSize(long cacheMaxFileSize) {
+        this.cacheMaxFileSize = cacheMaxFileSize;
+    }
+
+    /**
+     * Gets how often cached files are checked against the disk once the webroot watcher has lost events.
+     *
+     * @return the revalidation interval in milliseconds
+     */
+    public long getCacheRevalidateInterval() {
+        return cacheRevalidateInterval;
+    }
+
+    /**
+     * Sets how often cached files are checked against the disk once the webroot watcher has lost events.
+     *
+     * @param cacheRevalidateInterval the revalidation interval in milliseconds
+     */
+    public void setCacheRevalidateInterval(long cacheRevalidateInterval) {
+        this.cacheRevalidateInterval = cacheRevalidateInterval;
+    }
+
+    /**
+     * Gets the maximum number of paths whose metadata is cached. A value of 0 disables the metadata cache.
+     *
+     * @return the maximum number of metadata cache entries
+     */
+    public int getMetadataCacheMaxEntries() {
+        return metadataCacheMaxEntries;
+    }
+
+    /**
+     * Sets the maximum number of paths whose metadata is cached. A value of 0 disables the metadata cache.
+     *
+     * @param metadataCacheMaxEntries the maximum number of metadata cache entries to set
+     */
+    public void setMetadataCacheMaxEntries(int metadataCacheMaxEntries) {
+        this.metadataCacheMaxEntries = metadataCacheMaxEntries;
+    }
+
+    /**
+     * Gets how long cached file metadata is trusted while the webroot watcher is not delivering change events.
+     *
+     * @return the time to live in milliseconds
+     */
+    public long getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    /**
+     * Sets how long cached file metadata is trusted while the webroot watcher is not delivering change events.
+     *
+     * @param metadataCacheTtl the time to live in milliseconds
+     */
+    public void setMetadataCacheTtl(long metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    /**
+     * Gets the maximum number of missing request targets remembered. A value of 0 disables the not-found cache.
+     *
+     * @return the maximum number of not-found cache entries
+     */
+    public int getNotFoundCacheMaxEntries() {
+        return notFoundCacheMaxEntries;
+    }
+
+    /**
+     * Sets the maximum number of missing request targets remembered. A value of 0 disables the not-found cache.
+     *
+     * @param notFoundCacheMaxEntries the maximum number of not-found cache entries to set
+     */
+    public void setNotFoundCacheMaxEntries(int notFoundCacheMaxEntries) {
+        this.notFoundCacheMaxEntries = notFoundCacheMaxEntries;
+    }
+
+    /**
+     * Determines whether targets absent from a Bloom filter of the webroot are answered with 404 without a lookup.
+     * This is only safe on a case-sensitive file system with no symbolic links to directories in the webroot.
+     *
+     * @return true if the not-found filter is enabled
+     */
+    public boolean isNotFoundFilterEnabled() {
+        return notFoundFilterEnabled;
+    }
+
+    /**
+     * Sets whether targets absent from a Bloom filter of the webroot are answered with 404 without a lookup.
+     * This is only safe on a case-sensitive file system with no symbolic links to directories in the webroot.
+     *
+     * @param notFoundFilterEnabled true to enable the not-found filter
+     */
+    public void setNotFoundFilterEnabled(boolean notFoundFilterEnabled) {
+        this.notFoundFilterEnabled = notFoundFilterEnabled;
+    }
+
+    /**
+     * Gets the MIME types that override the built-in ones, by file extension.
+     *
+     * @return the MIME type overrides
+     */
+    public Map<String, String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    /**
+     * Sets the MIME types that override the built-in ones, by file extension.
+     *
+     * @param mimeTypes the MIME type overrides to set
+     */
+    public void setMimeTypes(Map<String, String> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    /**
+     * Determines whether cached text content is compressed for clients that accept gzip or deflate.
+     *
+     * @return true if response compression is enabled
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Sets whether cached text content is compressed for clients that accept gzip or deflate.
+     *
+     * @param compressionEnabled true to enable response compression
+     */
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * Gets the size of the smallest file worth compressing.
+     * Smaller bodies gain too little to pay for the framing overhead of the coding.
+     *
+     * @return the minimum size in bytes
+     */
+    public long getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    /**
+     * Sets the size of the smallest file worth compressing.
+     *
+     * @param compressionMinSize the minimum size in bytes
+     */
+    public void setCompressionMinSize(long compressionMinSize) {
+        this.compressionMinSize = compressionMinSize;
+    }
+
+    /**
+     * Determines whether gzip sidecars are written for every compressible file under the webroot when the server starts.
+     *
+     * @return true if the webroot is precompressed at startup
+     */
+    public boolean isPrecompressOnStartup() {
+        return precompressOnStartup;
+    }
+
+    /**
+     * Sets whether gzip sidecars are written for every compressible file under the webroot when the server starts.
+     *
+     * @param precompressOnStartup true to precompress the webroot at startup
+     */
+    public void setPrecompressOnStartup(boolean precompressOnStartup) {
+        this.precompressOnStartup = precompressOnStartup;
+    }
 }
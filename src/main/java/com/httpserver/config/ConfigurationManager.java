@@ -9,11 +9,13 @@ import java.nio.file.Paths;
 
 /**
  * Singleton class for managing the server configuration.
+ * The instance and the configuration are published without locking, so reading them never blocks a thread,
+ * and never pins a virtual thread to its carrier.
  */
 public class ConfigurationManager {
 
-    private static ConfigurationManager configurationManager;
-    private static Configuration configuration;
+    private static final ConfigurationManager INSTANCE = new ConfigurationManager();
+    private static volatile Configuration configuration;
 
     /**
      * Private constructor to prevent instantiation.
@@ -25,11 +27,8 @@ public class ConfigurationManager {
      *
      * @return the singleton instance
      */
-    public static synchronized ConfigurationManager getInstance() {
-        if (configurationManager == null) {
-            configurationManager = new ConfigurationManager();
-        }
-        return configurationManager;
+    public static ConfigurationManager getInstance() {
+        return INSTANCE;
     }
 
     /**
@@ -0,0 +1,23 @@
+package com.httpserver.config;
+
+/**
+ * Enum representing the I/O models the server can run with.
+ */
+public enum ServerMode {
+
+    /**
+     * One pooled thread per connection, blocking on socket reads and writes.
+     */
+    BLOCKING,
+
+    /**
+     * One virtual thread per connection, blocking on socket reads and writes without tying up a platform thread.
+     * Requires Java 21 or later.
+     */
+    VIRTUAL,
+
+    /**
+     * Selector-driven event loops for socket I/O, with request handling on a separate worker pool.
+     */
+    NIO
+}
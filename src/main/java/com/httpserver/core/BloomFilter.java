@@ -0,0 +1,78 @@
+package com.httpserver.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over strings, answering whether a string may have been added.
+ * A negative answer is certain; a positive one is wrong for about 1% of strings while the filter holds
+ * no more than the number of strings it was sized for, and more often once it holds more.
+ * Strings can be added concurrently with lookups.
+ */
+final class BloomFilter {
+
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASHES = 7;
+
+    private final AtomicLongArray words;
+    private final int mask;
+
+    /**
+     * Constructs a BloomFilter.
+     *
+     * @param expectedEntries the number of strings the filter is sized for
+     */
+    BloomFilter(int expectedEntries) {
+        long bits = Math.max(1024L, (long) expectedEntries * BITS_PER_ENTRY);
+        int size = (int) Math.min(1L << 30, Long.highestOneBit(bits - 1) << 1);
+        this.words = new AtomicLongArray(size >>> 6);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds a string to the filter.
+     *
+     * @param value the string to add
+     */
+    void add(String value) {
+        int hash = spread(value.hashCode());
+        int step = (hash >>> 17 | hash << 15) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (hash + i * step) & mask;
+            long flag = 1L << bit;
+            int word = bit >>> 6;
+            long current = words.get(word);
+            if ((current & flag) == 0) {
+                words.accumulateAndGet(word, flag, (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * Determines whether a string may have been added to the filter.
+     *
+     * @param value the string to look up
+     * @return false if the string has certainly not been added
+     */
+    boolean mightContain(String value) {
+        int hash = spread(value.hashCode());
+        int step = (hash >>> 17 | hash << 15) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (hash + i * step) & mask;
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes the bits of a hash code so that similar strings set unrelated bits.
+     *
+     * @param hashCode the hash code of the string
+     * @return the spread hash
+     */
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,234 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+
+/**
+ * The read deadlines of one connection, enforced through a shared {@link HashedTimingWheel}.
+ * A connection is idle between requests, then reads the request line and headers, then the body.
+ * While the connection waits for the client, the deadline of its phase applies:
+ * <ul>
+ *     <li>idle: the keep-alive timeout, counted from the end of the previous response;</li>
+ *     <li>headers: the header read timeout, counted from the first byte of the request, so a client that trickles
+ *     its headers in a byte at a time is cut off however often it sends;</li>
+ *     <li>body: the body read timeout, counted from the start of each read;</li>
+ * </ul>
+ * and the request timeout caps the headers and body together. While the server itself is busy, handling a request
+ * or writing a response, no read deadline applies.
+ * <p>
+ * A connection keeps at most one timeout on the wheel. Reads only record when they start and end; when the timeout
+ * fires, the deadline is worked out again, and the timeout is moved to it if the connection has made progress since,
+ * so a busy connection costs no wheel operations per read.
+ */
+final class ConnectionTimeouts {
+
+    private static final long NONE = Long.MAX_VALUE;
+
+    /**
+     * The phases of a connection with different read deadlines.
+     */
+    private enum Phase {
+        IDLE("keep-alive"),
+        HEADERS("header read"),
+        BODY("body read");
+
+        private final String description;
+
+        Phase(String description) {
+            this.description = description;
+        }
+    }
+
+    private final HashedTimingWheel wheel;
+    private final Runnable onExpired;
+    private final long keepAliveTimeout;
+    private final long headerReadTimeout;
+    private final long bodyReadTimeout;
+    private final long requestTimeout;
+
+    private Phase phase = Phase.IDLE;
+    private long idleSince;
+    private long requestStart;
+    private long readStart;
+    private boolean reading;
+    private HashedTimingWheel.Timeout timeout;
+    private long generation;
+    private Phase expired;
+    private boolean cancelled;
+
+    /**
+     * Constructs a ConnectionTimeouts.
+     *
+     * @param wheel the wheel the deadlines are scheduled on
+     * @param configuration the server configuration, providing the timeouts; a timeout of 0 or less is disabled
+     * @param onExpired the task that closes the connection once a deadline has passed
+     */
+    ConnectionTimeouts(HashedTimingWheel wheel, Configuration configuration, Runnable onExpired) {
+        this.wheel = wheel;
+        this.onExpired = onExpired;
+        this.keepAliveTimeout = configuration.getKeepAliveTimeout();
+        this.headerReadTimeout = configuration.getHeaderReadTimeout();
+        this.bodyReadTimeout = configuration.getBodyReadTimeout();
+        this.requestTimeout = configuration.getRequestTimeout();
+    }
+
+    /**
+     * Marks the connection as idle, waiting for its next request.
+     *
+     * @param now the current time in milliseconds
+     */
+    synchronized void idle(long now) {
+        phase = Phase.IDLE;
+        idleSince = now;
+        rearm();
+    }
+
+    /**
+     * Marks the arrival of the first byte of a request, unless a request is already being read.
+     *
+     * @param now the current time in milliseconds
+     */
+    synchronized void requestStarted(long now) {
+        if (phase != Phase.IDLE) {
+            return;
+        }
+        phase = Phase.HEADERS;
+        requestStart = now;
+        rearm();
+    }
+
+    /**
+     * Marks the end of the request headers, unless the body is already being read.
+     */
+    synchronized void bodyStarted() {
+        if (phase == Phase.BODY) {
+            return;
+        }
+        phase = Phase.BODY;
+        rearm();
+    }
+
+    /**
+     * Marks the start of a read, or of a wait for the client to send more bytes.
+     * The body read timeout is counted from the latest call.
+     *
+     * @param now the current time in milliseconds
+     */
+    synchronized void readStarted(long now) {
+        reading = true;
+        readStart = now;
+        if (timeout == null) {
+            arm();
+        }
+    }
+
+    /**
+     * Marks the end of a read: the server is busy until the next one starts, and no read deadline applies.
+     */
+    synchronized void readFinished() {
+        reading = false;
+    }
+
+    /**
+     * Cancels the pending deadline for good, when the connection is closed.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    /**
+     * Gets the deadline that closed the connection.
+     *
+     * @return a description of the expired timeout, or null if none has expired
+     */
+    synchronized String getExpiredTimeout() {
+        return expired != null ? expired.description : null;
+    }
+
+    /**
+     * Works out when the connection has to be closed if nothing changes.
+     *
+     * @return the deadline in milliseconds, or {@link #NONE} if the connection is not waiting for the client
+     */
+    private long deadline() {
+        if (!reading) {
+            return NONE;
+        }
+        return switch (phase) {
+            case IDLE -> after(idleSince, keepAliveTimeout);
+            case HEADERS -> Math.min(after(requestStart, headerReadTimeout), after(requestStart, requestTimeout));
+            case BODY -> Math.min(after(readStart, bodyReadTimeout), after(requestStart, requestTimeout));
+        };
+    }
+
+    /**
+     * Moves the pending timeout to the deadline of a new phase.
+     */
+    private void rearm() {
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+        arm();
+    }
+
+    /**
+     * Schedules a timeout at the current deadline, if there is one.
+     */
+    private void arm() {
+        long deadline = deadline();
+        if (deadline != NONE && !cancelled && expired == null) {
+            schedule(deadline);
+        }
+    }
+
+    /**
+     * Puts a timeout on the wheel. A timeout that was already firing when it was replaced is told apart
+     * by its generation and ignored.
+     *
+     * @param deadline the deadline in milliseconds
+     */
+    private void schedule(long deadline) {
+        long armed = ++generation;
+        timeout = wheel.newTimeout(() -> expire(armed), deadline);
+    }
+
+    /**
+     * Checks the deadline when the timeout fires, closing the connection if it has passed,
+     * and moving the timeout to it otherwise.
+     *
+     * @param armed the generation of the timeout that fired
+     */
+    private void expire(long armed) {
+        synchronized (this) {
+            if (armed != generation) {
+                return;
+            }
+            timeout = null;
+            long deadline = deadline();
+            if (cancelled || deadline == NONE) {
+                return;
+            }
+            if (deadline > HashedTimingWheel.now()) {
+                schedule(deadline);
+                return;
+            }
+            expired = phase;
+        }
+        onExpired.run();
+    }
+
+    /**
+     * Adds a timeout to a start time.
+     *
+     * @param start the start time in milliseconds
+     * @param timeout the timeout in milliseconds, disabled if 0 or less
+     * @return the deadline, or {@link #NONE} if the timeout is disabled
+     */
+    private static long after(long start, long timeout) {
+        return timeout > 0 ? start + timeout : NONE;
+    }
+}
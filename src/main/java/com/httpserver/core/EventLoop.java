@@ -0,0 +1,184 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A selector thread that owns a set of non-blocking connections and reacts to their read and write readiness.
+ * Other threads hand work to the loop through {@link #execute(Runnable)}; the loop runs it between selects,
+ * so the state of a connection is only ever touched from its own loop.
+ * The read deadlines of the loop's connections are kept on a {@link HashedTimingWheel} that the loop advances
+ * after every select, so expired connections are found without visiting the ones that are not.
+ */
+public class EventLoop extends Thread {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoop.class);
+    private static final long SELECT_TIMEOUT_MILLIS = HashedTimingWheel.DEFAULT_TICK_MILLIS;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    private final Configuration configuration;
+    private final RequestDispatcher dispatcher;
+    private final ExecutorService workerPool;
+    private final HashedTimingWheel timingWheel;
+    private volatile boolean running;
+
+    /**
+     * Constructs a new EventLoop.
+     *
+     * @param name the name of the event-loop thread
+     * @param configuration the server configuration, providing the keep-alive limits and read timeouts
+     * @param dispatcher the dispatcher that routes requests to their handlers
+     * @param workerPool the pool that runs request handlers off the event loop
+     * @throws IOException if the selector cannot be opened
+     */
+    public EventLoop(String name, Configuration configuration, RequestDispatcher dispatcher, ExecutorService workerPool) throws IOException {
+        super(name);
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.configuration = configuration;
+        this.dispatcher = dispatcher;
+        this.workerPool = workerPool;
+        this.timingWheel = new HashedTimingWheel();
+        this.running = true;
+    }
+
+    /**
+     * Gets the timing wheel the read deadlines of the loop's connections are kept on.
+     * It is advanced by the loop, so its timeouts fire on the event-loop thread.
+     *
+     * @return the timing wheel
+     */
+    HashedTimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
+    /**
+     * Hands a freshly accepted connection to this event loop.
+     *
+     * @param channel the accepted socket channel
+     */
+    public void register(SocketChannel channel) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new NioConnection(channel, key, this, configuration, dispatcher, workerPool));
+            } catch (IOException e) {
+                LOGGER.error("Error registering connection: ", e);
+                try {
+                    channel.close();
+                } catch (IOException closeException) {
+                    LOGGER.error("Error closing channel: ", closeException);
+                }
+            }
+        });
+    }
+
+    /**
+     * Schedules a task to run on the event-loop thread and wakes the selector up.
+     *
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Stops the event loop and closes every connection it owns.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the event loop until it is shut down.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                runTasks();
+                processSelectedKeys();
+                timingWheel.expireTimeouts(HashedTimingWheel.now());
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error in event loop: ", e);
+        } finally {
+            closeSelector();
+        }
+    }
+
+    /**
+     * Runs the tasks handed over by other threads.
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Error running event-loop task: ", e);
+            }
+        }
+    }
+
+    /**
+     * Dispatches read and write readiness to the connections.
+     */
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            NioConnection connection = (NioConnection) key.attachment();
+            if (connection == null || !key.isValid()) {
+                continue;
+            }
+            try {
+                if (key.isReadable()) {
+                    connection.onReadable();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.onWritable();
+                }
+            } catch (IOException | CancelledKeyException e) {
+                LOGGER.debug("Closing connection after I/O error: {}", e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Closes every remaining connection and the selector itself.
+     */
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            NioConnection connection = (NioConnection) key.attachment();
+            if (connection != null) {
+                connection.close();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing selector: ", e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.httpserver.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashed timing wheel: a ring of buckets, one per tick, that timeouts are hashed into by their deadline tick.
+ * Timeouts further away than one turn of the wheel wait in their bucket for the remaining number of rounds.
+ * Scheduling and cancelling a timeout take constant time, and each tick only visits the timeouts in a single bucket,
+ * so tracking the deadlines of a great many connections costs the same per tick as tracking a few.
+ * Deadlines are rounded up to the next tick, so a timeout never fires early and at most one tick late.
+ * <p>
+ * The wheel is advanced by {@link #expireTimeouts(long)}, either from a thread that already wakes up regularly,
+ * such as an event loop, or from a ticker thread started with {@link #start(String)}.
+ * Expired tasks run on the thread that advances the wheel, so they have to be short.
+ */
+final class HashedTimingWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    /**
+     * The default duration of a tick, in milliseconds.
+     */
+    static final long DEFAULT_TICK_MILLIS = 100;
+
+    /**
+     * The default number of buckets, covering just under a minute per turn with the default tick.
+     */
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMillis;
+    private final Timeout[] buckets;
+    private final int mask;
+    private long tick;
+    private int size;
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a HashedTimingWheel with the default tick and size, starting at the current time.
+     */
+    HashedTimingWheel() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, now());
+    }
+
+    /**
+     * Constructs a HashedTimingWheel.
+     *
+     * @param tickMillis the duration of a tick in milliseconds
+     * @param wheelSize the number of buckets, a power of two
+     * @param start the current time in milliseconds, on the clock deadlines are given in
+     */
+    HashedTimingWheel(long tickMillis, int wheelSize, long start) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Invalid timing wheel: " + wheelSize + " buckets of " + tickMillis + " ms");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+        this.tick = Math.floorDiv(start, tickMillis);
+    }
+
+    /**
+     * Gets the current time on the monotonic clock the server's deadlines are measured with.
+     *
+     * @return the current time in milliseconds
+     */
+    static long now() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    /**
+     * Schedules a task to run once a deadline has passed.
+     *
+     * @param task the task to run
+     * @param deadline the time in milliseconds after which the task runs; a time in the past runs it on the next tick
+     * @return the timeout, which can be cancelled until it expires
+     */
+    synchronized Timeout newTimeout(Runnable task, long deadline) {
+        long deadlineTick = Math.max(tick + 1, -Math.floorDiv(-deadline, tickMillis));
+        Timeout timeout = new Timeout(this, task);
+        timeout.bucket = (int) (deadlineTick & mask);
+        timeout.rounds = (deadlineTick - tick - 1) / buckets.length;
+        Timeout head = buckets[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        buckets[timeout.bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to the current time and runs the tasks of the timeouts that expired on the way.
+     *
+     * @param now the current time in milliseconds
+     */
+    void expireTimeouts(long now) {
+        List<Timeout> expired = null;
+        synchronized (this) {
+            long target = Math.floorDiv(now, tickMillis);
+            while (tick < target) {
+                tick++;
+                Timeout timeout = buckets[(int) (tick & mask)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.rounds > 0) {
+                        timeout.rounds--;
+                    } else {
+                        remove(timeout);
+                        if (expired == null) {
+                            expired = new ArrayList<>();
+                        }
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+        }
+        if (expired != null) {
+            // Tasks run outside the lock, so they can schedule new timeouts
+            for (Timeout timeout : expired) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error running timeout task: ", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of timeouts waiting to expire.
+     *
+     * @return the number of pending timeouts
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Starts a daemon thread that advances the wheel once per tick.
+     * The thread runs until the wheel is stopped and every pending timeout has expired or been cancelled,
+     * so connections that are still open when the server stops keep their deadlines.
+     *
+     * @param name the name of the thread
+     * @return the thread
+     */
+    Thread start(String name) {
+        Thread ticker = new Thread(() -> {
+            try {
+                while (!stopped || size() > 0) {
+                    Thread.sleep(tickMillis);
+                    expireTimeouts(now());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, name);
+        ticker.setDaemon(true);
+        ticker.start();
+        return ticker;
+    }
+
+    /**
+     * Lets the ticker thread end once no timeouts are pending.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Unlinks a timeout from its bucket.
+     *
+     * @param timeout the timeout, which has to be pending
+     */
+    private void remove(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.wheel = null;
+        size--;
+    }
+
+    /**
+     * A task scheduled on a {@link HashedTimingWheel}, linked into the bucket of its deadline tick.
+     */
+    static final class Timeout {
+
+        private final Runnable task;
+        private HashedTimingWheel wheel;
+        private Timeout previous;
+        private Timeout next;
+        private int bucket;
+        private long rounds;
+
+        /**
+         * Constructs a Timeout.
+         *
+         * @param wheel the wheel the timeout is scheduled on
+         * @param task the task to run when the timeout expires
+         */
+        private Timeout(HashedTimingWheel wheel, Runnable task) {
+            this.wheel = wheel;
+            this.task = task;
+        }
+
+        /**
+         * Cancels the timeout, so its task does not run.
+         *
+         * @return true if the timeout was pending, false if it had already expired or been cancelled
+         */
+        boolean cancel() {
+            HashedTimingWheel owner = wheel;
+            if (owner == null) {
+                return false;
+            }
+            synchronized (owner) {
+                if (wheel == null) {
+                    return false;
+                }
+                owner.remove(this);
+                return true;
+            }
+        }
+    }
+}
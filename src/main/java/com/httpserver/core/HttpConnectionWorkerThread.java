@@ -1,122 +1,152 @@
 package com.httpserver.core;
 
-import com.http.HttpMethod;
+import com.http.HttpClock;
 import com.http.HttpParser;
 import com.http.HttpParsingException;
 import com.http.HttpRequest;
 import com.http.HttpResponse;
 import com.http.HttpVersion;
-import com.httpserver.handlers.GetMethodHandler;
-import com.httpserver.handlers.HeadMethodHandler;
-import com.httpserver.handlers.MethodHandler;
+import com.httpserver.config.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
-import java.util.EnumMap;
-import java.util.Map;
+import java.nio.channels.SocketChannel;
 
 /**
  * A thread that handles an individual HTTP connection.
+ * The connection is persistent: requests are served one after another on the same socket until
+ * the client asks to close it, the keep-alive timeout expires or the per-connection request limit is reached.
+ * Reads from the socket are bounded by the deadlines of {@link ConnectionTimeouts}, kept on a timing wheel shared by
+ * every connection of the server; a connection that misses one is closed from the wheel's thread, which
+ * unblocks the read it is stuck in.
  */
 public class HttpConnectionWorkerThread extends Thread {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionWorkerThread.class);
 
     private final Socket socket;
-    private final String webroot;
-    private final Map<HttpMethod, MethodHandler> methodHandlers;
+    private final RequestDispatcher dispatcher;
+    private final ConnectionTimeouts timeouts;
+    private final int maxKeepAliveRequests;
+    private final long maxRequestBodySize;
 
     /**
      * Constructs a new HttpConnectionWorkerThread.
      *
      * @param socket the socket connected to the client
-     * @param webroot the root directory for web content
+     * @param configuration the server configuration, providing the keep-alive limits
+     * @param dispatcher the dispatcher that routes requests to their handlers
+     * @param timingWheel the timing wheel the read deadlines of the connection are kept on
      */
-    public HttpConnectionWorkerThread(Socket socket, String webroot) {
+    public HttpConnectionWorkerThread(Socket socket, Configuration configuration, RequestDispatcher dispatcher,
+                                      HashedTimingWheel timingWheel) {
         this.socket = socket;
-        this.webroot = webroot;
-        this.methodHandlers = new EnumMap<>(HttpMethod.class);
+        this.dispatcher = dispatcher;
+        this.timeouts = new ConnectionTimeouts(timingWheel, configuration, this::closeSocket);
+        this.maxKeepAliveRequests = configuration.getMaxKeepAliveRequests();
+        this.maxRequestBodySize = configuration.getMaxRequestBodySize();
     }
 
     /**
-     * Runs the thread to process the HTTP connection.
+     * Runs the thread to process the HTTP connection, serving requests until the connection is closed.
      */
     @Override
     public void run() {
-        try (InputStream inputStream = socket.getInputStream(); OutputStream outputStream = socket.getOutputStream()) {
-            HttpResponse response;
-
-            // Parse the request
+        try (InputStream inputStream = new TimedInputStream(socket.getInputStream(), timeouts);
+             OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream())) {
+            timeouts.idle(HashedTimingWheel.now());
             HttpParser parser = new HttpParser();
-            HttpRequest request;
-            try {
-                request = parser.parseHttpRequest(inputStream);
-                response = new HttpResponse(request.getHttpVersion());
-            } catch (HttpParsingException e) {
-                LOGGER.error("Error parsing HTTP request", e);
-                response = new HttpResponse(HttpVersion.HTTP_1_1); // Default to HTTP/1.1 if parsing fails
-                sendErrorResponse(response, 400, "Bad Request", outputStream);
-                return;
-            }
+            parser.setMaxBodySize(maxRequestBodySize);
+            parser.setStreamingBody(true); // Handlers read bodies straight from the socket
+            parser.setContinueStream(outputStream);
+            int requestCount = 0;
+            boolean keepAlive = true;
+
+            while (keepAlive && parser.hasNextRequest(inputStream)) {
+                timeouts.requestStarted(HashedTimingWheel.now());
+                requestCount++;
+                HttpResponse response;
+
+                // Parse the request
+                HttpRequest request;
+                try {
+                    request = parser.parseHttpRequest(inputStream);
+                    response = new HttpResponse(request.getHttpVersion());
+                    response.setStandardHeaders(HttpClock.SYSTEM);
+                    response.setChunkedTransferEncoding(true);
+                } catch (HttpParsingException e) {
+                    LOGGER.error("Error parsing HTTP request", e);
+                    response = new HttpResponse(HttpVersion.HTTP_1_1); // Default to HTTP/1.1 if parsing fails
+                    response.setStandardHeaders(HttpClock.SYSTEM);
+                    response.setKeepAlive(false); // The stream position is unknown after a parse error
+                    sendErrorResponse(response, e.getStatusCode(), e.getReasonPhrase(), outputStream);
+                    return;
+                }
 
-            // Basic routing
-            handleRequest(request, response);
+                // Basic routing; the handler reads the body, if it wants it
+                timeouts.bodyStarted();
+                dispatcher.dispatch(request, response);
 
-            // Send response
-            response.write(outputStream);
+                keepAlive = request.isKeepAlive() && requestCount < maxKeepAliveRequests && response.isKeepAlive()
+                        && !isBodyRejected(parser, response);
+                response.setKeepAlive(keepAlive);
 
-            LOGGER.info("Connection processing finished.");
+                // Send response
+                sendResponse(response, outputStream);
+                keepAlive = keepAlive && response.isKeepAlive();
+                timeouts.idle(HashedTimingWheel.now());
+            }
+
+            LOGGER.info("Connection processing finished after {} request(s).", requestCount);
         } catch (IOException e) {
-            LOGGER.error("Error with communication: ", e);
+            String expired = timeouts.getExpiredTimeout();
+            if (expired != null) {
+                LOGGER.debug("Closed connection from {} after its {} timeout", socket.getInetAddress(), expired);
+            } else {
+                LOGGER.error("Error with communication: ", e);
+            }
         } finally {
+            timeouts.cancel();
             closeSocket();
         }
     }
 
     /**
-     * Handles the incoming HTTP request and prepares the appropriate response.
+     * Determines whether the handler turned the request down without reading its body. The connection is then
+     * closed rather than reading a body nobody wants, and a client waiting for 100 Continue is spared sending it.
      *
-     * @param request the HTTP request
-     * @param response the HTTP response
+     * @param parser the parser of the connection
+     * @param response the response to the request
+     * @return true if the connection has to be closed after the response
      */
-    private void handleRequest(HttpRequest request, HttpResponse response) {
-        String requestTarget = request.getRequestTarget();
-        File file = new File(webroot, requestTarget);
-
-        if (file.exists() && !file.isDirectory()) {
-            populateMethodHandlers(file);
-
-            MethodHandler handler = methodHandlers.get(request.getMethod());
-
-            if (handler != null) {
-                try {
-                    handler.handle(request, response);
-                } catch (IOException e) {
-                    LOGGER.error("Error handling request", e);
-                    sendErrorResponse(response, 500, "Internal Server Error", null);
-                }
-            } else {
-                sendErrorResponse(response, 405, "Method Not Allowed", null);
-                response.setHeader("Allow", "GET, HEAD");
-            }
-        } else {
-            sendErrorResponse(response, 404, "Not Found", null);
-        }
+    private static boolean isBodyRejected(HttpParser parser, HttpResponse response) {
+        return parser.isAwaitingContinue() || (parser.isBodyPending() && response.getStatusCode() >= 400);
     }
 
     /**
-     * Populates the method handlers for GET and HEAD requests.
+     * Sends a response to the client.
+     * When the socket has a channel the response is written to it directly: the head and an in-memory body
+     * go out in one gathering write, and file bodies are transferred by the operating system
+     * instead of being copied through the heap.
      *
-     * @param file the file requested by the client
+     * @param response the HTTP response
+     * @param outputStream the buffered output stream of the socket
+     * @throws IOException if an I/O error occurs
      */
-    private void populateMethodHandlers(File file) {
-        methodHandlers.put(HttpMethod.GET, new GetMethodHandler(file));
-        methodHandlers.put(HttpMethod.HEAD, new HeadMethodHandler(file));
+    private void sendResponse(HttpResponse response, OutputStream outputStream) throws IOException {
+        SocketChannel channel = socket.getChannel();
+        if (channel != null) {
+            response.write(channel);
+        } else {
+            response.write(outputStream);
+            outputStream.flush();
+        }
     }
 
     /**
@@ -128,16 +158,12 @@ public class HttpConnectionWorkerThread extends Thread {
      * @param outputStream the output stream to write the response to
      */
     private void sendErrorResponse(HttpResponse response, int statusCode, String reasonPhrase, OutputStream outputStream) {
-        response.setStatusCode(statusCode);
-        response.setReasonPhrase(reasonPhrase);
-        response.setHeader("Content-Type", "text/html");
-        response.setBody(String.format("<html><body><h1>%d %s</h1></body></html>", statusCode, reasonPhrase));
-        if (outputStream != null) {
-            try {
-                response.write(outputStream);
-            } catch (IOException e) {
-                LOGGER.error("Error sending error response", e);
-            }
+        RequestDispatcher.prepareErrorResponse(response, statusCode, reasonPhrase);
+        try {
+            response.write(outputStream);
+            outputStream.flush();
+        } catch (IOException e) {
+            LOGGER.error("Error sending error response", e);
         }
     }
 
@@ -153,4 +179,59 @@ public class HttpConnectionWorkerThread extends Thread {
             }
         }
     }
+
+    /**
+     * A socket input stream that reports each read to the connection's timeouts,
+     * so a deadline only applies while the connection is waiting for the client.
+     */
+    private static final class TimedInputStream extends FilterInputStream {
+
+        private final ConnectionTimeouts timeouts;
+
+        /**
+         * Constructs a TimedInputStream.
+         *
+         * @param inputStream the socket input stream
+         * @param timeouts the timeouts of the connection
+         */
+        TimedInputStream(InputStream inputStream, ConnectionTimeouts timeouts) {
+            super(inputStream);
+            this.timeouts = timeouts;
+        }
+
+        /**
+         * Reads a single byte under the current read deadline.
+         *
+         * @return the byte, or -1 at the end of the stream
+         * @throws IOException if an I/O error occurs or the connection is closed by a timeout
+         */
+        @Override
+        public int read() throws IOException {
+            timeouts.readStarted(HashedTimingWheel.now());
+            try {
+                return super.read();
+            } finally {
+                timeouts.readFinished();
+            }
+        }
+
+        /**
+         * Reads bytes into an array under the current read deadline.
+         *
+         * @param bytes the array to read into
+         * @param offset the index of the first byte to write
+         * @param length the maximum number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the stream
+         * @throws IOException if an I/O error occurs or the connection is closed by a timeout
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            timeouts.readStarted(HashedTimingWheel.now());
+            try {
+                return super.read(bytes, offset, length);
+            } finally {
+                timeouts.readFinished();
+            }
+        }
+    }
 }
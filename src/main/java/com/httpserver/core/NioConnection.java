@@ -0,0 +1,461 @@
+package com.httpserver.core;
+
+import com.http.FileRegion;
+import com.http.HttpBody;
+import com.http.HttpClock;
+import com.http.HttpParsingException;
+import com.http.HttpRequestDecoder;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import com.http.HttpVersion;
+import com.http.RequestBodyPipe;
+import com.httpserver.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The state of one non-blocking HTTP connection owned by an {@link EventLoop}.
+ * Bytes are pushed into an incremental decoder as they arrive; once a whole request has been decoded
+ * it is handed to the worker pool, and the response is written back as the socket becomes writable.
+ * The response is queued as segments: runs of in-memory buffers, starting with the head, go out in gathering writes,
+ * and file regions are sent with {@link FileRegion#transferTo}, resuming where they left off on each writability event.
+ * Only one request per connection is in flight at a time; pipelined requests wait in the read buffer.
+ * A request body is not buffered whole: the handler is started once the headers are in, and the body is streamed
+ * to it through a bounded {@link RequestBodyPipe}, with the socket left unread whenever the pipe is full.
+ * If the response is ready before the whole body has arrived, the connection is closed once the response is written.
+ * A client that sent {@code Expect: 100-continue} is sent the interim 100 Continue response when the handler
+ * first reads the body, as on the blocking server.
+ * While the connection waits for the client, its read deadlines are tracked by {@link ConnectionTimeouts}
+ * on the event loop's timing wheel.
+ */
+class NioConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioConnection.class);
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int BODY_PIPE_SIZE = 64 * 1024;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final EventLoop eventLoop;
+    private final RequestDispatcher dispatcher;
+    private final ExecutorService workerPool;
+    private final ConnectionTimeouts timeouts;
+    private final int maxKeepAliveRequests;
+    private final int overloadRetryAfter;
+    private final HttpRequestDecoder decoder;
+    private final ByteBuffer inbound;
+
+    private final ArrayDeque<Object> outbound = new ArrayDeque<>();
+    private HttpBody outboundBody;
+    private RequestBodyPipe bodyPipe;
+    private boolean bodyIncomplete;
+    private boolean processing;
+    private boolean responding;
+    private boolean closeAfterWrite;
+    private int requestCount;
+
+    /**
+     * Constructs a new NioConnection.
+     *
+     * @param channel the non-blocking socket channel
+     * @param key the selection key of the channel
+     * @param eventLoop the event loop that owns the connection
+     * @param configuration the server configuration, providing the keep-alive limits, the read timeouts
+     * and the overload Retry-After
+     * @param dispatcher the dispatcher that routes requests to their handlers
+     * @param workerPool the pool that runs request handlers
+     */
+    NioConnection(SocketChannel channel, SelectionKey key, EventLoop eventLoop, Configuration configuration,
+                  RequestDispatcher dispatcher, ExecutorService workerPool) {
+        this.channel = channel;
+        this.key = key;
+        this.eventLoop = eventLoop;
+        this.dispatcher = dispatcher;
+        this.workerPool = workerPool;
+        this.timeouts = new ConnectionTimeouts(eventLoop.getTimingWheel(), configuration, this::closeExpired);
+        this.maxKeepAliveRequests = configuration.getMaxKeepAliveRequests();
+        this.overloadRetryAfter = configuration.getOverloadRetryAfter();
+        this.decoder = new HttpRequestDecoder();
+        this.decoder.setMaxBodySize(configuration.getMaxRequestBodySize());
+        this.decoder.setStreamingBody(true);
+        this.inbound = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long now = HashedTimingWheel.now();
+        timeouts.idle(now);
+        timeouts.readStarted(now);
+    }
+
+    /**
+     * Reads the bytes available on the socket and dispatches a request once one is complete.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void onReadable() throws IOException {
+        if (channel.read(inbound) < 0) {
+            close();
+            return;
+        }
+        timeouts.readStarted(HashedTimingWheel.now());
+        processInbound();
+    }
+
+    /**
+     * Writes as much of the pending response as the socket accepts.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void onWritable() throws IOException {
+        flush();
+    }
+
+    /**
+     * Closes the connection and cancels its selection key.
+     */
+    void close() {
+        timeouts.cancel();
+        if (bodyPipe != null) {
+            bodyPipe.fail(new EOFException("Connection closed before the request body was received"));
+            bodyPipe = null;
+        }
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing channel: ", e);
+        }
+        releaseBody();
+    }
+
+    /**
+     * Feeds the buffered bytes to the decoder and hands a request to the worker pool once its headers are complete,
+     * or passes them on to the body of the request being handled.
+     * Bytes after the end of the request stay buffered until its response has been written.
+     * If the pool has no room for the request, a 503 is sent and the connection closed.
+     */
+    private void processInbound() {
+        if (bodyPipe != null) {
+            pumpBody();
+            return;
+        }
+        if (processing || inbound.position() == 0) {
+            return;
+        }
+
+        timeouts.requestStarted(HashedTimingWheel.now());
+        inbound.flip();
+        HttpRequestDecoder.Status status = decoder.decode(inbound);
+        inbound.compact();
+
+        if (status == HttpRequestDecoder.Status.ERROR) {
+            HttpParsingException error = decoder.getError();
+            LOGGER.error("Error parsing HTTP request", error);
+            respondWithError(error.getStatusCode(), error.getReasonPhrase());
+            return;
+        }
+        if (status == HttpRequestDecoder.Status.INCOMPLETE) {
+            if (decoder.isHeaderComplete()) {
+                timeouts.bodyStarted();
+            }
+            return;
+        }
+
+        HttpRequest request = decoder.getRequest();
+        boolean streamed = decoder.isBodyPending();
+        if (!streamed) {
+            decoder.reset();
+        }
+        requestCount++;
+        boolean keepAlive = request.isKeepAlive() && requestCount < maxKeepAliveRequests;
+        processing = true;
+        if (streamed) {
+            Runnable onFirstRead = "100-continue".equalsIgnoreCase(request.getHeader("Expect"))
+                    ? () -> eventLoop.execute(this::sendContinue)
+                    : null;
+            bodyPipe = new RequestBodyPipe(request, BODY_PIPE_SIZE, () -> eventLoop.execute(this::resumeBody),
+                    onFirstRead);
+            timeouts.bodyStarted();
+        } else {
+            timeouts.readFinished();
+            key.interestOps(0);
+        }
+        try {
+            workerPool.execute(() -> handle(request, keepAlive));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Worker pool saturated, rejecting request for {}", request.getRequestTarget());
+            beginWrite(WorkerPool.serviceUnavailable(overloadRetryAfter), null, true);
+            return;
+        }
+        if (streamed) {
+            pumpBody();
+        }
+    }
+
+    /**
+     * Passes the buffered body bytes of the request being handled on to its pipe. Once the pipe is full,
+     * the socket is left unread, and no read deadline applies, until the handler has made room.
+     */
+    private void pumpBody() {
+        boolean complete;
+        inbound.flip();
+        try {
+            complete = bodyPipe.transferFrom(decoder, inbound);
+        } catch (HttpParsingException e) {
+            LOGGER.error("Error parsing HTTP request body", e);
+            bodyPipe.fail(new IOException(e.getMessage(), e));
+            complete = true;
+            bodyIncomplete = true;
+        } finally {
+            inbound.compact();
+        }
+
+        if (complete) {
+            bodyPipe = null;
+            decoder.reset();
+            timeouts.readFinished();
+            key.interestOps(0);
+        } else if (bodyPipe.isFull()) {
+            timeouts.readFinished();
+            key.interestOps(0);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Goes back to reading the body once the handler has drained a full pipe. Runs on the event loop.
+     */
+    private void resumeBody() {
+        if (bodyPipe == null || !channel.isOpen()) {
+            return;
+        }
+        timeouts.readStarted(HashedTimingWheel.now());
+        pumpBody();
+    }
+
+    /**
+     * Sends the interim 100 Continue response once the handler asks for the body of a request that expects it.
+     * Nothing is sent if the body has already arrived or the response has already started. Runs on the event loop.
+     */
+    private void sendContinue() {
+        if (bodyPipe == null || responding || !channel.isOpen()) {
+            return;
+        }
+        outbound.add(new ByteBuffer[] {ByteBuffer.wrap(CONTINUE)});
+        try {
+            flush();
+        } catch (IOException e) {
+            LOGGER.debug("Closing connection after write error: {}", e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Runs the request handler on a worker thread and passes the response back to the event loop.
+     *
+     * @param request the parsed request
+     * @param keepAlive whether the connection stays open after the response
+     */
+    private void handle(HttpRequest request, boolean keepAlive) {
+        HttpResponse response = new HttpResponse(request.getHttpVersion());
+        response.setStandardHeaders(HttpClock.SYSTEM);
+        try {
+            dispatcher.dispatch(request, response);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error handling request", e);
+            RequestDispatcher.prepareErrorResponse(response, 500, "Internal Server Error");
+        }
+        response.setKeepAlive(keepAlive && response.isKeepAlive());
+        HttpBody body = response.getHttpBody();
+        if (body != null && !isWritableWithoutBlocking(body)) {
+            bufferStreamingBody(response, body);
+        }
+        ByteBuffer head = response.encodeHead();
+        boolean close = !response.isKeepAlive();
+        eventLoop.execute(() -> beginWrite(head, response.getHttpBody(), close));
+    }
+
+    /**
+     * Determines whether every part of a body is either held in memory or a file region,
+     * so that the event loop can write it without blocking.
+     *
+     * @param body the body
+     * @return true if the body can be written by the event loop as it is
+     */
+    private static boolean isWritableWithoutBlocking(HttpBody body) {
+        for (HttpBody part : body.getParts()) {
+            if (part.getContent() == null && !(part instanceof FileRegion)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the producer of a streaming body on the worker thread and replaces the body with its output,
+     * since a producer writes with blocking calls that cannot run on the event loop.
+     *
+     * @param response the response
+     * @param body the streaming body
+     */
+    private static void bufferStreamingBody(HttpResponse response, HttpBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (HttpBody streaming = body) {
+            streaming.writeTo(Channels.newChannel(bytes));
+            response.setHttpBody(HttpBody.of(bytes.toByteArray()));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error producing response body", e);
+            response.getHeaders().remove("Content-Length");
+            RequestDispatcher.prepareErrorResponse(response, 500, "Internal Server Error");
+        }
+    }
+
+    /**
+     * Sends an error response and closes the connection once it has been written.
+     *
+     * @param statusCode the HTTP status code
+     * @param reasonPhrase the reason phrase
+     */
+    private void respondWithError(int statusCode, String reasonPhrase) {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStandardHeaders(HttpClock.SYSTEM);
+        RequestDispatcher.prepareErrorResponse(response, statusCode, reasonPhrase);
+        response.setKeepAlive(false);
+        processing = true;
+        timeouts.readFinished();
+        beginWrite(response.encodeHead(), response.getHttpBody(), true);
+    }
+
+    /**
+     * Starts writing a response on the event-loop thread.
+     *
+     * @param head the encoded status line and headers
+     * @param body the body to send after the head, made of in-memory parts and file regions, or null
+     * @param close whether to close the connection once the response is written
+     */
+    private void beginWrite(ByteBuffer head, HttpBody body, boolean close) {
+        outboundBody = body;
+        responding = true;
+        if (bodyPipe != null) {
+            // The rest of the body would have to be read before the next request, so the connection ends here
+            bodyPipe.fail(new IOException("Response sent before the request body was received"));
+            bodyPipe = null;
+            bodyIncomplete = true;
+            timeouts.readFinished();
+            key.interestOps(0);
+        }
+        if (!channel.isOpen()) {
+            releaseBody();
+            return;
+        }
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        buffers.add(head);
+        if (body != null) {
+            for (HttpBody part : body.getParts()) {
+                ByteBuffer content = part.getContent();
+                if (content != null) {
+                    buffers.add(content);
+                } else {
+                    outbound.add(buffers.toArray(new ByteBuffer[0]));
+                    buffers.clear();
+                    outbound.add(part);
+                }
+            }
+        }
+        if (!buffers.isEmpty()) {
+            outbound.add(buffers.toArray(new ByteBuffer[0]));
+        }
+        closeAfterWrite = close || bodyIncomplete;
+        try {
+            flush();
+        } catch (IOException e) {
+            LOGGER.debug("Closing connection after write error: {}", e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Writes the pending segments and, once the response is complete, either closes the connection
+     * or goes back to reading the next request.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void flush() throws IOException {
+        while (!outbound.isEmpty()) {
+            Object segment = outbound.peek();
+            if (segment instanceof ByteBuffer[]) {
+                ByteBuffer[] buffers = (ByteBuffer[]) segment;
+                channel.write(buffers);
+                if (buffers[buffers.length - 1].hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+            } else {
+                FileRegion region = (FileRegion) segment;
+                // Fails on a file truncated since its length was sent, which closes the connection
+                region.transferTo(channel);
+                if (!region.isComplete()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            outbound.poll();
+        }
+
+        if (!responding) {
+            // Only the interim 100 Continue has gone out; go on reading the body unless the pipe is full
+            key.interestOps(bodyPipe != null && !bodyPipe.isFull() ? SelectionKey.OP_READ : 0);
+            return;
+        }
+        responding = false;
+        releaseBody();
+        if (closeAfterWrite) {
+            close();
+            return;
+        }
+        processing = false;
+        long now = HashedTimingWheel.now();
+        timeouts.idle(now);
+        timeouts.readStarted(now);
+        key.interestOps(SelectionKey.OP_READ);
+        processInbound();
+    }
+
+    /**
+     * Closes the connection once one of its read deadlines has passed. Runs on the event loop,
+     * which advances the timing wheel.
+     */
+    private void closeExpired() {
+        LOGGER.debug("Closing connection after its {} timeout", timeouts.getExpiredTimeout());
+        close();
+    }
+
+    /**
+     * Discards any unsent segments and closes the body of the pending response.
+     */
+    private void releaseBody() {
+        outbound.clear();
+        if (outboundBody != null) {
+            try {
+                outboundBody.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing response body: ", e);
+            }
+            outboundBody = null;
+        }
+    }
+}
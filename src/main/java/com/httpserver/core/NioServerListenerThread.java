@@ -0,0 +1,121 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A thread that accepts connections on a non-blocking server channel and spreads them across
+ * a fixed set of {@link EventLoop}s. Socket I/O never blocks a thread; only request handlers
+ * run on the worker pool, so idle or slow clients do not tie up threads.
+ */
+public class NioServerListenerThread extends Thread {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioServerListenerThread.class);
+
+    private final RequestDispatcher dispatcher;
+    private final ServerSocketChannel serverChannel;
+    private final Selector acceptSelector;
+    private final EventLoop[] eventLoops;
+    private final ExecutorService workerPool;
+    private int nextEventLoop;
+
+    /**
+     * Constructs a new NioServerListenerThread.
+     *
+     * @param configuration the server configuration, providing the port, webroot and thread counts
+     * @throws IOException if an I/O error occurs when opening the server channel or selectors
+     */
+    public NioServerListenerThread(Configuration configuration) throws IOException {
+        super("nio-acceptor");
+        this.dispatcher = RequestDispatcher.create(configuration);
+        this.workerPool = WorkerPool.create("nio-worker", configuration.getWorkerThreads(),
+                configuration.getWorkerQueueCapacity());
+        this.eventLoops = new EventLoop[Math.max(1, configuration.getEventLoopThreads())];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop("nio-event-loop-" + i, configuration, dispatcher, workerPool);
+        }
+
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(configuration.getPort()));
+        this.serverChannel.configureBlocking(false);
+        this.acceptSelector = Selector.open();
+        this.serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Gets the port the server channel is bound to.
+     *
+     * @return the local port
+     */
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections and shuts the event loops and worker pool down.
+     */
+    public void shutdown() {
+        closeServerChannel();
+        acceptSelector.wakeup();
+    }
+
+    /**
+     * Runs the acceptor, handing each accepted connection to the next event loop in turn.
+     */
+    @Override
+    public void run() {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+        try {
+            while (serverChannel.isOpen()) {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+                SocketChannel channel;
+                while (serverChannel.isOpen() && (channel = serverChannel.accept()) != null) {
+                    LOGGER.info("Connection Accepted: {}", channel.socket().getInetAddress());
+                    eventLoops[nextEventLoop].register(channel);
+                    nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+                }
+            }
+        } catch (IOException e) {
+            if (serverChannel.isOpen()) {
+                LOGGER.error("Error accepting connections: ", e);
+            }
+        } finally {
+            closeServerChannel();
+            dispatcher.close();
+            for (EventLoop eventLoop : eventLoops) {
+                eventLoop.shutdown();
+            }
+            workerPool.shutdown();
+            try {
+                acceptSelector.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing selector: ", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the server channel if it is open.
+     */
+    private void closeServerChannel() {
+        if (serverChannel.isOpen()) {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing server channel: ", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.httpserver.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers request targets that name no file in the webroot, so repeated requests for them are answered
+ * without touching the disk. Targets are recorded as they are found missing, up to a bound.
+ * Optionally, a {@link BloomFilter} over every path in the webroot also rules out targets that were never seen,
+ * which keeps floods of distinct made-up paths off the disk too. The filter is only consulted for targets in the
+ * form the webroot index uses, and assumes a case-sensitive file system without symbolic links to directories.
+ * The dispatcher owns the cache, and only trusts it while a watcher reports every change to the webroot.
+ */
+public final class NotFoundCache {
+
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+    private final int maxEntries;
+    private final boolean filtered;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private volatile BloomFilter knownTargets;
+
+    /**
+     * Constructs a NotFoundCache.
+     *
+     * @param maxEntries the maximum number of missing targets remembered
+     * @param filtered true to also rule out targets that are not in a Bloom filter of the webroot
+     */
+    public NotFoundCache(int maxEntries, boolean filtered) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.filtered = filtered;
+    }
+
+    /**
+     * Determines whether the cache uses a Bloom filter of the webroot.
+     *
+     * @return true if the cache is filtered
+     */
+    public boolean isFiltered() {
+        return filtered;
+    }
+
+    /**
+     * Determines whether a request target is known to name no file.
+     *
+     * @param target the request target
+     * @return true if the target is certainly missing, false if it has to be looked up
+     */
+    public boolean isMissing(String target) {
+        if (missing.contains(target)) {
+            hits.increment();
+            return true;
+        }
+        BloomFilter filter = knownTargets;
+        if (filter != null && isIndexForm(target) && !filter.mightContain(target)) {
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the invalidation generation, to be observed before a target is looked up on disk.
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Records that a request target names no file, unless the webroot changed since it was looked up.
+     *
+     * @param target the request target
+     * @param observedGeneration the generation observed before the target was looked up
+     */
+    public void recordMissing(String target, long observedGeneration) {
+        if (missing.size() >= maxEntries) {
+            Iterator<String> iterator = missing.iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        missing.add(target);
+        if (generation.get() != observedGeneration) {
+            missing.remove(target);
+        }
+    }
+
+    /**
+     * Replaces the Bloom filter with one holding exactly the given targets. Ignored unless the cache is filtered.
+     *
+     * @param targets the target of every path in the webroot, or null if the webroot could not be fully read,
+     *                in which case the filter is dropped until it is replaced again
+     */
+    public void setKnownTargets(Collection<String> targets) {
+        if (!filtered) {
+            return;
+        }
+        if (targets == null) {
+            knownTargets = null;
+            return;
+        }
+        BloomFilter filter = new BloomFilter(Math.max(1024, targets.size() * 2));
+        targets.forEach(filter::add);
+        knownTargets = filter;
+    }
+
+    /**
+     * Adds a target that may now exist to the Bloom filter. Ignored until a filter has been set.
+     *
+     * @param target the target of a path that changed
+     */
+    public void addKnownTarget(String target) {
+        BloomFilter filter = knownTargets;
+        if (filter != null) {
+            filter.add(target);
+        }
+    }
+
+    /**
+     * Forgets every target recorded as missing, since a change may have created it.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        missing.clear();
+    }
+
+    /**
+     * Gets the number of lookups answered as missing without touching the disk.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of targets currently recorded as missing.
+     *
+     * @return the entry count
+     */
+    public int getEntryCount() {
+        return missing.size();
+    }
+
+    /**
+     * Determines whether a target is in the form the webroot index uses: a slash followed by names separated by
+     * single slashes, none of them a dot segment, and no trailing slash. Only such targets can be ruled out
+     * by the Bloom filter, as the file system may resolve other spellings to an indexed file.
+     *
+     * @param target the request target
+     * @return true if the target is in index form
+     */
+    static boolean isIndexForm(String target) {
+        int length = target.length();
+        if (length < 2 || target.charAt(0) != '/' || target.charAt(length - 1) == '/') {
+            return false;
+        }
+        int segmentStart = 1;
+        for (int i = 1; i <= length; i++) {
+            char c = i < length ? target.charAt(i) : '/';
+            if (c == '\\') {
+                return false;
+            }
+            if (c == '/') {
+                int segmentLength = i - segmentStart;
+                if (segmentLength == 0
+                        || (segmentLength == 1 && target.charAt(segmentStart) == '.')
+                        || (segmentLength == 2 && target.startsWith("..", segmentStart))) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return true;
+    }
+}
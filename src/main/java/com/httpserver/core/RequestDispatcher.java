@@ -0,0 +1,492 @@
+package com.httpserver.core;
+
+import com.http.HttpBody;
+import com.http.HttpMethod;
+import com.http.HttpParsingException;
+import com.http.MimeTypes;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import com.httpserver.cache.FileMetadataCache;
+import com.httpserver.cache.Precompressor;
+import com.httpserver.cache.StaticContentCache;
+import com.httpserver.cache.WebrootChangeListener;
+import com.httpserver.cache.WebrootWatcher;
+import com.httpserver.config.Configuration;
+import com.httpserver.handlers.GetMethodHandler;
+import com.httpserver.handlers.HeadMethodHandler;
+import com.httpserver.handlers.MethodHandler;
+import com.httpserver.handlers.PostMethodHandler;
+import com.httpserver.handlers.PutMethodHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Routes parsed HTTP requests to the matching method handler and prepares the response.
+ * A single dispatcher is shared by every connection of a server, whichever I/O model serves it.
+ * Requests are routed through a {@link RouteTable} built once: every file in the webroot gets an exact route
+ * whose handlers are created up front and shared, so a request for a known file is routed with one hash lookup.
+ * Files that appear later are resolved on disk once and then added to the table. Extra routes can be registered
+ * on the table; files in the webroot take precedence over prefix and fallback routes.
+ * While a {@link WebrootWatcher} is delivering change events, file routes are trusted without touching the disk
+ * and dropped when their files change; otherwise each file route checks that its file still exists.
+ * With a {@link FileMetadataCache}, those existence checks and the handlers' stats are answered from memory.
+ * With a {@link NotFoundCache}, targets known to name no file get the pre-rendered 404 without touching the disk.
+ */
+public class RequestDispatcher implements WebrootChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestDispatcher.class);
+    private static final ByteBuffer NOT_FOUND_PAGE = ByteBuffer.wrap(
+            "<html><body><h1>404 Not Found</h1></body></html>".getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+
+    private final String webroot;
+    private final Path webrootPath;
+    private final StaticContentCache contentCache;
+    private final FileMetadataCache metadataCache;
+    private final NotFoundCache notFoundCache;
+    private final RouteTable routes = new RouteTable();
+    private volatile boolean validateOnAccess = true;
+    private WebrootWatcher watcher;
+
+    /**
+     * Constructs a new RequestDispatcher that serves every file from disk.
+     *
+     * @param webroot the root directory for web content
+     */
+    public RequestDispatcher(String webroot) {
+        this(webroot, null);
+    }
+
+    /**
+     * Constructs a new RequestDispatcher that reads file metadata from disk on every request.
+     *
+     * @param webroot the root directory for web content
+     * @param contentCache the cache of static content shared by the handlers, or null to disable caching
+     */
+    public RequestDispatcher(String webroot, StaticContentCache contentCache) {
+        this(webroot, contentCache, null);
+    }
+
+    /**
+     * Constructs a new RequestDispatcher that looks every unknown target up on disk.
+     *
+     * @param webroot the root directory for web content
+     * @param contentCache the cache of static content shared by the handlers, or null to disable caching
+     * @param metadataCache the cache of file metadata shared with the handlers, or null to disable it
+     */
+    public RequestDispatcher(String webroot, StaticContentCache contentCache, FileMetadataCache metadataCache) {
+        this(webroot, contentCache, metadataCache, null);
+    }
+
+    /**
+     * Constructs a new RequestDispatcher and builds the routes of the files currently in the webroot.
+     *
+     * @param webroot the root directory for web content
+     * @param contentCache the cache of static content shared by the handlers, or null to disable caching
+     * @param metadataCache the cache of file metadata shared with the handlers, or null to disable it
+     * @param notFoundCache the cache of targets that name no file, or null to look every unknown target up on disk
+     */
+    public RequestDispatcher(String webroot, StaticContentCache contentCache, FileMetadataCache metadataCache,
+                             NotFoundCache notFoundCache) {
+        this.webroot = webroot;
+        this.webrootPath = Path.of(webroot).toAbsolutePath().normalize();
+        this.contentCache = contentCache;
+        this.metadataCache = metadataCache;
+        this.notFoundCache = notFoundCache;
+        indexWebroot();
+    }
+
+    /**
+     * Creates a dispatcher for a server configuration, with a static content cache and a file metadata cache sized from it.
+     * The routes and the caches are kept coherent by a {@link WebrootWatcher}, which runs until {@link #close()} is called.
+     * If precompression is enabled, the webroot is precompressed before the dispatcher is returned.
+     *
+     * @param configuration the server configuration
+     * @return the dispatcher
+     */
+    public static RequestDispatcher create(Configuration configuration) {
+        MimeTypes mimeTypes = new MimeTypes(configuration.getMimeTypes());
+        if (configuration.isPrecompressOnStartup()) {
+            new Precompressor(configuration.getCompressionMinSize(), mimeTypes)
+                    .precompress(Path.of(configuration.getWebroot()));
+        }
+        StaticContentCache contentCache = null;
+        if (configuration.getCacheMaxBytes() > 0) {
+            contentCache = new StaticContentCache(configuration.getCacheMaxBytes(),
+                    configuration.getCacheMaxFileSize(),
+                    configuration.isCompressionEnabled() ? configuration.getCompressionMinSize() : -1);
+        }
+        // Built even when it holds no entries, as it carries the configured MIME types to the handlers
+        FileMetadataCache metadataCache = new FileMetadataCache(configuration.getMetadataCacheTtl(),
+                configuration.getMetadataCacheMaxEntries(), mimeTypes);
+        NotFoundCache notFoundCache = null;
+        if (configuration.getNotFoundCacheMaxEntries() > 0) {
+            notFoundCache = new NotFoundCache(configuration.getNotFoundCacheMaxEntries(),
+                    configuration.isNotFoundFilterEnabled());
+        }
+        RequestDispatcher dispatcher = new RequestDispatcher(configuration.getWebroot(), contentCache, metadataCache,
+                notFoundCache);
+        if (configuration.getUploadRoot() != null) {
+            dispatcher.addUploadRoute(Path.of(configuration.getUploadRoot()), configuration.getUploadPath());
+        }
+        dispatcher.watcher = new WebrootWatcher(Path.of(configuration.getWebroot()), configuration.getCacheRevalidateInterval());
+        dispatcher.watcher.addListener(metadataCache);
+        dispatcher.watcher.addListener(dispatcher);
+        if (contentCache != null) {
+            dispatcher.watcher.addListener(contentCache);
+        }
+        dispatcher.watcher.start();
+        return dispatcher;
+    }
+
+    /**
+     * Stops the webroot watcher, if this dispatcher started one.
+     */
+    public void close() {
+        if (watcher != null) {
+            watcher.shutdown();
+        }
+    }
+
+    /**
+     * Gets the static content cache used by the handlers.
+     *
+     * @return the cache, or null if caching is disabled
+     */
+    public StaticContentCache getContentCache() {
+        return contentCache;
+    }
+
+    /**
+     * Gets the file metadata cache shared with the handlers.
+     *
+     * @return the cache, or null if metadata is read from disk on every request
+     */
+    public FileMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * Gets the cache of targets that name no file.
+     *
+     * @return the cache, or null if every unknown target is looked up on disk
+     */
+    public NotFoundCache getNotFoundCache() {
+        return notFoundCache;
+    }
+
+    /**
+     * Gets the route table, on which extra exact, prefix and fallback routes can be registered.
+     *
+     * @return the route table
+     */
+    public RouteTable getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Accepts PUT and POST uploads below a request path, storing them in a directory.
+     * Files in the webroot still take precedence over the upload path.
+     *
+     * @param uploadRoot the directory uploads are stored in
+     * @param uploadPath the request path mapped onto the directory
+     */
+    public void addUploadRoute(Path uploadRoot, String uploadPath) {
+        String path = uploadPath.endsWith("/") ? uploadPath.substring(0, uploadPath.length() - 1) : uploadPath;
+        Map<HttpMethod, MethodHandler> methodHandlers = new EnumMap<>(HttpMethod.class);
+        methodHandlers.put(HttpMethod.PUT, new PutMethodHandler(uploadRoot, path));
+        methodHandlers.put(HttpMethod.POST, new PostMethodHandler(uploadRoot, path));
+        Route route = new Route(methodHandlers);
+        routes.addExact(path, route);
+        routes.addPrefix(path + "/", route);
+    }
+
+    /**
+     * Handles the incoming HTTP request and prepares the appropriate response.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     */
+    public void dispatch(HttpRequest request, HttpResponse response) {
+        String requestTarget = request.getRequestTarget();
+        Route route = routes.findExact(requestTarget);
+        if (route != null && validateOnAccess && route.getFile() != null && !isFile(route.getFile())) {
+            routes.removeExact(requestTarget);
+            route = null;
+        }
+        if (route == null) {
+            route = resolveFile(requestTarget);
+        }
+        if (route == null) {
+            route = routes.findPrefix(requestTarget);
+        }
+        if (route == null) {
+            route = routes.getFallback();
+        }
+        if (route == null) {
+            prepareNotFound(response);
+            return;
+        }
+
+        try {
+            route.handle(request, response);
+        } catch (IOException e) {
+            prepareFailure(response, e);
+        } catch (UncheckedIOException e) {
+            prepareFailure(response, e.getCause());
+        }
+    }
+
+    /**
+     * Prepares the response to a request whose handler failed. A request body that turned out to be
+     * too large or badly framed while the handler was reading it is answered with the parser's status,
+     * and the connection is closed since the rest of the body was never read; anything else is a 500.
+     *
+     * @param response the response to prepare
+     * @param e the failure
+     */
+    private static void prepareFailure(HttpResponse response, IOException e) {
+        if (e.getCause() instanceof HttpParsingException parsingError) {
+            LOGGER.debug("Rejecting request body: {}", parsingError.getMessage());
+            prepareErrorResponse(response, parsingError.getStatusCode(), parsingError.getReasonPhrase());
+            response.setKeepAlive(false);
+            return;
+        }
+        LOGGER.error("Error handling request", e);
+        prepareErrorResponse(response, 500, "Internal Server Error");
+    }
+
+    /**
+     * Forgets the targets recorded as missing, since one of them may name the new path, and adds the path
+     * and every path below it to the Bloom filter, before dropping its file routes like any other change.
+     *
+     * @param path the path that appeared
+     */
+    @Override
+    public void created(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        String target = targetOf(normalized);
+        if (target == null) {
+            return;
+        }
+        if (notFoundCache != null) {
+            notFoundCache.clear();
+            notFoundCache.addKnownTarget(target);
+            if (notFoundCache.isFiltered() && Files.isDirectory(normalized)
+                    && !walk(normalized, (file, attributes) -> notFoundCache.addKnownTarget(targetOf(file)))) {
+                notFoundCache.setKnownTargets(null);
+            }
+        }
+        invalidate(normalized);
+    }
+
+    /**
+     * Drops the file routes of a path that changed, and of every path below it.
+     * A modified or deleted path cannot make a missing target exist, so the not-found cache is kept.
+     *
+     * @param path the path that changed
+     */
+    @Override
+    public void invalidate(Path path) {
+        String target = targetOf(path.toAbsolutePath().normalize());
+        if (target == null) {
+            return;
+        }
+        String below = target.endsWith("/") ? target : target + "/";
+        routes.removeExactIf(entry -> entry.getValue().getFile() != null
+                && (entry.getKey().equals(target) || entry.getKey().startsWith(below)));
+    }
+
+    /**
+     * Drops the file routes whose files no longer exist, and forgets the targets recorded as missing,
+     * since the changes that were missed may have created some of them.
+     */
+    @Override
+    public void revalidate() {
+        routes.removeExactIf(entry -> entry.getValue().getFile() != null && !entry.getValue().getFile().isFile());
+        if (notFoundCache != null) {
+            notFoundCache.clear();
+            if (notFoundCache.isFiltered()) {
+                List<String> targets = new ArrayList<>();
+                boolean complete = walk(webrootPath, (file, attributes) -> targets.add(targetOf(file)));
+                notFoundCache.setKnownTargets(complete ? targets : null);
+            }
+        }
+    }
+
+    /**
+     * Switches between trusting change events and checking each file route on access.
+     *
+     * @param watching true if a watcher is delivering change events
+     */
+    @Override
+    public void watchStateChanged(boolean watching) {
+        validateOnAccess = !watching;
+        if (!watching && notFoundCache != null) {
+            // Nothing reports creations from now on, so the recorded targets cannot be trusted again
+            notFoundCache.clear();
+        }
+    }
+
+    /**
+     * Resolves a request target that has no exact route to a file in the webroot, and adds its route to the table
+     * if the target is the file's canonical path, so the next request for it is a hash lookup.
+     * While change events are trusted, targets known to be missing are rejected without touching the disk.
+     *
+     * @param requestTarget the request target
+     * @return the route of the file, or null if the target is not a file
+     */
+    private Route resolveFile(String requestTarget) {
+        boolean negativeCaching = notFoundCache != null && !validateOnAccess;
+        if (negativeCaching && notFoundCache.isMissing(requestTarget)) {
+            return null;
+        }
+        long observedGeneration = negativeCaching ? notFoundCache.getGeneration() : 0;
+        File file = new File(webroot, requestTarget);
+        if (!isFile(file)) {
+            if (negativeCaching) {
+                notFoundCache.recordMissing(requestTarget, observedGeneration);
+            }
+            return null;
+        }
+        Route route = createFileRoute(file);
+        if (requestTarget.equals(targetOf(file.toPath().toAbsolutePath().normalize()))) {
+            routes.addExact(requestTarget, route);
+        }
+        return route;
+    }
+
+    /**
+     * Determines whether a path is a regular file, from the metadata cache when there is one.
+     *
+     * @param file the path to check
+     * @return true if the path is a regular file
+     */
+    private boolean isFile(File file) {
+        return metadataCache != null ? metadataCache.get(file.toPath()).isRegularFile() : file.isFile();
+    }
+
+    /**
+     * Adds a route for every file currently in the webroot, and seeds the not-found filter with every path in it.
+     */
+    private void indexWebroot() {
+        if (!Files.isDirectory(webrootPath)) {
+            return;
+        }
+        List<String> targets = new ArrayList<>();
+        boolean complete = walk(webrootPath, (file, attributes) -> {
+            String target = targetOf(file);
+            if (attributes.isRegularFile()) {
+                routes.addExact(target, createFileRoute(file.toFile()));
+            }
+            targets.add(target);
+        });
+        if (notFoundCache != null) {
+            notFoundCache.setKnownTargets(complete ? targets : null);
+        }
+        LOGGER.debug("Indexed {} routes under {}", routes.getExactCount(), webrootPath);
+    }
+
+    /**
+     * Visits every entry below a directory in the webroot, except directories.
+     * Entries that cannot be read are skipped.
+     *
+     * @param root the directory to walk
+     * @param visitor receives the path and attributes of each entry
+     * @return true if every entry was visited, false if some could not be read
+     */
+    private boolean walk(Path root, BiConsumer<Path, BasicFileAttributes> visitor) {
+        boolean[] complete = {true};
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    visitor.accept(file, attributes);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    LOGGER.warn("Could not index {}, files below it will be resolved on demand", file, e);
+                    complete[0] = false;
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Could not index {}, files will be resolved on demand", root, e);
+            complete[0] = false;
+        }
+        return complete[0];
+    }
+
+    /**
+     * Creates the route of a file, with GET and HEAD handlers shared by every request for it.
+     *
+     * @param file the file
+     * @return the route
+     */
+    private Route createFileRoute(File file) {
+        Map<HttpMethod, MethodHandler> methodHandlers = new EnumMap<>(HttpMethod.class);
+        methodHandlers.put(HttpMethod.GET, new GetMethodHandler(file, contentCache, metadataCache));
+        methodHandlers.put(HttpMethod.HEAD, new HeadMethodHandler(file, contentCache, metadataCache));
+        return new Route(file, methodHandlers);
+    }
+
+    /**
+     * Gets the request target that names a path in the webroot.
+     *
+     * @param path an absolute, normalized path
+     * @return the target, starting with a slash, or null if the path is outside the webroot
+     */
+    private String targetOf(Path path) {
+        if (!path.startsWith(webrootPath)) {
+            return null;
+        }
+        StringBuilder target = new StringBuilder();
+        for (Path name : webrootPath.relativize(path)) {
+            target.append('/').append(name);
+        }
+        return target.length() == 0 ? "/" : target.toString();
+    }
+
+    /**
+     * Fills in a 404 response with the pre-rendered error page, which every such response shares.
+     *
+     * @param response the HTTP response
+     */
+    static void prepareNotFound(HttpResponse response) {
+        response.setStatusCode(404);
+        response.setReasonPhrase("Not Found");
+        response.setHeader("Content-Type", "text/html");
+        response.setHttpBody(HttpBody.of(NOT_FOUND_PAGE));
+    }
+
+    /**
+     * Fills in an HTML error response.
+     *
+     * @param response the HTTP response
+     * @param statusCode the HTTP status code
+     * @param reasonPhrase the reason phrase
+     */
+    public static void prepareErrorResponse(HttpResponse response, int statusCode, String reasonPhrase) {
+        response.setStatusCode(statusCode);
+        response.setReasonPhrase(reasonPhrase);
+        response.setHeader("Content-Type", "text/html");
+        response.setBody(String.format("<html><body><h1>%d %s</h1></body></html>", statusCode, reasonPhrase));
+    }
+}
@@ -0,0 +1,71 @@
+package com.httpserver.core;
+
+import com.http.HttpMethod;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import com.httpserver.handlers.MethodHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The handlers of one route, keyed by HTTP method.
+ * A route is immutable and its handlers are shared by every request it serves, so routing a request
+ * allocates nothing. Requests with a method the route has no handler for get a 405 listing the allowed methods.
+ */
+public final class Route {
+
+    private final File file;
+    private final Map<HttpMethod, MethodHandler> handlers;
+    private final String allow;
+
+    /**
+     * Constructs a Route.
+     *
+     * @param handlers the handlers of the route, keyed by method
+     */
+    public Route(Map<HttpMethod, MethodHandler> handlers) {
+        this(null, handlers);
+    }
+
+    /**
+     * Constructs a Route that serves a file.
+     *
+     * @param file the file the route serves, or null if it does not serve one
+     * @param handlers the handlers of the route, keyed by method
+     */
+    public Route(File file, Map<HttpMethod, MethodHandler> handlers) {
+        this.file = file;
+        this.handlers = handlers.isEmpty() ? Map.of() : new EnumMap<>(handlers);
+        this.allow = this.handlers.keySet().stream().map(Enum::name).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Gets the file the route serves.
+     *
+     * @return the file, or null if the route does not serve one
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Handles a request with the handler for its method, or prepares a 405 response if there is none.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @throws IOException if the handler fails with an I/O error
+     */
+    public void handle(HttpRequest request, HttpResponse response) throws IOException {
+        MethodHandler handler = handlers.get(request.getMethod());
+        if (handler == null) {
+            RequestDispatcher.prepareErrorResponse(response, 405, "Method Not Allowed");
+            response.setHeader("Allow", allow);
+            return;
+        }
+        handler.handle(request, response);
+    }
+}
@@ -0,0 +1,150 @@
+package com.httpserver.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Maps request targets to {@link Route}s.
+ * Exact paths are found with a single hash lookup. Prefix routes are tried next, longest prefix first,
+ * and the fallback route, if any, catches everything else.
+ * Lookups take no locks and allocate nothing, so a table can be shared by every connection of a server.
+ */
+public class RouteTable {
+
+    private final Map<String, Route> exact = new ConcurrentHashMap<>();
+    private volatile PrefixRoute[] prefixes = new PrefixRoute[0];
+    private volatile Route fallback;
+
+    /**
+     * Adds or replaces the route of an exact path.
+     *
+     * @param path the request target the route serves
+     * @param route the route
+     */
+    public void addExact(String path, Route route) {
+        exact.put(path, route);
+    }
+
+    /**
+     * Removes the route of an exact path.
+     *
+     * @param path the request target
+     * @return the removed route, or null if there was none
+     */
+    public Route removeExact(String path) {
+        return exact.remove(path);
+    }
+
+    /**
+     * Removes the exact routes that match a condition.
+     *
+     * @param condition the condition on the path and route
+     */
+    public void removeExactIf(Predicate<Map.Entry<String, Route>> condition) {
+        exact.entrySet().removeIf(condition);
+    }
+
+    /**
+     * Adds a route that serves every request target starting with a prefix.
+     *
+     * @param prefix the prefix of the request targets the route serves
+     * @param route the route
+     */
+    public synchronized void addPrefix(String prefix, Route route) {
+        List<PrefixRoute> sorted = new ArrayList<>(List.of(prefixes));
+        sorted.removeIf(existing -> existing.prefix.equals(prefix));
+        sorted.add(new PrefixRoute(prefix, route));
+        sorted.sort(Comparator.comparingInt((PrefixRoute prefixRoute) -> prefixRoute.prefix.length()).reversed());
+        prefixes = sorted.toArray(new PrefixRoute[0]);
+    }
+
+    /**
+     * Sets the route that serves request targets no other route matches.
+     *
+     * @param fallback the fallback route, or null to have none
+     */
+    public void setFallback(Route fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Finds the route of an exact path, ignoring prefix and fallback routes.
+     *
+     * @param path the request target
+     * @return the route, or null if the path has no exact route
+     */
+    public Route findExact(String path) {
+        return exact.get(path);
+    }
+
+    /**
+     * Finds the prefix route of a request target, ignoring exact routes.
+     *
+     * @param target the request target
+     * @return the route with the longest matching prefix, or null if no prefix matches
+     */
+    public Route findPrefix(String target) {
+        for (PrefixRoute prefixRoute : prefixes) {
+            if (target.startsWith(prefixRoute.prefix)) {
+                return prefixRoute.route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the fallback route.
+     *
+     * @return the fallback route, or null if there is none
+     */
+    public Route getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Finds the route of a request target: its exact route, else its longest prefix route, else the fallback.
+     *
+     * @param target the request target
+     * @return the route, or null if nothing matches
+     */
+    public Route resolve(String target) {
+        Route route = exact.get(target);
+        if (route == null) {
+            route = findPrefix(target);
+        }
+        return route != null ? route : fallback;
+    }
+
+    /**
+     * Gets the number of exact routes.
+     *
+     * @return the number of exact paths in the table
+     */
+    public int getExactCount() {
+        return exact.size();
+    }
+
+    /**
+     * A prefix and the route that serves it.
+     */
+    private static final class PrefixRoute {
+
+        private final String prefix;
+        private final Route route;
+
+        /**
+         * Constructs a PrefixRoute.
+         *
+         * @param prefix the prefix
+         * @param route the route
+         */
+        PrefixRoute(String prefix, Route route) {
+            this.prefix = prefix;
+            this.route = route;
+        }
+    }
+}
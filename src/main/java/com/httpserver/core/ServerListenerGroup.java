@@ -0,0 +1,115 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of {@link ServerListenerThread}s that each own a listening socket bound to the same port with SO_REUSEPORT.
+ * The kernel spreads incoming connections across the sockets, so accepts run in parallel on several threads
+ * instead of being serialized through one, and each acceptor hands its connections to its own worker pool.
+ * Every acceptor shares one {@link RequestDispatcher}, and with it one static content cache.
+ * Where SO_REUSEPORT is not available, the group falls back to a single acceptor.
+ */
+public class ServerListenerGroup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerListenerGroup.class);
+
+    private final RequestDispatcher dispatcher;
+    private final List<ServerListenerThread> listeners = new ArrayList<>();
+
+    /**
+     * Constructs a new ServerListenerGroup and binds its sockets.
+     *
+     * @param configuration the server configuration, providing the port and the number of acceptor threads
+     * @throws IOException if an I/O error occurs when opening the sockets
+     */
+    public ServerListenerGroup(Configuration configuration) throws IOException {
+        int shards = Math.max(1, configuration.getAcceptorThreads());
+        if (shards > 1 && !isReusePortSupported()) {
+            LOGGER.warn("SO_REUSEPORT is not supported on this platform, using a single acceptor");
+            shards = 1;
+        }
+        this.dispatcher = ServerListenerThread.createDispatcher(configuration);
+        try {
+            int port = configuration.getPort();
+            for (int shard = 0; shard < shards; shard++) {
+                ServerListenerThread listener = new ServerListenerThread(configuration, dispatcher, false, port, shard, shards);
+                listeners.add(listener);
+                // Later sockets join the port the first one was given, even if the configuration asked for any port
+                port = listener.getLocalPort();
+            }
+        } catch (IOException | RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+        LOGGER.info("Accepting on port {} with {} acceptor thread(s)", getLocalPort(), shards);
+    }
+
+    /**
+     * Starts every acceptor.
+     */
+    public void start() {
+        for (ServerListenerThread listener : listeners) {
+            listener.start();
+        }
+    }
+
+    /**
+     * Gets the port the group's sockets are bound to.
+     *
+     * @return the local port
+     */
+    public int getLocalPort() {
+        return listeners.get(0).getLocalPort();
+    }
+
+    /**
+     * Gets the number of acceptors in the group.
+     *
+     * @return the number of listening sockets
+     */
+    public int getAcceptorCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Stops every acceptor and the webroot watcher of the shared dispatcher.
+     */
+    public void shutdown() {
+        for (ServerListenerThread listener : listeners) {
+            listener.shutdown();
+        }
+        dispatcher.close();
+    }
+
+    /**
+     * Waits for every acceptor to stop.
+     *
+     * @param millis the longest time to wait for each acceptor, in milliseconds
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void join(long millis) throws InterruptedException {
+        for (ServerListenerThread listener : listeners) {
+            listener.join(millis);
+        }
+    }
+
+    /**
+     * Determines whether server sockets support SO_REUSEPORT on this platform.
+     *
+     * @return true if several sockets can be bound to one port
+     * @throws IOException if a probe socket cannot be opened
+     */
+    private static boolean isReusePortSupported() throws IOException {
+        try (ServerSocketChannel probe = ServerSocketChannel.open()) {
+            return probe.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        }
+    }
+}
@@ -1,36 +1,134 @@
 package com.httpserver.core;
 
+import com.httpserver.config.Configuration;
+import com.httpserver.config.HttpConfigurationException;
+import com.httpserver.config.ServerMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A thread that listens for incoming connections on a specified port.
+ * Connections are accepted through a blocking {@link ServerSocketChannel} so each socket carries a channel
+ * that file responses can be transferred to directly.
+ * Each connection is served by a thread of a bounded {@link WorkerPool}; when every thread is busy and the queue
+ * of waiting connections is full, the connection is answered with a pre-rendered 503. The 503 is written by a small
+ * pool of its own, so a slow client cannot hold up the acceptor, which then shuts the connection's output and reads
+ * what the client had already sent for a moment before closing it, so the 503 is not lost to a reset.
+ * In {@link ServerMode#VIRTUAL} mode each connection gets its own virtual thread instead, so the number of
+ * concurrent connections is no longer limited by the size of a pool.
+ * The read deadlines of every connection of the listener are kept on one {@link HashedTimingWheel}, advanced by
+ * a ticker thread, so a client that connects and sends nothing, or trickles its request in, cannot hold a thread
+ * for longer than the configured timeouts.
  */
 public class ServerListenerThread extends Thread {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerListenerThread.class);
+    private static final int REJECTION_THREADS = 2;
+    private static final int REJECTION_QUEUE_CAPACITY = 256;
+    private static final int REJECTION_DRAIN_MILLIS = 500;
+    private static final int REJECTION_DRAIN_BYTES = 64 * 1024;
 
-    private final String webroot;
-    private final ServerSocket serverSocket;
+    private final Configuration configuration;
+    private final RequestDispatcher dispatcher;
+    private final boolean ownsDispatcher;
+    private final ServerSocketChannel serverChannel;
     private final ExecutorService threadPool;
+    private final ExecutorService rejectionPool;
+    private final HashedTimingWheel timingWheel;
 
     /**
      * Constructs a new ServerListenerThread.
      *
-     * @param port the port to listen on
-     * @param webroot the root directory for web content
+     * @param configuration the server configuration, providing the port, webroot and connection limits
      * @throws IOException if an I/O error occurs when opening the socket
+     * @throws HttpConfigurationException if the configured server mode is not supported by the running JVM
      */
-    public ServerListenerThread(int port, String webroot) throws IOException {
-        this.webroot = webroot;
-        this.serverSocket = new ServerSocket(port);
-        this.threadPool = Executors.newFixedThreadPool(10);
+    public ServerListenerThread(Configuration configuration) throws IOException {
+        this(configuration, createDispatcher(configuration), true, configuration.getPort(), 0, 1);
+    }
+
+    /**
+     * Constructs a ServerListenerThread that is one of several acceptors sharing a port through SO_REUSEPORT.
+     * The worker threads and queue capacity of the configuration are split evenly across the acceptors.
+     *
+     * @param configuration the server configuration
+     * @param dispatcher the dispatcher shared by every acceptor
+     * @param ownsDispatcher whether this listener closes the dispatcher when it stops
+     * @param port the port to bind to
+     * @param shard the index of this acceptor
+     * @param shards the number of acceptors sharing the port
+     * @throws IOException if an I/O error occurs when opening the socket
+     */
+    ServerListenerThread(Configuration configuration, RequestDispatcher dispatcher, boolean ownsDispatcher,
+                         int port, int shard, int shards) throws IOException {
+        super("http-acceptor-" + shard);
+        this.configuration = configuration;
+        this.dispatcher = dispatcher;
+        this.ownsDispatcher = ownsDispatcher;
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            if (shards > 1) {
+                serverChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            serverChannel.bind(new InetSocketAddress(port));
+        } catch (IOException | RuntimeException e) {
+            serverChannel.close();
+            if (ownsDispatcher) {
+                dispatcher.close();
+            }
+            throw e;
+        }
+        if (configuration.getServerMode() == ServerMode.VIRTUAL) {
+            this.threadPool = VirtualThreads.newThreadPerTaskExecutor();
+        } else {
+            this.threadPool = WorkerPool.create("http-worker-" + shard,
+                    divideCeiling(configuration.getWorkerThreads(), shards),
+                    divideCeiling(configuration.getWorkerQueueCapacity(), shards));
+        }
+        this.rejectionPool = WorkerPool.create("http-rejecter-" + shard, REJECTION_THREADS, REJECTION_QUEUE_CAPACITY);
+        this.timingWheel = new HashedTimingWheel();
+    }
+
+    /**
+     * Creates the dispatcher of a stand-alone listener, after checking that its server mode can run.
+     *
+     * @param configuration the server configuration
+     * @return the dispatcher
+     * @throws HttpConfigurationException if the configured server mode is not supported by the running JVM
+     */
+    static RequestDispatcher createDispatcher(Configuration configuration) {
+        if (configuration.getServerMode() == ServerMode.VIRTUAL && !VirtualThreads.isSupported()) {
+            throw new HttpConfigurationException("Server mode VIRTUAL requires Java 21 or later");
+        }
+        return RequestDispatcher.create(configuration);
+    }
+
+    /**
+     * Gets the port the server socket is bound to.
+     *
+     * @return the local port
+     */
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections and shuts the worker pool down once the accepted ones are served.
+     */
+    public void shutdown() {
+        closeSocket();
     }
 
     /**
@@ -38,16 +136,88 @@ public class ServerListenerThread extends Thread {
      */
     @Override
     public void run() {
+        timingWheel.start(getName() + "-timeouts");
         try {
-            while (serverSocket.isBound() && !serverSocket.isClosed()) {
-                Socket socket = serverSocket.accept();
+            while (serverChannel.isOpen()) {
+                Socket socket = serverChannel.accept().socket();
                 LOGGER.info("Connection Accepted: {}", socket.getInetAddress());
-                threadPool.submit(new HttpConnectionWorkerThread(socket, webroot));
+                try {
+                    threadPool.execute(new HttpConnectionWorkerThread(socket, configuration, dispatcher, timingWheel));
+                } catch (RejectedExecutionException e) {
+                    rejectConnection(socket);
+                }
             }
         } catch (IOException e) {
-            LOGGER.error("Error with setting socket: ", e);
+            if (serverChannel.isOpen()) {
+                LOGGER.error("Error with setting socket: ", e);
+            }
         } finally {
             closeSocket();
+            if (ownsDispatcher) {
+                dispatcher.close();
+            }
+            threadPool.shutdown();
+            rejectionPool.shutdown();
+            timingWheel.stop();
+        }
+    }
+
+    /**
+     * Hands a connection the worker pool has no room for to the rejection pool, which answers it with
+     * 503 Service Unavailable. When that pool is saturated as well, the connection is closed without an answer.
+     *
+     * @param socket the rejected connection
+     */
+    private void rejectConnection(Socket socket) {
+        LOGGER.warn("Worker pool saturated, rejecting connection from {}", socket.getInetAddress());
+        try {
+            rejectionPool.execute(() -> sendServiceUnavailable(socket, configuration.getOverloadRetryAfter()));
+        } catch (RejectedExecutionException e) {
+            try {
+                socket.close();
+            } catch (IOException closeError) {
+                LOGGER.debug("Error closing rejected connection: {}", closeError.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the pre-rendered 503 to a rejected connection, then shuts its output and drains the request the client
+     * may still be sending, for a bounded time and number of bytes, before closing it. Closing a socket with unread
+     * input resets the connection, which can make the client drop the 503 before reading it.
+     *
+     * @param socket the rejected connection
+     * @param retryAfter the number of seconds the client is asked to wait before retrying
+     */
+    private static void sendServiceUnavailable(Socket socket, int retryAfter) {
+        try (socket) {
+            SocketChannel channel = socket.getChannel();
+            ByteBuffer response = WorkerPool.serviceUnavailable(retryAfter);
+            while (response.hasRemaining()) {
+                channel.write(response);
+            }
+            socket.shutdownOutput();
+
+            InputStream input = socket.getInputStream();
+            byte[] discard = new byte[4096];
+            long deadline = System.nanoTime() + REJECTION_DRAIN_MILLIS * 1_000_000L;
+            int drained = 0;
+            while (drained < REJECTION_DRAIN_BYTES) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remaining <= 0) {
+                    break;
+                }
+                socket.setSoTimeout((int) remaining);
+                int read = input.read(discard);
+                if (read < 0) {
+                    break;
+                }
+                drained += read;
+            }
+        } catch (SocketTimeoutException e) {
+            LOGGER.debug("Rejected connection still sending after {} ms, closing it", REJECTION_DRAIN_MILLIS);
+        } catch (IOException e) {
+            LOGGER.debug("Error sending 503 to rejected connection: {}", e.getMessage());
         }
     }
 
@@ -55,12 +225,23 @@ public class ServerListenerThread extends Thread {
      * Closes the server socket if it is open.
      */
     private void closeSocket() {
-        if (serverSocket != null && !serverSocket.isClosed()) {
+        if (serverChannel.isOpen()) {
             try {
-                serverSocket.close();
+                serverChannel.close();
             } catch (IOException e) {
                 LOGGER.error("Error closing server socket: ", e);
             }
         }
     }
+
+    /**
+     * Divides a total across the acceptors, rounding up so no acceptor is left with nothing.
+     *
+     * @param total the total to divide
+     * @param shards the number of acceptors
+     * @return the share of one acceptor
+     */
+    private static int divideCeiling(int total, int shards) {
+        return (total + shards - 1) / shards;
+    }
 }
@@ -0,0 +1,78 @@
+package com.httpserver.core;
+
+import com.http.HttpResponse;
+import com.http.HttpVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the bounded worker pools of the servers, and the response sent when one of them is saturated.
+ * A full pool rejects new work at once instead of queueing it without limit, so an overloaded server answers
+ * the excess with a cheap 503 while the requests it has accepted keep a bounded wait.
+ */
+final class WorkerPool {
+
+    private static final Map<Integer, ByteBuffer> SERVICE_UNAVAILABLE = new ConcurrentHashMap<>();
+
+    private WorkerPool() {
+    }
+
+    /**
+     * Creates a fixed-size pool whose queue holds at most a given number of waiting tasks.
+     * Submitting to a pool whose threads are busy and whose queue is full throws a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     *
+     * @param name the name prefix of the pool's threads
+     * @param threads the number of threads
+     * @param queueCapacity the number of tasks that may wait for a thread
+     * @return the pool
+     */
+    static ThreadPoolExecutor create(String name, int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> new Thread(runnable, name + "-" + count.getAndIncrement());
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory);
+    }
+
+    /**
+     * Gets the encoded 503 Service Unavailable response sent when the pool is saturated.
+     * The bytes are rendered once per Retry-After value, so rejecting a connection costs no more than a write.
+     *
+     * @param retryAfter the number of seconds the client is asked to wait before retrying
+     * @return a read-only buffer over the whole response, positioned at its start
+     */
+    static ByteBuffer serviceUnavailable(int retryAfter) {
+        return SERVICE_UNAVAILABLE.computeIfAbsent(retryAfter, WorkerPool::renderServiceUnavailable).duplicate();
+    }
+
+    /**
+     * Renders a 503 Service Unavailable response that closes the connection.
+     *
+     * @param retryAfter the number of seconds the client is asked to wait before retrying
+     * @return a read-only buffer over the response
+     */
+    private static ByteBuffer renderServiceUnavailable(int retryAfter) {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        RequestDispatcher.prepareErrorResponse(response, 503, "Service Unavailable");
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        response.setKeepAlive(false);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            response.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer();
+    }
+}
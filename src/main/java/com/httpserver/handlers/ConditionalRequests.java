@@ -0,0 +1,48 @@
+package com.httpserver.handlers;
+
+import com.http.EntityTags;
+import com.http.HttpDates;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+
+/**
+ * Evaluates the conditional request headers of static file requests.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Determines whether the client's cached copy is still current, so a 304 can be sent instead of the file.
+     * If-None-Match takes precedence; If-Modified-Since is only consulted when it is absent.
+     *
+     * @param request the HTTP request
+     * @param etag the entity tag of the current file version
+     * @param lastModified the modification time of the file in milliseconds
+     * @return true if the response should be 304 Not Modified
+     */
+    static boolean isNotModified(HttpRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return EntityTags.matchesAny(ifNoneMatch, etag, true);
+        }
+        long since = HttpDates.parse(request.getHeader("If-Modified-Since"));
+        // HTTP dates have a resolution of one second
+        return since >= 0 && lastModified / 1000 <= since / 1000;
+    }
+
+    /**
+     * Fills in a 304 Not Modified response carrying the validators of the file.
+     *
+     * @param response the HTTP response
+     * @param etag the entity tag of the file
+     * @param lastModified the Last-Modified header value of the file
+     */
+    static void prepareNotModified(HttpResponse response, String etag, String lastModified) {
+        response.setStatusCode(304);
+        response.setReasonPhrase("Not Modified");
+        response.setHeader("ETag", etag);
+        response.setHeader("Last-Modified", lastModified);
+    }
+}
@@ -0,0 +1,111 @@
+package com.httpserver.handlers;
+
+import com.http.ContentCoding;
+import com.http.EntityTags;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import com.httpserver.cache.CachedContent;
+import com.httpserver.cache.FileMetadata;
+import com.httpserver.cache.StaticContentCache;
+
+/**
+ * Selects the content coding of static files from the Accept-Encoding header of a request.
+ * Cached files are encoded in memory; other files are sent from their precompressed gzip sidecar, if they have one.
+ */
+final class ContentNegotiation {
+
+    private ContentNegotiation() {
+    }
+
+    /**
+     * Selects the representation of a cached file to send, and marks the response as varying by
+     * Accept-Encoding when the file has encoded variants.
+     * Range requests always get the unencoded file, so byte offsets refer to the file as stored.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param cache the cache holding the file
+     * @param content the unencoded content of the file
+     * @return the representation to send
+     */
+    static CachedContent select(HttpRequest request, HttpResponse response, StaticContentCache cache,
+                                CachedContent content) {
+        return select(request, response, cache, content, true);
+    }
+
+    /**
+     * Selects the representation of a cached file to describe, like {@link #select}, but only picks
+     * an encoded variant that already exists, so nothing is compressed for a request without a body.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param cache the cache holding the file
+     * @param content the unencoded content of the file
+     * @return the representation to describe
+     */
+    static CachedContent selectExisting(HttpRequest request, HttpResponse response, StaticContentCache cache,
+                                        CachedContent content) {
+        return select(request, response, cache, content, false);
+    }
+
+    /**
+     * Selects the representation of a cached file.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param cache the cache holding the file
+     * @param content the unencoded content of the file
+     * @param compress true to compress the file if the selected variant does not exist yet
+     * @return the selected representation
+     */
+    private static CachedContent select(HttpRequest request, HttpResponse response, StaticContentCache cache,
+                                        CachedContent content, boolean compress) {
+        if (!cache.isNegotiable(content)) {
+            return content;
+        }
+        response.setHeader("Vary", "Accept-Encoding");
+        if (request.getHeader("Range") != null) {
+            return content;
+        }
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        CachedContent selected = compress
+                ? cache.getVariant(content, acceptEncoding)
+                : cache.getExistingVariant(content, acceptEncoding);
+        if (selected.getContentEncoding() != null) {
+            response.setHeader("Content-Encoding", selected.getContentEncoding());
+        }
+        return selected;
+    }
+
+    /**
+     * Finds the gzip sidecar to send instead of a file read from disk, and marks the response as varying by
+     * Accept-Encoding when the file has one. Range requests always get the unencoded file.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param metadata the metadata of the file
+     * @return the metadata of the sidecar to send, or null if the file should be sent unencoded
+     */
+    static FileMetadata selectSidecar(HttpRequest request, HttpResponse response, FileMetadata metadata) {
+        FileMetadata sidecar = metadata.getSidecar();
+        if (sidecar == null) {
+            return null;
+        }
+        response.setHeader("Vary", "Accept-Encoding");
+        if (request.getHeader("Range") != null
+                || !ContentCoding.isAcceptable(request.getHeader("Accept-Encoding"), ContentCoding.GZIP)) {
+            return null;
+        }
+        return sidecar;
+    }
+
+    /**
+     * Gets the entity tag of a gzip sidecar.
+     *
+     * @param sidecar the metadata of the sidecar
+     * @return the quoted entity tag
+     */
+    static String sidecarETag(FileMetadata sidecar) {
+        return EntityTags.forEncoding(sidecar.getETag(), ContentCoding.GZIP);
+    }
+}
@@ -1,32 +1,69 @@
 package com.httpserver.handlers;
 
+import com.http.ByteRange;
+import com.http.ContentCoding;
+import com.http.FileRegion;
 import com.http.HttpRequest;
 import com.http.HttpResponse;
+import com.httpserver.cache.CachedContent;
+import com.httpserver.cache.FileMetadata;
+import com.httpserver.cache.FileMetadataCache;
+import com.httpserver.cache.StaticContentCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Handler for HTTP GET requests.
- * This handler reads the requested file and sends its contents in the HTTP response.
+ * Small, frequently requested files are served from the {@link StaticContentCache}; everything else is sent
+ * as a file region, so its contents are transferred to the client without being read onto the heap.
+ * Responses carry an ETag and Last-Modified, and a request whose validators match gets a 304 with no body.
+ * Range requests get a 206 holding just the requested bytes, streamed from file regions for uncached files.
+ * Cached text files are sent gzip or deflate encoded to clients that accept it, and other text files are sent
+ * from their precompressed gzip sidecar when they have one.
+ * The file's existence, size, validators and MIME type come from the {@link FileMetadataCache} when there is one.
  */
 public class GetMethodHandler implements MethodHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(GetMethodHandler.class);
     private final File file;
+    private final StaticContentCache cache;
+    private final FileMetadataCache metadataCache;
 
     /**
-     * Constructs a new GetMethodHandler.
+     * Constructs a new GetMethodHandler that always reads the file from disk.
      *
      * @param file the file to be served by the handler
      */
     public GetMethodHandler(File file) {
+        this(file, null);
+    }
+
+    /**
+     * Constructs a new GetMethodHandler that reads the file's metadata from disk on every request.
+     *
+     * @param file the file to be served by the handler
+     * @param cache the static content cache, or null to always read the file from disk
+     */
+    public GetMethodHandler(File file, StaticContentCache cache) {
+        this(file, cache, null);
+    }
+
+    /**
+     * Constructs a new GetMethodHandler.
+     *
+     * @param file the file to be served by the handler
+     * @param cache the static content cache, or null to always read the file from disk
+     * @param metadataCache the file metadata cache, or null to read the file's metadata from disk on every request
+     */
+    public GetMethodHandler(File file, StaticContentCache cache, FileMetadataCache metadataCache) {
         this.file = file;
+        this.cache = cache;
+        this.metadataCache = metadataCache;
     }
 
     /**
@@ -38,16 +75,70 @@ public class GetMethodHandler implements MethodHandler {
      */
     @Override
     public void handle(HttpRequest request, HttpResponse response) {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] fileContent = fis.readAllBytes();
-            String mimeType = Files.probeContentType(Paths.get(file.getPath()));
-            response.setStatusCode(200);
-            response.setReasonPhrase("OK");
-            response.setHeaders(Map.of(
-                    "Content-Type", mimeType,
-                    "Content-Length", String.valueOf(file.length())
-            ));
-            response.setBody(new String(fileContent));
+        Path path = file.toPath();
+        try {
+            FileMetadata metadata = metadataCache != null ? metadataCache.get(path) : FileMetadata.read(path);
+            if (!metadata.isRegularFile()) {
+                throw new FileNotFoundException("No such file or directory");
+            }
+            CachedContent content = cache != null ? cache.get(file, metadata) : null;
+            if (content != null) {
+                CachedContent cached = ContentNegotiation.select(request, response, cache, content);
+                if (ConditionalRequests.isNotModified(request, cached.getETag(), cached.getLastModified())) {
+                    ConditionalRequests.prepareNotModified(response, cached.getETag(), cached.getLastModifiedHeader());
+                    return;
+                }
+                response.setHeader("ETag", cached.getETag());
+                response.setHeader("Last-Modified", cached.getLastModifiedHeader());
+                List<ByteRange> ranges = RangeRequests.requestedRanges(
+                        request, cached.getETag(), cached.getLastModified(), cached.getSize());
+                if (ranges != null) {
+                    prepareRanges(response, ranges, cached.getContentType(), cached.getSize(),
+                            range -> cached.getBody(range.getFirst(), range.getLength()));
+                    return;
+                }
+                response.setStatusCode(200);
+                response.setReasonPhrase("OK");
+                response.setHeader("Content-Type", cached.getContentType());
+                response.setHeader("Content-Length", cached.getContentLength());
+                if (cached.getContentEncoding() == null) {
+                    // Ranges are only served from the unencoded file, so encoded responses do not offer them
+                    response.setHeader("Accept-Ranges", "bytes");
+                }
+                response.setHttpBody(cached.getBody());
+                return;
+            }
+
+            FileMetadata sidecar = ContentNegotiation.selectSidecar(request, response, metadata);
+            if (sidecar != null) {
+                prepareSidecar(request, response, metadata, sidecar);
+                return;
+            }
+
+            String etag = metadata.getETag();
+            long lastModified = metadata.getLastModified();
+            if (ConditionalRequests.isNotModified(request, etag, lastModified)) {
+                ConditionalRequests.prepareNotModified(response, etag, metadata.getLastModifiedHeader());
+                return;
+            }
+
+            // The file is opened before any header is set, so a file that has gone since its metadata was read
+            // gets a 500 that carries none of the headers describing it
+            List<ByteRange> ranges = RangeRequests.requestedRanges(request, etag, lastModified, metadata.getSize());
+            if (ranges != null) {
+                prepareRanges(response, ranges, metadata.getContentType(), metadata.getSize(),
+                        range -> FileRegion.open(path, range.getFirst(), range.getLength()));
+            } else {
+                FileRegion region = FileRegion.open(path);
+                response.setStatusCode(200);
+                response.setReasonPhrase("OK");
+                response.setHeader("Content-Type", metadata.getContentType());
+                response.setHeader("Content-Length", String.valueOf(region.getCount()));
+                response.setHeader("Accept-Ranges", "bytes");
+                response.setHttpBody(region);
+            }
+            response.setHeader("ETag", etag);
+            response.setHeader("Last-Modified", metadata.getLastModifiedHeader());
         } catch (IOException e) {
             LOGGER.error("Error reading file", e);
             response.setStatusCode(500);
@@ -55,4 +146,52 @@ public class GetMethodHandler implements MethodHandler {
             response.setBody("<html><body><h1>500 Internal Server Error</h1></body></html>");
         }
     }
+
+    /**
+     * Prepares a response that sends the precompressed gzip sidecar of the file as a file region,
+     * or a 304 response if the client's copy of it is current. Range requests are answered from the unencoded file,
+     * so the response does not advertise Accept-Ranges.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param metadata the metadata of the file
+     * @param sidecar the metadata of the sidecar
+     * @throws IOException if the sidecar cannot be opened
+     */
+    private static void prepareSidecar(HttpRequest request, HttpResponse response, FileMetadata metadata,
+                                       FileMetadata sidecar) throws IOException {
+        String etag = ContentNegotiation.sidecarETag(sidecar);
+        if (ConditionalRequests.isNotModified(request, etag, metadata.getLastModified())) {
+            ConditionalRequests.prepareNotModified(response, etag, metadata.getLastModifiedHeader());
+            return;
+        }
+        FileRegion region = FileRegion.open(sidecar.getPath());
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setHeader("Content-Type", metadata.getContentType());
+        response.setHeader("Content-Encoding", ContentCoding.GZIP);
+        response.setHeader("Content-Length", String.valueOf(region.getCount()));
+        response.setHeader("ETag", etag);
+        response.setHeader("Last-Modified", metadata.getLastModifiedHeader());
+        response.setHttpBody(region);
+    }
+
+    /**
+     * Prepares a 206 response for the satisfiable ranges, or a 416 response if there are none.
+     *
+     * @param response the HTTP response
+     * @param ranges the requested ranges
+     * @param contentType the MIME type of the file
+     * @param length the length of the file
+     * @param source supplies the bytes of each range
+     * @throws IOException if the file cannot be read
+     */
+    private static void prepareRanges(HttpResponse response, List<ByteRange> ranges, String contentType, long length,
+                                      RangeRequests.RangeSource source) throws IOException {
+        if (ranges.isEmpty()) {
+            RangeRequests.prepareNotSatisfiable(response, length);
+        } else {
+            RangeRequests.preparePartialContent(response, ranges, contentType, length, source);
+        }
+    }
 }
@@ -1,28 +1,60 @@
 package com.httpserver.handlers;
 
+import com.http.ContentCoding;
 import com.http.HttpRequest;
 import com.http.HttpResponse;
+import com.httpserver.cache.CachedContent;
+import com.httpserver.cache.FileMetadata;
+import com.httpserver.cache.FileMetadataCache;
+import com.httpserver.cache.StaticContentCache;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Map;
 
 /**
  * Handler for HTTP HEAD requests.
  * This handler responds with the same headers as a GET request, but without the response body.
+ * Conditional requests and content coding are evaluated the same way as for GET, but from what is already known
+ * about the file: the static content cache is only consulted for a copy it already holds, and nothing is read into it
+ * or compressed for a HEAD request.
+ * With a {@link FileMetadataCache}, a request for a file whose metadata is cached is answered without touching the disk.
  */
 public class HeadMethodHandler implements MethodHandler {
     private final File file;
+    private final StaticContentCache cache;
+    private final FileMetadataCache metadataCache;
 
     /**
-     * Constructs a new HeadMethodHandler.
+     * Constructs a new HeadMethodHandler that always inspects the file on disk.
      *
      * @param file the file to be served by the handler
      */
     public HeadMethodHandler(File file) {
+        this(file, null);
+    }
+
+    /**
+     * Constructs a new HeadMethodHandler.
+     *
+     * @param file the file to be served by the handler
+     * @param cache the static content cache, or null to always inspect the file on disk
+     */
+    public HeadMethodHandler(File file, StaticContentCache cache) {
+        this(file, cache, null);
+    }
+
+    /**
+     * Constructs a new HeadMethodHandler.
+     *
+     * @param file the file to be served by the handler
+     * @param cache the static content cache, or null to always inspect the file on disk
+     * @param metadataCache the file metadata cache, or null to inspect the file on disk on every request
+     */
+    public HeadMethodHandler(File file, StaticContentCache cache, FileMetadataCache metadataCache) {
         this.file = file;
+        this.cache = cache;
+        this.metadataCache = metadataCache;
     }
 
     /**
@@ -35,13 +67,54 @@ public class HeadMethodHandler implements MethodHandler {
      */
     @Override
     public void handle(HttpRequest request, HttpResponse response) throws IOException {
-        String mimeType = Files.probeContentType(Paths.get(file.getPath()));
+        FileMetadata metadata = metadataCache != null ? metadataCache.get(file.toPath()) : FileMetadata.read(file.toPath());
+        if (!metadata.isRegularFile()) {
+            throw new FileNotFoundException("No such file or directory");
+        }
+        CachedContent content = cache != null ? cache.peek(file, metadata) : null;
+        if (content != null) {
+            CachedContent cached = ContentNegotiation.selectExisting(request, response, cache, content);
+            if (ConditionalRequests.isNotModified(request, cached.getETag(), cached.getLastModified())) {
+                ConditionalRequests.prepareNotModified(response, cached.getETag(), cached.getLastModifiedHeader());
+                return;
+            }
+            response.setStatusCode(200);
+            response.setReasonPhrase("OK");
+            response.setHeader("Content-Type", cached.getContentType());
+            response.setHeader("Content-Length", cached.getContentLength());
+            response.setHeader("ETag", cached.getETag());
+            response.setHeader("Last-Modified", cached.getLastModifiedHeader());
+            if (cached.getContentEncoding() == null) {
+                response.setHeader("Accept-Ranges", "bytes");
+            }
+            response.setBody(""); // No body for HEAD request
+            return;
+        }
+
+        String etag = metadata.getETag();
+        String contentLength = metadata.getContentLength();
+        FileMetadata sidecar = ContentNegotiation.selectSidecar(request, response, metadata);
+        if (sidecar != null) {
+            etag = ContentNegotiation.sidecarETag(sidecar);
+            contentLength = sidecar.getContentLength();
+        }
+        if (ConditionalRequests.isNotModified(request, etag, metadata.getLastModified())) {
+            ConditionalRequests.prepareNotModified(response, etag, metadata.getLastModifiedHeader());
+            return;
+        }
+
         response.setStatusCode(200);
         response.setReasonPhrase("OK");
-        response.setHeaders(Map.of(
-                "Content-Type", mimeType,
-                "Content-Length", String.valueOf(file.length())
-        ));
+        response.setHeader("Content-Type", metadata.getContentType());
+        if (sidecar != null) {
+            response.setHeader("Content-Encoding", ContentCoding.GZIP);
+        }
+        response.setHeader("Content-Length", contentLength);
+        response.setHeader("ETag", etag);
+        response.setHeader("Last-Modified", metadata.getLastModifiedHeader());
+        if (sidecar == null) {
+            response.setHeader("Accept-Ranges", "bytes");
+        }
         response.setBody(""); // No body for HEAD request
     }
 }
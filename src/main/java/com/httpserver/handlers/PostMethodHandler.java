@@ -0,0 +1,117 @@
+package com.httpserver.handlers;
+
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import com.http.MultipartPart;
+import com.http.MultipartReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Handles HTTP POST requests by storing the request body as a new, uniquely named file in the directory
+ * the target names below an upload root. The response points at the new file in its Location header.
+ * A {@code multipart/form-data} body is instead split into its parts as it streams in, and every file part
+ * is stored as a file of its own; other form fields are skipped.
+ */
+public class PostMethodHandler implements MethodHandler {
+
+    private final Path root;
+    private final String uploadPath;
+
+    /**
+     * Constructs a new PostMethodHandler.
+     *
+     * @param root the directory uploads are stored in
+     * @param uploadPath the request path the directory is mapped to
+     */
+    public PostMethodHandler(Path root, String uploadPath) {
+        this.root = root.toAbsolutePath().normalize();
+        this.uploadPath = uploadPath.endsWith("/") ? uploadPath.substring(0, uploadPath.length() - 1) : uploadPath;
+    }
+
+    /**
+     * Handles the HTTP POST request and prepares a 201 Created response.
+     *
+     * @param request the HTTP request to handle
+     * @param response the HTTP response to prepare
+     * @throws IOException if the body cannot be received or stored
+     */
+    @Override
+    public void handle(HttpRequest request, HttpResponse response) throws IOException {
+        Path directory = Uploads.resolve(root, uploadPath, request.getRequestTarget());
+        if (directory == null) {
+            Uploads.prepareRejected(response, 403, "Forbidden");
+            return;
+        }
+        if (Files.exists(directory) && !Files.isDirectory(directory)) {
+            Uploads.prepareRejected(response, 409, "Conflict");
+            return;
+        }
+        if (!Uploads.hasBody(request)) {
+            Uploads.prepareRejected(response, 411, "Length Required");
+            return;
+        }
+
+        String boundary = MultipartReader.boundaryOf(request.getHeader("Content-Type"));
+        if (boundary != null) {
+            handleMultipart(request, response, directory, boundary);
+            return;
+        }
+
+        Path destination = directory.resolve(UUID.randomUUID().toString());
+        Uploads.receive(request, destination);
+        Uploads.prepareCreated(response, Uploads.targetOf(root, uploadPath, destination));
+    }
+
+    /**
+     * Stores each file part of a multipart/form-data body as a new file and prepares a 201 Created response
+     * pointing at the first one, listing all of them in the body. If the body holds no file, or cannot be read
+     * to its end, the files already stored are removed again.
+     *
+     * @param request the HTTP request to handle
+     * @param response the HTTP response to prepare
+     * @param directory the directory to store the files in
+     * @param boundary the multipart boundary
+     * @throws IOException if the body cannot be received or stored
+     */
+    private void handleMultipart(HttpRequest request, HttpResponse response, Path directory, String boundary)
+            throws IOException {
+        MultipartReader reader = new MultipartReader(request.getBodyStream(), boundary);
+        List<Path> stored = new ArrayList<>();
+        try {
+            MultipartPart part;
+            while ((part = reader.nextPart()) != null) {
+                if (part.getFileName() == null) {
+                    continue;
+                }
+                Path destination = directory.resolve(UUID.randomUUID().toString());
+                Uploads.receive(part.getInputStream(), destination);
+                stored.add(destination);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Path path : stored) {
+                Files.deleteIfExists(path);
+            }
+            throw e;
+        }
+
+        if (stored.isEmpty()) {
+            Uploads.prepareRejected(response, 400, "Bad Request");
+            return;
+        }
+        StringBuilder locations = new StringBuilder();
+        for (Path path : stored) {
+            locations.append(Uploads.targetOf(root, uploadPath, path)).append("\r\n");
+        }
+        response.setStatusCode(201);
+        response.setReasonPhrase("Created");
+        response.setHeader("Location", Uploads.targetOf(root, uploadPath, stored.get(0)));
+        response.setHeader("Content-Type", "text/plain");
+        response.setBody(locations.toString());
+    }
+}
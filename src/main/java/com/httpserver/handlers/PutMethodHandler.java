@@ -0,0 +1,63 @@
+package com.httpserver.handlers;
+
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Handles HTTP PUT requests by storing the request body as the file the target names below an upload root.
+ * The file is created, or atomically replaced, once the whole body has been received.
+ */
+public class PutMethodHandler implements MethodHandler {
+
+    private final Path root;
+    private final String uploadPath;
+
+    /**
+     * Constructs a new PutMethodHandler.
+     *
+     * @param root the directory uploads are stored in
+     * @param uploadPath the request path the directory is mapped to
+     */
+    public PutMethodHandler(Path root, String uploadPath) {
+        this.root = root.toAbsolutePath().normalize();
+        this.uploadPath = uploadPath.endsWith("/") ? uploadPath.substring(0, uploadPath.length() - 1) : uploadPath;
+    }
+
+    /**
+     * Handles the HTTP PUT request and prepares the HTTP response:
+     * 201 Created for a new file, 204 No Content for a replaced one.
+     *
+     * @param request the HTTP request to handle
+     * @param response the HTTP response to prepare
+     * @throws IOException if the body cannot be received or stored
+     */
+    @Override
+    public void handle(HttpRequest request, HttpResponse response) throws IOException {
+        Path destination = Uploads.resolve(root, uploadPath, request.getRequestTarget());
+        if (destination == null) {
+            Uploads.prepareRejected(response, 403, "Forbidden");
+            return;
+        }
+        if (destination.equals(root) || Files.isDirectory(destination)) {
+            Uploads.prepareRejected(response, 409, "Conflict");
+            return;
+        }
+        if (!Uploads.hasBody(request)) {
+            Uploads.prepareRejected(response, 411, "Length Required");
+            return;
+        }
+
+        boolean replaced = Files.exists(destination);
+        Uploads.receive(request, destination);
+        if (replaced) {
+            response.setStatusCode(204);
+            response.setReasonPhrase("No Content");
+        } else {
+            Uploads.prepareCreated(response, Uploads.targetOf(root, uploadPath, destination));
+        }
+    }
+}
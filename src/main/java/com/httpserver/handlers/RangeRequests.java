@@ -0,0 +1,148 @@
+package com.httpserver.handlers;
+
+import com.http.ByteRange;
+import com.http.EntityTags;
+import com.http.HttpBody;
+import com.http.HttpDates;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Evaluates Range and If-Range headers and builds 206 and 416 responses for static files.
+ * A single range is sent as the bare bytes; several ranges are sent as {@code multipart/byteranges},
+ * with each part's bytes supplied by the caller so they can be streamed from a file region.
+ */
+final class RangeRequests {
+
+    /**
+     * The largest number of ranges served in one response; longer Range headers are ignored.
+     */
+    static final int MAX_RANGES = 16;
+
+    /**
+     * Supplies the bytes of one range of the file.
+     */
+    @FunctionalInterface
+    interface RangeSource {
+
+        /**
+         * Creates the body holding one range of the file.
+         *
+         * @param range the range
+         * @return the body
+         * @throws IOException if the file cannot be read
+         */
+        HttpBody open(ByteRange range) throws IOException;
+    }
+
+    private RangeRequests() {
+    }
+
+    /**
+     * Determines which ranges of the file the client asked for.
+     * The Range header is ignored when it is malformed, asks for too many ranges, or is made conditional
+     * by an If-Range header that no longer matches the file.
+     *
+     * @param request the HTTP request
+     * @param etag the entity tag of the current file version
+     * @param lastModified the modification time of the file in milliseconds
+     * @param length the length of the file
+     * @return the ranges to send, an empty list if none is satisfiable, or null to send the whole file
+     */
+    static List<ByteRange> requestedRanges(HttpRequest request, String etag, long lastModified, long length) {
+        String range = request.getHeader("Range");
+        if (range == null) {
+            return null;
+        }
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange != null && !ifRangeMatches(ifRange.trim(), etag, lastModified)) {
+            return null;
+        }
+        return ByteRange.parse(range, length, MAX_RANGES);
+    }
+
+    /**
+     * Fills in a 416 Range Not Satisfiable response.
+     *
+     * @param response the HTTP response
+     * @param length the length of the file
+     */
+    static void prepareNotSatisfiable(HttpResponse response, long length) {
+        response.setStatusCode(416);
+        response.setReasonPhrase("Range Not Satisfiable");
+        response.setHeader("Content-Range", "bytes */" + length);
+        response.setHeader("Content-Length", "0");
+    }
+
+    /**
+     * Fills in a 206 Partial Content response for one or more ranges.
+     * Every range is opened before the response is touched, so it is left as it was if the file cannot be read.
+     *
+     * @param response the HTTP response
+     * @param ranges the satisfiable ranges, at least one
+     * @param contentType the MIME type of the file, or null if it is unknown
+     * @param length the length of the file
+     * @param source supplies the bytes of each range
+     * @throws IOException if the file cannot be read
+     */
+    static void preparePartialContent(HttpResponse response, List<ByteRange> ranges, String contentType,
+                                      long length, RangeSource source) throws IOException {
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            HttpBody body = source.open(range);
+            response.setStatusCode(206);
+            response.setReasonPhrase("Partial Content");
+            response.setHeader("Content-Type", contentType);
+            response.setHeader("Content-Range", range.toContentRange(length));
+            response.setHeader("Content-Length", String.valueOf(range.getLength()));
+            response.setHttpBody(body);
+            return;
+        }
+
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        List<HttpBody> parts = new ArrayList<>(ranges.size() * 2 + 1);
+        try {
+            for (ByteRange range : ranges) {
+                String partHeader = "\r\n--" + boundary + "\r\n"
+                        + (contentType != null ? "Content-Type: " + contentType + "\r\n" : "")
+                        + "Content-Range: " + range.toContentRange(length) + "\r\n\r\n";
+                parts.add(HttpBody.of(partHeader.getBytes(StandardCharsets.ISO_8859_1)));
+                parts.add(source.open(range));
+            }
+        } catch (IOException e) {
+            HttpBody.concat(parts).close();
+            throw e;
+        }
+        parts.add(HttpBody.of(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1)));
+
+        HttpBody body = HttpBody.concat(parts);
+        response.setStatusCode(206);
+        response.setReasonPhrase("Partial Content");
+        response.setHeader("Content-Type", "multipart/byteranges; boundary=" + boundary);
+        response.setHeader("Content-Length", String.valueOf(body.getLength()));
+        response.setHttpBody(body);
+    }
+
+    /**
+     * Checks an If-Range validator against the current file version.
+     * Entity tags use strong comparison; a date only matches if it is exactly the Last-Modified time.
+     *
+     * @param ifRange the If-Range header value
+     * @param etag the entity tag of the file
+     * @param lastModified the modification time of the file in milliseconds
+     * @return true if the client's copy is current and a partial response can be sent
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return EntityTags.matchesAny(ifRange, etag, false);
+        }
+        long date = HttpDates.parse(ifRange);
+        return date >= 0 && date / 1000 == lastModified / 1000;
+    }
+}
@@ -0,0 +1,152 @@
+package com.httpserver.handlers;
+
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores request bodies as files below an upload root, for the PUT and POST handlers.
+ * A body is streamed into a temporary file next to its destination with {@link FileChannel#transferFrom},
+ * in fixed-size blocks however large the upload is, and the file is renamed into place only once the whole body
+ * has arrived, so a partial upload is never visible under its final name.
+ * Handlers check a request before touching its body, so a rejected upload never has its body read;
+ * a client that sent {@code Expect: 100-continue} is then spared from sending it at all.
+ */
+final class Uploads {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Uploads.class);
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
+
+    private Uploads() {
+    }
+
+    /**
+     * Maps a request target below the upload path to a path below the upload root.
+     *
+     * @param root the absolute, normalized upload root
+     * @param uploadPath the request path the upload root is mapped to, without a trailing slash
+     * @param requestTarget the request target
+     * @return the path, or null if the target is not below the upload path or escapes the upload root
+     */
+    static Path resolve(Path root, String uploadPath, String requestTarget) {
+        int query = requestTarget.indexOf('?');
+        String path = query >= 0 ? requestTarget.substring(0, query) : requestTarget;
+        if (!path.startsWith(uploadPath)) {
+            return null;
+        }
+        String relative = path.substring(uploadPath.length());
+        if (!relative.isEmpty() && relative.charAt(0) != '/') {
+            return null;
+        }
+        Path resolved = root.resolve(relative.isEmpty() ? "" : relative.substring(1)).normalize();
+        return resolved.startsWith(root) ? resolved : null;
+    }
+
+    /**
+     * Gets the request target that names a path below the upload root.
+     *
+     * @param root the absolute, normalized upload root
+     * @param uploadPath the request path the upload root is mapped to, without a trailing slash
+     * @param path a path below the upload root
+     * @return the request target of the path
+     */
+    static String targetOf(Path root, String uploadPath, Path path) {
+        StringBuilder target = new StringBuilder(uploadPath);
+        for (Path name : root.relativize(path)) {
+            target.append('/').append(name);
+        }
+        return target.toString();
+    }
+
+    /**
+     * Determines whether a request announces a body, with either a Content-Length or a Transfer-Encoding header.
+     *
+     * @param request the HTTP request
+     * @return true if the request has a framed body, even an empty one
+     */
+    static boolean hasBody(HttpRequest request) {
+        return request.getHeader("Content-Length") != null || request.getHeader("Transfer-Encoding") != null;
+    }
+
+    /**
+     * Streams the body of a request into a file, replacing any file already there once the body is complete.
+     * If the body cannot be read to its end, the partial upload is deleted and the destination is left untouched.
+     *
+     * @param request the HTTP request
+     * @param destination the path of the file to create
+     * @return the number of bytes stored
+     * @throws IOException if the body or the file cannot be read or written
+     */
+    static long receive(HttpRequest request, Path destination) throws IOException {
+        return receive(request.getBodyStream(), destination);
+    }
+
+    /**
+     * Streams content into a file, replacing any file already there once the content is complete.
+     * If the content cannot be read to its end, the partial file is deleted and the destination is left untouched.
+     *
+     * @param content the content to store, such as a request body or one part of it
+     * @param destination the path of the file to create
+     * @return the number of bytes stored
+     * @throws IOException if the content or the file cannot be read or written
+     */
+    static long receive(InputStream content, Path destination) throws IOException {
+        Path directory = destination.getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, ".upload-", ".part");
+        try {
+            long position = 0;
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                 ReadableByteChannel body = Channels.newChannel(content)) {
+                long transferred;
+                while ((transferred = file.transferFrom(body, position, TRANSFER_SIZE)) > 0) {
+                    position += transferred;
+                }
+            }
+            Files.move(temporary, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.debug("Stored {} bytes at {}", position, destination);
+            return position;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Fills in a 201 Created response pointing at the stored file.
+     *
+     * @param response the HTTP response
+     * @param location the request target of the stored file
+     */
+    static void prepareCreated(HttpResponse response, String location) {
+        response.setStatusCode(201);
+        response.setReasonPhrase("Created");
+        response.setHeader("Location", location);
+        response.setHeader("Content-Length", "0");
+    }
+
+    /**
+     * Fills in an HTML error response for a rejected upload.
+     *
+     * @param response the HTTP response
+     * @param statusCode the HTTP status code
+     * @param reasonPhrase the reason phrase
+     */
+    static void prepareRejected(HttpResponse response, int statusCode, String reasonPhrase) {
+        response.setStatusCode(statusCode);
+        response.setReasonPhrase(reasonPhrase);
+        response.setHeader("Content-Type", "text/html");
+        response.setBody(String.format("<html><body><h1>%d %s</h1></body></html>", statusCode, reasonPhrase));
+    }
+}
@@ -0,0 +1,57 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ByteRange class.
+ */
+class ByteRangeTests {
+
+    @Test
+    void testParseClosedRange() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-499", 1000, 16);
+
+        assertEquals(1, ranges.size());
+        assertEquals(0, ranges.get(0).getFirst());
+        assertEquals(499, ranges.get(0).getLast());
+        assertEquals(500, ranges.get(0).getLength());
+        assertEquals("bytes 0-499/1000", ranges.get(0).toContentRange(1000));
+    }
+
+    @Test
+    void testParseOpenAndSuffixRanges() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=900-, -100", 1000, 16);
+
+        assertEquals(2, ranges.size());
+        assertEquals("bytes 900-999/1000", ranges.get(0).toContentRange(1000));
+        assertEquals("bytes 900-999/1000", ranges.get(1).toContentRange(1000));
+    }
+
+    @Test
+    void testRangesAreClippedToTheLength() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=500-5000,-5000", 1000, 16);
+
+        assertEquals("bytes 500-999/1000", ranges.get(0).toContentRange(1000));
+        assertEquals("bytes 0-999/1000", ranges.get(1).toContentRange(1000));
+    }
+
+    @Test
+    void testUnsatisfiableRangesAreDropped() {
+        assertEquals(List.of(), ByteRange.parse("bytes=1000-1100", 1000, 16));
+        assertEquals(List.of(), ByteRange.parse("bytes=-0", 1000, 16));
+        assertEquals(1, ByteRange.parse("bytes=1000-1100,0-0", 1000, 16).size());
+    }
+
+    @Test
+    void testMalformedHeadersAreIgnored() {
+        assertNull(ByteRange.parse("items=0-1", 1000, 16));
+        assertNull(ByteRange.parse("bytes=5-1", 1000, 16));
+        assertNull(ByteRange.parse("bytes=a-b", 1000, 16));
+        assertNull(ByteRange.parse("bytes=", 1000, 16));
+        assertNull(ByteRange.parse("bytes=0-1,2-3,4-5", 1000, 2));
+    }
+}
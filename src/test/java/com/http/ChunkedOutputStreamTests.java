@@ -0,0 +1,73 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ChunkedOutputStream class.
+ */
+class ChunkedOutputStreamTests {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void testSmallWritesAreCoalescedIntoFullChunks() throws IOException {
+        ChunkedOutputStream chunked = new ChunkedOutputStream(out, 16);
+        for (int i = 0; i < 5; i++) {
+            chunked.write("abcdefg".getBytes(StandardCharsets.US_ASCII));
+        }
+        chunked.finish();
+
+        assertEquals("10\r\nabcdefgabcdefgab\r\n10\r\ncdefgabcdefgabcd\r\n3\r\nefg\r\n0\r\n\r\n", text());
+    }
+
+    @Test
+    void testLargeWriteIsSentAsItsOwnChunk() throws IOException {
+        ChunkedOutputStream chunked = new ChunkedOutputStream(out, 4);
+        chunked.write('x');
+        chunked.write("0123456789".getBytes(StandardCharsets.US_ASCII));
+        chunked.finish();
+
+        assertEquals("4\r\nx012\r\n7\r\n3456789\r\n0\r\n\r\n", text());
+    }
+
+    @Test
+    void testFlushSendsPartialChunk() throws IOException {
+        ChunkedOutputStream chunked = new ChunkedOutputStream(out);
+        chunked.write("first".getBytes(StandardCharsets.US_ASCII));
+        chunked.flush();
+
+        assertEquals("5\r\nfirst\r\n", text());
+        chunked.flush(); // Nothing buffered, so no empty chunk that would end the body
+        assertEquals("5\r\nfirst\r\n", text());
+    }
+
+    @Test
+    void testTrailersFollowLastChunk() throws IOException {
+        try (ChunkedOutputStream chunked = new ChunkedOutputStream(out)) {
+            chunked.write("body".getBytes(StandardCharsets.US_ASCII));
+            chunked.setTrailer("X-Checksum", "abc123");
+        }
+
+        assertEquals("4\r\nbody\r\n0\r\nX-Checksum: abc123\r\n\r\n", text());
+    }
+
+    @Test
+    void testWriteAfterFinishFails() throws IOException {
+        ChunkedOutputStream chunked = new ChunkedOutputStream(out);
+        chunked.finish();
+        chunked.finish();
+
+        assertEquals("0\r\n\r\n", text());
+        assertThrows(IOException.class, () -> chunked.write('x'));
+    }
+
+    private String text() {
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,58 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ContentCoding class.
+ */
+class ContentCodingTests {
+
+    @Test
+    void testNegotiate() {
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip, deflate, br"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("x-gzip"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("br, *;q=0.1"));
+        assertNull(ContentCoding.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(ContentCoding.negotiate("identity"));
+        assertNull(ContentCoding.negotiate(null));
+    }
+
+    @Test
+    void testIsAcceptable() {
+        assertTrue(ContentCoding.isAcceptable("gzip;q=0.5, deflate", ContentCoding.GZIP));
+        assertTrue(ContentCoding.isAcceptable("*", ContentCoding.GZIP));
+        assertFalse(ContentCoding.isAcceptable("deflate, *;q=0", ContentCoding.GZIP));
+        assertFalse(ContentCoding.isAcceptable(null, ContentCoding.GZIP));
+    }
+
+    @Test
+    void testIsCompressible() {
+        assertTrue(ContentCoding.isCompressible("text/html"));
+        assertTrue(ContentCoding.isCompressible("application/json; charset=utf-8"));
+        assertTrue(ContentCoding.isCompressible("image/svg+xml"));
+        assertFalse(ContentCoding.isCompressible("image/png"));
+        assertFalse(ContentCoding.isCompressible("application/zip"));
+        assertFalse(ContentCoding.isCompressible(null));
+    }
+
+    @Test
+    void testEncodeRoundTrips() throws IOException {
+        byte[] data = "<p>compress me</p>".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        byte[] gzip = ContentCoding.encode(data, ContentCoding.GZIP);
+        byte[] deflate = ContentCoding.encode(data, ContentCoding.DEFLATE);
+
+        assertTrue(gzip.length < data.length);
+        assertArrayEquals(data, new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes());
+        assertArrayEquals(data, new InflaterInputStream(new ByteArrayInputStream(deflate)).readAllBytes());
+    }
+}
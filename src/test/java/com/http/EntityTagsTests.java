@@ -0,0 +1,33 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the EntityTags class.
+ */
+class EntityTagsTests {
+
+    @Test
+    void testForFileChangesWithModificationTimeAndSize() {
+        String etag = EntityTags.forFile(0x1000, 0x20);
+
+        assertEquals("\"1000-20\"", etag);
+        assertNotEquals(etag, EntityTags.forFile(0x1001, 0x20));
+        assertNotEquals(etag, EntityTags.forFile(0x1000, 0x21));
+    }
+
+    @Test
+    void testMatchesAny() {
+        assertTrue(EntityTags.matchesAny("\"a\", \"b\"", "\"b\"", false));
+        assertTrue(EntityTags.matchesAny("*", "\"b\"", false));
+        assertFalse(EntityTags.matchesAny("\"a\"", "\"b\"", true));
+    }
+
+    @Test
+    void testWeakTagsOnlyMatchWithWeakComparison() {
+        assertTrue(EntityTags.matchesAny("W/\"a\"", "\"a\"", true));
+        assertFalse(EntityTags.matchesAny("W/\"a\"", "\"a\"", false));
+    }
+}
@@ -0,0 +1,122 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FileRegion class.
+ */
+class FileRegionTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testOpenCoversWholeFile() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "0123456789");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (FileRegion region = FileRegion.open(file)) {
+            assertEquals(0, region.getPosition());
+            assertEquals(10, region.getCount());
+            region.transferFully(Channels.newChannel(bytes));
+            assertTrue(region.isComplete());
+        }
+
+        assertEquals("0123456789", bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testTransferPartOfFile() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "0123456789");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (FileRegion region = new FileRegion(FileChannel.open(file, StandardOpenOption.READ), 3, 4)) {
+            region.transferFully(Channels.newChannel(bytes));
+        }
+
+        assertEquals("3456", bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testTransferResumesAfterPartialWrite() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "0123456789");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(bytes);
+        // Accepts at most three bytes per write, like a socket with a full send buffer
+        WritableByteChannel slowTarget = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                ByteBuffer slice = src.slice();
+                slice.limit(Math.min(3, slice.remaining()));
+                int written = target.write(slice);
+                src.position(src.position() + written);
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (FileRegion region = FileRegion.open(file)) {
+            int calls = 0;
+            while (!region.isComplete()) {
+                assertTrue(region.transferTo(slowTarget) > 0);
+                calls++;
+            }
+            assertTrue(calls > 1);
+        }
+
+        assertEquals("0123456789", bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testTransferFullyFailsWhenFileIsTruncated() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "0123");
+
+        try (FileRegion region = new FileRegion(FileChannel.open(file, StandardOpenOption.READ), 0, 10)) {
+            assertThrows(EOFException.class, () -> region.transferFully(Channels.newChannel(new ByteArrayOutputStream())));
+        }
+    }
+
+    @Test
+    void testTransferToFailsOnceTruncatedFileRunsOut() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "0123");
+        WritableByteChannel target = Channels.newChannel(new ByteArrayOutputStream());
+
+        try (FileRegion region = new FileRegion(FileChannel.open(file, StandardOpenOption.READ), 0, 10)) {
+            assertEquals(4, region.transferTo(target));
+            // A non-blocking writer would otherwise retry a transfer of nothing forever
+            assertThrows(EOFException.class, () -> region.transferTo(target));
+        }
+    }
+
+    @Test
+    void testNegativeRegionIsRejected() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "0123");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThrows(IllegalArgumentException.class, () -> new FileRegion(channel, -1, 2));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HttpBody implementations.
+ */
+class HttpBodyTests {
+
+    @Test
+    void testByteArrayBody() throws IOException {
+        HttpBody body = HttpBody.of(new byte[]{1, 2, 3});
+
+        assertEquals(3, body.getLength());
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), body.getContent());
+        assertArrayEquals(new byte[]{1, 2, 3}, write(body));
+    }
+
+    @Test
+    void testByteBufferSliceBody() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap("skip-body-skip".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(5).limit(9);
+
+        HttpBody body = HttpBody.of(buffer);
+
+        assertEquals(4, body.getLength());
+        assertEquals(5, buffer.position(), "Creating the body must not move the source buffer");
+        assertEquals("body", new String(write(body), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testContentCanBeReadRepeatedly() {
+        HttpBody body = HttpBody.of("Hello");
+
+        body.getContent().position(5);
+
+        assertEquals(5, body.getContent().remaining());
+        assertTrue(body.getContent().isReadOnly());
+    }
+
+    @Test
+    void testStreamingBody() throws IOException {
+        HttpBody body = HttpBody.of(-1, out -> {
+            out.write("chunk one,".getBytes(StandardCharsets.US_ASCII));
+            out.write("chunk two".getBytes(StandardCharsets.US_ASCII));
+        });
+
+        assertEquals(-1, body.getLength());
+        assertNull(body.getContent());
+        assertEquals("chunk one,chunk two", new String(write(body), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testConcatenatedBody() throws IOException {
+        HttpBody first = HttpBody.of("head,");
+        HttpBody second = HttpBody.of("tail");
+        HttpBody body = HttpBody.concat(List.of(first, second));
+
+        assertEquals(9, body.getLength());
+        assertNull(body.getContent());
+        assertEquals(List.of(first, second), body.getParts());
+        assertEquals("head,tail", new String(write(body), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testConcatenatedBodyOfUnknownLength() {
+        HttpBody body = HttpBody.concat(List.of(HttpBody.of("known"), HttpBody.of(-1, out -> { })));
+
+        assertEquals(-1, body.getLength());
+    }
+
+    private static byte[] write(HttpBody body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        body.writeTo(Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+}
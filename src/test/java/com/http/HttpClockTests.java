@@ -0,0 +1,37 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HttpClock class.
+ */
+class HttpClockTests {
+
+    @Test
+    void testDateIsFormattedOncePerSecond() {
+        AtomicLong now = new AtomicLong(784111777000L);
+        HttpClock clock = new HttpClock(now::get);
+
+        String first = clock.currentDate();
+        now.set(784111777999L);
+        String sameSecond = clock.currentDate();
+        now.set(784111778000L);
+        String nextSecond = clock.currentDate();
+
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT", first);
+        assertSame(first, sameSecond);
+        assertEquals("Sun, 06 Nov 1994 08:49:38 GMT", nextSecond);
+    }
+
+    @Test
+    void testDateHeaderLineMatchesTheDate() {
+        HttpClock clock = new HttpClock(() -> 784111777000L);
+
+        assertEquals("Date: Sun, 06 Nov 1994 08:49:37 GMT\r\n", new String(clock.currentDateHeader()));
+        assertSame(clock.currentDateHeader(), clock.currentDateHeader());
+    }
+}
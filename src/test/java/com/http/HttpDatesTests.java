@@ -0,0 +1,30 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HttpDates class.
+ */
+class HttpDatesTests {
+
+    private static final long SUN_06_NOV_1994 = 784111777000L;
+
+    @Test
+    void testFormat() {
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT", HttpDates.format(SUN_06_NOV_1994));
+    }
+
+    @Test
+    void testParse() {
+        assertEquals(SUN_06_NOV_1994, HttpDates.parse("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(SUN_06_NOV_1994, HttpDates.parse(HttpDates.format(SUN_06_NOV_1994 + 123)));
+    }
+
+    @Test
+    void testParseInvalidDate() {
+        assertEquals(-1, HttpDates.parse("yesterday"));
+        assertEquals(-1, HttpDates.parse(null));
+    }
+}
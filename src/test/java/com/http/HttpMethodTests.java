@@ -13,12 +13,16 @@ class HttpMethodTests {
         // Ensure the enum has the correct values
         assertEquals("GET", HttpMethod.GET.name());
         assertEquals("HEAD", HttpMethod.HEAD.name());
+        assertEquals("PUT", HttpMethod.PUT.name());
+        assertEquals("POST", HttpMethod.POST.name());
 
         // Ensure the enum values are in the correct order
         HttpMethod[] methods = HttpMethod.values();
-        assertEquals(2, methods.length);
+        assertEquals(4, methods.length);
         assertEquals(HttpMethod.GET, methods[0]);
         assertEquals(HttpMethod.HEAD, methods[1]);
+        assertEquals(HttpMethod.PUT, methods[2]);
+        assertEquals(HttpMethod.POST, methods[3]);
     }
 
     @Test
@@ -26,6 +30,8 @@ class HttpMethodTests {
         // Ensure valueOf works for valid enum names
         assertEquals(HttpMethod.GET, HttpMethod.valueOf("GET"));
         assertEquals(HttpMethod.HEAD, HttpMethod.valueOf("HEAD"));
+        assertEquals(HttpMethod.PUT, HttpMethod.valueOf("PUT"));
+        assertEquals(HttpMethod.POST, HttpMethod.valueOf("POST"));
     }
 
     @Test
@@ -3,6 +3,7 @@ package com.http;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -197,4 +198,61 @@ class HttpParserTests {
 
         assertEquals("", request.getBody());
     }
+
+    @Test
+    void testParsePipelinedRequestsFromOneStream() throws Exception {
+        String rawRequest = "GET /a HTTP/1.1\r\nHost: localhost\r\n\r\nGET /b HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        InputStream inputStream = new ByteArrayInputStream(rawRequest.getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(parser.hasNextRequest(inputStream));
+        assertEquals("/a", parser.parseHttpRequest(inputStream).getRequestTarget());
+        assertTrue(parser.hasNextRequest(inputStream));
+        assertEquals("/b", parser.parseHttpRequest(inputStream).getRequestTarget());
+        assertFalse(parser.hasNextRequest(inputStream));
+    }
+
+    @Test
+    void testParseHeaderNamesAreCanonical() throws Exception {
+        String rawRequest = "GET / HTTP/1.1\r\nHOST: localhost\r\nX-Custom: value\r\n\r\n";
+        InputStream inputStream = new ByteArrayInputStream(rawRequest.getBytes(StandardCharsets.US_ASCII));
+        HttpRequest request = parser.parseHttpRequest(inputStream);
+
+        // Common names resolve to the shared constant rather than a fresh String
+        assertTrue(request.getHeaders().keySet().stream().anyMatch(name -> name == "host"));
+        assertTrue(request.getHeaders().containsKey("x-custom"));
+    }
+
+    @Test
+    void testParseStreamedBodyAndSkipUnreadRemainder() throws Exception {
+        String rawRequest = "GET /a HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nHello\r\n8\r\n, World!\r\n0\r\n\r\n"
+                + "GET /b HTTP/1.1\r\nContent-Length: 4\r\n\r\ndata";
+        InputStream inputStream = new ByteArrayInputStream(rawRequest.getBytes(StandardCharsets.US_ASCII));
+        parser.setStreamingBody(true);
+
+        HttpRequest first = parser.parseHttpRequest(inputStream);
+        InputStream body = first.getBodyStream();
+        assertEquals('H', body.read());
+        assertEquals('e', body.read());
+
+        // The rest of the first body is skipped before the next request is parsed
+        assertTrue(parser.hasNextRequest(inputStream));
+        HttpRequest second = parser.parseHttpRequest(inputStream);
+        assertEquals("/b", second.getRequestTarget());
+        assertEquals(-1, body.read());
+        assertEquals("data", second.getBody());
+        assertFalse(parser.hasNextRequest(inputStream));
+    }
+
+    @Test
+    void testStreamedBodyOverLimitFailsWhileReading() throws Exception {
+        String rawRequest = "GET / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n4\r\nabcd\r\n4\r\nefgh\r\n0\r\n\r\n";
+        InputStream inputStream = new ByteArrayInputStream(rawRequest.getBytes(StandardCharsets.US_ASCII));
+        parser.setStreamingBody(true);
+        parser.setMaxBodySize(6);
+
+        InputStream body = parser.parseHttpRequest(inputStream).getBodyStream();
+        IOException e = assertThrows(IOException.class, body::readAllBytes);
+        HttpParsingException cause = assertInstanceOf(HttpParsingException.class, e.getCause());
+        assertEquals(413, cause.getStatusCode());
+    }
 }
@@ -0,0 +1,214 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HttpRequestDecoder class.
+ */
+class HttpRequestDecoderTests {
+
+    private final HttpRequestDecoder decoder = new HttpRequestDecoder();
+
+    @Test
+    void testDecodeCompleteRequest() {
+        ByteBuffer buffer = ascii("GET /index.html HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive\r\n\r\n");
+
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        HttpRequest request = decoder.getRequest();
+        assertEquals(HttpMethod.GET, request.getMethod());
+        assertEquals("/index.html", request.getRequestTarget());
+        assertEquals(HttpVersion.HTTP_1_1, request.getHttpVersion());
+        assertEquals("localhost", request.getHeader("Host"));
+        assertEquals("keep-alive", request.getHeader("Connection"));
+        assertEquals("", request.getBody());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void testDecodeRequestSplitAtEveryByte() {
+        byte[] raw = "GET / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 13\r\n\r\nHello, World!".getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 0; i < raw.length - 1; i++) {
+            assertEquals(HttpRequestDecoder.Status.INCOMPLETE, decoder.decode(ByteBuffer.wrap(raw, i, 1)),
+                    "Request should be incomplete after byte " + i);
+            assertNull(decoder.getRequest());
+        }
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(ByteBuffer.wrap(raw, raw.length - 1, 1)));
+        assertEquals("Hello, World!", decoder.getRequest().getBody());
+    }
+
+    @Test
+    void testDecodeChunkedBodyAcrossSegments() {
+        assertEquals(HttpRequestDecoder.Status.INCOMPLETE,
+                decoder.decode(ascii("GET / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nHel")));
+        assertEquals(HttpRequestDecoder.Status.INCOMPLETE, decoder.decode(ascii("lo\r\n8\r\n, World!\r")));
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(ascii("\n0\r\n\r\n")));
+
+        assertEquals("Hello, World!", decoder.getRequest().getBody());
+    }
+
+    @Test
+    void testDecodeLeavesPipelinedRequestInBuffer() {
+        ByteBuffer buffer = ascii("GET /a HTTP/1.1\r\nHost: localhost\r\n\r\nGET /b HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        assertEquals("/a", decoder.getRequest().getRequestTarget());
+        assertTrue(buffer.hasRemaining());
+
+        decoder.reset();
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        assertEquals("/b", decoder.getRequest().getRequestTarget());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void testDecodeDirectBuffer() {
+        byte[] raw = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(raw.length);
+        buffer.put(raw).flip();
+
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        assertEquals("localhost", decoder.getRequest().getHeader("Host"));
+    }
+
+    @Test
+    void testDecodeHeaderContinuation() {
+        assertEquals(HttpRequestDecoder.Status.COMPLETE,
+                decoder.decode(ascii("GET / HTTP/1.1\r\nHost: localhost\r\n Connection: keep-alive\r\n\r\n")));
+
+        assertEquals("localhost Connection: keep-alive", decoder.getRequest().getHeader("Host"));
+    }
+
+    @Test
+    void testDecodeInvalidRequests() {
+        assertError("INVALID / HTTP/1.1\r\n\r\n", HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED);
+        assertError("GET  HTTP/1.1\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("GET / INVALID\r\n\r\n", HttpStatusCode.SERVER_ERROR_505_HTTP_VERSION_NOT_SUPPORTED);
+        assertError("GET / HTTP/1.1\r\nInvalid-Header\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("GET / HTTP/1.1\r\nContent-Length: abc\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("GET / HTTP/1.1\rHost: localhost\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("GET / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nHello\r\n6\r\n, World!\r\n",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+    }
+
+    @Test
+    void testAmbiguousFramingIsRejected() {
+        assertError("POST / HTTP/1.1\r\nContent-Length: 5\r\nTransfer-Encoding: chunked\r\n\r\n",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nTransfer-Encoding: chunked, gzip\r\n\r\n",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nTransfer-Encoding: gzip\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nTransfer-Encoding: chunked\r\n\r\n",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nTransfer-Encoding: gzip, chunked\r\n\r\n",
+                HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED);
+        assertError("POST / HTTP/1.1\r\nContent-Length: 5\r\nContent-Length: 6\r\n\r\nHello!",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nContent-Length: 5, 6\r\n\r\nHello!", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nContent-Length: +5\r\n\r\nHello", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+    }
+
+    @Test
+    void testWhitespaceAroundHeaderNamesIsRejected() {
+        assertError("POST / HTTP/1.1\r\nTransfer-Encoding : chunked\r\n\r\n0\r\n\r\n",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nContent-Length : 5\r\n\r\nHello", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("POST / HTTP/1.1\r\nContent-Length\t: 5\r\n\r\nHello", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("GET / HTTP/1.1\r\n Host: localhost\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertError("GET / HTTP/1.1\r\n\tHost: localhost\r\n\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+    }
+
+    @Test
+    void testTrailersCountAgainstTheHeaderLimit() {
+        String trailer = "X-Trailer: " + "a".repeat(1000) + "\r\n";
+        assertError("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n0\r\n" + trailer.repeat(70) + "\r\n",
+                HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+    }
+
+    @Test
+    void testRepeatedIdenticalContentLengthIsAccepted() {
+        HttpRequestDecoder.Status status = decoder.decode(
+                ascii("POST / HTTP/1.1\r\nContent-Length: 5\r\nContent-Length: 5\r\n\r\nHello"));
+
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, status);
+        assertEquals("Hello", decoder.getRequest().getBody());
+    }
+
+    @Test
+    void testDecodeRequestLineTooLong() {
+        assertError("GET /" + "a".repeat(8200) + " HTTP/1.1\r\n\r\n", HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG);
+    }
+
+    @Test
+    void testErrorIsSticky() {
+        assertError("GET / HTTP/1.1\r\nInvalid-Header\r\n", HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST);
+        assertEquals(HttpRequestDecoder.Status.ERROR, decoder.decode(ascii("\r\n")));
+    }
+
+    @Test
+    void testHeaderCompletionIsReportedForBufferedBodies() {
+        assertEquals(HttpRequestDecoder.Status.INCOMPLETE, decoder.decode(ascii("PUT / HTTP/1.1\r\nContent-Le")));
+        assertFalse(decoder.isHeaderComplete());
+
+        assertEquals(HttpRequestDecoder.Status.INCOMPLETE, decoder.decode(ascii("ngth: 5\r\n\r\nHel")));
+        assertTrue(decoder.isHeaderComplete());
+        assertFalse(decoder.isBodyPending());
+
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(ascii("lo")));
+        assertTrue(decoder.isHeaderComplete());
+        decoder.reset();
+        assertFalse(decoder.isHeaderComplete());
+    }
+
+    @Test
+    void testOversizedBodyIsRejectedBeforeItArrives() {
+        decoder.setMaxBodySize(10);
+
+        assertEquals(HttpRequestDecoder.Status.ERROR,
+                decoder.decode(ascii("GET / HTTP/1.1\r\nContent-Length: 9999999999\r\n\r\n")));
+        assertEquals(HttpStatusCode.CLIENT_ERROR_413_CONTENT_TOO_LARGE, decoder.getError().getErrorCode());
+        assertEquals("Content Too Large", decoder.getError().getReasonPhrase());
+
+        decoder.reset();
+        assertEquals(HttpRequestDecoder.Status.ERROR,
+                decoder.decode(ascii("GET / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n8\r\n12345678\r\n8\r\n")));
+        assertEquals(413, decoder.getError().getStatusCode());
+    }
+
+    @Test
+    void testStreamedChunkedBodyIsDecodedIntoTheCallersArray() throws Exception {
+        decoder.setStreamingBody(true);
+        ByteBuffer buffer = ascii("GET / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nHello\r\n8\r\n, World!\r\n0\r\n\r\nGET /next");
+
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        assertNotNull(decoder.getRequest());
+        assertTrue(decoder.isBodyPending());
+
+        byte[] body = new byte[13];
+        int length = 0;
+        int read;
+        while ((read = decoder.readBody(buffer, body, length, Math.min(4, body.length - length))) > 0) {
+            length += read;
+        }
+        assertEquals(13, length);
+        assertEquals(-1, decoder.readBody(buffer, body, 0, body.length));
+        assertEquals("Hello, World!", new String(body, StandardCharsets.US_ASCII));
+        assertFalse(decoder.isBodyPending());
+        assertEquals("GET /next", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    private void assertError(String raw, HttpStatusCode expected) {
+        decoder.reset();
+        assertEquals(HttpRequestDecoder.Status.ERROR, decoder.decode(ascii(raw)));
+        assertEquals(expected, decoder.getError().getErrorCode());
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -2,6 +2,9 @@ package com.http;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -180,6 +183,20 @@ class HttpRequestTests {
         assertEquals(body, request.getBody());
     }
 
+    @Test
+    void testBodyStreamAndTextViews() throws IOException {
+        HttpRequest request = new HttpRequest();
+        assertEquals(-1, request.getBodyStream().read());
+
+        byte[] bytes = "payload".getBytes(StandardCharsets.US_ASCII);
+        request.setBodyBytes(bytes, 3);
+        assertArrayEquals("pay".getBytes(StandardCharsets.US_ASCII), request.getBodyStream().readAllBytes());
+        assertEquals("pay", request.getBody());
+
+        request.setBodyStream(new ByteArrayInputStream(bytes));
+        assertEquals("payload", request.getBody());
+    }
+
     @Test
     void testSetBodyInvalid() {
         HttpRequest request = new HttpRequest();
@@ -252,4 +269,47 @@ class HttpRequestTests {
 
         assertThrows(HttpParsingException.class, () -> request.setHeaders(headers));
     }
+
+    @Test
+    void testGetHeader() throws HttpParsingException {
+        HttpRequest request = new HttpRequest();
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Host", "localhost");
+        request.setHeaders(headers);
+
+        assertEquals("localhost", request.getHeader("host"));
+        assertNull(request.getHeader("Connection"));
+        assertNull(request.getHeader(null));
+    }
+
+    @Test
+    void testIsKeepAliveDefaultsToPersistentForHttp11() throws HttpParsingException {
+        HttpRequest request = new HttpRequest();
+        request.setHttpVersion("HTTP/1.1");
+        request.setHeaders(new HashMap<>());
+
+        assertTrue(request.isKeepAlive());
+    }
+
+    @Test
+    void testIsKeepAliveHonoursConnectionHeader() throws HttpParsingException {
+        HttpRequest request = new HttpRequest();
+        request.setHttpVersion("HTTP/1.1");
+
+        request.setHeaders(Map.of("Connection", "close"));
+        assertFalse(request.isKeepAlive());
+
+        request.setHeaders(Map.of("Connection", "Keep-Alive"));
+        assertTrue(request.isKeepAlive());
+
+        request.setHeaders(Map.of("Connection", "Upgrade, close"));
+        assertFalse(request.isKeepAlive());
+
+        request.setHeaders(Map.of("Connection", "keep-alive , Close "));
+        assertFalse(request.isKeepAlive());
+
+        request.setHeaders(Map.of("Connection", "closed, Upgrade"));
+        assertTrue(request.isKeepAlive());
+    }
 }
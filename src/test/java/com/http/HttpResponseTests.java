@@ -1,10 +1,17 @@
 package com.http;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -132,4 +139,202 @@ class HttpResponseTests {
         HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
         assertNull(response.getReasonPhrase());
     }
+
+    @Test
+    void testSetKeepAlive() {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        assertTrue(response.isKeepAlive());
+
+        response.setKeepAlive(false);
+        assertEquals("close", response.getHeaders().get("Connection"));
+        assertFalse(response.isKeepAlive());
+
+        response.setKeepAlive(true);
+        assertEquals("keep-alive", response.getHeaders().get("Connection"));
+        assertTrue(response.isKeepAlive());
+    }
+
+    @Test
+    void testWriteResponseAddsContentLength() throws IOException {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setBody("Hello");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.write(outputStream);
+
+        String expectedResponse = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nHello";
+        assertEquals(expectedResponse, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteResponseWithFileRegion(@TempDir Path directory) throws IOException {
+        Path file = Files.writeString(directory.resolve("page.html"), "<p>file body</p>");
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setHttpBody(FileRegion.open(file));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.write(Channels.newChannel(outputStream));
+
+        String expectedResponse = "HTTP/1.1 200 OK\r\nContent-Length: 16\r\n\r\n<p>file body</p>";
+        assertEquals(expectedResponse, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSetBodyReplacesFileRegion(@TempDir Path directory) throws IOException {
+        Path file = Files.writeString(directory.resolve("page.html"), "ignored");
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        try (FileRegion region = FileRegion.open(file)) {
+            response.setHttpBody(region);
+            assertNull(response.getBody());
+            response.setBody("Hello");
+        }
+        assertFalse(response.getHttpBody() instanceof FileRegion);
+        assertEquals("Hello", response.getBody());
+    }
+
+    @Test
+    void testWriteBinaryBodyWithGatheringWrite() throws IOException {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setHttpBody(HttpBody.of(new byte[]{(byte) 0xFF, 0x00, (byte) 0x80}));
+
+        RecordingChannel channel = new RecordingChannel();
+        response.write(channel);
+
+        assertEquals(1, channel.gatheringWrites, "Head and body should go out in one gathering write");
+        byte[] expectedHead = "HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] written = channel.bytes.toByteArray();
+        assertArrayEquals(expectedHead, Arrays.copyOf(written, expectedHead.length));
+        assertArrayEquals(new byte[]{(byte) 0xFF, 0x00, (byte) 0x80},
+                Arrays.copyOfRange(written, expectedHead.length, written.length));
+    }
+
+    @Test
+    void testWriteStreamingBodyOfUnknownLengthClosesConnection() throws IOException {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setKeepAlive(true);
+        response.setHttpBody(HttpBody.of(-1, out -> out.write("streamed".getBytes(StandardCharsets.US_ASCII))));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.write(outputStream);
+
+        assertFalse(response.isKeepAlive());
+        String expectedResponse = "HTTP/1.1 200 OK\r\nConnection: close\r\n\r\nstreamed";
+        assertEquals(expectedResponse, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteStreamingBodyOfUnknownLengthInChunks() throws IOException {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setKeepAlive(true);
+        response.setChunkedTransferEncoding(true);
+        StringBuilder produced = new StringBuilder();
+        response.setHttpBody(HttpBody.of(-1, out -> {
+            for (String part : new String[]{"str", "eam", "ed"}) {
+                out.write(part.getBytes(StandardCharsets.US_ASCII));
+                produced.append(part);
+            }
+        }));
+        response.setTrailer("X-Produced", () -> String.valueOf(produced.length()));
+
+        RecordingChannel channel = new RecordingChannel();
+        response.write(channel);
+
+        assertTrue(response.isKeepAlive());
+        assertTrue(response.isChunked());
+        String expectedResponse = "HTTP/1.1 200 OK\r\nConnection: keep-alive\r\nTrailer: X-Produced\r\n"
+                + "Transfer-Encoding: chunked\r\n\r\n8\r\nstreamed\r\n0\r\nX-Produced: 8\r\n\r\n";
+        assertEquals(expectedResponse, channel.bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Channel that records what is written to it and counts gathering writes.
+     */
+    private static final class RecordingChannel implements GatheringByteChannel {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int gatheringWrites;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            gatheringWrites++;
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            byte[] copy = new byte[remaining];
+            src.get(copy);
+            bytes.write(copy, 0, remaining);
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void testStandardHeadersAreAddedWhenAClockIsSet() {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(204);
+        response.setReasonPhrase("No Content");
+        response.setStandardHeaders(new HttpClock(() -> 784111777000L));
+
+        String head = StandardCharsets.US_ASCII.decode(response.encodeHead()).toString();
+
+        assertEquals("HTTP/1.1 204 No Content\r\nDate: Sun, 06 Nov 1994 08:49:37 GMT\r\n"
+                + "Server: java-http-server\r\n\r\n", head);
+    }
+
+    @Test
+    void testStandardHeadersDoNotReplaceExplicitOnes() {
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        response.setStatusCode(200);
+        response.setReasonPhrase("OK");
+        response.setHeader("Server", "custom");
+        response.setStandardHeaders(new HttpClock(() -> 784111777000L));
+
+        String head = StandardCharsets.US_ASCII.decode(response.encodeHead()).toString();
+
+        assertEquals("HTTP/1.1 200 OK\r\nDate: Sun, 06 Nov 1994 08:49:37 GMT\r\nServer: custom\r\n\r\n", head);
+    }
+
+    @Test
+    void testCustomReasonPhraseIsNotReplacedByCachedStatusLine() {
+        HttpResponse standard = new HttpResponse(HttpVersion.HTTP_1_1);
+        standard.setStatusCode(299);
+        standard.setReasonPhrase("First");
+        standard.encodeHead();
+        HttpResponse custom = new HttpResponse(HttpVersion.HTTP_1_1);
+        custom.setStatusCode(299);
+        custom.setReasonPhrase("Second");
+
+        String head = StandardCharsets.US_ASCII.decode(custom.encodeHead()).toString();
+
+        assertEquals("HTTP/1.1 299 Second\r\n\r\n", head);
+    }
 }
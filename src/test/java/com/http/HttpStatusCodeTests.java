@@ -17,6 +17,9 @@ class HttpStatusCodeTests {
         assertEquals(405, HttpStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED.STATUS_CODE);
         assertEquals("Method Not Allowed", HttpStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED.MESSAGE);
 
+        assertEquals(413, HttpStatusCode.CLIENT_ERROR_413_CONTENT_TOO_LARGE.STATUS_CODE);
+        assertEquals("Content Too Large", HttpStatusCode.CLIENT_ERROR_413_CONTENT_TOO_LARGE.MESSAGE);
+
         assertEquals(414, HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG.STATUS_CODE);
         assertEquals("URI Too Long", HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG.MESSAGE);
 
@@ -34,14 +37,15 @@ class HttpStatusCodeTests {
     void testHttpStatusCodeEnumOrder() {
         // Ensure the enum values are in the correct order
         HttpStatusCode[] statusCodes = HttpStatusCode.values();
-        assertEquals(6, statusCodes.length);
+        assertEquals(7, statusCodes.length);
 
         assertEquals(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, statusCodes[0]);
         assertEquals(HttpStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED, statusCodes[1]);
-        assertEquals(HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG, statusCodes[2]);
-        assertEquals(HttpStatusCode.SERVER_ERROR_500_INTERNAL_SERVER_ERROR, statusCodes[3]);
-        assertEquals(HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED, statusCodes[4]);
-        assertEquals(HttpStatusCode.SERVER_ERROR_505_HTTP_VERSION_NOT_SUPPORTED, statusCodes[5]);
+        assertEquals(HttpStatusCode.CLIENT_ERROR_413_CONTENT_TOO_LARGE, statusCodes[2]);
+        assertEquals(HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG, statusCodes[3]);
+        assertEquals(HttpStatusCode.SERVER_ERROR_500_INTERNAL_SERVER_ERROR, statusCodes[4]);
+        assertEquals(HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED, statusCodes[5]);
+        assertEquals(HttpStatusCode.SERVER_ERROR_505_HTTP_VERSION_NOT_SUPPORTED, statusCodes[6]);
     }
 
     @Test
@@ -49,6 +53,7 @@ class HttpStatusCodeTests {
         // Ensure you can retrieve the enum constant by status code
         assertEquals(HttpStatusCode.CLIENT_ERROR_400_BAD_REQUEST, HttpStatusCode.fromCode(400));
         assertEquals(HttpStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED, HttpStatusCode.fromCode(405));
+        assertEquals(HttpStatusCode.CLIENT_ERROR_413_CONTENT_TOO_LARGE, HttpStatusCode.fromCode(413));
         assertEquals(HttpStatusCode.CLIENT_ERROR_414_URI_TOO_LONG, HttpStatusCode.fromCode(414));
         assertEquals(HttpStatusCode.SERVER_ERROR_500_INTERNAL_SERVER_ERROR, HttpStatusCode.fromCode(500));
         assertEquals(HttpStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED, HttpStatusCode.fromCode(501));
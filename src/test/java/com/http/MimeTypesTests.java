@@ -0,0 +1,40 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MimeTypes class.
+ */
+class MimeTypesTests {
+
+    @Test
+    void testBuiltInTypes() {
+        assertEquals("text/html; charset=utf-8", MimeTypes.DEFAULT.resolve("index.html"));
+        assertEquals("text/css; charset=utf-8", MimeTypes.DEFAULT.resolve(Path.of("css", "site.CSS")));
+        assertEquals("application/json", MimeTypes.DEFAULT.resolve("data.json"));
+        assertEquals("image/png", MimeTypes.DEFAULT.resolve("logo.png"));
+    }
+
+    @Test
+    void testUnknownExtensionsGetTheDefaultType() {
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.DEFAULT.resolve("archive.unknown"));
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.DEFAULT.resolve("README"));
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.DEFAULT.resolve(".html"));
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.DEFAULT.resolve("trailing."));
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.DEFAULT.resolve(Path.of("/")));
+    }
+
+    @Test
+    void testOverridesTakePrecedence() {
+        MimeTypes mimeTypes = new MimeTypes(Map.of(".JS", "application/javascript", "gltf", "model/gltf+json"));
+
+        assertEquals("application/javascript", mimeTypes.resolve("app.js"));
+        assertEquals("model/gltf+json", mimeTypes.resolve("scene.gltf"));
+        assertEquals("text/html; charset=utf-8", mimeTypes.resolve("index.html"));
+    }
+}
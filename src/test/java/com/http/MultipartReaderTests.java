@@ -0,0 +1,175 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MultipartReader class.
+ */
+class MultipartReaderTests {
+
+    private static final String BODY = "preamble\r\n"
+            + "--xyz\r\n"
+            + "Content-Disposition: form-data; name=\"title\"\r\n"
+            + "\r\n"
+            + "Hello\r\n"
+            + "--xyz\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"a b.txt\"\r\n"
+            + "Content-Type: text/plain\r\n"
+            + "\r\n"
+            + "line one\r\n--xy not a boundary\r\nline two\r\n"
+            + "--xyz--\r\n"
+            + "epilogue";
+
+    @TempDir
+    Path temporaryDirectory;
+
+    @Test
+    void testPartsAreReadAtEveryReadSize() throws IOException {
+        for (int readSize = 1; readSize <= BODY.length(); readSize++) {
+            MultipartReader reader = new MultipartReader(trickle(BODY, readSize), "xyz");
+
+            MultipartPart field = reader.nextPart();
+            assertEquals("title", field.getName());
+            assertNull(field.getFileName());
+            assertEquals("text/plain", field.getContentType());
+            assertEquals("Hello", text(field.getInputStream()));
+
+            MultipartPart file = reader.nextPart();
+            assertEquals("file", file.getName());
+            assertEquals("a b.txt", file.getFileName());
+            assertEquals("line one\r\n--xy not a boundary\r\nline two", text(file.getInputStream()));
+
+            assertNull(reader.nextPart(), "read size " + readSize);
+            assertNull(reader.nextPart());
+        }
+    }
+
+    @Test
+    void testUnreadPartsAreSkipped() throws IOException {
+        MultipartReader reader = new MultipartReader(trickle(BODY, 3), "xyz");
+
+        reader.nextPart();
+        MultipartPart file = reader.nextPart();
+
+        assertEquals("a b.txt", file.getFileName());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void testBoundaryAtStartOfBody() throws IOException {
+        String body = "--b\r\nContent-Disposition: form-data; name=\"x\"\r\n\r\n\r\n--b--";
+        MultipartReader reader = new MultipartReader(trickle(body, 100), "b");
+
+        MultipartPart part = reader.nextPart();
+
+        assertEquals("x", part.getName());
+        assertEquals("", text(part.getInputStream()));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void testPartLargerThanBufferIsStreamed() throws IOException {
+        String content = "0123456789\r\n-".repeat(5000);
+        String body = "--b\r\nContent-Disposition: form-data; name=\"f\"; filename=\"f\"\r\n\r\n"
+                + content + "\r\n--b--\r\n";
+        MultipartReader reader = new MultipartReader(trickle(body, 4093), "b");
+
+        assertEquals(content, text(reader.nextPart().getInputStream()));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void testMissingCloseDelimiterIsRejected() throws IOException {
+        MultipartReader reader = new MultipartReader(trickle("--b\r\n\r\ndata", 5), "b");
+        MultipartPart part = reader.nextPart();
+
+        IOException e = assertThrows(IOException.class, () -> text(part.getInputStream()));
+
+        assertInstanceOf(HttpParsingException.class, e.getCause());
+        assertEquals(400, ((HttpParsingException) e.getCause()).getStatusCode());
+    }
+
+    @Test
+    void testBodyWithoutBoundaryIsRejected() {
+        MultipartReader reader = new MultipartReader(trickle("no boundary here", 5), "b");
+
+        IOException e = assertThrows(IOException.class, reader::nextPart);
+
+        assertInstanceOf(HttpParsingException.class, e.getCause());
+    }
+
+    @Test
+    void testMalformedPartHeaderIsRejected() {
+        MultipartReader reader = new MultipartReader(trickle("--b\r\nno colon\r\n\r\nx\r\n--b--", 5), "b");
+
+        IOException e = assertThrows(IOException.class, reader::nextPart);
+
+        assertInstanceOf(HttpParsingException.class, e.getCause());
+    }
+
+    @Test
+    void testBoundaryOf() {
+        assertEquals("abc", MultipartReader.boundaryOf("multipart/form-data; boundary=abc"));
+        assertEquals("a;b c", MultipartReader.boundaryOf("Multipart/Form-Data; charset=utf-8; Boundary=\"a;b c\""));
+        assertNull(MultipartReader.boundaryOf("multipart/mixed; boundary=abc"));
+        assertNull(MultipartReader.boundaryOf("multipart/form-data"));
+        assertNull(MultipartReader.boundaryOf("text/plain"));
+        assertNull(MultipartReader.boundaryOf(null));
+    }
+
+    @Test
+    void testStoreKeepsSmallPartsInMemory() throws IOException {
+        MultipartReader reader = new MultipartReader(trickle(BODY, 7), "xyz");
+
+        try (StoredPart stored = reader.nextPart().store(16, temporaryDirectory)) {
+            assertTrue(stored.isInMemory());
+            assertEquals(5, stored.getSize());
+            assertEquals("Hello", new String(stored.getBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testStoreSpillsLargePartsToDisk() throws IOException {
+        MultipartReader reader = new MultipartReader(trickle(BODY, 7), "xyz");
+        reader.nextPart();
+
+        Path file;
+        try (StoredPart stored = reader.nextPart().store(8, temporaryDirectory)) {
+            assertFalse(stored.isInMemory());
+            file = stored.getFile();
+            assertEquals("line one\r\n--xy not a boundary\r\nline two", Files.readString(file));
+            assertEquals(Files.size(file), stored.getSize());
+            assertEquals("line one\r\n--xy not a boundary\r\nline two", text(stored.openStream()));
+        }
+        assertFalse(Files.exists(file));
+        assertNull(reader.nextPart());
+    }
+
+    private static String text(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Creates a stream over a body that returns at most a given number of bytes per read.
+     */
+    private static InputStream trickle(String body, int readSize) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] bytes, int offset, int length) {
+                return super.read(bytes, offset, Math.min(length, readSize));
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RequestBodyPipe class.
+ */
+class RequestBodyPipeTests {
+
+    private final HttpRequestDecoder decoder = new HttpRequestDecoder();
+    private final AtomicInteger drained = new AtomicInteger();
+
+    @Test
+    void testBodyIsCarriedThroughASmallPipe() throws Exception {
+        ByteBuffer buffer = ascii("PUT /a HTTP/1.1\r\nContent-Length: 10\r\n\r\nHello, wor");
+        RequestBodyPipe pipe = start(buffer, 4);
+        InputStream body = decoder.getRequest().getBodyStream();
+
+        assertFalse(pipe.transferFrom(decoder, buffer));
+        assertTrue(pipe.isFull());
+        byte[] bytes = new byte[10];
+        assertEquals(4, body.read(bytes, 0, 10));
+        assertEquals(1, drained.get(), "The producer is told once it can go on");
+
+        assertFalse(pipe.transferFrom(decoder, buffer));
+        assertEquals(4, body.read(bytes, 4, 6));
+        assertTrue(pipe.transferFrom(decoder, buffer));
+        assertEquals(2, body.read(bytes, 8, 2));
+        assertEquals(-1, body.read());
+        assertEquals("Hello, wor", new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testEndOfChunkedBodyIsNoticedWhenThePipeIsFull() throws Exception {
+        ByteBuffer buffer = ascii("PUT /a HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n4\r\nabcd\r\n0\r\n\r\n");
+        RequestBodyPipe pipe = start(buffer, 4);
+
+        assertTrue(pipe.transferFrom(decoder, buffer));
+        assertFalse(buffer.hasRemaining());
+        assertEquals("abcd", new String(decoder.getRequest().getBodyStream().readAllBytes(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testFailureIsThrownOnceBufferedBytesAreRead() throws Exception {
+        ByteBuffer buffer = ascii("PUT /a HTTP/1.1\r\nContent-Length: 10\r\n\r\nabc");
+        RequestBodyPipe pipe = start(buffer, 16);
+        InputStream body = decoder.getRequest().getBodyStream();
+        pipe.transferFrom(decoder, buffer);
+
+        pipe.fail(new IOException("Connection closed"));
+
+        assertEquals(3, body.read(new byte[16]));
+        IOException e = assertThrows(IOException.class, body::read);
+        assertEquals("Connection closed", e.getMessage());
+    }
+
+    @Test
+    void testReaderWaitsForBytes() throws Exception {
+        ByteBuffer buffer = ascii("PUT /a HTTP/1.1\r\nContent-Length: 3\r\n\r\n");
+        RequestBodyPipe pipe = start(buffer, 16);
+        InputStream body = decoder.getRequest().getBodyStream();
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                pipe.transferFrom(decoder, ascii("xyz"));
+            } catch (InterruptedException | HttpParsingException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+
+        assertEquals("xyz", new String(body.readAllBytes(), StandardCharsets.US_ASCII));
+        producer.join(5000);
+    }
+
+    @Test
+    void testFirstReadIsReportedBeforeWaiting() throws Exception {
+        ByteBuffer buffer = ascii("PUT /a HTTP/1.1\r\nContent-Length: 3\r\nExpect: 100-continue\r\n\r\n");
+        decoder.setStreamingBody(true);
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        AtomicInteger firstReads = new AtomicInteger();
+        // The producer only sends the body once told that the reader wants it, like a client waiting for 100 Continue
+        RequestBodyPipe[] pipe = new RequestBodyPipe[1];
+        pipe[0] = new RequestBodyPipe(decoder.getRequest(), 16, drained::incrementAndGet, () -> {
+            firstReads.incrementAndGet();
+            new Thread(() -> {
+                try {
+                    pipe[0].transferFrom(decoder, ascii("xyz"));
+                } catch (HttpParsingException e) {
+                    throw new RuntimeException(e);
+                }
+            }).start();
+        });
+
+        assertEquals("xyz", new String(decoder.getRequest().getBodyStream().readAllBytes(), StandardCharsets.US_ASCII));
+        assertEquals(1, firstReads.get());
+    }
+
+    private RequestBodyPipe start(ByteBuffer buffer, int capacity) {
+        decoder.setStreamingBody(true);
+        assertEquals(HttpRequestDecoder.Status.COMPLETE, decoder.decode(buffer));
+        return new RequestBodyPipe(decoder.getRequest(), capacity, drained::incrementAndGet);
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
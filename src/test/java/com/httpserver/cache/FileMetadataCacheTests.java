@@ -0,0 +1,92 @@
+package com.httpserver.cache;
+
+import com.http.EntityTags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FileMetadataCache class.
+ */
+class FileMetadataCacheTests {
+
+    @TempDir
+    Path webroot;
+
+    @Test
+    void testSecondLookupIsServedFromMemory() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "<h1>Hello</h1>");
+        FileMetadataCache cache = new FileMetadataCache(60_000, 16);
+
+        FileMetadata first = cache.get(file);
+        FileMetadata second = cache.get(webroot.resolve("./index.html"));
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertTrue(second.isRegularFile());
+        assertEquals(14, second.getSize());
+        assertEquals("text/html; charset=utf-8", second.getContentType());
+        assertEquals(EntityTags.forFile(Files.getLastModifiedTime(file).toMillis(), 14), second.getETag());
+    }
+
+    @Test
+    void testMissingPathIsNotCached() throws IOException {
+        Path file = webroot.resolve("new.html");
+        FileMetadataCache cache = new FileMetadataCache(60_000, 16);
+        cache.watchStateChanged(true);
+
+        assertFalse(cache.get(file).exists());
+        assertEquals(0, cache.getEntryCount());
+
+        Files.writeString(file, "created");
+        assertTrue(cache.get(file).isRegularFile());
+    }
+
+    @Test
+    void testEntryExpiresWithoutWatcher() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "old");
+        FileMetadataCache cache = new FileMetadataCache(0, 16);
+        cache.get(file);
+
+        Files.writeString(file, "longer");
+
+        assertEquals(6, cache.get(file).getSize());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void testSidecarChangeInvalidatesFile() throws IOException {
+        Path file = Files.writeString(webroot.resolve("app.js"), "console.log(1);");
+        FileMetadataCache cache = new FileMetadataCache(60_000, 16);
+        cache.watchStateChanged(true);
+        assertNull(cache.get(file).getSidecar());
+
+        Path sidecar = Files.write(Precompressor.sidecarOf(file), new byte[4]);
+        cache.invalidate(sidecar);
+
+        assertEquals(4, cache.get(file).getSidecar().getSize());
+    }
+
+    @Test
+    void testOldestEntryIsEvictedWhenFull() throws IOException {
+        FileMetadataCache cache = new FileMetadataCache(60_000, 2);
+        Path[] files = new Path[3];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = Files.writeString(webroot.resolve("file-" + i), "x");
+            cache.get(files[i]);
+        }
+
+        assertEquals(2, cache.getEntryCount());
+        cache.get(files[2]);
+        cache.get(files[1]);
+        assertEquals(2, cache.getHitCount());
+        cache.get(files[0]);
+        assertEquals(4, cache.getMissCount());
+    }
+}
@@ -0,0 +1,42 @@
+package com.httpserver.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FrequencySketch class.
+ */
+class FrequencySketchTests {
+
+    @Test
+    void testFrequencyGrowsWithRequestsAndSaturates() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        assertEquals(0, sketch.frequency("/index.html"));
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("/index.html");
+        }
+        assertEquals(5, sketch.frequency("/index.html"));
+
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("/index.html");
+        }
+        assertEquals(15, sketch.frequency("/index.html"));
+    }
+
+    @Test
+    void testCountersAgeOverTime() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("/old.html");
+        }
+
+        // Enough distinct requests to trigger several halvings
+        for (int i = 0; i < 64 * 40; i++) {
+            sketch.increment("/page" + i + ".html");
+        }
+
+        assertTrue(sketch.frequency("/old.html") < 15);
+    }
+}
@@ -0,0 +1,69 @@
+package com.httpserver.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Precompressor class.
+ */
+class PrecompressorTests {
+
+    @TempDir
+    Path webroot;
+
+    @Test
+    void testPrecompressWritesSidecarsForCompressibleFiles() throws IOException {
+        String css = "body { margin: 0; }\n".repeat(200);
+        Path nested = Files.createDirectories(webroot.resolve("assets/css"));
+        Path file = Files.writeString(nested.resolve("site.css"), css);
+        Files.write(webroot.resolve("photo.png"), new byte[4096]);
+        Files.writeString(webroot.resolve("small.html"), "<p>tiny</p>");
+
+        long written = new Precompressor(1024).precompress(webroot);
+
+        assertEquals(1, written);
+        Path sidecar = Precompressor.sidecarOf(file);
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(sidecar))) {
+            assertEquals(css, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(webroot.resolve("photo.png.gz")));
+        assertFalse(Files.exists(webroot.resolve("small.html.gz")));
+        assertNotNull(Precompressor.findSidecar(file, Files.getLastModifiedTime(file).toMillis()));
+    }
+
+    @Test
+    void testStaleSidecarIsIgnoredAndRewritten() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "<p>old</p>".repeat(200));
+        Precompressor precompressor = new Precompressor(1024);
+        precompressor.precompress(webroot);
+
+        Files.writeString(file, "<p>new</p>".repeat(200));
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        Files.setLastModifiedTime(Precompressor.sidecarOf(file), FileTime.fromMillis(lastModified - 2000));
+
+        assertNull(Precompressor.findSidecar(file, lastModified));
+        assertEquals(1, precompressor.precompress(webroot));
+        assertNotNull(Precompressor.findSidecar(file, lastModified));
+    }
+
+    @Test
+    void testDirectoryLinkLoopIsNotFollowed() throws IOException {
+        Path nested = Files.createDirectories(webroot.resolve("assets"));
+        Path file = Files.writeString(nested.resolve("site.css"), "body { margin: 0; }\n".repeat(200));
+        Files.createSymbolicLink(nested.resolve("loop"), webroot);
+        Files.createSymbolicLink(webroot.resolve("alias.css"), file);
+
+        assertEquals(2, new Precompressor(1024).precompress(webroot));
+        assertTrue(Files.exists(Precompressor.sidecarOf(file)));
+        assertTrue(Files.exists(webroot.resolve("alias.css.gz")));
+    }
+}
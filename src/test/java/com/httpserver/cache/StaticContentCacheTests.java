@@ -0,0 +1,225 @@
+package com.httpserver.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the StaticContentCache class.
+ */
+class StaticContentCacheTests {
+
+    @TempDir
+    Path webroot;
+
+    @Test
+    void testSecondLookupIsServedFromMemory() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "<h1>Hello</h1>");
+        StaticContentCache cache = new StaticContentCache(1024, 1024);
+
+        CachedContent first = cache.get(file.toFile());
+        CachedContent second = cache.get(file.toFile());
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(14, cache.getSize());
+        assertEquals("14", second.getContentLength());
+        assertEquals("<h1>Hello</h1>", StandardCharsets.UTF_8.decode(second.getBody().getContent()).toString());
+    }
+
+    @Test
+    void testChangedFileIsReloaded() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "old");
+        StaticContentCache cache = new StaticContentCache(1024, 1024);
+        cache.get(file.toFile());
+
+        Files.writeString(file, "new");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+        CachedContent reloaded = cache.get(file.toFile());
+
+        assertEquals("new", StandardCharsets.UTF_8.decode(reloaded.getBody().getContent()).toString());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(3, cache.getSize());
+    }
+
+    @Test
+    void testFileLargerThanLimitIsNotCached() throws IOException {
+        Path file = Files.write(webroot.resolve("video.bin"), new byte[2048]);
+        StaticContentCache cache = new StaticContentCache(4096, 1024);
+
+        assertNull(cache.get(file.toFile()));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    void testRarelyRequestedFileDoesNotEvictHotFiles() throws IOException {
+        Path hot1 = Files.write(webroot.resolve("hot1"), new byte[40]);
+        Path hot2 = Files.write(webroot.resolve("hot2"), new byte[40]);
+        Path cold = Files.write(webroot.resolve("cold"), new byte[40]);
+        StaticContentCache cache = new StaticContentCache(100, 100);
+        for (int i = 0; i < 5; i++) {
+            cache.get(hot1.toFile());
+            cache.get(hot2.toFile());
+        }
+
+        assertNull(cache.get(cold.toFile()));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(80, cache.getSize());
+    }
+
+    @Test
+    void testServedEntryGetsSecondChanceBeforeEviction() throws IOException {
+        Path first = Files.write(webroot.resolve("first"), new byte[40]);
+        Path second = Files.write(webroot.resolve("second"), new byte[40]);
+        Path third = Files.write(webroot.resolve("third"), new byte[40]);
+        StaticContentCache cache = new StaticContentCache(100, 100);
+        cache.get(first.toFile());
+        cache.get(second.toFile());
+        cache.get(first.toFile());
+        for (int i = 0; i < 3; i++) {
+            cache.get(third.toFile());
+        }
+
+        CachedContent firstContent = cache.get(first.toFile());
+        long missesBefore = cache.getMissCount();
+        assertSame(firstContent, cache.get(first.toFile()));
+        assertEquals(missesBefore, cache.getMissCount());
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void testFileThatBecomesHotIsAdmitted() throws IOException {
+        Path first = Files.write(webroot.resolve("first"), new byte[60]);
+        Path second = Files.write(webroot.resolve("second"), new byte[60]);
+        StaticContentCache cache = new StaticContentCache(100, 100);
+        cache.get(first.toFile());
+
+        for (int i = 0; i < 5; i++) {
+            cache.get(second.toFile());
+        }
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getHitCount() > 0, "The hot file should be served from memory once admitted");
+        assertEquals(60, cache.getSize());
+    }
+
+    @Test
+    void testInvalidate() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "content");
+        StaticContentCache cache = new StaticContentCache(1024, 1024);
+        cache.get(file.toFile());
+
+        cache.invalidate(file);
+
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void testWatchedCacheServesWithoutStatUntilInvalidated() throws IOException {
+        Path file = Files.writeString(webroot.resolve("index.html"), "old");
+        StaticContentCache cache = new StaticContentCache(1024, 1024);
+        cache.watchStateChanged(true);
+        cache.get(file.toFile());
+
+        Files.writeString(file, "newer");
+        assertEquals("old", StandardCharsets.UTF_8.decode(cache.get(file.toFile()).getBody().getContent()).toString());
+
+        cache.invalidate(file);
+        assertEquals("newer", StandardCharsets.UTF_8.decode(cache.get(file.toFile()).getBody().getContent()).toString());
+    }
+
+    @Test
+    void testInvalidatingDirectoryDropsItsFiles() throws IOException {
+        Path directory = Files.createDirectory(webroot.resolve("css"));
+        Path inside = Files.writeString(directory.resolve("site.css"), "body {}");
+        Path outside = Files.writeString(webroot.resolve("index.html"), "<p/>");
+        StaticContentCache cache = new StaticContentCache(1024, 1024);
+        cache.get(inside.toFile());
+        cache.get(outside.toFile());
+
+        cache.invalidate(directory);
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(4, cache.getSize());
+    }
+
+    @Test
+    void testRevalidateDropsChangedFiles() throws IOException {
+        Path changed = Files.writeString(webroot.resolve("changed.html"), "old");
+        Path deleted = Files.writeString(webroot.resolve("deleted.html"), "gone");
+        Path unchanged = Files.writeString(webroot.resolve("unchanged.html"), "same");
+        StaticContentCache cache = new StaticContentCache(1024, 1024);
+        cache.watchStateChanged(true);
+        cache.get(changed.toFile());
+        cache.get(deleted.toFile());
+        cache.get(unchanged.toFile());
+
+        Files.writeString(changed, "newer");
+        Files.delete(deleted);
+        cache.revalidate();
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(4, cache.getSize());
+    }
+
+    @Test
+    void testCompressedVariantIsCachedWithTheFile() throws IOException {
+        String html = "<p>Hello, world</p>".repeat(200);
+        Path file = Files.writeString(webroot.resolve("page.html"), html);
+        StaticContentCache cache = new StaticContentCache(64 * 1024, 64 * 1024, 1024);
+        CachedContent content = cache.get(file.toFile());
+
+        CachedContent gzip = cache.getVariant(content, "gzip, deflate");
+
+        assertTrue(cache.isNegotiable(content));
+        assertEquals("gzip", gzip.getContentEncoding());
+        assertNotEquals(content.getETag(), gzip.getETag());
+        assertSame(gzip, cache.getVariant(content, "gzip"));
+        assertSame(content, cache.getVariant(content, "identity"));
+        assertEquals(html.length() + gzip.getSize(), cache.getSize());
+
+        Files.delete(file);
+        cache.invalidate(file);
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void testFileThatIsNoLongerCachedIsNotCompressed() throws IOException {
+        Path file = Files.writeString(webroot.resolve("page.html"), "<p>Hello, world</p>".repeat(200));
+        StaticContentCache cache = new StaticContentCache(64 * 1024, 64 * 1024, 1024);
+        CachedContent content = cache.get(file.toFile());
+        cache.invalidate(file);
+
+        assertSame(content, cache.getVariant(content, "gzip"));
+        assertNull(content.getVariant("gzip"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void testSmallAndPrecompressedFilesAreNotEncoded() throws IOException {
+        Path small = Files.writeString(webroot.resolve("small.html"), "<p>tiny</p>");
+        Path image = Files.write(webroot.resolve("photo.png"), new byte[4096]);
+        StaticContentCache cache = new StaticContentCache(64 * 1024, 64 * 1024, 1024);
+
+        CachedContent smallContent = cache.get(small.toFile());
+        CachedContent imageContent = cache.get(image.toFile());
+
+        assertFalse(cache.isNegotiable(smallContent));
+        assertSame(smallContent, cache.getVariant(smallContent, "gzip"));
+        assertSame(imageContent, cache.getVariant(imageContent, "gzip"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.httpserver.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the WebrootWatcher class.
+ */
+class WebrootWatcherTests {
+
+    @TempDir
+    Path webroot;
+
+    private WebrootWatcher watcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (watcher != null) {
+            watcher.shutdown();
+            watcher.join(5000);
+        }
+    }
+
+    @Test
+    void testModifiedFileIsPublished() throws Exception {
+        Path file = Files.writeString(webroot.resolve("index.html"), "old");
+        RecordingListener listener = startWatcher();
+
+        Files.writeString(file, "new");
+
+        awaitInvalidation(listener, file);
+    }
+
+    @Test
+    void testFilesInSubdirectoriesArePublished() throws Exception {
+        Path existing = Files.createDirectories(webroot.resolve("css"));
+        RecordingListener listener = startWatcher();
+
+        Path file = Files.writeString(existing.resolve("site.css"), "body {}");
+
+        awaitInvalidation(listener, file);
+    }
+
+    @Test
+    void testNewDirectoriesAreWatched() throws Exception {
+        RecordingListener listener = startWatcher();
+
+        Path directory = Files.createDirectory(webroot.resolve("images"));
+        awaitInvalidation(listener, directory);
+        Path file = Files.writeString(directory.resolve("logo.svg"), "<svg/>");
+
+        awaitInvalidation(listener, file);
+    }
+
+    @Test
+    void testWatchStateIsReported() throws Exception {
+        RecordingListener listener = startWatcher();
+
+        watcher.shutdown();
+        watcher.join(5000);
+
+        assertEquals(Boolean.FALSE, listener.states.poll(5, TimeUnit.SECONDS));
+    }
+
+    private RecordingListener startWatcher() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        watcher = new WebrootWatcher(webroot, 100);
+        watcher.addListener(listener);
+        watcher.start();
+        assertEquals(Boolean.TRUE, listener.states.poll(5, TimeUnit.SECONDS), "Watcher should start watching");
+        return listener;
+    }
+
+    private static void awaitInvalidation(RecordingListener listener, Path expected) throws InterruptedException {
+        Path path;
+        do {
+            path = listener.invalidated.poll(10, TimeUnit.SECONDS);
+            assertNotNull(path, "No change published for " + expected);
+        } while (!path.equals(expected));
+    }
+
+    /**
+     * Listener that records the events it receives.
+     */
+    private static final class RecordingListener implements WebrootChangeListener {
+        final BlockingQueue<Path> invalidated = new LinkedBlockingQueue<>();
+        final BlockingQueue<Boolean> states = new LinkedBlockingQueue<>();
+
+        @Override
+        public void invalidate(Path path) {
+            invalidated.add(path);
+        }
+
+        @Override
+        public void revalidate() {
+        }
+
+        @Override
+        public void watchStateChanged(boolean watching) {
+            states.add(watching);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.httpserver.config;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -30,4 +32,155 @@ class ConfigurationTests {
         config.setWebroot("/usr/local/www");
         assertEquals("/usr/local/www", config.getWebroot());
     }
+
+    @Test
+    void testSetAndGetKeepAliveSettings() {
+        Configuration config = new Configuration();
+
+        assertEquals(5000, config.getKeepAliveTimeout());
+        assertEquals(100, config.getMaxKeepAliveRequests());
+
+        config.setKeepAliveTimeout(15000);
+        config.setMaxKeepAliveRequests(10);
+        assertEquals(15000, config.getKeepAliveTimeout());
+        assertEquals(10, config.getMaxKeepAliveRequests());
+    }
+
+    @Test
+    void testSetAndGetReadTimeouts() {
+        Configuration config = new Configuration();
+
+        assertEquals(10000, config.getHeaderReadTimeout());
+        assertEquals(30000, config.getBodyReadTimeout());
+        assertEquals(60000, config.getRequestTimeout());
+
+        config.setHeaderReadTimeout(1000);
+        config.setBodyReadTimeout(2000);
+        config.setRequestTimeout(0);
+        assertEquals(1000, config.getHeaderReadTimeout());
+        assertEquals(2000, config.getBodyReadTimeout());
+        assertEquals(0, config.getRequestTimeout());
+    }
+
+    @Test
+    void testSetAndGetServerMode() {
+        Configuration config = new Configuration();
+
+        assertEquals(ServerMode.BLOCKING, config.getServerMode());
+
+        config.setServerMode(ServerMode.NIO);
+        config.setEventLoopThreads(4);
+        config.setWorkerThreads(32);
+        assertEquals(ServerMode.NIO, config.getServerMode());
+        assertEquals(4, config.getEventLoopThreads());
+        assertEquals(32, config.getWorkerThreads());
+    }
+
+    @Test
+    void testSetAndGetCacheSettings() {
+        Configuration config = new Configuration();
+
+        assertEquals(64L * 1024 * 1024, config.getCacheMaxBytes());
+        assertEquals(1024 * 1024, config.getCacheMaxFileSize());
+
+        assertEquals(1000, config.getCacheRevalidateInterval());
+
+        config.setCacheMaxBytes(0);
+        config.setCacheMaxFileSize(4096);
+        config.setCacheRevalidateInterval(250);
+        assertEquals(0, config.getCacheMaxBytes());
+        assertEquals(4096, config.getCacheMaxFileSize());
+        assertEquals(250, config.getCacheRevalidateInterval());
+    }
+
+    @Test
+    void testSetAndGetCompressionSettings() {
+        Configuration config = new Configuration();
+
+        assertTrue(config.isCompressionEnabled());
+        assertEquals(1024, config.getCompressionMinSize());
+        assertFalse(config.isPrecompressOnStartup());
+
+        config.setCompressionEnabled(false);
+        config.setCompressionMinSize(256);
+        config.setPrecompressOnStartup(true);
+        assertFalse(config.isCompressionEnabled());
+        assertEquals(256, config.getCompressionMinSize());
+        assertTrue(config.isPrecompressOnStartup());
+    }
+
+    @Test
+    void testSetAndGetWorkerQueueSettings() {
+        Configuration config = new Configuration();
+
+        assertEquals(100, config.getWorkerQueueCapacity());
+        assertEquals(1, config.getOverloadRetryAfter());
+        assertEquals(1, config.getAcceptorThreads());
+
+        config.setAcceptorThreads(4);
+        assertEquals(4, config.getAcceptorThreads());
+        config.setWorkerQueueCapacity(8);
+        config.setOverloadRetryAfter(5);
+        assertEquals(8, config.getWorkerQueueCapacity());
+        assertEquals(5, config.getOverloadRetryAfter());
+    }
+
+    @Test
+    void testSetAndGetMetadataCacheSettings() {
+        Configuration config = new Configuration();
+
+        assertEquals(10000, config.getMetadataCacheMaxEntries());
+        assertEquals(1000, config.getMetadataCacheTtl());
+
+        config.setMetadataCacheMaxEntries(0);
+        config.setMetadataCacheTtl(250);
+        assertEquals(0, config.getMetadataCacheMaxEntries());
+        assertEquals(250, config.getMetadataCacheTtl());
+    }
+
+    @Test
+    void testSetAndGetNotFoundCacheSettings() {
+        Configuration config = new Configuration();
+
+        assertEquals(10000, config.getNotFoundCacheMaxEntries());
+        assertFalse(config.isNotFoundFilterEnabled());
+
+        config.setNotFoundCacheMaxEntries(0);
+        config.setNotFoundFilterEnabled(true);
+        assertEquals(0, config.getNotFoundCacheMaxEntries());
+        assertTrue(config.isNotFoundFilterEnabled());
+    }
+
+    @Test
+    void testSetAndGetMimeTypes() {
+        Configuration config = new Configuration();
+
+        assertTrue(config.getMimeTypes().isEmpty());
+
+        config.setMimeTypes(Map.of("gltf", "model/gltf+json"));
+        assertEquals("model/gltf+json", config.getMimeTypes().get("gltf"));
+    }
+
+    @Test
+    void testSetAndGetMaxRequestBodySize() {
+        Configuration config = new Configuration();
+
+        assertEquals(10L * 1024 * 1024, config.getMaxRequestBodySize());
+
+        config.setMaxRequestBodySize(1024);
+        assertEquals(1024, config.getMaxRequestBodySize());
+    }
+
+    @Test
+    void testSetAndGetUploadSettings() {
+        Configuration config = new Configuration();
+
+        assertNull(config.getUploadRoot());
+        assertEquals("/uploads", config.getUploadPath());
+
+        config.setUploadRoot("./uploads");
+        config.setUploadPath("/files");
+        assertEquals("./uploads", config.getUploadRoot());
+        assertEquals("/files", config.getUploadPath());
+    }
 }
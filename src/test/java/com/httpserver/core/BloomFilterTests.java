@@ -0,0 +1,41 @@
+package com.httpserver.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BloomFilter class.
+ */
+class BloomFilterTests {
+
+    @Test
+    void testAddedStringsAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            filter.add("/file-" + i + ".html");
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("/file-" + i + ".html"));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateStaysLow() {
+        BloomFilter filter = new BloomFilter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("/file-" + i + ".html");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("/wp-admin/probe-" + i + ".php")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,116 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+import com.httpserver.config.ServerMode;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing how many concurrent connections the blocking server can serve
+ * with a platform-thread pool and with a virtual thread per connection.
+ * Each trial parks a number of idle keep-alive connections on the server, each of which holds a thread in the
+ * blocking model, and then measures fresh requests on top of them. The {@code served} and {@code rejected}
+ * counters show where the pool runs out of threads and sheds load with 503s, while virtual threads keep serving.
+ * The VIRTUAL mode needs Java 21 or later:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ConnectionConcurrencyBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ConnectionConcurrencyBenchmark {
+
+    private static final byte[] REQUEST = ("GET /index.html HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"BLOCKING", "VIRTUAL"})
+    public ServerMode mode;
+
+    @Param({"0", "1000"})
+    public int idleConnections;
+
+    private ServerListenerThread server;
+    private final List<Socket> idle = new ArrayList<>();
+
+    /**
+     * Outcome counters reported alongside the throughput.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long served;
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setServerMode(mode);
+        configuration.setKeepAliveTimeout(600_000);
+        configuration.setWorkerThreads(200);
+        configuration.setWorkerQueueCapacity(100);
+        server = new ServerListenerThread(configuration);
+        server.start();
+        for (int i = 0; i < idleConnections; i++) {
+            idle.add(new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        for (Socket socket : idle) {
+            socket.close();
+        }
+        idle.clear();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public int request(Outcomes outcomes) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(REQUEST);
+            InputStream in = socket.getInputStream();
+            byte[] statusLine = in.readNBytes(12);
+            int status = Integer.parseInt(new String(statusLine, 9, 3, StandardCharsets.US_ASCII));
+            if (status == 503) {
+                outcomes.rejected++;
+            } else {
+                outcomes.served++;
+            }
+            in.transferTo(OutputStream.nullOutputStream());
+            return status;
+        }
+    }
+}
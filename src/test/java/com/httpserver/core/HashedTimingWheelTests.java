@@ -0,0 +1,104 @@
+package com.httpserver.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HashedTimingWheel class.
+ */
+class HashedTimingWheelTests {
+
+    private final List<String> fired = new ArrayList<>();
+    private final HashedTimingWheel wheel = new HashedTimingWheel(10, 8, 1000);
+
+    @Test
+    void testTimeoutFiresOnceItsDeadlineHasPassed() {
+        wheel.newTimeout(() -> fired.add("a"), 1025);
+
+        wheel.expireTimeouts(1029);
+        assertEquals(List.of(), fired);
+
+        wheel.expireTimeouts(1030);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+
+        wheel.expireTimeouts(2000);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void testTimeoutsBeyondOneTurnWaitForTheirRound() {
+        // 8 buckets of 10 ms make one turn last 80 ms
+        wheel.newTimeout(() -> fired.add("near"), 1020);
+        wheel.newTimeout(() -> fired.add("far"), 1020 + 80 * 3);
+
+        wheel.expireTimeouts(1020);
+        assertEquals(List.of("near"), fired);
+
+        wheel.expireTimeouts(1259);
+        assertEquals(List.of("near"), fired);
+
+        wheel.expireTimeouts(1260);
+        assertEquals(List.of("near", "far"), fired);
+    }
+
+    @Test
+    void testPastDeadlineFiresOnNextTick() {
+        wheel.newTimeout(() -> fired.add("late"), 0);
+
+        wheel.expireTimeouts(1009);
+        assertEquals(List.of(), fired);
+
+        wheel.expireTimeouts(1010);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void testCancelledTimeoutDoesNotFire() {
+        HashedTimingWheel.Timeout first = wheel.newTimeout(() -> fired.add("first"), 1050);
+        wheel.newTimeout(() -> fired.add("second"), 1050);
+        HashedTimingWheel.Timeout third = wheel.newTimeout(() -> fired.add("third"), 1050);
+
+        assertTrue(first.cancel());
+        assertTrue(third.cancel());
+        assertFalse(third.cancel());
+        assertEquals(1, wheel.size());
+
+        wheel.expireTimeouts(1100);
+        assertEquals(List.of("second"), fired);
+    }
+
+    @Test
+    void testExpiredTimeoutCannotBeCancelled() {
+        HashedTimingWheel.Timeout timeout = wheel.newTimeout(() -> fired.add("a"), 1010);
+
+        wheel.expireTimeouts(1010);
+
+        assertFalse(timeout.cancel());
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void testTaskCanScheduleAnotherTimeout() {
+        wheel.newTimeout(() -> {
+            fired.add("first");
+            wheel.newTimeout(() -> fired.add("second"), 1040);
+        }, 1010);
+
+        wheel.expireTimeouts(1010);
+        assertEquals(List.of("first"), fired);
+
+        wheel.expireTimeouts(1040);
+        assertEquals(List.of("first", "second"), fired);
+    }
+
+    @Test
+    void testInvalidWheelSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel(10, 6, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel(0, 8, 0));
+    }
+}
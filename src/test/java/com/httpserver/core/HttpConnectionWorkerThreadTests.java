@@ -1,5 +1,316 @@
 package com.httpserver.core;
 
-public class HttpConnectionWorkerThreadTests {
-    // TO-DO
+import com.http.HttpDates;
+import com.httpserver.config.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HttpConnectionWorkerThread class.
+ */
+class HttpConnectionWorkerThreadTests {
+
+    private ServerSocket serverSocket;
+    private Configuration configuration;
+    private HashedTimingWheel timingWheel;
+
+    @TempDir
+    Path uploadRoot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Accept through a channel, as ServerListenerThread does, so file bodies go through transferTo
+        serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).socket();
+        configuration = new Configuration();
+        configuration.setWebroot("./webroot");
+        configuration.setKeepAliveTimeout(2000);
+        configuration.setMaxKeepAliveRequests(100);
+        timingWheel = new HashedTimingWheel(10, 64, HashedTimingWheel.now());
+        timingWheel.start("test-timeouts");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        timingWheel.stop();
+        serverSocket.close();
+    }
+
+    @Test
+    void testServesMultipleRequestsOnOneConnection() throws Exception {
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+
+            out.write(request("/index.html", null));
+            RawResponse first = RawResponse.read(in);
+            assertEquals(200, first.statusCode);
+            assertEquals("keep-alive", first.headers.get("Connection"));
+            assertEquals("java-http-server", first.headers.get("Server"));
+            assertTrue(HttpDates.parse(first.headers.get("Date")) > 0);
+
+            out.write(request("/page1.html", null));
+            RawResponse second = RawResponse.read(in);
+            assertEquals(200, second.statusCode);
+            assertEquals("keep-alive", second.headers.get("Connection"));
+        }
+    }
+
+    @Test
+    void testFileBodyIsTransferredIntact() throws Exception {
+        byte[] expected = Files.readAllBytes(Path.of("./webroot/index.html"));
+        try (Socket client = connect()) {
+            client.getOutputStream().write(request("/index.html", null));
+
+            RawResponse response = RawResponse.read(client.getInputStream());
+            assertEquals(200, response.statusCode);
+            assertArrayEquals(expected, response.body);
+        }
+    }
+
+    @Test
+    void testServesPipelinedRequests() throws Exception {
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+
+            ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+            pipelined.write(request("/index.html", null));
+            pipelined.write(request("/missing.html", null));
+            out.write(pipelined.toByteArray());
+
+            assertEquals(200, RawResponse.read(in).statusCode);
+            assertEquals(404, RawResponse.read(in).statusCode);
+        }
+    }
+
+    @Test
+    void testConnectionCloseIsHonoured() throws Exception {
+        try (Socket client = connect()) {
+            client.getOutputStream().write(request("/index.html", "close"));
+            InputStream in = client.getInputStream();
+
+            RawResponse response = RawResponse.read(in);
+            assertEquals(200, response.statusCode);
+            assertEquals("close", response.headers.get("Connection"));
+            assertEquals(-1, in.read(), "Server should close the connection");
+        }
+    }
+
+    @Test
+    void testMaxRequestsPerConnection() throws Exception {
+        configuration.setMaxKeepAliveRequests(2);
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+
+            out.write(request("/index.html", null));
+            assertEquals("keep-alive", RawResponse.read(in).headers.get("Connection"));
+
+            out.write(request("/index.html", null));
+            assertEquals("close", RawResponse.read(in).headers.get("Connection"));
+            assertEquals(-1, in.read(), "Server should close the connection after the last allowed request");
+        }
+    }
+
+    @Test
+    void testUnreadRequestBodyIsSkipped() throws Exception {
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+
+            out.write("GET /index.html HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello"
+                    .getBytes(StandardCharsets.US_ASCII));
+            assertEquals(200, RawResponse.read(in).statusCode);
+
+            out.write(request("/page1.html", null));
+            assertEquals(200, RawResponse.read(in).statusCode);
+        }
+    }
+
+    @Test
+    void testOversizedRequestBodyIsRejected() throws Exception {
+        configuration.setMaxRequestBodySize(16);
+        try (Socket client = connect()) {
+            client.getOutputStream().write("GET /index.html HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1048576\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            InputStream in = client.getInputStream();
+
+            RawResponse response = RawResponse.read(in);
+            assertEquals(413, response.statusCode);
+            assertEquals("close", response.headers.get("Connection"));
+            assertEquals(-1, in.read(), "Server should close the connection");
+        }
+    }
+
+    @Test
+    void testUploadWaitsForContinueBeforeBody() throws Exception {
+        configuration.setUploadRoot(uploadRoot.toString());
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+
+            out.write("PUT /uploads/a.txt HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\nExpect: 100-continue\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            RawResponse interim = RawResponse.read(in);
+            assertEquals(100, interim.statusCode);
+
+            out.write("hello".getBytes(StandardCharsets.US_ASCII));
+            RawResponse created = RawResponse.read(in);
+            assertEquals(201, created.statusCode);
+            assertEquals("keep-alive", created.headers.get("Connection"));
+            assertEquals("hello", Files.readString(uploadRoot.resolve("a.txt")));
+
+            out.write(request("/index.html", null));
+            assertEquals(200, RawResponse.read(in).statusCode);
+        }
+    }
+
+    @Test
+    void testRejectedUploadNeverAsksForBody() throws Exception {
+        configuration.setUploadRoot(uploadRoot.toString());
+        try (Socket client = connect()) {
+            client.getOutputStream().write(("PUT /uploads/../a.txt HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1048576\r\n"
+                    + "Expect: 100-continue\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            InputStream in = client.getInputStream();
+
+            RawResponse response = RawResponse.read(in);
+            assertEquals(403, response.statusCode);
+            assertEquals("close", response.headers.get("Connection"));
+            assertEquals(-1, in.read(), "Server should close the connection instead of reading the body");
+        }
+    }
+
+    @Test
+    void testIdleConnectionIsClosedAfterTimeout() throws Exception {
+        configuration.setKeepAliveTimeout(200);
+        try (Socket client = connect()) {
+            client.setSoTimeout(5000);
+            assertEquals(-1, client.getInputStream().read(), "Server should close the idle connection");
+        }
+    }
+
+    @Test
+    void testTricklingHeadersAreCutOffByHeaderReadTimeout() throws Exception {
+        configuration.setHeaderReadTimeout(300);
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            long start = System.nanoTime();
+            byte[] header = "GET /index.html HTTP/1.1\r\nX-Slow: ".getBytes(StandardCharsets.US_ASCII);
+            try {
+                // Each byte arrives well within the keep-alive timeout, but the headers never end
+                for (int i = 0; i < 100; i++) {
+                    out.write(header[Math.min(i, header.length - 1)]);
+                    out.flush();
+                    Thread.sleep(50);
+                }
+                fail("Server should close a connection whose headers take too long");
+            } catch (IOException e) {
+                // The server reset the connection while the client was still writing
+            }
+            assertTrue(System.nanoTime() - start < 4_000_000_000L);
+        }
+    }
+
+    @Test
+    void testStalledBodyIsCutOffByBodyReadTimeout() throws Exception {
+        configuration.setUploadRoot(uploadRoot.toString());
+        configuration.setBodyReadTimeout(200);
+        try (Socket client = connect()) {
+            client.getOutputStream().write(("PUT /uploads/stalled.txt HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Length: 10\r\n\r\nabc").getBytes(StandardCharsets.US_ASCII));
+
+            assertEquals(-1, client.getInputStream().read(), "Server should close a connection whose body stalls");
+        }
+        assertFalse(Files.exists(uploadRoot.resolve("stalled.txt")));
+    }
+
+    @Test
+    void testSlowResponseReaderIsNotCutOffByReadTimeouts(@TempDir Path webroot) throws Exception {
+        // Sending a response is not a read, so only waiting for the client counts towards the read timeouts
+        Files.write(webroot.resolve("large.bin"), new byte[4 * 1024 * 1024]);
+        configuration.setWebroot(webroot.toString());
+        configuration.setBodyReadTimeout(50);
+        configuration.setRequestTimeout(50);
+        try (Socket client = connect()) {
+            client.getOutputStream().write(request("/large.bin", "close"));
+            Thread.sleep(300);
+
+            RawResponse response = RawResponse.read(client.getInputStream());
+            assertEquals(200, response.statusCode);
+            assertEquals(4 * 1024 * 1024, response.body.length);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        client.setSoTimeout(5000);
+        Socket accepted = serverSocket.accept();
+        RequestDispatcher dispatcher = new RequestDispatcher(configuration.getWebroot());
+        if (configuration.getUploadRoot() != null) {
+            dispatcher.addUploadRoute(Path.of(configuration.getUploadRoot()), configuration.getUploadPath());
+        }
+        new Thread(new HttpConnectionWorkerThread(accepted, configuration, dispatcher, timingWheel)).start();
+        return client;
+    }
+
+    private static byte[] request(String target, String connection) {
+        String raw = "GET " + target + " HTTP/1.1\r\nHost: localhost\r\n"
+                + (connection != null ? "Connection: " + connection + "\r\n" : "")
+                + "\r\n";
+        return raw.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Minimal response reader that relies on Content-Length to find the end of each response.
+     */
+    static final class RawResponse {
+        int statusCode;
+        final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byte[] body;
+
+        static RawResponse read(InputStream in) throws IOException {
+            RawResponse response = new RawResponse();
+            String statusLine = readLine(in);
+            assertNotNull(statusLine, "Connection closed before a response was received");
+            response.statusCode = Integer.parseInt(statusLine.split(" ")[1]);
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                response.headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+            String contentLength = response.headers.get("Content-Length");
+            response.body = in.readNBytes(contentLength != null ? Integer.parseInt(contentLength) : 0);
+            return response;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) >= 0 && b != '\n') {
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return b < 0 && line.length() == 0 ? null : line.toString();
+        }
+    }
 }
@@ -0,0 +1,296 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+import com.httpserver.core.HttpConnectionWorkerThreadTests.RawResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the NioServerListenerThread class.
+ */
+class NioServerListenerThreadTests {
+
+    private NioServerListenerThread server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setEventLoopThreads(2);
+        configuration.setWorkerThreads(2);
+        server = new NioServerListenerThread(configuration);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.shutdown();
+        server.join(5000);
+    }
+
+    @Test
+    void testServesRequest() throws Exception {
+        try (Socket client = connect()) {
+            client.getOutputStream().write(ascii("GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+
+            RawResponse response = RawResponse.read(client.getInputStream());
+            assertEquals(200, response.statusCode);
+            assertArrayEquals(Files.readAllBytes(Paths.get("./webroot/index.html")), response.body);
+        }
+    }
+
+    @Test
+    void testLargeFileIsTransferredAcrossWritableEvents(@TempDir Path webroot) throws Exception {
+        // Larger than any socket send buffer, so the transfer has to resume on OP_WRITE
+        byte[] content = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        Files.write(webroot.resolve("large.bin"), content);
+
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot(webroot.toString());
+        configuration.setEventLoopThreads(1);
+        configuration.setWorkerThreads(1);
+        NioServerListenerThread largeFileServer = new NioServerListenerThread(configuration);
+        largeFileServer.start();
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), largeFileServer.getLocalPort())) {
+            client.setSoTimeout(5000);
+            client.getOutputStream().write(ascii("GET /large.bin HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+            Thread.sleep(100);
+
+            RawResponse response = RawResponse.read(client.getInputStream());
+            assertEquals(200, response.statusCode);
+            assertArrayEquals(content, response.body);
+        } finally {
+            largeFileServer.shutdown();
+            largeFileServer.join(5000);
+        }
+    }
+
+    @Test
+    void testMultipleRangesOnPersistentConnection() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("./webroot/index.html"));
+        try (Socket client = connect()) {
+            client.getOutputStream().write(ascii("GET /index.html HTTP/1.1\r\nHost: localhost\r\nRange: bytes=0-9,20-29\r\n\r\n"));
+
+            RawResponse response = RawResponse.read(client.getInputStream());
+            assertEquals(206, response.statusCode);
+            String body = new String(response.body, StandardCharsets.UTF_8);
+            assertTrue(body.contains(new String(content, 0, 10, StandardCharsets.UTF_8)));
+            assertTrue(body.contains(new String(content, 20, 10, StandardCharsets.UTF_8)));
+
+            // The connection stays usable after the multipart body
+            client.getOutputStream().write(ascii("GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+            assertArrayEquals(content, RawResponse.read(client.getInputStream()).body);
+        }
+    }
+
+    @Test
+    void testLargeUploadIsStreamedToTheHandler(@TempDir Path uploadRoot) throws Exception {
+        // Many times the size of the body pipe, so the event loop has to stop and resume reading the socket
+        byte[] content = new byte[2 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setUploadRoot(uploadRoot.toString());
+        configuration.setEventLoopThreads(1);
+        configuration.setWorkerThreads(1);
+        NioServerListenerThread uploadServer = new NioServerListenerThread(configuration);
+        uploadServer.start();
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), uploadServer.getLocalPort())) {
+            client.setSoTimeout(5000);
+            OutputStream out = client.getOutputStream();
+            out.write(ascii("PUT /uploads/large.bin HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + content.length
+                    + "\r\n\r\n"));
+            out.write(content);
+
+            InputStream in = client.getInputStream();
+            RawResponse created = RawResponse.read(in);
+            assertEquals(201, created.statusCode);
+            assertEquals("keep-alive", created.headers.get("Connection"));
+            assertArrayEquals(content, Files.readAllBytes(uploadRoot.resolve("large.bin")));
+
+            out.write(ascii("GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+            assertEquals(200, RawResponse.read(in).statusCode);
+        } finally {
+            uploadServer.shutdown();
+            uploadServer.join(5000);
+        }
+    }
+
+    @Test
+    void testUploadWaitsForContinueBeforeBody(@TempDir Path uploadRoot) throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setUploadRoot(uploadRoot.toString());
+        configuration.setEventLoopThreads(1);
+        NioServerListenerThread uploadServer = new NioServerListenerThread(configuration);
+        uploadServer.start();
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), uploadServer.getLocalPort())) {
+            client.setSoTimeout(5000);
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+
+            out.write(ascii("PUT /uploads/a.txt HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n"
+                    + "Expect: 100-continue\r\n\r\n"));
+            assertEquals(100, RawResponse.read(in).statusCode);
+
+            out.write(ascii("hello"));
+            RawResponse created = RawResponse.read(in);
+            assertEquals(201, created.statusCode);
+            assertEquals("keep-alive", created.headers.get("Connection"));
+            assertEquals("hello", Files.readString(uploadRoot.resolve("a.txt")));
+
+            out.write(ascii("GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+            assertEquals(200, RawResponse.read(in).statusCode);
+        } finally {
+            uploadServer.shutdown();
+            uploadServer.join(5000);
+        }
+    }
+
+    @Test
+    void testRequestSplitAcrossWrites() throws Exception {
+        try (Socket client = connect()) {
+            OutputStream out = client.getOutputStream();
+            out.write(ascii("GET /index.h"));
+            out.flush();
+            Thread.sleep(50);
+            out.write(ascii("tml HTTP/1.1\r\nHo"));
+            out.flush();
+            Thread.sleep(50);
+            out.write(ascii("st: localhost\r\n\r\n"));
+
+            assertEquals(200, RawResponse.read(client.getInputStream()).statusCode);
+        }
+    }
+
+    @Test
+    void testPipelinedRequestsOnOneConnection() throws Exception {
+        try (Socket client = connect()) {
+            client.getOutputStream().write(ascii(
+                    "GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                            + "GET /missing.html HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                            + "GET /page1.html HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"));
+            InputStream in = client.getInputStream();
+
+            assertEquals(200, RawResponse.read(in).statusCode);
+            assertEquals(404, RawResponse.read(in).statusCode);
+            RawResponse last = RawResponse.read(in);
+            assertEquals(200, last.statusCode);
+            assertEquals("close", last.headers.get("Connection"));
+            assertEquals(-1, in.read(), "Server should close the connection");
+        }
+    }
+
+    @Test
+    void testMalformedRequestIsRejected() throws Exception {
+        try (Socket client = connect()) {
+            client.getOutputStream().write(ascii("GET / HTTP/1.1\r\nInvalid-Header\r\n\r\n"));
+            InputStream in = client.getInputStream();
+
+            assertEquals(400, RawResponse.read(in).statusCode);
+            assertEquals(-1, in.read(), "Server should close the connection");
+        }
+    }
+
+    @Test
+    void testIdleAndTricklingConnectionsAreClosedByTheirTimeouts() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setEventLoopThreads(1);
+        configuration.setWorkerThreads(1);
+        configuration.setKeepAliveTimeout(300);
+        configuration.setHeaderReadTimeout(300);
+        NioServerListenerThread timeoutServer = new NioServerListenerThread(configuration);
+        timeoutServer.start();
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), timeoutServer.getLocalPort());
+             Socket trickling = new Socket(InetAddress.getLoopbackAddress(), timeoutServer.getLocalPort())) {
+            idle.setSoTimeout(5000);
+            trickling.setSoTimeout(5000);
+
+            // Every byte arrives within the keep-alive timeout, but the headers take longer than theirs
+            OutputStream out = trickling.getOutputStream();
+            byte[] header = ascii("GET /index.html HTTP/1.1\r\nX-Slow: ");
+            try {
+                for (int i = 0; i < 100; i++) {
+                    out.write(header[Math.min(i, header.length - 1)]);
+                    out.flush();
+                    Thread.sleep(50);
+                }
+                fail("Server should close a connection whose headers take too long");
+            } catch (IOException e) {
+                // The server reset the connection while the client was still writing
+            }
+
+            assertEquals(-1, idle.getInputStream().read(), "Server should close the idle connection");
+        } finally {
+            timeoutServer.shutdown();
+            timeoutServer.join(5000);
+        }
+    }
+
+    @Test
+    void testSlowBodyIsGovernedByTheBodyReadTimeout(@TempDir Path uploadRoot) throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setUploadRoot(uploadRoot.toString());
+        configuration.setEventLoopThreads(1);
+        configuration.setWorkerThreads(1);
+        configuration.setHeaderReadTimeout(300);
+        configuration.setBodyReadTimeout(2000);
+        NioServerListenerThread timeoutServer = new NioServerListenerThread(configuration);
+        timeoutServer.start();
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), timeoutServer.getLocalPort())) {
+            client.setSoTimeout(5000);
+            OutputStream out = client.getOutputStream();
+            out.write(ascii("PUT /uploads/slow.txt HTTP/1.1\r\nHost: localhost\r\nContent-Length: 10\r\n\r\n"));
+            out.flush();
+
+            // The body takes several header read timeouts to arrive, but each byte comes well within the body's
+            byte[] body = ascii("0123456789");
+            for (byte b : body) {
+                Thread.sleep(100);
+                out.write(b);
+                out.flush();
+            }
+
+            assertEquals(201, RawResponse.read(client.getInputStream()).statusCode);
+            assertEquals("0123456789", Files.readString(uploadRoot.resolve("slow.txt")));
+        } finally {
+            timeoutServer.shutdown();
+            timeoutServer.join(5000);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        client.setSoTimeout(5000);
+        return client;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
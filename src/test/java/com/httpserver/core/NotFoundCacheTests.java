@@ -0,0 +1,77 @@
+package com.httpserver.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the NotFoundCache class.
+ */
+class NotFoundCacheTests {
+
+    @Test
+    void testRecordedTargetIsMissingUntilCleared() {
+        NotFoundCache cache = new NotFoundCache(16, false);
+
+        cache.recordMissing("/missing.html", cache.getGeneration());
+        assertTrue(cache.isMissing("/missing.html"));
+
+        cache.clear();
+        assertFalse(cache.isMissing("/missing.html"));
+    }
+
+    @Test
+    void testTargetLookedUpBeforeAChangeIsNotRecorded() {
+        NotFoundCache cache = new NotFoundCache(16, false);
+        long observed = cache.getGeneration();
+
+        cache.clear();
+        cache.recordMissing("/new.html", observed);
+
+        assertFalse(cache.isMissing("/new.html"));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    void testFilterRulesOutUnknownTargetsInIndexForm() {
+        NotFoundCache cache = new NotFoundCache(16, true);
+        cache.setKnownTargets(List.of("/index.html", "/css/site.css"));
+
+        assertFalse(cache.isMissing("/index.html"));
+        assertFalse(cache.isMissing("/css/site.css"));
+        assertTrue(cache.isMissing("/wp-login.php"));
+        assertFalse(cache.isMissing("/css/../index.html"));
+        assertFalse(cache.isMissing("//index.html"));
+
+        cache.addKnownTarget("/wp-login.php");
+        assertFalse(cache.isMissing("/wp-login.php"));
+
+        cache.setKnownTargets(null);
+        assertFalse(cache.isMissing("/other.php"));
+    }
+
+    @Test
+    void testEntryCountIsBounded() {
+        NotFoundCache cache = new NotFoundCache(2, false);
+
+        for (int i = 0; i < 5; i++) {
+            cache.recordMissing("/missing-" + i, cache.getGeneration());
+        }
+
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    void testIndexForm() {
+        assertTrue(NotFoundCache.isIndexForm("/index.html"));
+        assertTrue(NotFoundCache.isIndexForm("/a/.hidden/b.txt"));
+        assertFalse(NotFoundCache.isIndexForm("/"));
+        assertFalse(NotFoundCache.isIndexForm("/docs/"));
+        assertFalse(NotFoundCache.isIndexForm("/a//b"));
+        assertFalse(NotFoundCache.isIndexForm("/a/./b"));
+        assertFalse(NotFoundCache.isIndexForm("/a/.."));
+        assertFalse(NotFoundCache.isIndexForm("index.html"));
+    }
+}
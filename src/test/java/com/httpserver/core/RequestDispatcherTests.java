@@ -0,0 +1,145 @@
+package com.httpserver.core;
+
+import com.http.HttpMethod;
+import com.http.HttpParsingException;
+import com.http.HttpRequest;
+import com.http.HttpResponse;
+import com.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RequestDispatcher class.
+ */
+class RequestDispatcherTests {
+
+    @TempDir
+    Path webroot;
+
+    @Test
+    void testFilesAreIndexedWhenTheDispatcherIsBuilt() throws Exception {
+        Files.createDirectories(webroot.resolve("css"));
+        Files.writeString(webroot.resolve("css/site.css"), "body {}");
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString());
+        Route route = dispatcher.getRoutes().findExact("/css/site.css");
+
+        HttpResponse response = dispatch(dispatcher, "GET", "/css/site.css");
+
+        assertNotNull(route);
+        assertEquals(200, response.getStatusCode());
+        response.getHttpBody().close();
+        assertSame(route, dispatcher.getRoutes().findExact("/css/site.css"));
+    }
+
+    @Test
+    void testNewFileIsResolvedAndAddedToTheTable() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString());
+        Files.writeString(webroot.resolve("late.html"), "<p>late</p>");
+
+        HttpResponse response = dispatch(dispatcher, "GET", "/late.html");
+
+        assertEquals(200, response.getStatusCode());
+        response.getHttpBody().close();
+        assertNotNull(dispatcher.getRoutes().findExact("/late.html"));
+    }
+
+    @Test
+    void testDeletedFileGivesNotFound() throws Exception {
+        Path file = Files.writeString(webroot.resolve("gone.html"), "<p>gone</p>");
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString());
+        Files.delete(file);
+
+        assertEquals(404, dispatch(dispatcher, "GET", "/gone.html").getStatusCode());
+        assertNull(dispatcher.getRoutes().findExact("/gone.html"));
+    }
+
+    @Test
+    void testInvalidateDropsRoutesBelowADirectory() throws Exception {
+        Files.createDirectories(webroot.resolve("docs"));
+        Files.writeString(webroot.resolve("docs/a.html"), "a");
+        Files.writeString(webroot.resolve("index.html"), "index");
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString());
+
+        dispatcher.invalidate(webroot.resolve("docs"));
+
+        assertNull(dispatcher.getRoutes().findExact("/docs/a.html"));
+        assertNotNull(dispatcher.getRoutes().findExact("/index.html"));
+    }
+
+    @Test
+    void testPrefixRouteAndMethodNotAllowed() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString());
+        dispatcher.getRoutes().addPrefix("/api/", new Route(Map.of(HttpMethod.GET, (request, response) -> {
+            response.setStatusCode(204);
+            response.setReasonPhrase("No Content");
+        })));
+
+        assertEquals(204, dispatch(dispatcher, "GET", "/api/ping").getStatusCode());
+        HttpResponse response = dispatch(dispatcher, "HEAD", "/api/ping");
+        assertEquals(405, response.getStatusCode());
+        assertEquals("GET", response.getHeaders().get("Allow"));
+        assertEquals(404, dispatch(dispatcher, "GET", "/missing").getStatusCode());
+    }
+
+    @Test
+    void testKnownMissingTargetIsAnsweredWithoutTheDisk() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString(), null, null, new NotFoundCache(16, false));
+        dispatcher.watchStateChanged(true);
+
+        HttpResponse first = dispatch(dispatcher, "GET", "/new.html");
+        // Without a change event the recorded 404 is still trusted
+        Files.writeString(webroot.resolve("new.html"), "<p>new</p>");
+        HttpResponse second = dispatch(dispatcher, "GET", "/new.html");
+
+        assertEquals(404, first.getStatusCode());
+        assertEquals(404, second.getStatusCode());
+        assertEquals("<html><body><h1>404 Not Found</h1></body></html>",
+                StandardCharsets.US_ASCII.decode(second.getHttpBody().getContent()).toString());
+        assertEquals(1, dispatcher.getNotFoundCache().getHitCount());
+
+        dispatcher.invalidate(webroot.resolve("new.html"));
+        assertEquals(404, dispatch(dispatcher, "GET", "/new.html").getStatusCode());
+
+        dispatcher.created(webroot.resolve("new.html"));
+        HttpResponse created = dispatch(dispatcher, "GET", "/new.html");
+        assertEquals(200, created.getStatusCode());
+        created.getHttpBody().close();
+    }
+
+    @Test
+    void testFilterAdmitsFilesInCreatedDirectories() throws Exception {
+        Files.writeString(webroot.resolve("index.html"), "index");
+        RequestDispatcher dispatcher = new RequestDispatcher(webroot.toString(), null, null, new NotFoundCache(16, true));
+        dispatcher.watchStateChanged(true);
+
+        assertEquals(404, dispatch(dispatcher, "GET", "/blog/post.html").getStatusCode());
+        assertEquals(0, dispatcher.getNotFoundCache().getEntryCount());
+
+        Files.createDirectories(webroot.resolve("blog"));
+        Files.writeString(webroot.resolve("blog/post.html"), "post");
+        dispatcher.created(webroot.resolve("blog"));
+
+        HttpResponse response = dispatch(dispatcher, "GET", "/blog/post.html");
+        assertEquals(200, response.getStatusCode());
+        response.getHttpBody().close();
+    }
+
+    private static HttpResponse dispatch(RequestDispatcher dispatcher, String method, String target)
+            throws HttpParsingException {
+        HttpRequest request = new HttpRequest();
+        request.setMethod(method);
+        request.setRequestTarget(target);
+        request.setHttpVersion("HTTP/1.1");
+        HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+        dispatcher.dispatch(request, response);
+        return response;
+    }
+}
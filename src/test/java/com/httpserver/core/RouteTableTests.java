@@ -0,0 +1,47 @@
+package com.httpserver.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RouteTable class.
+ */
+class RouteTableTests {
+
+    @Test
+    void testExactRouteWinsOverPrefix() {
+        RouteTable routes = new RouteTable();
+        Route exact = new Route(Map.of());
+        Route prefix = new Route(Map.of());
+        routes.addExact("/api/health", exact);
+        routes.addPrefix("/api/", prefix);
+
+        assertSame(exact, routes.resolve("/api/health"));
+        assertSame(prefix, routes.resolve("/api/users"));
+    }
+
+    @Test
+    void testLongestPrefixWins() {
+        RouteTable routes = new RouteTable();
+        Route api = new Route(Map.of());
+        Route admin = new Route(Map.of());
+        routes.addPrefix("/api/", api);
+        routes.addPrefix("/api/admin/", admin);
+
+        assertSame(admin, routes.resolve("/api/admin/users"));
+        assertSame(api, routes.resolve("/api/users"));
+    }
+
+    @Test
+    void testFallbackCatchesUnmatchedTargets() {
+        RouteTable routes = new RouteTable();
+        assertNull(routes.resolve("/missing"));
+
+        Route fallback = new Route(Map.of());
+        routes.setFallback(fallback);
+        assertSame(fallback, routes.resolve("/missing"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.httpserver.core;
+
+import com.httpserver.config.Configuration;
+import com.httpserver.core.HttpConnectionWorkerThreadTests.RawResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ServerListenerGroup class.
+ */
+class ServerListenerGroupTests {
+
+    private ServerListenerGroup group;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setKeepAliveTimeout(2000);
+        configuration.setAcceptorThreads(4);
+        configuration.setWorkerThreads(8);
+        group = new ServerListenerGroup(configuration);
+        group.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        group.shutdown();
+        group.join(5000);
+    }
+
+    @Test
+    void testAcceptorsShareThePort() {
+        assertTrue(group.getAcceptorCount() == 4 || group.getAcceptorCount() == 1);
+        assertTrue(group.getLocalPort() > 0);
+    }
+
+    @Test
+    void testServesConnectionsAcrossAcceptors() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), group.getLocalPort())) {
+                client.setSoTimeout(5000);
+                client.getOutputStream().write("GET /index.html HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+
+                assertEquals(200, RawResponse.read(client.getInputStream()).statusCode);
+            }
+        }
+    }
+}
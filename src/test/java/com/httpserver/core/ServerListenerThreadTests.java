@@ -1,5 +1,136 @@
 package com.httpserver.core;
 
-public class ServerListenerThreadTests {
-    // TO-DO
+import com.httpserver.config.Configuration;
+import com.httpserver.config.HttpConfigurationException;
+import com.httpserver.config.ServerMode;
+import com.httpserver.core.HttpConnectionWorkerThreadTests.RawResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for the ServerListenerThread class.
+ */
+class ServerListenerThreadTests {
+
+    private ServerListenerThread server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerListenerThread(configuration(ServerMode.BLOCKING));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.shutdown();
+        server.join(5000);
+    }
+
+    @Test
+    void testServesRequest() throws Exception {
+        try (Socket client = connect()) {
+            client.getOutputStream().write(request());
+
+            assertEquals(200, RawResponse.read(client.getInputStream()).statusCode);
+        }
+    }
+
+    @Test
+    void testSaturatedPoolRejectsWithServiceUnavailable() throws Exception {
+        try (Socket busy = connect(); Socket queued = connect()) {
+            // The only worker is now held by the keep-alive connection, and the second connection fills the queue
+            busy.getOutputStream().write(request());
+            assertEquals(200, RawResponse.read(busy.getInputStream()).statusCode);
+
+            try (Socket rejected = connect()) {
+                RawResponse response = RawResponse.read(rejected.getInputStream());
+
+                assertEquals(503, response.statusCode);
+                assertEquals("3", response.headers.get("Retry-After"));
+                assertEquals("close", response.headers.get("Connection"));
+                assertEquals(-1, rejected.getInputStream().read());
+            }
+            assertTrue(queued.isConnected());
+        }
+    }
+
+    @Test
+    void testRejectedClientStillSendingGetsServiceUnavailable() throws Exception {
+        try (Socket busy = connect(); Socket queued = connect()) {
+            busy.getOutputStream().write(request());
+            assertEquals(200, RawResponse.read(busy.getInputStream()).statusCode);
+
+            try (Socket rejected = connect()) {
+                // The unread upload would reset the connection if it were closed as soon as the 503 was written
+                String head = "PUT /upload.txt HTTP/1.1\r\nHost: localhost\r\nContent-Length: 32768\r\n\r\n";
+                rejected.getOutputStream().write(head.getBytes(StandardCharsets.US_ASCII));
+                rejected.getOutputStream().write(new byte[32768]);
+                Thread.sleep(100);
+                RawResponse response = RawResponse.read(rejected.getInputStream());
+
+                assertEquals(503, response.statusCode);
+                assertEquals(-1, rejected.getInputStream().read());
+            }
+        }
+    }
+
+    @Test
+    void testVirtualModeServesRequests() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "Virtual threads require Java 21");
+        ServerListenerThread virtualServer = new ServerListenerThread(configuration(ServerMode.VIRTUAL));
+        virtualServer.start();
+        try (Socket first = new Socket(InetAddress.getLoopbackAddress(), virtualServer.getLocalPort());
+             Socket second = new Socket(InetAddress.getLoopbackAddress(), virtualServer.getLocalPort())) {
+            // With a thread per connection, an idle keep-alive connection does not hold up the next one
+            first.setSoTimeout(5000);
+            second.setSoTimeout(5000);
+            first.getOutputStream().write(request());
+            assertEquals(200, RawResponse.read(first.getInputStream()).statusCode);
+            second.getOutputStream().write(request());
+            assertEquals(200, RawResponse.read(second.getInputStream()).statusCode);
+        } finally {
+            virtualServer.shutdown();
+            virtualServer.join(5000);
+        }
+    }
+
+    @Test
+    void testVirtualModeIsRejectedBeforeJava21() {
+        assumeFalse(VirtualThreads.isSupported(), "Virtual threads are available");
+
+        assertThrows(HttpConfigurationException.class, () -> new ServerListenerThread(configuration(ServerMode.VIRTUAL)));
+    }
+
+    private static Configuration configuration(ServerMode mode) {
+        Configuration configuration = new Configuration();
+        configuration.setPort(0);
+        configuration.setWebroot("./webroot");
+        configuration.setKeepAliveTimeout(2000);
+        configuration.setServerMode(mode);
+        configuration.setWorkerThreads(1);
+        configuration.setWorkerQueueCapacity(1);
+        configuration.setOverloadRetryAfter(3);
+        configuration.setCacheMaxBytes(0);
+        return configuration;
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        client.setSoTimeout(5000);
+        return client;
+    }
+
+    private static byte[] request() {
+        return "GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    }
 }
@@ -0,0 +1,56 @@
+package com.httpserver.handlers;
+
+import com.http.HttpDates;
+import com.http.HttpParser;
+import com.http.HttpParsingException;
+import com.http.HttpRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ConditionalRequests class.
+ */
+class ConditionalRequestsTests {
+
+    private static final String ETAG = "\"5f1a-3c\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_500L;
+
+    @Test
+    void testUnconditionalRequest() throws IOException, HttpParsingException {
+        assertFalse(ConditionalRequests.isNotModified(request(""), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void testIfNoneMatch() throws IOException, HttpParsingException {
+        assertTrue(ConditionalRequests.isNotModified(request("If-None-Match: \"other\", " + ETAG + "\r\n"), ETAG, LAST_MODIFIED));
+        assertTrue(ConditionalRequests.isNotModified(request("If-None-Match: W/" + ETAG + "\r\n"), ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequests.isNotModified(request("If-None-Match: \"other\"\r\n"), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void testIfModifiedSince() throws IOException, HttpParsingException {
+        String same = "If-Modified-Since: " + HttpDates.format(LAST_MODIFIED) + "\r\n";
+        String earlier = "If-Modified-Since: " + HttpDates.format(LAST_MODIFIED - 5000) + "\r\n";
+
+        assertTrue(ConditionalRequests.isNotModified(request(same), ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequests.isNotModified(request(earlier), ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequests.isNotModified(request("If-Modified-Since: garbage\r\n"), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void testIfNoneMatchTakesPrecedenceOverIfModifiedSince() throws IOException, HttpParsingException {
+        String headers = "If-None-Match: \"other\"\r\nIf-Modified-Since: " + HttpDates.format(LAST_MODIFIED) + "\r\n";
+
+        assertFalse(ConditionalRequests.isNotModified(request(headers), ETAG, LAST_MODIFIED));
+    }
+
+    private static HttpRequest request(String headers) throws IOException, HttpParsingException {
+        String raw = "GET /index.html HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n";
+        return new HttpParser().parseHttpRequest(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
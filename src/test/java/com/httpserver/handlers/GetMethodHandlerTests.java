@@ -1,13 +1,22 @@
 package com.httpserver.handlers;
 
 import com.http.*;
+import com.httpserver.cache.FileMetadataCache;
+import com.httpserver.cache.Precompressor;
+import com.httpserver.cache.StaticContentCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,8 +50,8 @@ class GetMethodHandlerTests {
 
         assertEquals(200, response.getStatusCode());
         assertEquals("OK", response.getReasonPhrase());
-        assertEquals(expectedBody, response.getBody());
-        assertEquals(Files.probeContentType(Paths.get(file.getPath())), response.getHeaders().get("Content-Type"));
+        assertEquals(expectedBody, new String(readFileRegion(response)));
+        assertEquals("text/html; charset=utf-8", response.getHeaders().get("Content-Type"));
         assertEquals(String.valueOf(file.length()), response.getHeaders().get("Content-Length"));
     }
 
@@ -58,8 +67,8 @@ class GetMethodHandlerTests {
 
         assertEquals(200, response.getStatusCode());
         assertEquals("OK", response.getReasonPhrase());
-        assertEquals(expectedBody, response.getBody());
-        assertEquals(Files.probeContentType(Paths.get(file.getPath())), response.getHeaders().get("Content-Type"));
+        assertEquals(expectedBody, new String(readFileRegion(response)));
+        assertEquals("text/html; charset=utf-8", response.getHeaders().get("Content-Type"));
         assertEquals(String.valueOf(file.length()), response.getHeaders().get("Content-Length"));
     }
 
@@ -75,4 +84,281 @@ class GetMethodHandlerTests {
         assertEquals("Internal Server Error", response.getReasonPhrase());
         assertEquals("<html><body><h1>500 Internal Server Error</h1></body></html>", response.getBody());
     }
+
+    @Test
+    void testHandleRequestWithBinaryFile(@TempDir Path directory) throws IOException {
+        byte[] content = new byte[256];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Path path = Files.write(directory.resolve("image.bin"), content);
+        getMethodHandler = new GetMethodHandler(path.toFile());
+
+        getMethodHandler.handle(request, response);
+
+        assertEquals(200, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("256", response.getHeaders().get("Content-Length"));
+        assertArrayEquals(content, readFileRegion(response));
+    }
+
+    @Test
+    void testHandleRequestFromCache() throws IOException, HttpParsingException {
+        request.setRequestTarget("/index.html");
+        File file = new File(WEBROOT, request.getRequestTarget());
+        StaticContentCache cache = new StaticContentCache(1024 * 1024, 1024 * 1024);
+        getMethodHandler = new GetMethodHandler(file, cache);
+
+        getMethodHandler.handle(request, new HttpResponse(HttpVersion.HTTP_1_1));
+        getMethodHandler.handle(request, response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(new String(Files.readAllBytes(file.toPath())), response.getBody());
+        assertEquals(String.valueOf(file.length()), response.getHeaders().get("Content-Length"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testResponseCarriesValidators() throws IOException, HttpParsingException {
+        request.setRequestTarget("/index.html");
+        File file = new File(WEBROOT, request.getRequestTarget());
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(request, response);
+        response.getHttpBody().close();
+
+        assertEquals(EntityTags.forFile(file.lastModified(), file.length()), response.getHeaders().get("ETag"));
+        assertEquals(HttpDates.format(file.lastModified()), response.getHeaders().get("Last-Modified"));
+    }
+
+    @Test
+    void testMatchingETagGivesNotModified() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        String etag = EntityTags.forFile(file.lastModified(), file.length());
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(conditionalRequest("If-None-Match: " + etag), response);
+
+        assertEquals(304, response.getStatusCode());
+        assertEquals("Not Modified", response.getReasonPhrase());
+        assertNull(response.getHttpBody());
+        assertEquals(etag, response.getHeaders().get("ETag"));
+        assertNull(response.getHeaders().get("Content-Length"));
+    }
+
+    @Test
+    void testIfModifiedSinceFromCacheGivesNotModified() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        StaticContentCache cache = new StaticContentCache(1024 * 1024, 1024 * 1024);
+        getMethodHandler = new GetMethodHandler(file, cache);
+
+        getMethodHandler.handle(conditionalRequest("If-Modified-Since: " + HttpDates.format(file.lastModified())), response);
+
+        assertEquals(304, response.getStatusCode());
+        assertNull(response.getHttpBody());
+        assertEquals(HttpDates.format(file.lastModified()), response.getHeaders().get("Last-Modified"));
+    }
+
+    @Test
+    void testStaleETagGivesFullResponse() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(conditionalRequest("If-None-Match: \"stale\""), response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(new String(Files.readAllBytes(file.toPath())), new String(readFileRegion(response)));
+    }
+
+    @Test
+    void testSingleRange() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        byte[] content = Files.readAllBytes(file.toPath());
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(conditionalRequest("Range: bytes=10-19"), response);
+
+        assertEquals(206, response.getStatusCode());
+        assertEquals("bytes 10-19/" + content.length, response.getHeaders().get("Content-Range"));
+        assertEquals("10", response.getHeaders().get("Content-Length"));
+        assertInstanceOf(FileRegion.class, response.getHttpBody());
+        assertEquals(new String(content, 10, 10, StandardCharsets.UTF_8), new String(readBody(response), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMultipleRangesFromCache() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        byte[] content = Files.readAllBytes(file.toPath());
+        getMethodHandler = new GetMethodHandler(file, new StaticContentCache(1024 * 1024, 1024 * 1024));
+
+        getMethodHandler.handle(conditionalRequest("Range: bytes=0-4,-5"), response);
+
+        assertEquals(206, response.getStatusCode());
+        String contentType = response.getHeaders().get("Content-Type");
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        String body = new String(readBody(response), StandardCharsets.UTF_8);
+        assertEquals(body.length(), Integer.parseInt(response.getHeaders().get("Content-Length")));
+        assertTrue(body.contains("Content-Range: bytes 0-4/" + content.length + "\r\n\r\n"
+                + new String(content, 0, 5, StandardCharsets.UTF_8) + "\r\n--" + boundary));
+        assertTrue(body.contains("Content-Range: bytes " + (content.length - 5) + "-" + (content.length - 1) + "/" + content.length
+                + "\r\n\r\n" + new String(content, content.length - 5, 5, StandardCharsets.UTF_8)));
+        assertTrue(body.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    void testUnsatisfiableRange() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(conditionalRequest("Range: bytes=100000-"), response);
+
+        assertEquals(416, response.getStatusCode());
+        assertEquals("bytes */" + file.length(), response.getHeaders().get("Content-Range"));
+        assertNull(response.getHttpBody());
+    }
+
+    @Test
+    void testStaleIfRangeGivesFullResponse() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(conditionalRequest("Range: bytes=0-4\r\nIf-Range: \"stale\""), response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("bytes", response.getHeaders().get("Accept-Ranges"));
+        assertEquals(file.length(), readBody(response).length);
+    }
+
+    @Test
+    void testMatchingIfRangeGivesPartialResponse() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        String etag = EntityTags.forFile(file.lastModified(), file.length());
+        getMethodHandler = new GetMethodHandler(file);
+
+        getMethodHandler.handle(conditionalRequest("Range: bytes=0-4\r\nIf-Range: " + etag), response);
+
+        assertEquals(206, response.getStatusCode());
+        assertEquals(5, readBody(response).length);
+    }
+
+    @Test
+    void testCachedTextIsGzipped(@TempDir Path directory) throws IOException, HttpParsingException {
+        String html = "<p>Hello, world</p>".repeat(200);
+        Path path = Files.writeString(directory.resolve("index.html"), html);
+        getMethodHandler = new GetMethodHandler(path.toFile(), new StaticContentCache(64 * 1024, 64 * 1024, 1024));
+
+        getMethodHandler.handle(conditionalRequest("Accept-Encoding: gzip"), response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        byte[] body = readBody(response);
+        assertEquals(String.valueOf(body.length), response.getHeaders().get("Content-Length"));
+        assertEquals(html, new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRangeRequestIsNotEncoded(@TempDir Path directory) throws IOException, HttpParsingException {
+        Path path = Files.writeString(directory.resolve("index.html"), "<p>Hello, world</p>".repeat(200));
+        getMethodHandler = new GetMethodHandler(path.toFile(), new StaticContentCache(64 * 1024, 64 * 1024, 1024));
+
+        getMethodHandler.handle(conditionalRequest("Accept-Encoding: gzip\r\nRange: bytes=0-2"), response);
+
+        assertEquals(206, response.getStatusCode());
+        assertNull(response.getHeaders().get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        assertEquals("<p>", new String(readBody(response), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSidecarIsSentToGzipClients(@TempDir Path directory) throws IOException, HttpParsingException {
+        String html = "<p>Hello, world</p>".repeat(200);
+        Path path = Files.writeString(directory.resolve("index.html"), html);
+        new Precompressor(1024).precompress(directory);
+        getMethodHandler = new GetMethodHandler(path.toFile());
+
+        getMethodHandler.handle(conditionalRequest("Accept-Encoding: gzip"), response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        assertNull(response.getHeaders().get("Accept-Ranges"));
+        byte[] body = readFileRegion(response);
+        assertEquals(String.valueOf(body.length), response.getHeaders().get("Content-Length"));
+        assertEquals(html, new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSidecarIsNotSentWithoutAcceptEncoding(@TempDir Path directory) throws IOException, HttpParsingException {
+        String html = "<p>Hello, world</p>".repeat(200);
+        Path path = Files.writeString(directory.resolve("index.html"), html);
+        new Precompressor(1024).precompress(directory);
+        getMethodHandler = new GetMethodHandler(path.toFile());
+
+        getMethodHandler.handle(conditionalRequest("Accept: */*"), response);
+
+        assertNull(response.getHeaders().get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        assertEquals("bytes", response.getHeaders().get("Accept-Ranges"));
+        assertEquals(html, new String(readFileRegion(response), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFileGoneBeforeOpenGivesUndescribedServerError(@TempDir Path directory) throws IOException, HttpParsingException {
+        Path path = Files.writeString(directory.resolve("index.html"), "<p>Hello, world</p>");
+        FileMetadataCache metadataCache = new FileMetadataCache(60_000, 16);
+        metadataCache.get(path);
+        Files.delete(path);
+        getMethodHandler = new GetMethodHandler(path.toFile(), null, metadataCache);
+
+        for (String header : new String[] {"Accept: */*", "Range: bytes=0-4", "Range: bytes=0-1,4-5"}) {
+            response = new HttpResponse(HttpVersion.HTTP_1_1);
+            getMethodHandler.handle(conditionalRequest(header), response);
+
+            assertEquals(500, response.getStatusCode());
+            assertNull(response.getHeaders().get("Content-Length"));
+            assertNull(response.getHeaders().get("Content-Range"));
+            assertNull(response.getHeaders().get("Content-Type"));
+            assertNull(response.getHeaders().get("ETag"));
+            assertNull(response.getHeaders().get("Last-Modified"));
+        }
+    }
+
+    private static HttpRequest conditionalRequest(String header) throws IOException, HttpParsingException {
+        String raw = "GET /index.html HTTP/1.1\r\nHost: localhost\r\n" + header + "\r\n\r\n";
+        return new HttpParser().parseHttpRequest(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Writes the body of a response the way it would be sent to the client.
+     *
+     * @param response the response
+     * @return the bytes of the body
+     * @throws IOException if the body cannot be written
+     */
+    private static byte[] readBody(HttpResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (HttpBody body = response.getHttpBody()) {
+            body.writeTo(Channels.newChannel(bytes));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the file region of a response the way it would be sent to the client.
+     *
+     * @param response the response holding the file region
+     * @return the bytes of the region
+     * @throws IOException if the file cannot be read
+     */
+    private static byte[] readFileRegion(HttpResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (HttpBody body = response.getHttpBody()) {
+            assertInstanceOf(FileRegion.class, body);
+            body.writeTo(Channels.newChannel(bytes));
+        }
+        return bytes.toByteArray();
+    }
 }
@@ -1,13 +1,18 @@
 package com.httpserver.handlers;
 
 import com.http.*;
+import com.httpserver.cache.FileMetadataCache;
+import com.httpserver.cache.StaticContentCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -43,7 +48,7 @@ class HeadMethodHandlerTests {
         assertEquals(200, response.getStatusCode());
         assertEquals("OK", response.getReasonPhrase());
         assertEquals("", response.getBody());
-        assertEquals(Files.probeContentType(Paths.get(file.getPath())), response.getHeaders().get("Content-Type"));
+        assertEquals("text/html; charset=utf-8", response.getHeaders().get("Content-Type"));
         assertEquals(String.valueOf(file.length()), response.getHeaders().get("Content-Length"));
     }
 
@@ -62,7 +67,7 @@ class HeadMethodHandlerTests {
         assertEquals(200, response.getStatusCode());
         assertEquals("OK", response.getReasonPhrase());
         assertEquals("", response.getBody());
-        assertEquals(Files.probeContentType(Paths.get(file.getPath())), response.getHeaders().get("Content-Type"));
+        assertEquals("text/html; charset=utf-8", response.getHeaders().get("Content-Type"));
         assertEquals(String.valueOf(file.length()), response.getHeaders().get("Content-Length"));
     }
 
@@ -78,4 +83,82 @@ class HeadMethodHandlerTests {
             assertEquals("No such file or directory", e.getMessage());
         }
     }
+
+    @Test
+    void testMatchingETagGivesNotModified() throws IOException, HttpParsingException {
+        File file = new File(WEBROOT, "/index.html");
+        String etag = EntityTags.forFile(file.lastModified(), file.length());
+        String raw = "HEAD /index.html HTTP/1.1\r\nHost: localhost\r\nIf-None-Match: " + etag + "\r\n\r\n";
+        HttpRequest conditional = new HttpParser().parseHttpRequest(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+        headMethodHandler = new HeadMethodHandler(file);
+
+        headMethodHandler.handle(conditional, response);
+
+        assertEquals(304, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().get("ETag"));
+        assertEquals(HttpDates.format(file.lastModified()), response.getHeaders().get("Last-Modified"));
+    }
+
+    @Test
+    void testHotFileIsServedFromMetadataCache(@TempDir Path webroot) throws IOException {
+        Path file = Files.writeString(webroot.resolve("hot.html"), "<h1>Hot</h1>");
+        FileMetadataCache metadataCache = new FileMetadataCache(60_000, 16);
+        metadataCache.watchStateChanged(true);
+        headMethodHandler = new HeadMethodHandler(file.toFile(), null, metadataCache);
+        headMethodHandler.handle(request, new HttpResponse(HttpVersion.HTTP_1_1));
+
+        // Without a change event the cached metadata is still trusted, so the disk is not consulted again
+        Files.delete(file);
+        headMethodHandler.handle(request, response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("12", response.getHeaders().get("Content-Length"));
+        assertEquals("text/html; charset=utf-8", response.getHeaders().get("Content-Type"));
+        assertEquals(1, metadataCache.getMissCount());
+        assertEquals(1, metadataCache.getHitCount());
+    }
+
+    @Test
+    void testHeadDoesNotReadFilesIntoTheCache(@TempDir Path webroot) throws IOException, HttpParsingException {
+        Path file = Files.writeString(webroot.resolve("page.html"), "<p>Hello, world</p>".repeat(200));
+        StaticContentCache cache = new StaticContentCache(1 << 20, 1 << 16, 1024);
+        headMethodHandler = new HeadMethodHandler(file.toFile(), cache);
+
+        headMethodHandler.handle(headRequest("Accept-Encoding: gzip"), response);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(String.valueOf(Files.size(file)), response.getHeaders().get("Content-Length"));
+        assertNull(response.getHeaders().get("Content-Encoding"));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    void testHeadDescribesOnlyVariantsAlreadyCompressed(@TempDir Path webroot) throws IOException, HttpParsingException {
+        Path file = Files.writeString(webroot.resolve("page.html"), "<p>Hello, world</p>".repeat(200));
+        StaticContentCache cache = new StaticContentCache(1 << 20, 1 << 16, 1024);
+        cache.get(file.toFile());
+        long unencodedSize = cache.getSize();
+        headMethodHandler = new HeadMethodHandler(file.toFile(), cache);
+
+        headMethodHandler.handle(headRequest("Accept-Encoding: gzip"), response);
+
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        assertNull(response.getHeaders().get("Content-Encoding"));
+        assertEquals(String.valueOf(Files.size(file)), response.getHeaders().get("Content-Length"));
+        assertEquals(unencodedSize, cache.getSize());
+
+        HttpRequest get = headRequest("Accept-Encoding: gzip");
+        new GetMethodHandler(file.toFile(), cache).handle(get, new HttpResponse(HttpVersion.HTTP_1_1));
+        response = new HttpResponse(HttpVersion.HTTP_1_1);
+        headMethodHandler.handle(headRequest("Accept-Encoding: gzip"), response);
+
+        assertEquals("gzip", response.getHeaders().get("Content-Encoding"));
+        assertTrue(Long.parseLong(response.getHeaders().get("Content-Length")) < Files.size(file));
+    }
+
+    private static HttpRequest headRequest(String header) throws IOException, HttpParsingException {
+        String raw = "HEAD /page.html HTTP/1.1\r\nHost: localhost\r\n" + header + "\r\n\r\n";
+        return new HttpParser().parseHttpRequest(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+    }
 }
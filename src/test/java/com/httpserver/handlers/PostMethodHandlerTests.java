@@ -0,0 +1,91 @@
+package com.httpserver.handlers;
+
+import com.http.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PostMethodHandler class.
+ */
+class PostMethodHandlerTests {
+
+    @TempDir
+    Path uploadRoot;
+
+    private final HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+
+    @Test
+    void testPostCreatesUniquelyNamedFile() throws Exception {
+        PostMethodHandler handler = new PostMethodHandler(uploadRoot, "/uploads/");
+
+        handler.handle(request("POST /uploads/inbox/", "Content-Length: 7\r\n", "payload"), response);
+
+        assertEquals(201, response.getStatusCode());
+        String location = response.getHeaders().get("Location");
+        assertTrue(location.startsWith("/uploads/inbox/"), location);
+        Path stored = uploadRoot.resolve(location.substring("/uploads/".length()));
+        assertEquals("payload", Files.readString(stored));
+    }
+
+    @Test
+    void testPostIntoExistingFileIsRejected() throws Exception {
+        Files.writeString(uploadRoot.resolve("file"), "x");
+        PostMethodHandler handler = new PostMethodHandler(uploadRoot, "/uploads");
+
+        handler.handle(request("POST /uploads/file", "Content-Length: 1\r\n", "y"), response);
+
+        assertEquals(409, response.getStatusCode());
+        assertEquals("x", Files.readString(uploadRoot.resolve("file")));
+    }
+
+    @Test
+    void testMultipartPostStoresEachFilePart() throws Exception {
+        PostMethodHandler handler = new PostMethodHandler(uploadRoot, "/uploads");
+        String body = "--b\r\n"
+                + "Content-Disposition: form-data; name=\"note\"\r\n\r\nskipped\r\n"
+                + "--b\r\n"
+                + "Content-Disposition: form-data; name=\"f\"; filename=\"one.txt\"\r\n\r\nfirst\r\n"
+                + "--b\r\n"
+                + "Content-Disposition: form-data; name=\"f\"; filename=\"two.txt\"\r\n\r\nsecond\r\n"
+                + "--b--\r\n";
+
+        handler.handle(request("POST /uploads/inbox", "Content-Type: multipart/form-data; boundary=b\r\n"
+                + "Content-Length: " + body.length() + "\r\n", body), response);
+
+        assertEquals(201, response.getStatusCode());
+        String[] locations = response.getBody().split("\r\n");
+        assertEquals(2, locations.length);
+        assertEquals(locations[0], response.getHeaders().get("Location"));
+        assertEquals("first", Files.readString(uploadRoot.resolve(locations[0].substring("/uploads/".length()))));
+        assertEquals("second", Files.readString(uploadRoot.resolve(locations[1].substring("/uploads/".length()))));
+    }
+
+    @Test
+    void testMultipartPostWithoutFileIsRejected() throws Exception {
+        PostMethodHandler handler = new PostMethodHandler(uploadRoot, "/uploads");
+        String body = "--b\r\nContent-Disposition: form-data; name=\"note\"\r\n\r\ntext\r\n--b--\r\n";
+
+        handler.handle(request("POST /uploads", "Content-Type: multipart/form-data; boundary=b\r\n"
+                + "Content-Length: " + body.length() + "\r\n", body), response);
+
+        assertEquals(400, response.getStatusCode());
+        try (var files = Files.list(uploadRoot)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static HttpRequest request(String requestLine, String headers, String body) throws IOException, HttpParsingException {
+        String raw = requestLine + " HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n" + body;
+        HttpParser parser = new HttpParser();
+        parser.setStreamingBody(true);
+        return parser.parseHttpRequest(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.httpserver.handlers;
+
+import com.http.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PutMethodHandler class.
+ */
+class PutMethodHandlerTests {
+
+    @TempDir
+    Path uploadRoot;
+
+    private final HttpResponse response = new HttpResponse(HttpVersion.HTTP_1_1);
+
+    @Test
+    void testPutCreatesThenReplacesFile() throws Exception {
+        PutMethodHandler handler = new PutMethodHandler(uploadRoot, "/uploads");
+
+        handler.handle(request("PUT /uploads/docs/a.txt", "Content-Length: 5\r\n", "hello"), response);
+        assertEquals(201, response.getStatusCode());
+        assertEquals("/uploads/docs/a.txt", response.getHeaders().get("Location"));
+        assertEquals("hello", Files.readString(uploadRoot.resolve("docs/a.txt")));
+
+        HttpResponse replaced = new HttpResponse(HttpVersion.HTTP_1_1);
+        handler.handle(request("PUT /uploads/docs/a.txt", "Transfer-Encoding: chunked\r\n", "3\r\nbye\r\n0\r\n\r\n"), replaced);
+        assertEquals(204, replaced.getStatusCode());
+        assertEquals("bye", Files.readString(uploadRoot.resolve("docs/a.txt")));
+        assertNoPartialFiles();
+    }
+
+    @Test
+    void testPutRejectsTargetsOutsideRootAndUnframedBodies() throws Exception {
+        PutMethodHandler handler = new PutMethodHandler(uploadRoot, "/uploads");
+
+        handler.handle(request("PUT /uploads/../escape.txt", "Content-Length: 1\r\n", "x"), response);
+        assertEquals(403, response.getStatusCode());
+
+        HttpResponse unframed = new HttpResponse(HttpVersion.HTTP_1_1);
+        handler.handle(request("PUT /uploads/a.txt", "", ""), unframed);
+        assertEquals(411, unframed.getStatusCode());
+        assertFalse(Files.exists(uploadRoot.resolve("a.txt")));
+    }
+
+    @Test
+    void testTruncatedUploadLeavesExistingFileUntouched() throws Exception {
+        Files.writeString(uploadRoot.resolve("a.txt"), "original");
+        PutMethodHandler handler = new PutMethodHandler(uploadRoot, "/uploads");
+
+        HttpRequest truncated = request("PUT /uploads/a.txt", "Content-Length: 100\r\n", "only part");
+        assertThrows(IOException.class, () -> handler.handle(truncated, response));
+        assertEquals("original", Files.readString(uploadRoot.resolve("a.txt")));
+        assertNoPartialFiles();
+    }
+
+    private void assertNoPartialFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadRoot)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".part")));
+        }
+    }
+
+    private static HttpRequest request(String requestLine, String headers, String body) throws IOException, HttpParsingException {
+        String raw = requestLine + " HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n" + body;
+        HttpParser parser = new HttpParser();
+        parser.setStreamingBody(true);
+        return parser.parseHttpRequest(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+    }
+}